@@ -7,6 +7,7 @@ public class Address {
 	private String city;
 	private String state;
 	private String zipCode;
+	private Person owner;		// the Person with this address, told when a field changes
 	// static fields
 	private static String states = "Alabama, Alaska, Arizona, Arkansas, California, Colorado, Connecticut, Delaware," +
             " District of Columbia, Florida, Georgia, Hawaii, Idaho, Illinois, Indiana, Iowa, Kansas, Kentucky," +
@@ -37,7 +38,9 @@ public class Address {
 
 
 	public void setStreetAddress(String streetAddress) {
+		changing();
 		this.streetAddress = streetAddress;
+		changed();
 	}
 
 
@@ -49,7 +52,10 @@ public class Address {
 
 
 	public void setCity(String city) {
-		this.city = Person.titleCase(city);
+		String result = Person.titleCase(city);
+		changing(SearchField.CITY);
+		this.city = result;
+		changed(SearchField.CITY);
 	}
 
 
@@ -60,23 +66,10 @@ public class Address {
 
 
 	public void setState(String state) throws InvalidStateException {
-		state = state.toUpperCase();
-		int index = -1;
-		if (state.length() == 2 && statesAbb.contains(state)) {	// valid two-letter state abbreviation
-			this.state = state;
-			return;
-		} else if (states.toUpperCase().contains(state)) {	// valid full state name
-			for (int i = 0; i < allStates.length; i++) {
-				String temp = allStates[i];
-				if (temp.equalsIgnoreCase(state)) {
-					index = i;							// convert full state name to two-letter abbreviation
-				}
-			}
-		}
-		if (index == -1) {
-			throw new InvalidStateException("Please enter a valid state");
-		}
-		this.state = stateAbbreviations[index];
+		String result = stateFormatter(state);		// validate before touching the indexes
+		changing(SearchField.STATE);
+		this.state = result;
+		changed(SearchField.STATE);
 	}
 	
 	
@@ -115,7 +108,58 @@ public class Address {
 				throw new InvalidZipCodeException("Please enter a valid 5-digit zip code");
 			}
 		}
+		changing(SearchField.ZIP_CODE);
 		this.zipCode = zipCode;
+		changed(SearchField.ZIP_CODE);
+	}
+
+
+	void setOwner(Person owner) {
+		this.owner = owner;
+	}
+
+	/**
+	 * Helper function that passes on to the Person with this address that the fields passed as a
+	 * parameter are about to change.  See {@code Person.changing(SearchField...)}.
+	 */
+	private void changing(SearchField... fields) {
+		if (owner != null) {
+			owner.changing(fields);
+		}
+	}
+
+	/**
+	 * Helper function that passes on to the Person with this address that the fields passed as a
+	 * parameter have changed.  See {@code Person.changed(SearchField...)}.
+	 */
+	private void changed(SearchField... fields) {
+		if (owner != null) {
+			owner.changed(fields);
+		}
+	}
+
+	/**
+	 * Helper function that swaps the city, state, and zip code for the pool's instance of the same value.
+	 * See {@code Person.intern(StringPool)}.
+	 */
+	void intern(StringPool pool) {
+		city = pool.intern(city);
+		state = pool.intern(state);
+		zipCode = pool.intern(zipCode);
+	}
+
+	/**
+	 * Helper function that returns a copy of this Address that doesn't belong to any Person.
+	 */
+	Address copy() {
+		return new Address(this);
+	}
+
+	private Address(Address other) {
+		this.streetAddress = other.streetAddress;
+		this.city = other.city;
+		this.state = other.state;
+		this.zipCode = other.zipCode;
 	}
 
 	public String getFullAddress() {
@@ -0,0 +1,130 @@
+package phonebook;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Replaces a file as a whole or not at all.  Everything is written to a temporary file next to the
+ * target, and {@code commit()} forces it to disk and renames it over the target, which the file system does
+ * atomically.  A crash or an exception before then leaves the old file untouched, and closing without
+ * committing deletes the temporary file:
+ * <pre>
+ *     try (AtomicFile file = new AtomicFile(path)) {
+ *         try (Writer writer = new OutputStreamWriter(file.getOutputStream(), StandardCharsets.UTF_8)) {
+ *             ...
+ *         }
+ *         file.commit();
+ *     }
+ * </pre>
+ * Closing the stream doesn't close the file, so everything wrapped around the stream gets to finish
+ * writing (and fail, if it's going to) before the commit.
+ * @author Jake McGrath
+ *
+ */
+public class AtomicFile implements Closeable {
+
+	private final Path target;
+	private final Path temp;
+	private final FileChannel channel;
+	private boolean committed;
+
+
+	/**
+	 * @param target the file to replace (or create) once this is committed.
+	 * @throws IOException if the temporary file can't be created.
+	 */
+	public AtomicFile(Path target) throws IOException {
+		this.target = target.toAbsolutePath();
+		// created like any new file (unlike Files.createTempFile, which makes it private to its owner)
+		this.temp = this.target.resolveSibling("." + this.target.getFileName() + "."
+				+ Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+		this.channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+		try {
+			if (Files.exists(this.target)) {		// keep the permissions of the file being replaced
+				Files.setPosixFilePermissions(temp, Files.getPosixFilePermissions(this.target));
+			}
+		} catch (UnsupportedOperationException | IOException e) {
+			// not a POSIX file system, or the permissions can't be copied; the new file's will do
+		}
+	}
+
+	/**
+	 * @return the channel of the temporary file, for writing at arbitrary positions.
+	 */
+	public FileChannel getChannel() {
+		return channel;
+	}
+
+	/**
+	 * @return a stream that appends to the temporary file.  Closing it has no effect on this file.
+	 */
+	public OutputStream getOutputStream() {
+		return new OutputStream() {
+			@Override
+			public void write(int b) throws IOException {
+				write(new byte[] {(byte) b}, 0, 1);
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+			}
+		};
+	}
+
+	/**
+	 * Forces everything written to disk and atomically renames it over the target.
+	 * @throws IOException if the data can't be forced to disk or renamed, in which case the target is left
+	 * as it was.
+	 */
+	public void commit() throws IOException {
+		channel.force(true);
+		channel.close();
+		try {
+			Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+		committed = true;
+		syncDirectory();
+	}
+
+	/**
+	 * Discards everything written, unless it's been committed.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (!committed) {
+			try {
+				channel.close();
+			} finally {
+				Files.deleteIfExists(temp);
+			}
+		}
+	}
+
+	/**
+	 * Helper function that forces the rename itself to disk by syncing the target's directory.  Not every
+	 * platform lets a directory be opened this way, in which case the rename is left to the file system.
+	 */
+	private void syncDirectory() {
+		try (FileChannel directory = FileChannel.open(target.getParent(), StandardOpenOption.READ)) {
+			directory.force(true);
+		} catch (IOException e) {
+			// the file itself is safely on disk; only its new name might not survive a crash yet
+		}
+	}
+
+}
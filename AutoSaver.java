@@ -0,0 +1,194 @@
+package phonebook;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Saves a PhoneBook in the background once it has been changed a given number of times, or on a fixed
+ * interval while it has unsaved changes, so that whoever is using the PhoneBook never waits for the disk:
+ * <pre>
+ *     try (AutoSaver autoSaver = new AutoSaver(phoneBook, file, EntryFormat.TEXT, Duration.ofSeconds(30), 50)) {
+ *         ...
+ *     }
+ * </pre>
+ * Saves run one at a time on a single background thread, each writing a consistent snapshot through
+ * {@code PhoneBook.saveSnapshot(Path, EntryFormat)}, and changes made while one is running are coalesced
+ * into at most one more.  A failed save leaves the file as it was and the PhoneBook dirty, so the next
+ * one tries again.  Closing the AutoSaver saves whatever hasn't been saved yet.
+ * <p>
+ * The PhoneBook itself is still only used by one thread; the AutoSaver's thread only ever reads it.
+ * @author Jake McGrath
+ *
+ */
+public class AutoSaver implements Closeable {
+
+	private final PhoneBook phoneBook;
+	private final Path file;
+	private final EntryFormat format;
+	private final long mutationThreshold;
+	private final ScheduledExecutorService executor;
+	private final AtomicBoolean saveQueued;		// a save is waiting to start, so new requests can join it
+	private volatile long requestedAt;			// the mutation count when the last save was requested
+	private volatile long saveCount;
+	private volatile IOException lastFailure;
+	private boolean closed;
+
+
+	/**
+	 * Starts saving {@code phoneBook} to {@code file}.  Nothing is saved until the PhoneBook changes.
+	 * @param phoneBook the PhoneBook to save.
+	 * @param file the file to save to, compressed if its name ends in ".pbz".
+	 * @param format the format to save in.
+	 * @param interval how often to save while there are unsaved changes; null or zero for never.
+	 * @param mutationThreshold the number of changes (see {@code PhoneBook.getMutationCount()}) after which
+	 * to save without waiting for the interval; 0 for never.
+	 */
+	public AutoSaver(PhoneBook phoneBook, Path file, EntryFormat format, Duration interval,
+			long mutationThreshold) {
+		assert phoneBook != null && file != null && format != null && mutationThreshold >= 0;
+		this.phoneBook = phoneBook;
+		this.file = file;
+		this.format = format;
+		this.mutationThreshold = mutationThreshold;
+		this.saveQueued = new AtomicBoolean();
+		this.requestedAt = phoneBook.getMutationCount();
+		this.executor = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "phonebook-autosave");
+			thread.setDaemon(true);
+			return thread;
+		});
+		if (interval != null && !interval.isZero()) {
+			long millis = interval.toMillis();
+			executor.scheduleWithFixedDelay(this::autosave, millis, millis, TimeUnit.MILLISECONDS);
+		}
+		phoneBook.setAutoSaver(this);
+	}
+
+	/**
+	 * Called by the PhoneBook on its own thread, with its write lock held, after every change.  This only
+	 * decides whether to queue a save, so it never waits.
+	 * @param mutationCount the PhoneBook's mutation count after the change.
+	 */
+	void mutated(long mutationCount) {
+		if (mutationThreshold > 0 && mutationCount - requestedAt >= mutationThreshold) {
+			requestedAt = mutationCount;
+			requestSave();
+		}
+	}
+
+	/**
+	 * Queues a save on the background thread and returns at once.  If a save is already waiting to start,
+	 * it will include every change made so far, so no other is queued.
+	 */
+	public void requestSave() {
+		if (!closed && saveQueued.compareAndSet(false, true)) {
+			try {
+				executor.execute(this::autosave);
+			} catch (RejectedExecutionException e) {
+				saveQueued.set(false);					// closed in the meantime, which saves anyway
+			}
+		}
+	}
+
+	/**
+	 * Saves every change made so far, waiting until it's on disk.
+	 * @throws IOException if the save fails.
+	 */
+	public void saveNow() throws IOException {
+		try {
+			executor.submit(() -> {
+				if (phoneBook.isDirty()) {
+					save();
+				}
+				return null;
+			}).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for the PhoneBook to be saved");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		}
+	}
+
+	/**
+	 * @return the number of saves that have completed.
+	 */
+	public long getSaveCount() {
+		return saveCount;
+	}
+
+	/**
+	 * @return why the last save failed, or null if it succeeded (or there hasn't been one).
+	 */
+	public IOException getLastFailure() {
+		return lastFailure;
+	}
+
+	/**
+	 * Stops saving in the background, after saving every change made so far.
+	 * @throws IOException if that last save fails.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		phoneBook.setAutoSaver(null);
+		try {
+			saveNow();
+		} finally {
+			executor.shutdown();
+			try {
+				executor.awaitTermination(1, TimeUnit.MINUTES);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Helper function that saves the PhoneBook on the background thread if it has changed, recording
+	 * rather than throwing a failure, so that the interval keeps going.
+	 */
+	private void autosave() {
+		saveQueued.set(false);
+		if (phoneBook.isDirty()) {
+			try {
+				save();
+			} catch (IOException e) {
+				// recorded by save(); the PhoneBook is still dirty, so the next save tries again
+			} catch (RuntimeException e) {
+				lastFailure = new IOException(e);
+			}
+		}
+	}
+
+	/**
+	 * Helper function that saves a snapshot of the PhoneBook, on the background thread.
+	 */
+	private void save() throws IOException {
+		requestedAt = phoneBook.getMutationCount();
+		try {
+			phoneBook.saveSnapshot(file, format);
+			saveCount++;
+			lastFailure = null;
+		} catch (IOException e) {
+			lastFailure = e;
+			throw e;
+		}
+	}
+
+}
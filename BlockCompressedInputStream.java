@@ -0,0 +1,209 @@
+package phonebook;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Reads a file written by {@code BlockCompressedOutputStream}.  The next few blocks are read ahead and
+ * decompressed in parallel on the common fork/join pool, so that decompressing a large file keeps pace
+ * with parsing it.  Every block's checksum is verified before it's decompressed.
+ * <p>
+ * A damaged file (a block that fails its checksum or won't decompress, or a file that ends before its end
+ * marker) either fails the read with an IOException, or, if the stream was given an {@code ImportReport},
+ * is recorded in the report and read as if it ended after the last good block.  Since blocks hold whole
+ * lines, that recovers every entry before the damage.
+ * @author Jake McGrath
+ *
+ */
+public class BlockCompressedInputStream extends InputStream {
+
+	private final InputStream in;
+	private final ImportReport report;
+	private final ArrayDeque<CompletableFuture<byte[]>> pending;
+	private byte[] block;
+	private int position;
+	private long blocksRead;					// blocks read ahead so far, for locating damage
+	private long offset;						// of the next block in the file
+	private boolean endOfInput;
+
+
+	public BlockCompressedInputStream(InputStream in) throws IOException {
+		this(in, null);
+	}
+
+	/**
+	 * @param in the compressed file, positioned at its start; closed along with this stream.
+	 * @param report where to record damage to the file, in which case everything before it is recovered;
+	 * or null to fail the read instead.
+	 * @throws IOException if {@code in} can't be read, or doesn't start with the header of a compressed
+	 * PhoneBook.
+	 */
+	public BlockCompressedInputStream(InputStream in, ImportReport report) throws IOException {
+		assert in != null;
+		this.in = in;
+		this.report = report;
+		this.pending = new ArrayDeque<>();
+		this.block = new byte[0];
+		byte[] magic = new byte[BlockCompressedOutputStream.MAGIC.length];
+		int read = in.readNBytes(magic, 0, magic.length);
+		if (read != magic.length || !Arrays.equals(magic, BlockCompressedOutputStream.MAGIC)) {
+			throw new ZipException("Not a compressed PhoneBook");
+		}
+		offset = magic.length;
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (position == block.length && !nextBlock()) {
+			return -1;
+		}
+		return block[position++] & 0xff;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		if (position == block.length && !nextBlock()) {
+			return -1;
+		}
+		int n = Math.min(len, block.length - position);
+		System.arraycopy(block, position, b, off, n);
+		position += n;
+		return n;
+	}
+
+	@Override
+	public int available() {
+		return block.length - position;
+	}
+
+	@Override
+	public void close() throws IOException {
+		for (CompletableFuture<byte[]> future: pending) {
+			future.cancel(false);
+		}
+		pending.clear();
+		in.close();
+	}
+
+	/**
+	 * Helper function that moves on to the next non-empty block, first topping up the blocks being
+	 * decompressed ahead of it.
+	 * @return false if there are no more blocks, or the rest of the file is damaged and there's a report
+	 * to record that in.
+	 */
+	private boolean nextBlock() throws IOException {
+		do {
+			while (!endOfInput && pending.size() < BlockCompressedOutputStream.MAX_PENDING) {
+				readAhead();
+			}
+			if (pending.isEmpty()) {
+				return false;
+			}
+			try {
+				block = BlockCompressedOutputStream.join(pending.remove());
+			} catch (IOException e) {
+				if (report == null) {
+					throw e;
+				}
+				report.damaged(e.getMessage());
+				for (CompletableFuture<byte[]> future: pending) {
+					future.cancel(false);
+				}
+				pending.clear();
+				block = new byte[0];
+				position = 0;
+				return false;
+			}
+			position = 0;
+		} while (block.length == 0);
+		return true;
+	}
+
+	/**
+	 * Helper function that reads one compressed block and hands it to the pool to be checked and
+	 * decompressed.  A block that can't be read is queued as a failure, so that it's reported only once
+	 * the blocks before it have been read.
+	 */
+	private void readAhead() {
+		long blockNumber = ++blocksRead;
+		long blockOffset = offset;
+		try {
+			byte[] framed = new byte[BlockCompressedOutputStream.BLOCK_HEADER];
+			int read = in.readNBytes(framed, 0, framed.length);
+			if (read < framed.length) {
+				throw new EOFException(read == 0 ? "Compressed PhoneBook ends before its end marker"
+						: "Compressed PhoneBook ends in the middle of block " + blockNumber);
+			}
+			ByteBuffer header = ByteBuffer.wrap(framed);
+			int uncompressedLength = header.getInt();
+			int compressedLength = header.getInt();
+			if (uncompressedLength < 0 || uncompressedLength > BlockCompressedOutputStream.BLOCK_SIZE
+					|| compressedLength < 0 || compressedLength > 2 * BlockCompressedOutputStream.BLOCK_SIZE) {
+				throw new ZipException("Corrupt header in block " + blockNumber + " at offset " + blockOffset);
+			}
+			framed = Arrays.copyOf(framed, framed.length + compressedLength);
+			if (in.readNBytes(framed, BlockCompressedOutputStream.BLOCK_HEADER, compressedLength)
+					< compressedLength) {
+				throw new EOFException("Compressed PhoneBook ends in the middle of block " + blockNumber);
+			}
+			offset += framed.length;
+			if (compressedLength == 0 && uncompressedLength == 0) {
+				endOfInput = true;
+			}
+			byte[] data = framed;
+			pending.add(CompletableFuture.supplyAsync(() -> inflate(data, uncompressedLength,
+					compressedLength, blockNumber, blockOffset), ForkJoinPool.commonPool()));
+		} catch (IOException e) {
+			endOfInput = true;
+			pending.add(CompletableFuture.failedFuture(new UncheckedIOException(e)));
+		}
+	}
+
+	/**
+	 * Helper function that verifies one block's checksum and decompresses it.
+	 */
+	private static byte[] inflate(byte[] framed, int uncompressedLength, int compressedLength,
+			long blockNumber, long blockOffset) {
+		String where = "block " + blockNumber + " at offset " + blockOffset;
+		int checksum = BlockCompressedOutputStream.checksum(framed, compressedLength);
+		if (ByteBuffer.wrap(framed).getInt(8) != checksum) {
+			throw new UncheckedIOException(new ZipException("Checksum mismatch in " + where));
+		}
+		Inflater inflater = new Inflater(true);
+		try {
+			inflater.setInput(framed, BlockCompressedOutputStream.BLOCK_HEADER, compressedLength);
+			byte[] result = new byte[uncompressedLength];
+			int resultLength = 0;
+			while (resultLength < result.length && !inflater.finished()) {
+				int n = inflater.inflate(result, resultLength, result.length - resultLength);
+				if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+				resultLength += n;
+			}
+			if (resultLength != uncompressedLength) {
+				throw new UncheckedIOException(new ZipException("Corrupt " + where + ": decompressed to "
+						+ resultLength + " bytes instead of " + uncompressedLength));
+			}
+			return result;
+		} catch (DataFormatException e) {
+			throw new UncheckedIOException(new ZipException("Corrupt " + where + ": " + e.getMessage()));
+		} finally {
+			inflater.end();
+		}
+	}
+
+}
@@ -0,0 +1,242 @@
+package phonebook;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32C;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses a saved PhoneBook as a sequence of independently decodable Deflate blocks.  The file starts
+ * with {@code MAGIC}, and each block follows as
+ * <pre>
+ *     [int uncompressed length][int compressed length][int CRC32C][raw Deflate data]
+ * </pre>
+ * where the CRC32C covers both lengths and the compressed data.  Closing the stream writes an empty block
+ * (both lengths 0) as an end marker, so a file that was cut short at a block boundary can be told apart
+ * from a complete one.  Blocks hold up to {@code BLOCK_SIZE} bytes of input and end at a line break
+ * whenever the input has one, so each block holds whole entries, and a reader that finds a damaged block
+ * can still recover every entry before it.  Since no block depends on another, several are compressed at
+ * once on the common fork/join pool while the caller keeps writing, and {@code BlockCompressedInputStream}
+ * decompresses them in parallel the same way.
+ * @author Jake McGrath
+ *
+ */
+public class BlockCompressedOutputStream extends OutputStream {
+
+	public static final String EXTENSION = ".pbz";
+	protected static final byte[] MAGIC = "PBZ1".getBytes(StandardCharsets.US_ASCII);
+	protected static final int BLOCK_SIZE = 1 << 18;
+	protected static final int BLOCK_HEADER = 12;
+	// blocks being compressed at once; more than that and the writer waits for the oldest
+	protected static final int MAX_PENDING = Runtime.getRuntime().availableProcessors() + 1;
+
+	private final OutputStream out;
+	private final int level;
+	private final ArrayDeque<CompletableFuture<byte[]>> pending;
+	private byte[] block;
+	private int length;
+	private long uncompressedBytes;
+	private long compressedBytes;
+	private boolean closed;
+
+
+	public BlockCompressedOutputStream(OutputStream out) throws IOException {
+		this(out, Deflater.DEFAULT_COMPRESSION);
+	}
+
+	/**
+	 * @param out where the compressed blocks are written; closed along with this stream.
+	 * @param level the Deflate compression level, from 1 (fastest) to 9 (smallest), or -1 for the default.
+	 * @throws IOException if the header can't be written to {@code out}.
+	 */
+	public BlockCompressedOutputStream(OutputStream out, int level) throws IOException {
+		assert out != null;
+		this.out = out;
+		this.level = level;
+		this.pending = new ArrayDeque<>();
+		this.block = new byte[BLOCK_SIZE];
+		out.write(MAGIC);
+		compressedBytes = MAGIC.length;
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		if (length == block.length) {
+			cutBlock(false);
+		}
+		block[length++] = (byte) b;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		while (len > 0) {
+			if (length == block.length) {
+				cutBlock(false);
+			}
+			int n = Math.min(len, block.length - length);
+			System.arraycopy(b, off, block, length, n);
+			length += n;
+			off += n;
+			len -= n;
+		}
+	}
+
+	/**
+	 * Compresses everything written so far, even if it doesn't fill a block, and writes it out.
+	 */
+	@Override
+	public void flush() throws IOException {
+		if (length > 0) {
+			cutBlock(true);
+		}
+		while (!pending.isEmpty()) {
+			writeNext();
+		}
+		out.flush();
+	}
+
+	/**
+	 * Writes out everything written so far, followed by the end marker, and closes the underlying stream.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (!closed) {
+			closed = true;
+			try {
+				flush();
+				byte[] marker = frame(new byte[BLOCK_HEADER], 0, 0);
+				out.write(marker);
+				out.flush();
+				compressedBytes += marker.length;
+			} finally {
+				out.close();
+			}
+		}
+	}
+
+	/**
+	 * @return the number of bytes written to this stream so far.
+	 */
+	public long getUncompressedBytes() {
+		return uncompressedBytes;
+	}
+
+	/**
+	 * @return the number of bytes passed on to the underlying stream so far, headers included.  This
+	 * only counts blocks that have been compressed and written, so it's complete after {@code flush()}.
+	 */
+	public long getCompressedBytes() {
+		return compressedBytes;
+	}
+
+	/**
+	 * Helper function that hands the buffered input to the pool as one block.  Unless {@code all} is
+	 * true, the block ends after the last line break, and whatever follows it starts the next block.
+	 */
+	private void cutBlock(boolean all) throws IOException {
+		int end = length;
+		if (!all) {
+			while (end > 0 && block[end - 1] != '\n') {
+				end--;
+			}
+			if (end == 0) {					// no line break at all; a line longer than a block
+				end = length;
+			}
+		}
+		byte[] input = block;
+		int inputLength = end;
+		block = new byte[BLOCK_SIZE];
+		length -= end;
+		System.arraycopy(input, end, block, 0, length);
+		uncompressedBytes += inputLength;
+		pending.add(CompletableFuture.supplyAsync(() -> deflate(input, inputLength, level),
+				ForkJoinPool.commonPool()));
+		while (pending.size() > MAX_PENDING) {
+			writeNext();
+		}
+	}
+
+	/**
+	 * Helper function that waits for the oldest block to be compressed and writes it.
+	 */
+	private void writeNext() throws IOException {
+		byte[] compressed = join(pending.remove());
+		out.write(compressed);
+		compressedBytes += compressed.length;
+	}
+
+	/**
+	 * Helper function that compresses one block, header included.
+	 */
+	private static byte[] deflate(byte[] input, int inputLength, int level) {
+		Deflater deflater = new Deflater(level, true);
+		try {
+			deflater.setInput(input, 0, inputLength);
+			deflater.finish();
+			byte[] result = new byte[BLOCK_HEADER + inputLength + inputLength / 16 + 64];
+			int resultLength = BLOCK_HEADER;
+			while (!deflater.finished()) {
+				if (resultLength == result.length) {
+					result = Arrays.copyOf(result, result.length * 2);
+				}
+				resultLength += deflater.deflate(result, resultLength, result.length - resultLength);
+			}
+			return frame(result, inputLength, resultLength - BLOCK_HEADER);
+		} finally {
+			deflater.end();
+		}
+	}
+
+	/**
+	 * Helper function that fills in the header of a block whose compressed data follows it in
+	 * {@code block}.
+	 * @return the block, trimmed to its length.
+	 */
+	private static byte[] frame(byte[] block, int uncompressedLength, int compressedLength) {
+		ByteBuffer header = ByteBuffer.wrap(block).putInt(uncompressedLength).putInt(compressedLength);
+		header.putInt(checksum(block, compressedLength));
+		return (block.length == BLOCK_HEADER + compressedLength ? block
+				: Arrays.copyOf(block, BLOCK_HEADER + compressedLength));
+	}
+
+	/**
+	 * Helper function that returns the CRC32C of a block's lengths and compressed data, which are the
+	 * first 8 bytes of {@code block} and the {@code compressedLength} bytes after its header.
+	 */
+	protected static int checksum(byte[] block, int compressedLength) {
+		CRC32C crc = new CRC32C();
+		crc.update(block, 0, 8);
+		crc.update(block, BLOCK_HEADER, compressedLength);
+		return (int) crc.getValue();
+	}
+
+	/**
+	 * Helper function that waits for a block's result, rethrowing the IOException behind any failure.
+	 */
+	protected static byte[] join(CompletableFuture<byte[]> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for a block", e);
+		} catch (ExecutionException | CompletionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof UncheckedIOException) {
+				throw ((UncheckedIOException) cause).getCause();
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+
+}
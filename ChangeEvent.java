@@ -0,0 +1,73 @@
+package phonebook;
+
+/**
+ * One change to the entries of a PhoneBook, as delivered to a {@code ChangeListener}: an entry added, deleted,
+ * or updated (changed through a setter, or replaced by {@code replaceById(long, Person)}, or overwritten by a
+ * merge).  The Persons it carries are copies made when the change happened, which aren't in any PhoneBook,
+ * so they never change afterwards, whatever happens to the entry.
+ * @author Jake McGrath
+ *
+ */
+public class ChangeEvent {
+
+	public enum Type {
+		ADDED,
+		DELETED,
+		UPDATED
+	}
+
+	private final Type type;
+	private final long id;
+	private final Person before;
+	private final Person after;
+	private final long mutationCount;
+
+
+	ChangeEvent(Type type, long id, Person before, Person after, long mutationCount) {
+		this.type = type;
+		this.id = id;
+		this.before = before;
+		this.after = after;
+		this.mutationCount = mutationCount;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	/**
+	 * @return the ID of the entry in the PhoneBook (see {@code Person.getId()}).
+	 */
+	public long getId() {
+		return id;
+	}
+
+	/**
+	 * @return the entry as it was before the change, or null if it was added.
+	 */
+	public Person getBefore() {
+		return before;
+	}
+
+	/**
+	 * @return the entry as it was after the change, or null if it was deleted.
+	 */
+	public Person getAfter() {
+		return after;
+	}
+
+	/**
+	 * @return the PhoneBook's mutation count once the change was made.  The events of a change that
+	 * touches many entries at once, such as a merge, all have the same count.
+	 */
+	public long getMutationCount() {
+		return mutationCount;
+	}
+
+	@Override
+	public String toString() {
+		return type + " " + id + (before == null ? "" : " before: " + before)
+				+ (after == null ? "" : " after: " + after);
+	}
+
+}
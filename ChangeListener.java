@@ -0,0 +1,29 @@
+package phonebook;
+
+import java.util.List;
+
+/**
+ * Receives the changes to a PhoneBook it has subscribed to with {@code PhoneBook.subscribe(ChangeListener)}.
+ * Both methods are called on the subscription's own thread, one call at a time, in the order the changes
+ * were made.
+ * @author Jake McGrath
+ *
+ */
+public interface ChangeListener {
+
+	/**
+	 * Called with the next changes, as many as had been made since the last call, up to the
+	 * subscription's batch size.
+	 * @param changes the changes, oldest first; the list can't be modified, or kept after returning.
+	 */
+	void onChanges(List<ChangeEvent> changes);
+
+	/**
+	 * Called when the listener fell so far behind that its buffer filled up, in place of the changes that
+	 * didn't fit.  Changes made since then are delivered as usual, so a listener that keeps a copy of the
+	 * PhoneBook (e.g. a cache) should read it again from the PhoneBook before relying on them.
+	 * @param lost the number of changes that weren't delivered.
+	 */
+	void onOverflow(long lost);
+
+}
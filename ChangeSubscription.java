@@ -0,0 +1,236 @@
+package phonebook;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Delivers every change to the entries of a PhoneBook to a {@code ChangeListener}, in the order they were
+ * made, on a thread of its own.  Opened by {@code PhoneBook.subscribe(ChangeListener)}:
+ * <pre>
+ *     try (ChangeSubscription subscription = phoneBook.subscribe(new ChangeListener() { ... })) {
+ *         ...
+ *     }
+ * </pre>
+ * The thread that changes the PhoneBook only copies each change into a ring buffer of fixed capacity and
+ * moves on; it never waits for the listener.  The subscription's thread takes the changes out in batches,
+ * so a listener that does something slow, such as writing to a database, pays for it once per batch rather
+ * than once per change.
+ * <p>
+ * If the listener falls so far behind that the buffer fills up, the changes that don't fit are dropped,
+ * and counted, rather than holding up {@code addEntry(Person)} or {@code deleteEntry(Person)}.  Once the
+ * listener has been given every change made before the buffer filled, it's told how many were lost by
+ * {@code ChangeListener.onOverflow(long)}, and then given the changes made since, so it always knows where
+ * the gap was.  {@code getPending()} tells how close to full the buffer is, for anyone who would rather slow
+ * down than lose changes.
+ * @author Jake McGrath
+ *
+ */
+public class ChangeSubscription implements Closeable, MutationObserver {
+
+	static final int DEFAULT_CAPACITY = 1 << 14;
+	static final int DEFAULT_BATCH = 256;
+
+	private final PhoneBook phoneBook;
+	private final ChangeListener listener;
+	private final ChangeEvent[] ring;			// written by the PhoneBook's writers, read by the thread
+	private final int mask;
+	private final int maxBatch;
+	private final long startMutationCount;
+	private final Thread thread;
+	private volatile long head;					// the next change the thread will take
+	private volatile long tail;					// the next change a writer will put
+	private final AtomicLong lost;				// changes dropped since the listener was last told
+	private volatile boolean waiting;			// the thread is about to park, or parked
+	private volatile boolean closed;
+	private volatile long delivered;
+	private volatile long totalLost;
+	private volatile RuntimeException lastFailure;
+
+
+	/**
+	 * Creates a subscription whose buffer can hold {@code capacity} changes, rounded up to a power of two.
+	 * It isn't told about any change until {@code PhoneBook.subscribe()} registers and starts it.
+	 */
+	ChangeSubscription(PhoneBook phoneBook, ChangeListener listener, int capacity, int maxBatch,
+			long startMutationCount) {
+		if (capacity < 1 || maxBatch < 1) {
+			throw new IllegalArgumentException("Capacity and batch size must be positive: " + capacity + ", "
+					+ maxBatch);
+		}
+		this.phoneBook = phoneBook;
+		this.listener = listener;
+		this.ring = new ChangeEvent[Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1];
+		this.mask = ring.length - 1;
+		this.maxBatch = maxBatch;
+		this.startMutationCount = startMutationCount;
+		this.lost = new AtomicLong();
+		this.thread = new Thread(this::deliver, "phonebook-change-subscription");
+		thread.setDaemon(true);
+	}
+
+	void start() {
+		thread.start();
+	}
+
+	/**
+	 * @return the PhoneBook's mutation count when this subscription started; the listener is given every
+	 * change made after it.
+	 */
+	public long getStartMutationCount() {
+		return startMutationCount;
+	}
+
+	/**
+	 * @return the number of changes buffered that the listener hasn't been given yet.
+	 */
+	public int getPending() {
+		return (int) (tail - head);
+	}
+
+	/**
+	 * @return the number of changes the buffer can hold.
+	 */
+	public int getCapacity() {
+		return ring.length;
+	}
+
+	/**
+	 * @return the number of changes the listener has been given so far.
+	 */
+	public long getDelivered() {
+		return delivered;
+	}
+
+	/**
+	 * @return the number of changes dropped so far because the buffer was full, including any the
+	 * listener hasn't been told about yet.
+	 */
+	public long getLost() {
+		return totalLost;
+	}
+
+	/**
+	 * @return the last exception the listener threw, or null if it hasn't thrown any.  A listener that
+	 * throws is still given the changes that follow.
+	 */
+	public RuntimeException getLastFailure() {
+		return lastFailure;
+	}
+
+	/**
+	 * Stops listening to the PhoneBook, and waits until the listener has been given every change made
+	 * before this was called.
+	 */
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		phoneBook.unsubscribe(this);
+		closed = true;
+		LockSupport.unpark(thread);
+		if (Thread.currentThread() != thread) {				// not closed by the listener itself
+			try {
+				thread.join(TimeUnit.SECONDS.toMillis(10));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	@Override
+	public void added(Person p, long mutationCount) {
+		put(new ChangeEvent(ChangeEvent.Type.ADDED, p.getId(), null, p.copy(), mutationCount));
+	}
+
+	@Override
+	public void deleted(long id, Person p, long mutationCount) {
+		put(new ChangeEvent(ChangeEvent.Type.DELETED, id, p.copy(), null, mutationCount));
+	}
+
+	@Override
+	public void updated(Person before, Person after, long mutationCount) {
+		put(new ChangeEvent(ChangeEvent.Type.UPDATED, after.getId(), before.copy(), after.copy(),
+				mutationCount));
+	}
+
+	@Override
+	public void committed(long mutationCount) {
+		if (waiting) {
+			LockSupport.unpark(thread);
+		}
+	}
+
+	/**
+	 * Helper function that puts a change in the buffer, or drops it if the buffer is full or changes have
+	 * been dropped that the listener hasn't been told about yet, so that nothing is put after the gap until
+	 * the listener knows about it.  Only called with the PhoneBook's write lock held, so there's never more
+	 * than one writer at a time.
+	 */
+	private void put(ChangeEvent event) {
+		long t = tail;
+		if (lost.get() > 0 || t - head == ring.length) {
+			lost.incrementAndGet();
+			totalLost++;
+			return;
+		}
+		ring[(int) t & mask] = event;
+		tail = t + 1;									// publishes the change to the thread
+		if (waiting && t + 1 - head >= maxBatch) {		// a long merge needn't wait to be committed
+			LockSupport.unpark(thread);
+		}
+	}
+
+	/**
+	 * Helper function that gives the listener the buffered changes a batch at a time, and tells it about
+	 * the changes lost once it's been given everything before them, until this subscription is closed and
+	 * every change has been delivered.  Runs on the subscription's own thread.
+	 */
+	private void deliver() {
+		ArrayList<ChangeEvent> batch = new ArrayList<>(maxBatch);
+		List<ChangeEvent> view = Collections.unmodifiableList(batch);
+		while (true) {
+			long h = head;
+			long available = Math.min(tail - h, maxBatch);
+			if (available > 0) {
+				for (int i = 0; i < available; i++) {
+					int slot = (int) (h + i) & mask;
+					batch.add(ring[slot]);
+					ring[slot] = null;
+				}
+				head = h + available;						// frees the slots for the writers
+				try {
+					listener.onChanges(view);
+				} catch (RuntimeException e) {
+					lastFailure = e;
+				}
+				delivered += available;
+				batch.clear();
+				continue;
+			}
+			if (lost.get() > 0) {
+				long gap = lost.getAndSet(0);
+				try {
+					listener.onOverflow(gap);
+				} catch (RuntimeException e) {
+					lastFailure = e;
+				}
+				continue;
+			}
+			if (closed) {
+				break;
+			}
+			waiting = true;
+			if (tail == head && lost.get() == 0 && !closed) {
+				LockSupport.park(this);
+			}
+			waiting = false;
+		}
+	}
+
+}
@@ -0,0 +1,213 @@
+package phonebook;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Streaming RFC 4180 reader for PhoneBook entries.  Fields may be quoted, in which case they can contain
+ * commas, line breaks, and doubled ("") quotes; both CRLF and LF line endings are accepted.  An optional
+ * header row matching {@code EntryFormat.FIELDS} is skipped.  Input is consumed through a fixed-size
+ * character buffer and no field is allowed to grow past {@code MAX_FIELD_LENGTH}, so memory use stays
+ * constant even for malformed input such as an unterminated quote.
+ * @author Jake McGrath
+ *
+ */
+class CsvEntryReader implements EntryReader {
+
+	protected static final int MAX_FIELD_LENGTH = 4096;
+
+	private final Reader in;
+	private final ImportReport report;
+	private final char[] buffer;
+	private int position;
+	private int limit;
+	private long line;						// current physical line number
+	private boolean firstRecord;
+
+	// the record currently being parsed
+	private final String[] fields;
+	private int fieldCount;
+	private final StringBuilder field;
+	private final StringBuilder record;		// raw text of the record, for error reports
+	private String recordError;
+
+
+	public CsvEntryReader(Reader in, ImportReport report) {
+		this.in = in;
+		this.report = report;
+		this.buffer = new char[1 << 16];
+		this.position = 0;
+		this.limit = 0;
+		this.line = 1;
+		this.firstRecord = true;
+		this.fields = new String[EntryFormat.FIELDS.length];
+		this.field = new StringBuilder();
+		this.record = new StringBuilder();
+	}
+
+	@Override
+	public Person read() throws IOException {
+		while (true) {
+			long recordLine = line;
+			if (!readRecord()) {
+				return null;
+			}
+			if (fieldCount == 1 && fields[0].isEmpty()) {	// blank line
+				continue;
+			}
+			if (firstRecord) {
+				firstRecord = false;
+				if (isHeader()) {
+					continue;
+				}
+			}
+			if (recordError == null && fieldCount != fields.length) {
+				recordError = "Expected " + fields.length + " fields but found " + fieldCount;
+			}
+			if (recordError != null) {
+				report.rejected(recordLine, recordError, record.toString().stripTrailing());
+				continue;
+			}
+			try {
+				Person p = EntryFormat.toPerson(fields);
+				report.imported();
+				return p;
+			} catch (RuntimeException e) {
+				report.rejected(recordLine, EntryFormat.describe(e), record.toString().stripTrailing());
+			}
+		}
+	}
+
+	private boolean isHeader() {
+		if (fieldCount != fields.length) {
+			return false;
+		}
+		for (int i = 0; i < fields.length; i++) {
+			if (!fields[i].strip().equalsIgnoreCase(EntryFormat.FIELDS[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Parses the next record into {@code fields}.
+	 * @return false if the end of the input was reached before any character of a new record.
+	 */
+	private boolean readRecord() throws IOException {
+		int c = nextChar();
+		if (c == -1) {
+			return false;
+		}
+		fieldCount = 0;
+		field.setLength(0);
+		record.setLength(0);
+		recordError = null;
+		boolean quoted = false;			// inside a quoted field
+		boolean afterQuote = false;		// just read a quote inside a quoted field
+		while (true) {
+			if (c == -1) {
+				if (quoted && !afterQuote) {
+					recordError = "Unterminated quoted field";
+				}
+				endField();
+				return true;
+			}
+			echo((char) c);
+			if (quoted && !afterQuote) {
+				if (c == '"') {
+					afterQuote = true;
+				} else {
+					if (c == '\n') {
+						line++;
+					}
+					append((char) c);
+				}
+			} else if (c == '"' && afterQuote) {		// "" inside a quoted field
+				append('"');
+				afterQuote = false;
+			} else if (c == ',') {
+				endField();
+				quoted = false;
+				afterQuote = false;
+			} else if (c == '\r' || c == '\n') {
+				if (c == '\r' && peekChar() == '\n') {
+					nextChar();
+				}
+				line++;
+				endField();
+				return true;
+			} else if (c == '"' && field.length() == 0 && !quoted) {
+				quoted = true;
+			} else {
+				if (afterQuote || c == '"') {
+					recordError = "Unexpected character after closing quote or stray quote in unquoted field";
+				}
+				quoted = false;
+				afterQuote = false;
+				append((char) c);
+			}
+			c = nextChar();
+		}
+	}
+
+	private void append(char c) {
+		if (field.length() < MAX_FIELD_LENGTH) {
+			field.append(c);
+		} else if (recordError == null) {
+			recordError = "Field longer than " + MAX_FIELD_LENGTH + " characters";
+		}
+	}
+
+	private void echo(char c) {
+		if (record.length() < MAX_FIELD_LENGTH) {
+			record.append(c);
+		}
+	}
+
+	private void endField() {
+		if (fieldCount < fields.length) {
+			fields[fieldCount] = field.toString();
+		}
+		fieldCount++;
+		field.setLength(0);
+	}
+
+	private int nextChar() throws IOException {
+		if (position == limit && !fill()) {
+			return -1;
+		}
+		return buffer[position++];
+	}
+
+	private int peekChar() throws IOException {
+		if (position == limit && !fill()) {
+			return -1;
+		}
+		return buffer[position];
+	}
+
+	private boolean fill() throws IOException {
+		int n = in.read(buffer, 0, buffer.length);
+		while (n == 0) {
+			n = in.read(buffer, 0, buffer.length);
+		}
+		if (n < 0) {
+			return false;
+		}
+		position = 0;
+		limit = n;
+		return true;
+	}
+
+	@Override
+	public ImportReport getReport() {
+		return report;
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+}
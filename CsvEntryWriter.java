@@ -0,0 +1,74 @@
+package phonebook;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Streaming RFC 4180 writer for PhoneBook entries.  A header row is written before the first record,
+ * records end with CRLF, and a field is quoted only when it contains a comma, quote, or line break.
+ * @author Jake McGrath
+ *
+ */
+class CsvEntryWriter implements EntryWriter {
+
+	private final Writer out;
+	private boolean headerWritten;
+
+
+	public CsvEntryWriter(Writer out) {
+		this.out = (out instanceof BufferedWriter ? out : new BufferedWriter(out, 1 << 16));
+		this.headerWritten = false;
+	}
+
+	@Override
+	public void write(Person person) throws IOException {
+		if (!headerWritten) {
+			writeRecord(EntryFormat.FIELDS);
+			headerWritten = true;
+		}
+		writeRecord(EntryFormat.toFields(person));
+	}
+
+	private void writeRecord(String[] fields) throws IOException {
+		for (int i = 0; i < fields.length; i++) {
+			if (i > 0) {
+				out.write(',');
+			}
+			writeField(fields[i] == null ? "" : fields[i]);
+		}
+		out.write("\r\n");
+	}
+
+	private void writeField(String value) throws IOException {
+		boolean needsQuotes = false;
+		for (int i = 0; i < value.length() && !needsQuotes; i++) {
+			char c = value.charAt(i);
+			needsQuotes = (c == ',' || c == '"' || c == '\r' || c == '\n');
+		}
+		if (!needsQuotes) {
+			out.write(value);
+			return;
+		}
+		out.write('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"') {
+				out.write('"');
+			}
+			out.write(c);
+		}
+		out.write('"');
+	}
+
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+
+}
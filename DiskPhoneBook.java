@@ -0,0 +1,532 @@
+package phonebook;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A PhoneBook stored on disk as fixed-size pages, which can answer lookups by full name or phone number
+ * without loading its entries.  The file holds the entries, sorted by full name, followed by two B+trees
+ * whose leaves map each entry's normalized full name and phone number (the keys of
+ * {@code SearchField.FULL_NAME} and {@code SearchField.PHONE_NUMBER}) to the position of the entry.  A
+ * lookup reads one page per level of a tree plus the page holding the entry, so finding a number in a
+ * store of millions of entries takes a handful of page reads right after it's opened.  Pages that have
+ * been read are kept in a bounded LRU cache.
+ * <p>
+ * A store is written from a PhoneBook in one pass with {@code write(PhoneBook, Path)} and is read-only
+ * afterwards; to change it, change the PhoneBook and write the store again.  The page layout is:
+ * <pre>
+ *     page 0      header: magic, page size, entry count, page count, roots of the two trees
+ *     data        records: length (short) + UTF-8 entry in Person.toString() format; never split
+ *     leaf        type (byte), key count (short), next leaf (int), then key length (short) + UTF-8 key
+ *                 + record position (long) per key
+ *     inner       type (byte), key count (short), first child (int), then key length (short) + UTF-8
+ *                 key + child (int) per key, where each key is the lowest key below its child
+ * </pre>
+ * Instances are not safe for use by multiple threads.
+ * @author Jake McGrath
+ *
+ */
+public class DiskPhoneBook implements Closeable {
+
+	public static final String EXTENSION = ".pbt";
+	public static final int DEFAULT_CACHE_PAGES = 256;	// 1 MiB of 4 KiB pages
+
+	private static final long MAGIC = 0x50484f4e45424b31L;	// "PHONEBK1"
+	private static final int PAGE_SIZE = 4096;
+	private static final byte LEAF = 1;
+	private static final byte INNER = 2;
+	private static final int NODE_HEADER = 1 + 2 + 4;
+	private static final int MAX_KEY_BYTES = 512;
+	private static final int INDEX_BITS = 29;			// 34 bits for ten digits + 29 for the index
+	private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+
+	private final FileChannel channel;
+	private final PageCache cache;
+	private final int size;
+	private final int nameRoot;
+	private final int phoneRoot;
+	private long pageReads;
+	private long cacheHits;
+
+
+	private DiskPhoneBook(FileChannel channel, int cachePages, ByteBuffer header) {
+		this.channel = channel;
+		this.cache = new PageCache(cachePages);
+		header.getInt();							// page size, checked by open()
+		this.size = header.getInt();
+		header.getInt();							// page count
+		this.nameRoot = header.getInt();
+		this.phoneRoot = header.getInt();
+	}
+
+	/**
+	 * Opens a store with the default page cache size.
+	 * @see #open(Path, int)
+	 */
+	public static DiskPhoneBook open(Path file) throws IOException {
+		return open(file, DEFAULT_CACHE_PAGES);
+	}
+
+	/**
+	 * Opens a store written by {@code write(PhoneBook, Path)}.  Only the header is read.
+	 * @param file the store.
+	 * @param cachePages the maximum number of pages kept in memory.
+	 * @return the open store, which must be closed.
+	 * @throws IOException if the file can't be read, or isn't a store.
+	 */
+	public static DiskPhoneBook open(Path file, int cachePages) throws IOException {
+		assert cachePages > 0;
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			ByteBuffer header = ByteBuffer.allocate(PAGE_SIZE);
+			try {
+				readFully(channel, header, 0);
+			} catch (EOFException e) {		// every page of a store, the header included, is written whole
+				throw new IOException("Not a PhoneBook store: " + file, e);
+			}
+			header.flip();
+			if (header.getLong() != MAGIC || header.getInt(8) != PAGE_SIZE) {
+				throw new IOException("Not a PhoneBook store: " + file);
+			}
+			return new DiskPhoneBook(channel, cachePages, header);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Writes every entry of a PhoneBook to a new store, replacing {@code file} if it exists.  The store is
+	 * only renamed over {@code file} once it's complete and on disk.
+	 * @param phoneBook the PhoneBook to write.
+	 * @param file the store to create.
+	 * @throws IOException if the file can't be written.
+	 * @throws IllegalArgumentException if an entry's full name or text is too long to fit in a page.
+	 */
+	public static void write(PhoneBook phoneBook, Path file) throws IOException {
+		Person[] entries = phoneBook.entriesSnapshot();		// sorted by full name
+		if (entries.length > INDEX_MASK) {
+			throw new IllegalArgumentException("Too many entries for a store: " + entries.length);
+		}
+		try (AtomicFile atomic = new AtomicFile(file)) {
+			FileChannel channel = atomic.getChannel();
+			Writer writer = new Writer(channel);
+			Slot[] names = new Slot[entries.length];
+			long[] positions = new long[entries.length];
+			long[] phoneOrder = new long[entries.length];
+			StringBuilder text = new StringBuilder();
+			ByteBuffer page = writer.newPage();
+			for (int i = 0; i < entries.length; i++) {
+				text.setLength(0);
+				entries[i].appendTo(text);
+				byte[] record = text.toString().getBytes(StandardCharsets.UTF_8);
+				if (2 + record.length > PAGE_SIZE) {
+					throw new IllegalArgumentException("Entry too long for a page: " + entries[i].getFullName());
+				}
+				if (page.remaining() < 2 + record.length) {
+					writer.writePage(page);
+					page = writer.newPage();
+				}
+				long position = (long) writer.pageCount * PAGE_SIZE + page.position();
+				page.putShort((short) record.length).put(record);
+				names[i] = new Slot(SearchField.FULL_NAME.key(entries[i]), position);
+				positions[i] = position;
+				phoneOrder[i] = phoneOrder(entries[i].getPhoneNumber(), i);
+			}
+			if (entries.length > 0) {
+				writer.writePage(page);
+			}
+			Arrays.sort(names, Comparator.comparing(Slot::key));	// already sorted; stable for equal keys
+			Arrays.sort(phoneOrder);
+			Slot[] phones = new Slot[entries.length];
+			for (int i = 0; i < phoneOrder.length; i++) {
+				int index = (int) (phoneOrder[i] & INDEX_MASK);
+				phones[i] = new Slot(SearchField.PHONE_NUMBER.key(entries[index]), positions[index]);
+			}
+			int nameRoot = writer.writeTree(names);
+			int phoneRoot = writer.writeTree(phones);
+			ByteBuffer header = ByteBuffer.allocate(PAGE_SIZE);
+			header.putLong(MAGIC).putInt(PAGE_SIZE).putInt(entries.length).putInt(writer.pageCount)
+					.putInt(nameRoot).putInt(phoneRoot);
+			header.clear();
+			channel.write(header, 0);
+			atomic.commit();
+		}
+	}
+
+	/**
+	 * Helper function that packs the ten digits of a formatted phone number, "(ddd)-ddd-dddd", with the
+	 * index of its entry into one long.  Sorting these longs sorts the entries by phone number (digit
+	 * order is the same as the order of the formatted Strings) as primitives, which is several times
+	 * faster than sorting the Strings for millions of entries.
+	 */
+	private static long phoneOrder(String phoneNumber, int index) {
+		long digits = 0;
+		for (int i = 0; i < phoneNumber.length(); i++) {
+			char c = phoneNumber.charAt(i);
+			if (c >= '0' && c <= '9') {
+				digits = digits * 10 + (c - '0');
+			}
+		}
+		return (digits << INDEX_BITS) | index;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return the number of pages read from the file so far.
+	 */
+	public long getPageReads() {
+		return pageReads;
+	}
+
+	/**
+	 * @return the number of page requests so far that were answered from the cache.
+	 */
+	public long getCacheHits() {
+		return cacheHits;
+	}
+
+	public Person searchByFullName(String fullNameQuery) throws IOException {
+		Person[] matches = lookup(SearchField.FULL_NAME, fullNameQuery);
+		return (matches == null ? null : matches[0]);
+	}
+
+	public Person searchByPhoneNumber(String phoneNumberQuery) throws IOException {
+		Person[] matches = lookup(SearchField.PHONE_NUMBER, phoneNumberQuery);
+		return (matches == null ? null : matches[0]);
+	}
+
+	/**
+	 * Looks up every entry whose full name or phone number equals {@code value}, ignoring case.
+	 * @param field either FULL_NAME or PHONE_NUMBER.
+	 * @param value the full name ("LastName, FirstName MiddleName(s)" or "FirstName MiddleName(s) LastName")
+	 * or phone number to look for.
+	 * @return the matching entries sorted by full name, or null if there are none, the same as the
+	 * PhoneBook's searches.
+	 * @throws IOException if the store can't be read.
+	 * @throws IllegalArgumentException if {@code field} isn't one the store is indexed by.
+	 */
+	public Person[] lookup(SearchField field, String value) throws IOException {
+		int root = switch (field) {
+			case FULL_NAME -> nameRoot;
+			case PHONE_NUMBER -> phoneRoot;
+			default -> throw new IllegalArgumentException("A store can't be searched by " + field);
+		};
+		if (size == 0) {
+			return null;
+		}
+		String key = field.normalize(value);
+		List<Person> result = new ArrayList<>();
+		ByteBuffer node = page(root);
+		while (node.get(0) == INNER) {
+			node = page(child(node, key));
+		}
+		while (node != null) {
+			int count = node.getShort(1);
+			int next = node.getInt(3);
+			node.position(NODE_HEADER);
+			for (int i = 0; i < count; i++) {
+				int compare = readKey(node).compareTo(key);
+				long position = node.getLong();
+				if (compare > 0) {
+					return (result.isEmpty() ? null : sorted(result));
+				} else if (compare == 0) {
+					result.add(record(position));
+				}
+			}
+			node = (next < 0 ? null : page(next));
+		}
+		return (result.isEmpty() ? null : sorted(result));
+	}
+
+	@Override
+	public void close() throws IOException {
+		cache.clear();
+		channel.close();
+	}
+
+	/**
+	 * Helper function that picks the child of an inner node to descend into: the last child whose lowest
+	 * key is less than {@code key}, since entries equal to {@code key} may start at the end of that child.
+	 */
+	private static int child(ByteBuffer node, String key) {
+		int count = node.getShort(1);
+		node.position(3);
+		int result = node.getInt();
+		for (int i = 0; i < count; i++) {
+			String separator = readKey(node);
+			int child = node.getInt();
+			if (separator.compareTo(key) >= 0) {
+				break;
+			}
+			result = child;
+		}
+		return result;
+	}
+
+	private static String readKey(ByteBuffer node) {
+		int length = node.getShort();
+		String result = new String(node.array(), node.position(), length, StandardCharsets.UTF_8);
+		node.position(node.position() + length);
+		return result;
+	}
+
+	private Person record(long position) throws IOException {
+		ByteBuffer data = page((int) (position / PAGE_SIZE));
+		int offset = (int) (position % PAGE_SIZE);
+		int length = data.getShort(offset);
+		return PhoneBook.parseEntry(new String(data.array(), offset + 2, length, StandardCharsets.UTF_8));
+	}
+
+	private static Person[] sorted(List<Person> people) {
+		Person[] result = people.toArray(new Person[0]);
+		Arrays.sort(result, Comparator.comparing(Person::getFullName, String.CASE_INSENSITIVE_ORDER));
+		return result;
+	}
+
+	/**
+	 * Helper function that returns a page from the cache, reading it from the file if it isn't there.
+	 * @return a buffer over the whole page, positioned at 0.
+	 */
+	private ByteBuffer page(int pageNumber) throws IOException {
+		ByteBuffer result = cache.get(pageNumber);
+		if (result != null) {
+			cacheHits++;
+		} else {
+			result = ByteBuffer.allocate(PAGE_SIZE);
+			readFully(channel, result, (long) pageNumber * PAGE_SIZE);
+			pageReads++;
+			cache.put(pageNumber, result);
+		}
+		result.clear();
+		return result;
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, position + buffer.position());
+			if (read < 0) {
+				throw new EOFException("Store ends at " + (position + buffer.position()) + ", inside page "
+						+ position / PAGE_SIZE + "; it may have been cut short");
+			}
+		}
+	}
+
+	/**
+	 * Looks up one full name or phone number in a store from the command line:
+	 * {@code Main --lookup File.pbt full|phone Value}, with the arguments following "--lookup" passed as a
+	 * parameter.  A saved PhoneBook without the store's extension is searched through a
+	 * {@code MappedPhoneBook} instead.  Every matching entry is printed on its own line.
+	 * @return the process exit status: 0 if an entry was found, 1 if not, or 2 if the store couldn't be
+	 * read, a compressed save is damaged, or the arguments are invalid.
+	 */
+	public static int run(String[] args) {
+		if (args.length < 3) {
+			System.out.println("Usage: --lookup File[" + EXTENSION + "] full|phone Value");
+			return 2;
+		}
+		SearchField field = switch (args[1].toLowerCase(Locale.ROOT)) {
+			case "full" -> SearchField.FULL_NAME;
+			case "phone" -> SearchField.PHONE_NUMBER;
+			default -> null;
+		};
+		if (field == null) {
+			System.out.println("Unknown field '" + args[1] + "'; expected 'full' or 'phone'");
+			return 2;
+		}
+		String value = String.join(" ", Arrays.copyOfRange(args, 2, args.length));
+		try {
+			Person[] matches = lookup(Path.of(args[0]), field, value);
+			if (matches == null) {
+				return 1;
+			}
+			for (Person p: matches) {
+				System.out.println(p);
+			}
+			return 0;
+		} catch (IOException | RuntimeException e) {
+			System.out.println(e instanceof RuntimeException ? EntryFormat.describe((RuntimeException) e)
+					: e.toString());
+			return 2;
+		}
+	}
+
+	/**
+	 * Helper function that looks a value up in any kind of file {@code run(String[])} accepts: a store, a
+	 * saved PhoneBook, which is memory-mapped rather than loaded, or a compressed one, which has to be
+	 * loaded.
+	 */
+	private static Person[] lookup(Path file, SearchField field, String value) throws IOException {
+		if (EntryFormat.isCompressed(file.toString())) {
+			PhoneBook phoneBook = new PhoneBook();
+			ImportReport report = phoneBook.importEntries(file, EntryFormat.forFileName(file.toString()));
+			if (report.isDamaged()) {			// a match could be in the part that was lost
+				throw new IOException(file + " is damaged: " + report.getDamage());
+			}
+			return phoneBook.query().where(field, value).execute();
+		} else if (!file.toString().endsWith(EXTENSION)) {
+			try (MappedPhoneBook mapped = MappedPhoneBook.open(file, false)) {
+				return mapped.lookup(field, value);
+			}
+		}
+		try (DiskPhoneBook store = open(file)) {
+			return store.lookup(field, value);
+		}
+	}
+
+	/**
+	 * A key and the position of its record, as stored in a leaf.
+	 */
+	private record Slot(String key, long position) {
+	}
+
+	/**
+	 * Appends pages to a new store, starting after the header page.
+	 */
+	private static final class Writer {
+		private final FileChannel channel;
+		private int pageCount = 1;
+
+		private Writer(FileChannel channel) {
+			this.channel = channel;
+		}
+
+		private ByteBuffer newPage() {
+			return ByteBuffer.allocate(PAGE_SIZE);
+		}
+
+		/**
+		 * Writes a page at the end of the store.
+		 * @return the page's number.
+		 */
+		private int writePage(ByteBuffer page) throws IOException {
+			page.clear();
+			while (page.hasRemaining()) {
+				channel.write(page, (long) pageCount * PAGE_SIZE + page.position());
+			}
+			pageCount++;
+			return pageCount - 1;
+		}
+
+		/**
+		 * Writes a B+tree over {@code slots} bottom-up: the leaves are filled left to right, then each level
+		 * of inner nodes is built over the one below until a single root is left.
+		 * @param slots the keys and record positions, sorted by key.
+		 * @return the page number of the root.
+		 */
+		private int writeTree(Slot[] slots) throws IOException {
+			List<Integer> pages = new ArrayList<>();
+			List<String> lowKeys = new ArrayList<>();
+			ByteBuffer leaf = newLeaf();
+			int count = 0;
+			for (int i = 0; i < slots.length; i++) {
+				byte[] key = keyBytes(slots[i].key());
+				if (leaf.remaining() < 2 + key.length + 8) {
+					finishLeaf(leaf, count, pageCount + 1);		// leaves are written back to back
+					pages.add(writePage(leaf));
+					leaf = newLeaf();
+					count = 0;
+				}
+				if (count == 0) {
+					lowKeys.add(slots[i].key());
+				}
+				leaf.putShort((short) key.length).put(key).putLong(slots[i].position());
+				count++;
+			}
+			finishLeaf(leaf, count, -1);
+			pages.add(writePage(leaf));
+			if (lowKeys.isEmpty()) {
+				lowKeys.add("");
+			}
+			while (pages.size() > 1) {
+				List<Integer> parents = new ArrayList<>();
+				List<String> parentKeys = new ArrayList<>();
+				ByteBuffer inner = newInner(pages.get(0));
+				parentKeys.add(lowKeys.get(0));
+				count = 0;
+				for (int i = 1; i < pages.size(); i++) {
+					byte[] key = keyBytes(lowKeys.get(i));
+					if (inner.remaining() < 2 + key.length + 4) {
+						finishInner(inner, count);
+						parents.add(writePage(inner));
+						inner = newInner(pages.get(i));
+						parentKeys.add(lowKeys.get(i));
+						count = 0;
+						continue;
+					}
+					inner.putShort((short) key.length).put(key).putInt(pages.get(i));
+					count++;
+				}
+				finishInner(inner, count);
+				parents.add(writePage(inner));
+				pages = parents;
+				lowKeys = parentKeys;
+			}
+			return pages.get(0);
+		}
+
+		private ByteBuffer newLeaf() {
+			ByteBuffer page = newPage();
+			page.position(NODE_HEADER);
+			return page;
+		}
+
+		private ByteBuffer newInner(int firstChild) {
+			ByteBuffer page = newPage();
+			page.position(3);
+			page.putInt(firstChild);
+			return page;
+		}
+
+		private static void finishLeaf(ByteBuffer leaf, int count, int next) {
+			leaf.put(0, LEAF).putShort(1, (short) count).putInt(3, next);
+		}
+
+		private static void finishInner(ByteBuffer inner, int count) {
+			inner.put(0, INNER).putShort(1, (short) count);
+		}
+
+		private static byte[] keyBytes(String key) {
+			byte[] result = key.getBytes(StandardCharsets.UTF_8);
+			if (result.length > MAX_KEY_BYTES) {
+				throw new IllegalArgumentException("Key too long for a store: " + key);
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Least-recently-used cache of pages, holding at most a fixed number of them.
+	 */
+	private static final class PageCache extends LinkedHashMap<Integer, ByteBuffer> {
+		private static final long serialVersionUID = 1L;
+		private final int capacity;
+
+		private PageCache(int capacity) {
+			super(16, 0.75f, true);
+			this.capacity = capacity;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Integer, ByteBuffer> eldest) {
+			return size() > capacity;
+		}
+	}
+
+}
@@ -0,0 +1,196 @@
+package phonebook;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * The result of {@code PhoneBook.findDuplicates()}: every group of two or more entries that share a
+ * normalized full name, a phone number, or a fuzzy name + address key.  The fuzzy key is made of the
+ * last name, the first initial, the house number and first word of the street, and the zip code, so
+ * "John Doe, 114 Market St" and "Johnny Doe, 114 Market Street" land in the same group even though
+ * neither their names nor their streets are identical.
+ * @author Jake McGrath
+ *
+ */
+public class DuplicateReport {
+
+	// books at least this large are grouped on all available cores
+	protected static final int PARALLEL_THRESHOLD = 50_000;
+
+	private final int entriesScanned;
+	private final Person[][] byFullName;
+	private final Person[][] byPhoneNumber;
+	private final Person[][] byNameAndAddress;
+	private final long elapsedNanos;
+
+
+	private DuplicateReport(int entriesScanned, Person[][] byFullName, Person[][] byPhoneNumber,
+			Person[][] byNameAndAddress, long elapsedNanos) {
+		this.entriesScanned = entriesScanned;
+		this.byFullName = byFullName;
+		this.byPhoneNumber = byPhoneNumber;
+		this.byNameAndAddress = byNameAndAddress;
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	/**
+	 * Groups the Persons passed as a parameter by each of the three keys, in a single hash pass that
+	 * computes all three keys of an entry at once, so the entries are only read once.  Once there are at
+	 * least {@code PARALLEL_THRESHOLD} entries, the pass is split across the common fork/join pool, each
+	 * part grouping its own entries before the parts' groups are combined.
+	 * @param entries the Persons to check for duplicates.
+	 * @return the report of every duplicate group found.
+	 */
+	protected static DuplicateReport of(Person[] entries) {
+		long start = System.nanoTime();
+		Stream<Person> stream = Arrays.stream(entries);
+		Grouping grouping = (entries.length >= PARALLEL_THRESHOLD ? stream.parallel() : stream)
+				.collect(Grouping::new, Grouping::add, Grouping::addAll);
+		return new DuplicateReport(entries.length, duplicateGroups(grouping.byFullName),
+				duplicateGroups(grouping.byPhoneNumber), duplicateGroups(grouping.byNameAndAddress),
+				System.nanoTime() - start);
+	}
+
+	private static Person[][] duplicateGroups(Map<String, List<Person>> groups) {
+		List<Person[]> result = new ArrayList<>();
+		for (List<Person> group: groups.values()) {
+			if (group.size() > 1) {
+				result.add(group.toArray(new Person[0]));
+			}
+		}
+		return result.toArray(new Person[0][]);
+	}
+
+	/**
+	 * Helper function that normalizes a full name by lower-casing it and dropping everything other than
+	 * letters and digits, so "Doe, John E." and "doe, john e" produce the same key.
+	 */
+	protected static String fullNameKey(Person p) {
+		return alphanumeric(p.getFullName());
+	}
+
+	/**
+	 * Helper function that builds the fuzzy name + address key for a Person.
+	 */
+	protected static String fuzzyKey(Person p) {
+		String first = alphanumeric(p.getFirstName());
+		StringBuilder key = new StringBuilder(alphanumeric(p.getLastName()));
+		key.append('|').append(first.isEmpty() ? "" : first.substring(0, 1));
+		Address a = p.getAddress();
+		if (a != null) {
+			String[] street = (a.getStreetAddress() == null ? "" : a.getStreetAddress()).split("\\s+");
+			key.append('|');
+			for (String token: street) {
+				key.append(alphanumeric(token));
+				if (!token.isEmpty() && !Character.isDigit(token.charAt(0))) {
+					break;				// stop after the house number and first word of the street
+				}
+			}
+			key.append('|').append(a.getZipCode());
+		}
+		return key.toString();
+	}
+
+	private static String alphanumeric(String s) {
+		if (s == null) {
+			return "";
+		}
+		StringBuilder result = new StringBuilder(s.length());
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (Character.isLetterOrDigit(c)) {
+				result.append(Character.toLowerCase(c));
+			}
+		}
+		return result.toString();
+	}
+
+	public int getEntriesScanned() {
+		return entriesScanned;
+	}
+
+	public Person[][] getByFullName() {
+		return byFullName;
+	}
+
+	public Person[][] getByPhoneNumber() {
+		return byPhoneNumber;
+	}
+
+	public Person[][] getByNameAndAddress() {
+		return byNameAndAddress;
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	public boolean isEmpty() {
+		return byFullName.length == 0 && byPhoneNumber.length == 0 && byNameAndAddress.length == 0;
+	}
+
+	/**
+	 * @return a one-line summary of this report, e.g. for logging after a nightly run.
+	 */
+	public String summary() {
+		return String.format("Scanned %d entries in %d ms: %d full name group(s), %d phone number group(s), "
+				+ "%d name + address group(s)", entriesScanned, elapsedNanos / 1_000_000, byFullName.length,
+				byPhoneNumber.length, byNameAndAddress.length);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder(summary()).append('\n');
+		appendGroups(result, "Same full name", byFullName);
+		appendGroups(result, "Same phone number", byPhoneNumber);
+		appendGroups(result, "Similar name and address", byNameAndAddress);
+		return result.toString();
+	}
+
+	private static void appendGroups(StringBuilder result, String title, Person[][] groups) {
+		for (int i = 0; i < groups.length; i++) {
+			result.append(title).append(" (group ").append(i + 1).append("):\n");
+			for (Person p: groups[i]) {
+				result.append("\t").append(p).append('\n');
+			}
+		}
+	}
+
+	/**
+	 * The entries seen so far grouped by each of the three keys, in the order they were seen.
+	 */
+	private static final class Grouping {
+		final Map<String, List<Person>> byFullName = new HashMap<>();
+		final Map<String, List<Person>> byPhoneNumber = new HashMap<>();
+		final Map<String, List<Person>> byNameAndAddress = new HashMap<>();
+
+		void add(Person p) {
+			byFullName.computeIfAbsent(fullNameKey(p), k -> new ArrayList<>(1)).add(p);
+			byPhoneNumber.computeIfAbsent(p.getPhoneNumber(), k -> new ArrayList<>(1)).add(p);
+			byNameAndAddress.computeIfAbsent(fuzzyKey(p), k -> new ArrayList<>(1)).add(p);
+		}
+
+		/**
+		 * Adds the groups of entries that came after these, keeping the order they were seen in.
+		 */
+		void addAll(Grouping later) {
+			addAll(byFullName, later.byFullName);
+			addAll(byPhoneNumber, later.byPhoneNumber);
+			addAll(byNameAndAddress, later.byNameAndAddress);
+		}
+
+		private static void addAll(Map<String, List<Person>> groups, Map<String, List<Person>> later) {
+			for (Map.Entry<String, List<Person>> group: later.entrySet()) {
+				groups.merge(group.getKey(), group.getValue(), (l, r) -> {
+					l.addAll(r);
+					return l;
+				});
+			}
+		}
+	}
+
+}
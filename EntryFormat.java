@@ -0,0 +1,202 @@
+package phonebook;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The file formats a PhoneBook can be imported from and exported to.
+ * <ul>
+ *   <li>{@code TEXT}: the original PhoneBook.txt format, one {@code Person.toString()} per line.  Commas
+ *   inside a field can't be represented.</li>
+ *   <li>{@code CSV}: RFC 4180 comma-separated values with a header row.</li>
+ *   <li>{@code JSON_LINES}: one flat JSON object per line.</li>
+ * </ul>
+ * Every format is read and written as a stream, one record at a time.  Any of them can also be stored
+ * compressed, in a file whose name ends with the format's extension followed by
+ * {@code BlockCompressedOutputStream.EXTENSION} (e.g. "PhoneBook.txt.pbz").
+ * @author Jake McGrath
+ *
+ */
+public enum EntryFormat {
+
+	TEXT(".txt") {
+		@Override
+		public EntryReader newReader(Reader in, ImportReport report) {
+			return new TextEntryReader(in, report);
+		}
+
+		@Override
+		public EntryWriter newWriter(Writer out) {
+			return new TextEntryWriter(out);
+		}
+	},
+	CSV(".csv") {
+		@Override
+		public EntryReader newReader(Reader in, ImportReport report) {
+			return new CsvEntryReader(in, report);
+		}
+
+		@Override
+		public EntryWriter newWriter(Writer out) {
+			return new CsvEntryWriter(out);
+		}
+	},
+	JSON_LINES(".jsonl") {
+		@Override
+		public EntryReader newReader(Reader in, ImportReport report) {
+			return new JsonLinesEntryReader(in, report);
+		}
+
+		@Override
+		public EntryWriter newWriter(Writer out) {
+			return new JsonLinesEntryWriter(out);
+		}
+	};
+
+	// the fields of a record, in the order CSV columns are written
+	protected static final String[] FIELDS = {"firstName", "middleName", "lastName", "streetAddress", "city",
+			"state", "zipCode", "phoneNumber"};
+
+	private final String extension;
+
+
+	EntryFormat(String extension) {
+		this.extension = extension;
+	}
+
+	public String getExtension() {
+		return extension;
+	}
+
+	/**
+	 * @return the format whose extension matches the file name passed as a parameter, ignoring a trailing
+	 * compressed extension, or TEXT if none do.
+	 */
+	public static EntryFormat forFileName(String fileName) {
+		String name = fileName.toLowerCase();
+		if (isCompressed(name)) {
+			name = name.substring(0, name.length() - BlockCompressedOutputStream.EXTENSION.length());
+		}
+		for (EntryFormat format: values()) {
+			if (name.endsWith(format.extension)) {
+				return format;
+			}
+		}
+		return TEXT;
+	}
+
+	/**
+	 * @return true if the file name passed as a parameter is that of a compressed file.
+	 */
+	public static boolean isCompressed(String fileName) {
+		return fileName.toLowerCase().endsWith(BlockCompressedOutputStream.EXTENSION);
+	}
+
+	/**
+	 * Opens a file of entries for reading as UTF-8 text, decompressing it if its name says it's compressed.
+	 * @throws IOException if the file can't be opened, or isn't compressed after all.
+	 */
+	public static BufferedReader openFile(Path file) throws IOException {
+		return openFile(file, null);
+	}
+
+	/**
+	 * Opens a file of entries for reading as UTF-8 text, decompressing it if its name says it's compressed.
+	 * @param report where to record damage to a compressed file, in which case the entries before the
+	 * damage are still read; or null to fail the read instead.
+	 * @throws IOException if the file can't be opened, or isn't compressed after all.
+	 */
+	public static BufferedReader openFile(Path file, ImportReport report) throws IOException {
+		if (!isCompressed(file.toString())) {
+			return Files.newBufferedReader(file, StandardCharsets.UTF_8);
+		}
+		InputStream in = Files.newInputStream(file);
+		try {
+			return new BufferedReader(new InputStreamReader(new BlockCompressedInputStream(in, report),
+					StandardCharsets.UTF_8.newDecoder()), 1 << 16);
+		} catch (IOException | RuntimeException e) {
+			in.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Replaces a file of entries as a whole, or not at all if writing fails.  {@code contents} writes the
+	 * entries as UTF-8 text, which is compressed if the file's name says it should be.
+	 * @throws IOException if the file can't be written.
+	 */
+	public static void writeFile(Path file, FileContents contents) throws IOException {
+		try (AtomicFile atomic = new AtomicFile(file)) {
+			OutputStream out = atomic.getOutputStream();
+			if (isCompressed(file.toString())) {
+				out = new BlockCompressedOutputStream(out);
+			}
+			try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out,
+					StandardCharsets.UTF_8.newEncoder()), 1 << 16)) {
+				contents.write(writer);
+			}
+			atomic.commit();
+		}
+	}
+
+	/**
+	 * Writes the contents of a file for {@code writeFile(Path, FileContents)}.
+	 */
+	@FunctionalInterface
+	public interface FileContents {
+		void write(BufferedWriter out) throws IOException;
+	}
+
+	public abstract EntryReader newReader(Reader in, ImportReport report);
+
+	public abstract EntryWriter newWriter(Writer out);
+
+	/**
+	 * Helper function that returns the fields of a Person in {@code FIELDS} order.
+	 */
+	protected static String[] toFields(Person p) {
+		Address a = p.getAddress();
+		return new String[] {p.getFirstName(), p.getMiddleName(), p.getLastName(), a.getStreetAddress(),
+				a.getCity(), a.getState(), a.getZipCode(), p.getPhoneNumber()};
+	}
+
+	/**
+	 * Helper function that builds a Person from fields in {@code FIELDS} order, applying the same
+	 * validation as entering a contact by hand.
+	 * @throws IllegalArgumentException if a required field is blank.
+	 * @throws InvalidPhoneNumberException if the phone number is invalid.
+	 * @throws InvalidStateException if the state is invalid.
+	 * @throws InvalidZipCodeException if the zip code is invalid.
+	 */
+	protected static Person toPerson(String[] fields) {
+		for (int i = 0; i < fields.length; i++) {
+			if (i != 1 && (fields[i] == null || fields[i].isBlank())) {		// only middleName is optional
+				throw new IllegalArgumentException("Missing " + FIELDS[i]);
+			}
+		}
+		Address a1 = new Address(fields[3].strip(), fields[4].strip(), fields[5].strip(), fields[6].strip());
+		String middleName = (fields[1] == null ? "" : fields[1].strip());
+		if (middleName.isEmpty()) {
+			return new Person(fields[0].strip(), fields[2].strip(), fields[7].strip(), a1);
+		}
+		return new Person(fields[0].strip(), middleName, fields[2].strip(), fields[7].strip(), a1);
+	}
+
+	/**
+	 * Helper function that describes why a record was rejected.
+	 */
+	protected static String describe(RuntimeException e) {
+		String message = e.getMessage();
+		return e.getClass().getSimpleName() + (message == null ? "" : ": " + message);
+	}
+}
@@ -0,0 +1,25 @@
+package phonebook;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Streaming source of PhoneBook entries, one Person at a time, so that files of any size can be read
+ * without holding more than a single record in memory.  Records that can't be turned into a valid Person
+ * don't stop the read: they are skipped and recorded in the reader's {@code ImportReport}.
+ * @author Jake McGrath
+ *
+ */
+public interface EntryReader extends Closeable {
+
+	/**
+	 * @return the next valid Person, or null once the end of the input has been reached.
+	 * @throws IOException if the underlying input can't be read.
+	 */
+	Person read() throws IOException;
+
+	/**
+	 * @return the running tally of imported and rejected records.
+	 */
+	ImportReport getReport();
+}
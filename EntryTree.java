@@ -0,0 +1,746 @@
+package phonebook;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+/**
+ * In-memory B+tree holding the entries of a PhoneBook, always sorted by the sort keys of their full names
+ * in a {@code NameCollation}.  Persons with the same full name are kept in the order they were added.
+ * Every leaf is linked to the next one, so walking the whole PhoneBook in order is a linear scan, and every
+ * node counts the entries beneath it, so the walk can start at any position in O(log n).  Adding and
+ * removing entries are also O(log n), which keeps the PhoneBook in order without ever sorting it again.
+ * <p>
+ * Each entry's key is computed once, when the entry is added, so a Person whose name is about to change
+ * has to be removed under its old key and added again afterwards.
+ * @author Jake McGrath
+ *
+ */
+class EntryTree implements Iterable<Person> {
+
+	private static final int ORDER = 64;		// maximum entries per leaf, and children per inner node
+	private static final int MIN_FILL = ORDER / 4;	// nodes emptier than this are merged with a sibling
+
+	private final NameCollation collation;		// computes the key of every entry
+	private Node root;
+	private Leaf head;							// the leftmost leaf
+	private int leaves;
+
+
+	public EntryTree(NameCollation collation) {
+		assert collation != null;
+		this.collation = collation;
+		clear();
+	}
+
+	/**
+	 * Builds a new tree containing the first {@code size} Persons of {@code entries}.  The leaves are
+	 * filled left to right instead of inserting one entry at a time, so this takes O(n) when
+	 * {@code entries} is already sorted by full name, and O(n log n) otherwise.  Large trees compute their
+	 * keys, sort, and fill their leaves on every core (see {@code ParallelSort}).
+	 * @param entries the Persons to add; the array isn't modified.
+	 * @param size the number of non-null Persons in {@code entries}.
+	 * @param collation the order to keep the Persons in.
+	 * @return the populated tree.
+	 */
+	public static EntryTree of(Person[] entries, int size, NameCollation collation) {
+		return of(entries, null, size, collation);
+	}
+
+	/**
+	 * Builds a new tree the same as {@code of(Person[], int, NameCollation)}, from Persons whose keys have
+	 * already been computed, e.g. by a merge that compared them.
+	 * @param keys the key of each Person in {@code entries}; any that are null, or all of them if the
+	 * array is null, are computed.
+	 */
+	public static EntryTree of(Person[] entries, String[] keys, int size, NameCollation collation) {
+		return of(entries, keys, size, collation, ParallelSort.isWorthwhile(size));
+	}
+
+	/**
+	 * Builds a new tree the same as {@code of(Person[], String[], int, NameCollation)}, on the calling
+	 * thread or on every core as {@code parallel} says, whatever the size.
+	 */
+	static EntryTree of(Person[] entries, String[] keys, int size, NameCollation collation, boolean parallel) {
+		Slot[] sorted = new Slot[size];
+		IntFunction<Slot> slot = i -> new Slot(keys == null || keys[i] == null ? collation.key(entries[i])
+				: keys[i], entries[i]);
+		if (parallel) {
+			Arrays.parallelSetAll(sorted, slot);
+		} else {
+			Arrays.setAll(sorted, slot);
+		}
+		// stable, so equal names keep their order
+		ParallelSort.sort(sorted, 0, size, Comparator.comparing(Slot::key), parallel);
+		EntryTree tree = new EntryTree(collation);
+		if (size == 0) {
+			return tree;
+		}
+		Leaf[] filled = new Leaf[(size + ORDER - 1) / ORDER];
+		IntFunction<Leaf> leafAt = i -> {
+			Leaf leaf = new Leaf();
+			int start = i * ORDER;
+			leaf.size = Math.min(ORDER, size - start);
+			for (int j = 0; j < leaf.size; j++) {
+				leaf.values[j] = sorted[start + j].person();
+				leaf.keys[j] = sorted[start + j].key();
+			}
+			leaf.count = leaf.size;
+			return leaf;
+		};
+		if (parallel) {
+			Arrays.parallelSetAll(filled, leafAt);
+		} else {
+			Arrays.setAll(filled, leafAt);
+		}
+		Node[] level = filled;
+		String[] lowKeys = new String[level.length];
+		for (int i = 0; i < filled.length; i++) {
+			if (i > 0) {
+				filled[i].prev = filled[i - 1];
+				filled[i - 1].next = filled[i];
+			}
+			lowKeys[i] = filled[i].keys[0];
+		}
+		tree.head = (Leaf) level[0];
+		tree.leaves = level.length;
+		while (level.length > 1) {
+			Node[] parents = new Node[(level.length + ORDER - 1) / ORDER];
+			String[] parentKeys = new String[parents.length];
+			for (int i = 0; i < parents.length; i++) {
+				Inner inner = new Inner();
+				int start = i * ORDER;
+				inner.size = Math.min(ORDER, level.length - start);
+				for (int j = 0; j < inner.size; j++) {
+					inner.children[j] = level[start + j];
+					inner.count += level[start + j].count;
+					if (j > 0) {
+						inner.keys[j - 1] = lowKeys[start + j];
+					}
+				}
+				parents[i] = inner;
+				parentKeys[i] = lowKeys[start];
+			}
+			level = parents;
+			lowKeys = parentKeys;
+		}
+		tree.root = level[0];
+		return tree;
+	}
+
+	/**
+	 * Adds the first {@code size} Persons of {@code entries}, the same as calling {@code add(Person)} on
+	 * each in turn.  If there are at least as many of them as there are Persons in this tree already, the
+	 * tree is rebuilt with both instead, by {@code of(Person[], String[], int, NameCollation)}, which is
+	 * faster than inserting the Persons one at a time, and can use every core.
+	 */
+	public void addAll(Person[] entries, int size) {
+		int existing = size();
+		if (size < existing) {
+			for (int i = 0; i < size; i++) {
+				add(entries[i]);
+			}
+			return;
+		}
+		Person[] all = entries;
+		String[] keys = null;
+		if (existing > 0) {					// the existing Persons go first, so they stay before equal names
+			all = Arrays.copyOf(toArray(), existing + size);
+			System.arraycopy(entries, 0, all, existing, size);
+			keys = Arrays.copyOf(keys(), existing + size);
+		}
+		EntryTree tree = of(all, keys, existing + size, collation);
+		root = tree.root;
+		head = tree.head;
+		leaves = tree.leaves;
+	}
+
+	public int size() {
+		return root.count;
+	}
+
+	public NameCollation getCollation() {
+		return collation;
+	}
+
+	/**
+	 * @return the number of entries the leaves currently allocated can hold.
+	 */
+	public int capacity() {
+		return leaves * ORDER;
+	}
+
+	public void clear() {
+		head = new Leaf();
+		root = head;
+		leaves = 1;
+	}
+
+	/**
+	 * Adds a Person after every Person already in this tree with the same full name.
+	 */
+	public void add(Person person) {
+		assert person != null;
+		String key = collation.key(person);
+		Node split = insert(root, key, person);
+		if (split != null) {						// the root was split, so the tree grows a level
+			Inner newRoot = new Inner();
+			newRoot.children[0] = root;
+			newRoot.children[1] = split;
+			newRoot.keys[0] = lowKey(split);
+			newRoot.size = 2;
+			newRoot.count = root.count + split.count;
+			root = newRoot;
+		}
+	}
+
+	/**
+	 * @param query a Person with the full name to look for.
+	 * @return the first Person with that full name (ignoring case), or null if there is none.  Persons
+	 * whose names merely share its key, which a locale's collation allows (e.g. "Straße" and "Strasse"),
+	 * don't count.
+	 */
+	public Person first(Person query) {
+		String key = collation.key(query);
+		for (Cursor cursor = cursor(rank(key)); cursor.hasNext() && cursor.peekKey().equals(key); ) {
+			Person p = cursor.next();
+			if (collation.sameName(query.getFullName(), p.getFullName())) {
+				return p;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Removes {@code person} from this tree, looking for it (compared with {@code ==}) among the Persons
+	 * filed under its full name, which must not have changed since it was added.
+	 * @param person the Person to remove.
+	 * @return true if {@code person} was found and removed.
+	 */
+	public boolean remove(Person person) {
+		String key = collation.key(person);
+		int position = rank(key);
+		for (Cursor cursor = cursor(position); cursor.hasNext() && cursor.peekKey().equals(key); position++) {
+			if (cursor.next() == person) {
+				removeAt(position);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return the number of Persons whose key is less than the key passed as a parameter, i.e. the
+	 * position of the first Person with that key, if there is one.
+	 */
+	public int rank(String key) {
+		int result = 0;
+		Node node = root;
+		while (node instanceof Inner) {
+			Inner inner = (Inner) node;
+			int child = lowerBound(inner.keys, inner.size - 1, key);
+			for (int i = 0; i < child; i++) {
+				result += inner.children[i].count;
+			}
+			node = inner.children[child];
+		}
+		Leaf leaf = (Leaf) node;
+		return result + lowerBound(leaf.keys, leaf.size, key);
+	}
+
+	/**
+	 * @return a cursor positioned at the entry with the index passed as a parameter, or past the end of
+	 * this tree if {@code position} is at least {@code size()}.
+	 */
+	public Cursor cursor(int position) {
+		assert position >= 0;
+		if (position >= size()) {
+			return new Cursor(null, 0);
+		}
+		Node node = root;
+		while (node instanceof Inner) {
+			Inner inner = (Inner) node;
+			int child = 0;
+			while (position >= inner.children[child].count) {
+				position -= inner.children[child].count;
+				child++;
+			}
+			node = inner.children[child];
+		}
+		return new Cursor((Leaf) node, position);
+	}
+
+	@Override
+	public Iterator<Person> iterator() {
+		return cursor(0);
+	}
+
+	/**
+	 * @return every Person in this tree, sorted by full name.
+	 */
+	public Person[] toArray() {
+		Person[] result = new Person[size()];
+		int resultSize = 0;
+		for (Leaf leaf = head; leaf != null; leaf = leaf.next) {
+			System.arraycopy(leaf.values, 0, result, resultSize, leaf.size);
+			resultSize += leaf.size;
+		}
+		return result;
+	}
+
+	/**
+	 * @return the key of every Person in this tree, in the same order as {@code toArray()}.
+	 */
+	public String[] keys() {
+		String[] result = new String[size()];
+		int resultSize = 0;
+		for (Leaf leaf = head; leaf != null; leaf = leaf.next) {
+			System.arraycopy(leaf.keys, 0, result, resultSize, leaf.size);
+			resultSize += leaf.size;
+		}
+		return result;
+	}
+
+	/**
+	 * Helper function that adds a Person below {@code node}.
+	 * @return the new right sibling of {@code node} if it had to be split, otherwise null.
+	 */
+	private Node insert(Node node, String key, Person person) {
+		node.count++;
+		if (node instanceof Leaf) {
+			Leaf leaf = (Leaf) node;
+			int position = upperBound(leaf.keys, leaf.size, key);
+			if (leaf.size < ORDER) {
+				leaf.insert(position, key, person);
+				return null;
+			}
+			Leaf right = leaf.split();
+			leaves++;
+			if (position <= leaf.size) {
+				leaf.insert(position, key, person);
+			} else {
+				right.insert(position - leaf.size, key, person);
+			}
+			leaf.count = leaf.size;
+			right.count = right.size;
+			return right;
+		}
+		Inner inner = (Inner) node;
+		int child = upperBound(inner.keys, inner.size - 1, key);
+		Node split = insert(inner.children[child], key, person);
+		if (split == null) {
+			return null;
+		}
+		String splitKey = lowKey(split);
+		if (inner.size < ORDER) {
+			inner.insert(child + 1, splitKey, split);
+			return null;
+		}
+		Inner right = inner.split();
+		if (child + 1 <= inner.size) {
+			inner.insert(child + 1, splitKey, split);
+		} else {
+			right.insert(child + 1 - inner.size, splitKey, split);
+		}
+		inner.recount();
+		right.recount();
+		return right;
+	}
+
+	/**
+	 * Helper function that removes the entry at the position passed as a parameter, merging nodes that
+	 * become too empty and dropping a level when the root is left with a single child.
+	 */
+	private Person removeAt(int position) {
+		Person removed = removeAt(root, position);
+		while (root instanceof Inner && ((Inner) root).size == 1) {
+			root = ((Inner) root).children[0];
+		}
+		return removed;
+	}
+
+	private Person removeAt(Node node, int position) {
+		node.count--;
+		if (node instanceof Leaf) {
+			Leaf leaf = (Leaf) node;
+			Person removed = leaf.values[position];
+			leaf.remove(position);
+			return removed;
+		}
+		Inner inner = (Inner) node;
+		int child = 0;
+		while (position >= inner.children[child].count) {
+			position -= inner.children[child].count;
+			child++;
+		}
+		Person removed = removeAt(inner.children[child], position);
+		rebalance(inner, child);
+		return removed;
+	}
+
+	/**
+	 * Helper function that merges a child that has become too empty with one of its siblings, if the two
+	 * fit in a single node.  An empty child is always removed.
+	 */
+	private void rebalance(Inner parent, int child) {
+		Node node = parent.children[child];
+		if (node.count == 0 && parent.size > 1) {
+			unlink(leftmostLeaf(node));			// an empty subtree is a single empty leaf
+			parent.remove(child);
+			return;
+		}
+		if (width(node) >= MIN_FILL || parent.size == 1) {
+			return;
+		}
+		int left = (child > 0 ? child - 1 : child);		// merge the pair starting at this index
+		Node leftNode = parent.children[left];
+		Node rightNode = parent.children[left + 1];
+		if (width(leftNode) + width(rightNode) > ORDER) {
+			return;
+		}
+		if (leftNode instanceof Leaf) {
+			Leaf l = (Leaf) leftNode;
+			Leaf r = (Leaf) rightNode;
+			System.arraycopy(r.keys, 0, l.keys, l.size, r.size);
+			System.arraycopy(r.values, 0, l.values, l.size, r.size);
+			l.size += r.size;
+			unlink(r);
+		} else {
+			Inner l = (Inner) leftNode;
+			Inner r = (Inner) rightNode;
+			l.keys[l.size - 1] = parent.keys[left];	// the separator moves down between the two halves
+			System.arraycopy(r.keys, 0, l.keys, l.size, r.size - 1);
+			System.arraycopy(r.children, 0, l.children, l.size, r.size);
+			l.size += r.size;
+		}
+		leftNode.count += rightNode.count;
+		parent.remove(left + 1);
+	}
+
+	private void unlink(Leaf leaf) {
+		if (leaf.prev != null) {
+			leaf.prev.next = leaf.next;
+		} else {
+			head = leaf.next;
+		}
+		if (leaf.next != null) {
+			leaf.next.prev = leaf.prev;
+		}
+		leaves--;
+	}
+
+	private static int width(Node node) {
+		return (node instanceof Leaf ? ((Leaf) node).size : ((Inner) node).size);
+	}
+
+	private static Leaf leftmostLeaf(Node node) {
+		while (node instanceof Inner) {
+			node = ((Inner) node).children[0];
+		}
+		return (Leaf) node;
+	}
+
+	private static String lowKey(Node node) {
+		return leftmostLeaf(node).keys[0];
+	}
+
+	/**
+	 * @return the index of the first of the first {@code length} keys that is not less than {@code key}.
+	 */
+	private static int lowerBound(String[] keys, int length, String key) {
+		int low = 0;
+		int high = length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (keys[mid].compareTo(key) < 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * @return the index of the first of the first {@code length} keys that is greater than {@code key}.
+	 */
+	private static int upperBound(String[] keys, int length, String key) {
+		int low = 0;
+		int high = length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (keys[mid].compareTo(key) <= 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Walks the entries of the tree in order, starting from the position it was created at.
+	 */
+	static final class Cursor implements Iterator<Person> {
+		private Leaf leaf;
+		private int index;
+
+		private Cursor(Leaf leaf, int index) {
+			this.leaf = leaf;
+			this.index = index;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return leaf != null;
+		}
+
+		@Override
+		public Person next() {
+			if (leaf == null) {
+				throw new NoSuchElementException();
+			}
+			Person result = leaf.values[index];
+			index++;
+			if (index == leaf.size) {
+				leaf = leaf.next;
+				index = 0;
+			}
+			return result;
+		}
+
+		/**
+		 * @return the key of the Person {@code next()} will return.
+		 */
+		String peekKey() {
+			return leaf.keys[index];
+		}
+	}
+
+	private record Slot(String key, Person person) {
+	}
+
+	private abstract static class Node {
+		int count;								// number of entries in this subtree
+	}
+
+	private static final class Leaf extends Node {
+		final String[] keys = new String[ORDER];
+		final Person[] values = new Person[ORDER];
+		int size;
+		Leaf prev;
+		Leaf next;
+
+		void insert(int position, String key, Person person) {
+			System.arraycopy(keys, position, keys, position + 1, size - position);
+			System.arraycopy(values, position, values, position + 1, size - position);
+			keys[position] = key;
+			values[position] = person;
+			size++;
+		}
+
+		void remove(int position) {
+			System.arraycopy(keys, position + 1, keys, position, size - position - 1);
+			System.arraycopy(values, position + 1, values, position, size - position - 1);
+			size--;
+			keys[size] = null;					// removes references to avoid loitering
+			values[size] = null;
+		}
+
+		/**
+		 * Moves the upper half of this leaf into a new leaf linked in after it.
+		 */
+		Leaf split() {
+			Leaf right = new Leaf();
+			int half = size / 2;
+			right.size = size - half;
+			System.arraycopy(keys, half, right.keys, 0, right.size);
+			System.arraycopy(values, half, right.values, 0, right.size);
+			Arrays.fill(keys, half, size, null);
+			Arrays.fill(values, half, size, null);
+			size = half;
+			right.prev = this;
+			right.next = next;
+			if (next != null) {
+				next.prev = right;
+			}
+			next = right;
+			return right;
+		}
+	}
+
+	/**
+	 * An inner node with {@code size} children.  {@code keys[i]} separates {@code children[i]} from
+	 * {@code children[i + 1]}: no key below the former is greater, and no key below the latter is less.
+	 */
+	private static final class Inner extends Node {
+		final String[] keys = new String[ORDER - 1];
+		final Node[] children = new Node[ORDER];
+		int size;
+
+		/**
+		 * Inserts a child at {@code position}, along with the separator that goes before it.
+		 */
+		void insert(int position, String key, Node child) {
+			assert position > 0;
+			System.arraycopy(keys, position - 1, keys, position, size - position);
+			System.arraycopy(children, position, children, position + 1, size - position);
+			keys[position - 1] = key;
+			children[position] = child;
+			size++;
+		}
+
+		/**
+		 * Removes the child at {@code position}, along with one of the separators next to it.
+		 */
+		void remove(int position) {
+			int key = (position > 0 ? position - 1 : 0);
+			System.arraycopy(keys, key + 1, keys, key, size - key - 2);
+			System.arraycopy(children, position + 1, children, position, size - position - 1);
+			size--;
+			keys[Math.max(0, size - 1)] = null;
+			children[size] = null;
+		}
+
+		Inner split() {
+			Inner right = new Inner();
+			int half = size / 2;
+			right.size = size - half;
+			System.arraycopy(children, half, right.children, 0, right.size);
+			System.arraycopy(keys, half, right.keys, 0, right.size - 1);
+			Arrays.fill(children, half, size, null);
+			Arrays.fill(keys, half - 1, size - 1, null);
+			size = half;
+			return right;
+		}
+
+		void recount() {
+			count = 0;
+			for (int i = 0; i < size; i++) {
+				count += children[i].count;
+			}
+		}
+	}
+
+	/**
+	 * Checks this class against a sorted list, by adding and removing random entries in the default order
+	 * and in a locale's, and comparing their order, size, ranks, lookups and cursors after every step.  Run
+	 * it after changing this class, with the seed of a failed run to repeat it:
+	 * {@code java phonebook.EntryTree [seed]}.
+	 */
+	public static void main(String[] args) {
+		long seed = (args.length > 0 ? Long.parseLong(args[0]) : System.nanoTime());
+		int steps = 200_000;
+		for (NameCollation collation: new NameCollation[] {NameCollation.DEFAULT, NameCollation.of(Locale.FRANCE)}) {
+			Random random = new Random(seed);
+			EntryTree tree = new EntryTree(collation);
+			List<Person> expected = new ArrayList<>();
+			List<String> expectedKeys = new ArrayList<>();
+			for (int step = 0; step < steps; step++) {
+				int op = random.nextInt(1000);
+				if (op == 0 && expected.size() < 4000) {		// often big enough to rebuild the tree
+					Person[] batch = new Person[random.nextInt(expected.size() * 2 + 2)];
+					for (int i = 0; i < batch.length; i++) {
+						batch[i] = randomPerson(random);
+						insert(expected, expectedKeys, batch[i], collation.key(batch[i]));
+					}
+					tree.addAll(batch, batch.length);
+				} else if (op < (expected.size() < 4000 ? 550 : 400)) {
+					Person p = randomPerson(random);
+					insert(expected, expectedKeys, p, collation.key(p));
+					tree.add(p);
+				} else if (!expected.isEmpty()) {
+					int position = random.nextInt(expected.size());
+					check(tree.remove(expected.get(position)), "remove", seed, step);
+					expected.remove(position);
+					expectedKeys.remove(position);
+				}
+				check(tree.size() == expected.size(), "size", seed, step);
+				if (step % 1000 == 0 || expected.size() < 4 * ORDER) {
+					check(Arrays.equals(tree.toArray(), expected.toArray()), "order", seed, step);
+					check(Arrays.equals(tree.keys(), expectedKeys.toArray()), "keys", seed, step);
+				}
+				if (expected.isEmpty()) {
+					continue;
+				}
+				String key = expectedKeys.get(random.nextInt(expected.size()));
+				int rank = tree.rank(key);
+				check(rank == lowerBound(expectedKeys, key), "rank", seed, step);
+				Person query = randomPerson(random);
+				Person first = null;
+				for (int i = lowerBound(expectedKeys, collation.key(query)); first == null && i < expected.size()
+						&& expectedKeys.get(i).equals(collation.key(query)); i++) {
+					if (collation.sameName(query.getFullName(), expected.get(i).getFullName())) {
+						first = expected.get(i);
+					}
+				}
+				check(tree.first(query) == first, "first", seed, step);
+				int position = random.nextInt(expected.size());
+				Cursor cursor = tree.cursor(position);
+				for (int i = position; i < Math.min(position + 2 * ORDER, expected.size()); i++) {
+					check(cursor.hasNext() && cursor.peekKey().equals(expectedKeys.get(i))
+							&& cursor.next() == expected.get(i), "cursor", seed, step);
+				}
+				check(position + 2 * ORDER < expected.size() || !cursor.hasNext(), "cursor end", seed, step);
+			}
+			System.out.println((collation.getLocale() == null ? "Default" : collation.getLocale()) + " order: "
+					+ steps + " steps passed, " + tree.size() + " entries left (seed " + seed + ")");
+		}
+	}
+
+	/**
+	 * Helper function for {@code main} that makes a Person with one of a few names, so that many share a
+	 * name, differ only in case, or share a key in a locale's order.
+	 */
+	private static Person randomPerson(Random random) {
+		String[] lastNames = {"Doe", "doe", "McGrath", "Craft", "Ávila", "Avila", "Zamora", "Éclair", "Eclair",
+				"Straße", "Strasse", "Nuñez", "Nunez"};
+		String[] firstNames = {"Ann", "ANN", "John", "Jake", "Marta", "Luis", "Zoe"};
+		return new Person(lastNames[random.nextInt(lastNames.length)] + ", "
+				+ firstNames[random.nextInt(firstNames.length)], "(312)-555-0100", null);
+	}
+
+	/**
+	 * Helper function for {@code main} that files a Person after every Person with the same key.
+	 */
+	private static void insert(List<Person> persons, List<String> keys, Person p, String key) {
+		int position = lowerBound(keys, key + '\0');		// the first key greater than key
+		persons.add(position, p);
+		keys.add(position, key);
+	}
+
+	/**
+	 * Helper function for {@code main} that returns the position of the first key that isn't less than
+	 * {@code key}.
+	 */
+	private static int lowerBound(List<String> keys, String key) {
+		int low = 0;
+		int high = keys.size();
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (keys.get(mid).compareTo(key) < 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Helper function for {@code main} that fails the check if {@code ok} is false.
+	 */
+	private static void check(boolean ok, String what, long seed, int step) {
+		if (!ok) {
+			throw new IllegalStateException("EntryTree " + what + " check failed at step " + step + " (seed "
+					+ seed + ")");
+		}
+	}
+
+}
@@ -0,0 +1,19 @@
+package phonebook;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+
+/**
+ * Streaming sink for PhoneBook entries, written one Person at a time.
+ * @author Jake McGrath
+ *
+ */
+public interface EntryWriter extends Closeable, Flushable {
+
+	/**
+	 * Writes a single Person as one record of this writer's format.
+	 * @throws IOException if the underlying output can't be written.
+	 */
+	void write(Person person) throws IOException;
+}
@@ -0,0 +1,181 @@
+package phonebook;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Hash index from the normalized value of one {@code SearchField} to the Persons that have that value.
+ * Besides answering exact lookups, the index keeps the statistics the query planner in
+ * {@code PhoneBookQuery} uses to decide which predicate to start from: the number of indexed rows, the
+ * number of distinct keys (the index's cardinality), and the number of rows stored under any given key.
+ * @author Jake McGrath
+ *
+ */
+class FieldIndex {
+
+	private final SearchField field;
+	private final StringPool keys;				// where new keys are interned; null to keep them as they are
+	private HashMap<String, Bucket> buckets;
+	private int rows;
+
+
+	public FieldIndex(SearchField field) {
+		this(field, null);
+	}
+
+	/**
+	 * @param field the field to index.
+	 * @param keys the pool to intern keys in, so that indexes on the same field of different PhoneBooks
+	 * share their keys; or null.
+	 */
+	public FieldIndex(SearchField field, StringPool keys) {
+		this.field = field;
+		this.keys = keys;
+		this.buckets = new HashMap<>();
+		this.rows = 0;
+	}
+
+	public SearchField getField() {
+		return field;
+	}
+
+	public void add(Person person) {
+		String key = field.key(person);
+		Bucket bucket = buckets.get(key);
+		if (bucket == null) {
+			bucket = new Bucket();
+			buckets.put(keys == null ? key : keys.intern(key), bucket);
+		}
+		bucket.add(person);
+		rows++;
+	}
+
+	public void remove(Person person) {
+		String key = field.key(person);
+		Bucket bucket = buckets.get(key);
+		if (bucket != null && bucket.remove(person)) {
+			rows--;
+			if (bucket.size == 0) {
+				buckets.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * @param key a key already normalized with {@code SearchField.normalize(String)}.
+	 * @return a copy of the Persons stored under {@code key}; an empty array if there are none.
+	 */
+	public Person[] lookup(String key) {
+		Bucket bucket = buckets.get(key);
+		return (bucket == null ? new Person[0] : Arrays.copyOf(bucket.people, bucket.size));
+	}
+
+	/**
+	 * @param key a key already normalized with {@code SearchField.normalize(String)}.
+	 * @return the number of Persons stored under {@code key}.
+	 */
+	public int count(String key) {
+		Bucket bucket = buckets.get(key);
+		return (bucket == null ? 0 : bucket.size);
+	}
+
+	public int rows() {
+		return rows;
+	}
+
+	public int cardinality() {
+		return buckets.size();
+	}
+
+	/**
+	 * @return the average number of Persons per distinct key, i.e. the number of rows an equality
+	 * predicate on this field is expected to match when nothing else is known about the key.
+	 */
+	public double averageRowsPerKey() {
+		return (buckets.isEmpty() ? 0 : (double) rows / buckets.size());
+	}
+
+	/**
+	 * @return an estimate of the heap used by this index, not counting the Persons or pooled keys.
+	 */
+	public long estimateMemory() {
+		long result = 0;
+		for (Map.Entry<String, Bucket> entry: buckets.entrySet()) {
+			result += ObjectSizes.HASH_MAP_ENTRY + ObjectSizes.ARRAY_LIST
+					+ ObjectSizes.array((long) entry.getValue().people.length * ObjectSizes.REFERENCE)
+					+ entry.getValue().estimateSlots();
+			if (keys == null || !keys.isPooled(entry.getKey())) {
+				result += ObjectSizes.string(entry.getKey());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * The Persons sharing one key.  Removal swaps the removed Person with the last one, since the order
+	 * within a bucket doesn't matter.  A small bucket is searched for the Person to remove; once a bucket
+	 * holds more than {@code SCAN_LIMIT}, it also keeps the slot of each Person, so that removing from a
+	 * bucket holding e.g. every entry in one state takes O(1) rather than a scan of the whole bucket.
+	 */
+	private static class Bucket {
+		private static final int SCAN_LIMIT = 16;
+
+		private Person[] people = new Person[1];
+		private int size = 0;
+		private IdentityHashMap<Person, Integer> slots;		// null until the bucket outgrows SCAN_LIMIT
+
+		private void add(Person p) {
+			if (size == people.length) {
+				people = Arrays.copyOf(people, size * 2);
+			}
+			people[size] = p;
+			if (slots != null) {
+				slots.put(p, size);
+			} else if (size == SCAN_LIMIT) {
+				slots = new IdentityHashMap<>();
+				for (int i = 0; i <= size; i++) {
+					slots.put(people[i], i);
+				}
+			}
+			size++;
+		}
+
+		private boolean remove(Person p) {
+			int slot = -1;
+			if (slots != null) {
+				Integer found = slots.remove(p);
+				slot = (found == null ? -1 : found);
+			} else {
+				for (int i = 0; i < size && slot < 0; i++) {
+					if (people[i] == p) {
+						slot = i;
+					}
+				}
+			}
+			if (slot < 0) {
+				return false;
+			}
+			Person last = people[size - 1];
+			people[slot] = last;
+			people[size - 1] = null;
+			size--;
+			if (slots != null && last != p) {
+				slots.put(last, slot);
+			}
+			return true;
+		}
+
+		/**
+		 * @return an estimate of the heap used by the slots, if this bucket keeps them.
+		 */
+		private long estimateSlots() {
+			// IdentityHashMap keeps each Person and its slot side by side in a table 1/3 to 2/3 full, and
+			// slots past 127 are boxed
+			return (slots == null ? 0 : ObjectSizes.HASH_MAP_ENTRY + ObjectSizes.array(slots.size() * 4L
+					* ObjectSizes.REFERENCE) + (long) Math.max(0, slots.size() - 128) * ObjectSizes.BOXED_INT);
+		}
+	}
+
+}
@@ -0,0 +1,133 @@
+package phonebook;
+
+import java.io.IOException;
+
+/**
+ * Tally of an import: how many records were imported, and which were rejected and why.  Only the first
+ * {@code MAX_DETAILS} rejections are kept in memory, so the report stays the same size no matter how
+ * large the input is; every rejection can also be streamed to an error log as it happens.
+ * @author Jake McGrath
+ *
+ */
+public class ImportReport {
+
+	protected static final int MAX_DETAILS = 100;
+	private static final int MAX_RECORD_ECHO = 200;	// characters of a rejected record repeated in a detail
+
+	private long imported;
+	private long rejected;
+	private String[] details;
+	private int detailCount;
+	private Appendable errorLog;
+	private String damage;
+
+
+	public ImportReport() {
+		this(null);
+	}
+
+	/**
+	 * @param errorLog where to write one line per rejected record, or null for no log.
+	 */
+	public ImportReport(Appendable errorLog) {
+		this.details = new String[MAX_DETAILS];
+		this.detailCount = 0;
+		this.errorLog = errorLog;
+	}
+
+	protected void imported() {
+		imported++;
+	}
+
+	/**
+	 * Records a rejected record.
+	 * @param line the line number at which the record starts.
+	 * @param message why the record was rejected.
+	 * @param record the record itself (may be null if it's not available).
+	 */
+	protected void rejected(long line, String message, String record) {
+		rejected++;
+		String detail = "Line " + line + ": " + message;
+		if (record != null) {
+			detail += " [" + (record.length() > MAX_RECORD_ECHO ? record.substring(0, MAX_RECORD_ECHO) + "..."
+					: record) + "]";
+		}
+		if (detailCount < details.length) {
+			details[detailCount] = detail;
+			detailCount++;
+		}
+		if (errorLog != null) {
+			try {
+				errorLog.append(detail).append(System.lineSeparator());
+			} catch (IOException e) {
+				errorLog = null;			// stop logging rather than failing the import
+			}
+		}
+	}
+
+	/**
+	 * Records that the input was damaged partway through, so only the entries before the damage were
+	 * read.
+	 * @param message where and how the input was damaged.
+	 */
+	protected void damaged(String message) {
+		damage = message;
+		if (errorLog != null) {
+			try {
+				errorLog.append("Damaged: ").append(message).append(System.lineSeparator());
+			} catch (IOException e) {
+				errorLog = null;
+			}
+		}
+	}
+
+	/**
+	 * @return true if the input was damaged, and only the entries before the damage were read.
+	 */
+	public boolean isDamaged() {
+		return damage != null;
+	}
+
+	/**
+	 * @return where and how the input was damaged, or null if it wasn't.
+	 */
+	public String getDamage() {
+		return damage;
+	}
+
+	public long getImported() {
+		return imported;
+	}
+
+	public long getRejected() {
+		return rejected;
+	}
+
+	/**
+	 * @return the first (up to {@code MAX_DETAILS}) rejections, oldest first.
+	 */
+	public String[] getDetails() {
+		String[] result = new String[detailCount];
+		System.arraycopy(details, 0, result, 0, detailCount);
+		return result;
+	}
+
+	public String summary() {
+		String result = String.format("%d entries imported, %d rejected", imported, rejected);
+		return (damage == null ? result : result + "; the file is damaged, and only the entries before the "
+				+ "damage were recovered (" + damage + ")");
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder(summary());
+		for (int i = 0; i < detailCount; i++) {
+			result.append('\n').append(details[i]);
+		}
+		if (rejected > detailCount) {
+			result.append('\n').append("... and ").append(rejected - detailCount).append(" more");
+		}
+		return result.toString();
+	}
+
+}
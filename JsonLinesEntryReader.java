@@ -0,0 +1,256 @@
+package phonebook;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Streaming JSON Lines reader for PhoneBook entries.  Each non-blank line must hold one flat JSON object
+ * whose members are the names in {@code EntryFormat.FIELDS} with string (or null) values; unknown members
+ * are ignored.  Lines are parsed one at a time, and a line longer than {@code MAX_LINE_LENGTH} is rejected
+ * without being kept in memory, so memory use doesn't depend on the size of the input.
+ * @author Jake McGrath
+ *
+ */
+class JsonLinesEntryReader implements EntryReader {
+
+	// room for every field at CsvEntryReader's limit, with some of it escaped
+	protected static final int MAX_LINE_LENGTH = 4 * EntryFormat.FIELDS.length * CsvEntryReader.MAX_FIELD_LENGTH;
+
+	private final Reader in;
+	private final ImportReport report;
+	private final char[] buffer;
+	private int bufferPosition;
+	private int limit;
+	private final String[] fields;
+	private final StringBuilder scratch;
+	private final StringBuilder lineText;
+	private boolean lineTooLong;
+	private long line;
+
+	// the line currently being parsed
+	private String text;
+	private int position;
+
+
+	public JsonLinesEntryReader(Reader in, ImportReport report) {
+		this.in = in;
+		this.report = report;
+		this.buffer = new char[1 << 16];
+		this.bufferPosition = 0;
+		this.limit = 0;
+		this.fields = new String[EntryFormat.FIELDS.length];
+		this.scratch = new StringBuilder();
+		this.lineText = new StringBuilder();
+		this.line = 0;
+	}
+
+	@Override
+	public Person read() throws IOException {
+		while (readLine()) {
+			line++;
+			if (lineTooLong) {
+				report.rejected(line, "Line longer than " + MAX_LINE_LENGTH + " characters", lineText.toString());
+				continue;
+			}
+			String entry = lineText.toString();
+			if (!entry.isBlank()) {
+				try {
+					parseObject(entry);
+					Person p = EntryFormat.toPerson(fields);
+					report.imported();
+					return p;
+				} catch (MalformedJsonException e) {
+					report.rejected(line, "Malformed JSON at column " + position + ": " + e.getMessage(),
+							entry);
+				} catch (RuntimeException e) {
+					report.rejected(line, EntryFormat.describe(e), entry);
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Reads the next line, ended by LF, CRLF, or CR, into {@code lineText}, keeping no more than
+	 * {@code MAX_LINE_LENGTH} characters of it and setting {@code lineTooLong} if there were more.
+	 * @return false if the end of the input was reached before any character of a new line.
+	 */
+	private boolean readLine() throws IOException {
+		lineText.setLength(0);
+		lineTooLong = false;
+		int c = nextChar();
+		if (c == -1) {
+			return false;
+		}
+		while (c != -1 && c != '\n' && c != '\r') {
+			if (lineText.length() < MAX_LINE_LENGTH) {
+				lineText.append((char) c);
+			} else {
+				lineTooLong = true;
+			}
+			c = nextChar();
+		}
+		if (c == '\r' && peekChar() == '\n') {
+			nextChar();
+		}
+		return true;
+	}
+
+	private int nextChar() throws IOException {
+		if (bufferPosition == limit && !fill()) {
+			return -1;
+		}
+		return buffer[bufferPosition++];
+	}
+
+	private int peekChar() throws IOException {
+		if (bufferPosition == limit && !fill()) {
+			return -1;
+		}
+		return buffer[bufferPosition];
+	}
+
+	private boolean fill() throws IOException {
+		int n = in.read(buffer, 0, buffer.length);
+		while (n == 0) {
+			n = in.read(buffer, 0, buffer.length);
+		}
+		if (n < 0) {
+			return false;
+		}
+		bufferPosition = 0;
+		limit = n;
+		return true;
+	}
+
+	private void parseObject(String entry) {
+		text = entry;
+		position = 0;
+		for (int i = 0; i < fields.length; i++) {
+			fields[i] = null;
+		}
+		expect('{');
+		skipWhitespace();
+		if (peek() == '}') {
+			position++;
+		} else {
+			while (true) {
+				skipWhitespace();
+				String name = parseString();
+				expect(':');
+				skipWhitespace();
+				String value;
+				if (text.startsWith("null", position)) {
+					position += 4;
+					value = null;
+				} else {
+					value = parseString();
+				}
+				for (int i = 0; i < fields.length; i++) {
+					if (EntryFormat.FIELDS[i].equals(name)) {
+						fields[i] = value;
+					}
+				}
+				skipWhitespace();
+				char c = next();
+				if (c == '}') {
+					break;
+				} else if (c != ',') {
+					throw new MalformedJsonException("expected ',' or '}'");
+				}
+			}
+		}
+		skipWhitespace();
+		if (position != text.length()) {
+			throw new MalformedJsonException("unexpected trailing characters");
+		}
+	}
+
+	private String parseString() {
+		if (next() != '"') {
+			throw new MalformedJsonException("expected a string");
+		}
+		scratch.setLength(0);
+		while (true) {
+			char c = next();
+			if (c == '"') {
+				return scratch.toString();
+			} else if (c == '\\') {
+				char escape = next();
+				switch (escape) {
+					case '"', '\\', '/' -> scratch.append(escape);
+					case 'b' -> scratch.append('\b');
+					case 'f' -> scratch.append('\f');
+					case 'n' -> scratch.append('\n');
+					case 'r' -> scratch.append('\r');
+					case 't' -> scratch.append('\t');
+					case 'u' -> {
+						if (position + 4 > text.length()) {
+							throw new MalformedJsonException("truncated unicode escape");
+						}
+						try {
+							scratch.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+						} catch (NumberFormatException e) {
+							throw new MalformedJsonException("invalid unicode escape");
+						}
+						position += 4;
+					}
+					default -> throw new MalformedJsonException("invalid escape '\\" + escape + "'");
+				}
+			} else {
+				scratch.append(c);
+			}
+		}
+	}
+
+	private void expect(char expected) {
+		skipWhitespace();
+		if (next() != expected) {
+			throw new MalformedJsonException("expected '" + expected + "'");
+		}
+	}
+
+	private void skipWhitespace() {
+		while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+			position++;
+		}
+	}
+
+	private char peek() {
+		if (position >= text.length()) {
+			throw new MalformedJsonException("unexpected end of line");
+		}
+		return text.charAt(position);
+	}
+
+	private char next() {
+		char c = peek();
+		position++;
+		return c;
+	}
+
+	@Override
+	public ImportReport getReport() {
+		return report;
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+}
+
+/**
+ * Exception that is thrown internally whenever a line of JSON Lines input isn't a valid flat JSON object.
+ * @author Jake McGrath
+ *
+ */
+class MalformedJsonException extends RuntimeException {
+
+	private static final long serialVersionUID = 5128944726305819921L;
+
+	public MalformedJsonException(String message) {
+		super(message);
+	}
+}
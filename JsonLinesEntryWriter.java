@@ -0,0 +1,70 @@
+package phonebook;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Streaming JSON Lines writer for PhoneBook entries: one flat JSON object per line, with a member for
+ * each name in {@code EntryFormat.FIELDS}.
+ * @author Jake McGrath
+ *
+ */
+class JsonLinesEntryWriter implements EntryWriter {
+
+	private final Writer out;
+
+
+	public JsonLinesEntryWriter(Writer out) {
+		this.out = (out instanceof BufferedWriter ? out : new BufferedWriter(out, 1 << 16));
+	}
+
+	@Override
+	public void write(Person person) throws IOException {
+		String[] fields = EntryFormat.toFields(person);
+		out.write('{');
+		for (int i = 0; i < fields.length; i++) {
+			if (i > 0) {
+				out.write(',');
+			}
+			out.write('"');
+			out.write(EntryFormat.FIELDS[i]);
+			out.write("\":");
+			writeString(fields[i] == null ? "" : fields[i]);
+		}
+		out.write("}\n");
+	}
+
+	private void writeString(String value) throws IOException {
+		out.write('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+				case '"' -> out.write("\\\"");
+				case '\\' -> out.write("\\\\");
+				case '\n' -> out.write("\\n");
+				case '\r' -> out.write("\\r");
+				case '\t' -> out.write("\\t");
+				default -> {
+					if (c < 0x20) {
+						out.write(String.format("\\u%04x", (int) c));
+					} else {
+						out.write(c);
+					}
+				}
+			}
+		}
+		out.write('"');
+	}
+
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+
+}
@@ -0,0 +1,122 @@
+package phonebook;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size, log-linear histogram of latencies in nanoseconds, in the style of an HDR histogram.  Values
+ * below 128 ns are counted exactly; above that, every power of two is split into 64 equal buckets, so any
+ * recorded value is reported within about 1.6% of its true value, all the way up to {@code Long.MAX_VALUE}.
+ * <p>
+ * Recording only increments counters that were allocated up front, so {@code record(long)} never
+ * allocates and is safe to call from any number of threads; it can stay on in production.
+ * @author Jake McGrath
+ *
+ */
+class LatencyHistogram {
+
+	private static final int LINEAR_BUCKETS = 128;			// exact buckets for values 0 - 127
+	private static final int SUB_BUCKET_BITS = 6;			// 64 buckets per power of two above that
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKET_COUNT = LINEAR_BUCKETS + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+	// the counts, the AtomicLongArray and three AtomicLongs around them, and the histogram itself
+	static final long ESTIMATED_BYTES = ObjectSizes.array(BUCKET_COUNT * 8L) + 16 + 3 * 24 + 32;
+
+	private final AtomicLongArray counts;
+	private final AtomicLong count;
+	private final AtomicLong sum;
+	private final AtomicLong max;
+
+
+	public LatencyHistogram() {
+		counts = new AtomicLongArray(BUCKET_COUNT);
+		count = new AtomicLong();
+		sum = new AtomicLong();
+		max = new AtomicLong();
+	}
+
+	/**
+	 * Records a single latency.  Negative values (e.g. from a clock adjustment) are recorded as 0.
+	 * @param nanos the latency in nanoseconds.
+	 */
+	public void record(long nanos) {
+		if (nanos < 0) {
+			nanos = 0;
+		}
+		counts.incrementAndGet(bucket(nanos));
+		count.incrementAndGet();
+		sum.addAndGet(nanos);
+		long current = max.get();
+		while (nanos > current && !max.compareAndSet(current, nanos)) {
+			current = max.get();
+		}
+	}
+
+	private static int bucket(long value) {
+		if (value < LINEAR_BUCKETS) {
+			return (int) value;
+		}
+		int shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;	// at least 1
+		int sub = (int) (value >>> shift) - SUB_BUCKETS;						// 0 - 63
+		return LINEAR_BUCKETS + (shift - 1) * SUB_BUCKETS + sub;
+	}
+
+	/**
+	 * @return the largest value that falls in the bucket passed as a parameter.
+	 */
+	private static long highestValue(int bucket) {
+		if (bucket < LINEAR_BUCKETS) {
+			return bucket;
+		}
+		int shift = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + 1;
+		long sub = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+		return ((sub + 1) << shift) - 1;
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	public long getMax() {
+		return max.get();
+	}
+
+	public double getMean() {
+		long n = count.get();
+		return (n == 0 ? 0 : (double) sum.get() / n);
+	}
+
+	/**
+	 * @param percentile between 0 and 100, e.g. 99.9.
+	 * @return the latency at or below which {@code percentile} percent of the recorded values fall, or 0 if
+	 * nothing has been recorded.
+	 */
+	public long getPercentile(double percentile) {
+		long total = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			total += counts.get(i);
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+		long seen = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			seen += counts.get(i);
+			if (seen >= rank) {
+				return Math.min(highestValue(i), max.get());
+			}
+		}
+		return max.get();
+	}
+
+	public void reset() {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			counts.set(i, 0);
+		}
+		count.set(0);
+		sum.set(0);
+		max.set(0);
+	}
+
+}
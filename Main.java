@@ -1,7 +1,15 @@
 package phonebook;
 
+import java.util.Arrays;
+
 public class Main {
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--batch")) {     // headless, see PhoneBookBatch
+            System.exit(PhoneBookBatch.run(Arrays.copyOfRange(args, 1, args.length)));
+        }
+        if (args.length > 0 && args[0].equals("--lookup")) {    // one lookup in a store, see DiskPhoneBook
+            System.exit(DiskPhoneBook.run(Arrays.copyOfRange(args, 1, args.length)));
+        }
         PhoneBookUI test = new PhoneBookUI();
     }
 }
@@ -0,0 +1,338 @@
+package phonebook;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A read-only, lazily materialized view of a saved PhoneBook file (one entry per line, in the format
+ * written by {@code Person.toString()}).  Instead of building a Person and an Address for every line, the
+ * file is memory-mapped and opening it only records where each line starts, along with a 32-bit
+ * fingerprint of the line's full name and of its phone number, kept sorted with the entry's number.  That
+ * comes to about 24 bytes per entry, against several hundred for a loaded Person, and the bytes of the
+ * file itself are paged in by the operating system only when they're touched.
+ * <p>
+ * A lookup by full name or phone number binary-searches the fingerprints, and only the lines whose
+ * fingerprint matches are parsed into Persons, which are then compared with the query in full.
+ * Optionally, the Persons built this way are kept in a cache of soft references, so repeated lookups of
+ * the same entries don't parse them again while memory allows.
+ * <p>
+ * Closing it drops its references to the mappings, which the operating system only releases once they
+ * have been garbage collected.
+ * @author Jake McGrath
+ *
+ */
+public class MappedPhoneBook implements Closeable {
+
+	private static final long SEGMENT_SIZE = 1L << 30;		// each mapping covers 1 GiB of line starts
+	private static final int MAX_LINE = 1 << 16;			// ... plus this much, so no line is cut off
+	private static final int WINDOW = 1 << 20;				// bytes copied out of a mapping at a time on open
+
+	private final MappedByteBuffer[] segments;
+	private final long[] offsets;							// entry -> position of its line in the file
+	private final long[] byName;							// fingerprint << 32 | entry, sorted
+	private final long[] byPhone;
+	private final int size;
+	private final int rejected;
+	private final SoftReference<Person>[] cache;			// null unless caching was asked for
+	private boolean closed;
+
+
+	@SuppressWarnings("unchecked")
+	private MappedPhoneBook(MappedByteBuffer[] segments, long fileSize, boolean cached) throws IOException {
+		this.segments = segments;
+		int guess = (int) Math.min(fileSize / 48 + 16, 1 << 24);	// saved entries run 50 to 100 bytes
+		long[] lineOffsets = new long[guess];
+		int[] names = new int[guess];
+		int[] phones = new int[guess];
+		int count = 0;
+		int skipped = 0;
+		byte[] window = new byte[WINDOW];
+		long start = 0;
+		while (start < fileSize) {
+			// Copy the next stretch of the file into the window, then scan every whole line in it in one
+			// pass: find its end, hash the name before the first comma, and the digits after the last one
+			MappedByteBuffer segment = segments[(int) (start / SEGMENT_SIZE)];
+			int base = (int) (start % SEGMENT_SIZE);
+			int length = Math.min(WINDOW, segment.limit() - base);
+			segment.get(base, window, 0, length);
+			boolean endOfFile = (start + length == fileSize);
+			int from = 0;
+			while (from < length) {
+				int i = from;
+				int nameEnd = -1;
+				int lastComma = -1;
+				int nameHash = 0;
+				long digits = 0;
+				byte b;
+				while (i < length && (b = window[i]) != '\n') {
+					if (b == ',') {
+						if (nameEnd < 0) {
+							nameEnd = i;
+							nameHash = hashName(window, from, i);
+						}
+						lastComma = i;
+						digits = 0;
+					} else if (b >= '0' && b <= '9') {
+						digits = digits * 10 + (b - '0');
+					}
+					i++;
+				}
+				if (i - from > MAX_LINE) {
+					throw new IOException("Line too long at offset " + (start + from));
+				}
+				if (i == length && !endOfFile) {		// the line goes on past the window
+					break;
+				}
+				if (nameEnd < 0 || lastComma == nameEnd) {	// not a PhoneBook entry
+					if (!new String(window, from, i - from, StandardCharsets.UTF_8).isBlank()) {
+						skipped++;
+					}
+				} else {
+					if (count == lineOffsets.length) {
+						lineOffsets = Arrays.copyOf(lineOffsets, count * 2);
+						names = Arrays.copyOf(names, count * 2);
+						phones = Arrays.copyOf(phones, count * 2);
+					}
+					lineOffsets[count] = start + from;
+					names[count] = nameHash;
+					phones[count] = Long.hashCode(digits);
+					count++;
+				}
+				from = i + 1;
+			}
+			start += from;
+		}
+		this.size = count;
+		this.rejected = skipped;
+		this.offsets = Arrays.copyOf(lineOffsets, count);
+		this.byName = sortedIndex(names, count);
+		this.byPhone = sortedIndex(phones, count);
+		@SuppressWarnings("unchecked")
+		SoftReference<Person>[] c = (cached ? (SoftReference<Person>[]) new SoftReference<?>[count] : null);
+		this.cache = c;
+	}
+
+	/**
+	 * Maps a saved PhoneBook file and indexes its lines.  The file must not be changed while it's open.
+	 * @param file a file in the format written by saving a PhoneBook.
+	 * @param cached true to keep the Persons built by lookups in a cache of soft references.
+	 * @return the view of the file.
+	 * @throws IOException if the file can't be read, or a line is longer than 64 KiB.
+	 */
+	public static MappedPhoneBook open(Path file, boolean cached) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long fileSize = channel.size();
+			MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((fileSize + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+			for (int i = 0; i < segments.length; i++) {
+				long position = i * SEGMENT_SIZE;
+				segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position,
+						Math.min(SEGMENT_SIZE + MAX_LINE, fileSize - position));
+			}
+			return new MappedPhoneBook(segments, fileSize, cached);
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return the number of non-blank lines that weren't PhoneBook entries, and so were left out.
+	 */
+	public int getRejected() {
+		return rejected;
+	}
+
+	/**
+	 * @param index the number of the entry, counting from 0 in file order.
+	 * @return the entry, built from its line (or taken from the cache).
+	 */
+	public Person get(int index) {
+		if (closed) {
+			throw new IllegalStateException("The MappedPhoneBook is closed");
+		}
+		if (cache != null) {
+			SoftReference<Person> reference = cache[index];
+			Person cachedPerson = (reference == null ? null : reference.get());
+			if (cachedPerson != null) {
+				return cachedPerson;
+			}
+		}
+		long start = offsets[index];
+		Person result = PhoneBook.parseEntry(line(start, lineEnd(start)));
+		if (cache != null) {
+			cache[index] = new SoftReference<>(result);
+		}
+		return result;
+	}
+
+	public Person searchByFullName(String fullNameQuery) {
+		Person[] matches = lookup(SearchField.FULL_NAME, fullNameQuery);
+		return (matches == null ? null : matches[0]);
+	}
+
+	public Person searchByPhoneNumber(String phoneNumberQuery) throws InvalidPhoneNumberException {
+		Person[] matches = lookup(SearchField.PHONE_NUMBER, phoneNumberQuery);
+		return (matches == null ? null : matches[0]);
+	}
+
+	/**
+	 * Looks up every entry whose full name or phone number equals {@code value}, ignoring case.  Only the
+	 * entries whose fingerprint matches are built into Persons.
+	 * @param field either FULL_NAME or PHONE_NUMBER.
+	 * @param value the full name ("LastName, FirstName MiddleName(s)" or "FirstName MiddleName(s) LastName")
+	 * or phone number to look for.
+	 * @return the matching entries sorted by full name, or null if there are none, the same as the
+	 * PhoneBook's searches.
+	 * @throws IllegalArgumentException if {@code field} isn't one the file is indexed by.
+	 */
+	public Person[] lookup(SearchField field, String value) {
+		String key = field.normalize(value);
+		int fingerprint;
+		long[] index;
+		switch (field) {
+			case FULL_NAME -> {
+				int comma = key.indexOf(", ");					// "doe, john e" is written "John E Doe"
+				String written = (comma < 0 ? key : key.substring(comma + 2) + " " + key.substring(0, comma));
+				fingerprint = hashName(written);
+				index = byName;
+			}
+			case PHONE_NUMBER -> {
+				fingerprint = hashDigits(key);
+				index = byPhone;
+			}
+			default -> throw new IllegalArgumentException("A mapped PhoneBook can't be searched by " + field);
+		}
+		List<Person> result = new ArrayList<>();
+		// Just below the first pair with this fingerprint, which can't be in the index itself
+		int i = -Arrays.binarySearch(index, ((long) fingerprint << 32) - 1) - 1;
+		for (; i < index.length && (int) (index[i] >>> 32) == fingerprint; i++) {
+			Person candidate = get((int) index[i]);
+			if (field.key(candidate).equals(key)) {
+				result.add(candidate);
+			}
+		}
+		if (result.isEmpty()) {
+			return null;
+		}
+		Person[] matches = result.toArray(new Person[0]);
+		Arrays.sort(matches, Comparator.comparing(Person::getFullName, String.CASE_INSENSITIVE_ORDER));
+		return matches;
+	}
+
+	/**
+	 * Drops the mappings of the file and the cache; the MappedPhoneBook can't be searched afterwards.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		Arrays.fill(segments, null);
+		if (cache != null) {
+			Arrays.fill(cache, null);
+		}
+	}
+
+	/**
+	 * Helper function that pairs each entry with its fingerprint in one long, fingerprint in the high half,
+	 * and sorts them, so the entries with a given fingerprint can be found with a binary search.
+	 */
+	private static long[] sortedIndex(int[] fingerprints, int count) {
+		long[] result = new long[count];
+		for (int i = 0; i < count; i++) {
+			result[i] = (long) fingerprints[i] << 32 | i;
+		}
+		Arrays.sort(result);
+		return result;
+	}
+
+	/**
+	 * Helper function that hashes the name at the start of a line, ignoring case.  The bytes are decoded
+	 * as UTF-8 as they go, so the hash is the same as {@code hashName(String)} of the decoded name.
+	 */
+	private static int hashName(byte[] bytes, int start, int end) {
+		int hash = 0;
+		int i = start;
+		while (i < end) {
+			int b = bytes[i] & 0xff;
+			int codePoint;
+			int length;
+			if (b < 0x80) {
+				codePoint = b;
+				length = 1;
+			} else if (b >= 0xf0) {
+				codePoint = b & 0x07;
+				length = 4;
+			} else if (b >= 0xe0) {
+				codePoint = b & 0x0f;
+				length = 3;
+			} else {
+				codePoint = b & 0x1f;
+				length = 2;
+			}
+			for (int j = 1; j < length && i + j < end; j++) {
+				codePoint = (codePoint << 6) | (bytes[i + j] & 0x3f);
+			}
+			hash = 31 * hash + Character.toLowerCase(codePoint);
+			i += length;
+		}
+		return hash;
+	}
+
+	private static int hashName(String name) {
+		int hash = 0;
+		for (int i = 0; i < name.length(); i = name.offsetByCodePoints(i, 1)) {
+			hash = 31 * hash + Character.toLowerCase(name.codePointAt(i));
+		}
+		return hash;
+	}
+
+	/**
+	 * Helper function that hashes the digits of a phone number the same way lines are hashed when the
+	 * file is opened, skipping every other character.
+	 */
+	private static int hashDigits(String phoneNumber) {
+		long digits = 0;
+		for (int i = 0; i < phoneNumber.length(); i++) {
+			char c = phoneNumber.charAt(i);
+			if (c >= '0' && c <= '9') {
+				digits = digits * 10 + (c - '0');
+			}
+		}
+		return Long.hashCode(digits);
+	}
+
+	/**
+	 * @return the position of the '\n' ending the line that starts at {@code start} (excluding a
+	 * preceding '\r'), or the end of the file.
+	 */
+	private long lineEnd(long start) {
+		MappedByteBuffer segment = segments[(int) (start / SEGMENT_SIZE)];
+		int from = (int) (start % SEGMENT_SIZE);
+		int i = from;
+		while (i < segment.limit() && segment.get(i) != '\n') {
+			i++;
+		}
+		if (i > from && segment.get(i - 1) == '\r') {
+			i--;
+		}
+		return start + (i - from);
+	}
+
+	private String line(long start, long end) {
+		byte[] bytes = new byte[(int) (end - start)];
+		MappedByteBuffer segment = segments[(int) (start / SEGMENT_SIZE)];
+		segment.get((int) (start % SEGMENT_SIZE), bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+}
@@ -0,0 +1,41 @@
+package phonebook;
+
+/**
+ * Told by a PhoneBook what every change to its entries is, in the order they're made.  Each method is
+ * called on the thread that made the change, with the PhoneBook's write lock held and the change already
+ * counted in its mutation count, so an observer must return quickly and never wait for anything.  The
+ * Persons passed may change again as soon as it returns, so anything it needs later must be copied.
+ * @author Jake McGrath
+ *
+ */
+interface MutationObserver {
+
+	/**
+	 * @param p the entry added, with its new ID.
+	 * @param mutationCount the PhoneBook's mutation count after the change.
+	 */
+	void added(Person p, long mutationCount);
+
+	/**
+	 * @param id the ID the entry had.
+	 * @param p the entry deleted, which no longer has an ID.
+	 * @param mutationCount the PhoneBook's mutation count after the change.
+	 */
+	void deleted(long id, Person p, long mutationCount);
+
+	/**
+	 * Called after an entry is changed through a setter, or replaced by another Person with the same ID.
+	 * @param before a copy of the entry as it was, or the entry replaced, neither of which has an ID.
+	 * @param after the entry as it is now.
+	 * @param mutationCount the PhoneBook's mutation count after the change.
+	 */
+	void updated(Person before, Person after, long mutationCount);
+
+	/**
+	 * Called once every add, delete, and update that make up a single change have been passed on: after
+	 * each one for most changes, but only at the end of a whole merge or import.
+	 * @param mutationCount the PhoneBook's mutation count after the change.
+	 */
+	void committed(long mutationCount);
+
+}
@@ -0,0 +1,109 @@
+package phonebook;
+
+import java.nio.charset.StandardCharsets;
+import java.text.Collator;
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+
+/**
+ * The order a PhoneBook keeps its entries in by full name.  Each entry gets a sort key, computed once when
+ * it's added, and from then on entries are sorted and binary searched by comparing keys with
+ * {@code String.compareTo}, never the names themselves.
+ * <p>
+ * By default the key is the full name in lower case, the same as {@code SearchField.FULL_NAME} indexes by,
+ * which orders names by their UTF-16 code units: fine for plain ASCII, but accented and non-Latin letters
+ * sort after 'z', so "Ávila" comes after "Zamora".  With a locale, the key is the name's
+ * {@code CollationKey} under that locale's rules, ignoring case but not accents, with its bytes stored one
+ * per char of a Latin-1 String.  Comparing two such Strings compares the collation keys byte by byte, so
+ * the entries are in the locale's order, and comparing them costs no more than comparing the default keys.
+ * @author Jake McGrath
+ *
+ */
+final class NameCollation {
+
+	static final NameCollation DEFAULT = new NameCollation(null);
+
+	private final Locale locale;
+	// a copy of the collator per thread, so keys can be computed in parallel; null for the default order
+	private final ThreadLocal<Collator> collators;
+
+
+	private NameCollation(Locale locale) {
+		this.locale = locale;
+		if (locale == null) {
+			collators = null;
+		} else {
+			Collator collator = Collator.getInstance(locale);
+			collator.setStrength(Collator.SECONDARY);		// "de la Cruz" = "De La Cruz" < "de la Crúz"
+			collator.setDecomposition(Collator.CANONICAL_DECOMPOSITION);	// "é" = "e" + combining accent
+			collators = ThreadLocal.withInitial(() -> (Collator) collator.clone());
+		}
+	}
+
+	/**
+	 * @param locale the locale whose collation rules to follow, or null for the default order.
+	 */
+	static NameCollation of(Locale locale) {
+		return (locale == null ? DEFAULT : new NameCollation(locale));
+	}
+
+	/**
+	 * @return the locale whose collation rules this follows, or null for the default order.
+	 */
+	Locale getLocale() {
+		return locale;
+	}
+
+	/**
+	 * @return the sort key of the Person's full name.  Two Persons whose full names are the same, ignoring
+	 * case, have the same key.  With a locale, so may names the locale's collation treats as equal, such
+	 * as "Straße" and "Strasse", so a key on its own never identifies a name.
+	 */
+	String key(Person p) {
+		if (collators == null) {
+			return SearchField.FULL_NAME.key(p);
+		}
+		String fullName = (p.getFullName() == null ? "" : p.getFullName());
+		return new String(collators.get().getCollationKey(fullName).toByteArray(), StandardCharsets.ISO_8859_1);
+	}
+
+	/**
+	 * @return true if two full names are the same name, ignoring case, and with a locale, also ignoring how
+	 * accented letters are encoded ("é" or "e" + combining accent), which the keys ignore too.
+	 */
+	boolean sameName(String name1, String name2) {
+		if (name1 == null || name2 == null) {
+			return name1 == name2;
+		}
+		if (name1.equalsIgnoreCase(name2)) {
+			return true;
+		}
+		return collators != null && Normalizer.normalize(name1, Normalizer.Form.NFC).equalsIgnoreCase(
+				Normalizer.normalize(name2, Normalizer.Form.NFC));
+	}
+
+	/**
+	 * Sorts Persons by full name in this order, computing each one's key once instead of on every
+	 * comparison, on every core if there are enough of them (see {@code ParallelSort}).  Persons with the
+	 * same full name keep their order.
+	 */
+	void sort(Person[] persons) {
+		boolean parallel = ParallelSort.isWorthwhile(persons.length);
+		Keyed[] keyed = new Keyed[persons.length];
+		if (parallel) {
+			Arrays.parallelSetAll(keyed, i -> new Keyed(key(persons[i]), persons[i]));
+		} else {
+			Arrays.setAll(keyed, i -> new Keyed(key(persons[i]), persons[i]));
+		}
+		ParallelSort.sort(keyed, 0, keyed.length, Comparator.comparing(Keyed::key), parallel);
+		for (int i = 0; i < persons.length; i++) {
+			persons[i] = keyed[i].person();
+		}
+	}
+
+	private record Keyed(String key, Person person) {
+	}
+
+}
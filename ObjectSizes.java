@@ -0,0 +1,63 @@
+package phonebook;
+
+/**
+ * Approximate heap sizes of the objects a PhoneBook is made of, for estimating its memory without a
+ * heap dump.  The sizes assume a 64-bit JVM with compressed references (the default for heaps under
+ * 32 GB): 12-byte object headers, 16-byte array headers, 4-byte references, and every object padded to
+ * a multiple of 8 bytes.
+ * @author Jake McGrath
+ *
+ */
+final class ObjectSizes {
+
+	static final int HEADER = 12;
+	static final int ARRAY_HEADER = 16;
+	static final int REFERENCE = 4;
+	static final int PERSON = align(HEADER + 7 * REFERENCE + 8);		// 7 fields plus the long ID
+	static final int ADDRESS = align(HEADER + 5 * REFERENCE);
+	static final int BOXED_INT = align(HEADER + 4);
+	static final int BOXED_LONG = align(HEADER + 8);
+	static final int HASH_MAP_ENTRY = align(HEADER + 4 + 3 * REFERENCE) + 2 * REFERENCE;	// node, table slots
+	static final int ARRAY_LIST = align(HEADER + REFERENCE + 4);	// an object holding an array and its size
+
+
+	private ObjectSizes() {
+	}
+
+	/**
+	 * @return {@code bytes} rounded up to the next multiple of 8.
+	 */
+	static long align(long bytes) {
+		return (bytes + 7) & ~7L;
+	}
+
+	private static int align(int bytes) {
+		return (bytes + 7) & ~7;
+	}
+
+	/**
+	 * @return the size of a String and its array, which stores one byte per character unless one of them
+	 * is outside Latin-1; 0 for null.
+	 */
+	static long string(String s) {
+		if (s == null) {
+			return 0;
+		}
+		int bytesPerChar = 1;
+		for (int i = 0; i < s.length(); i++) {
+			if (s.charAt(i) > 0xff) {
+				bytesPerChar = 2;
+				break;
+			}
+		}
+		return align(HEADER + REFERENCE + 4 + 2) + array(s.length() * bytesPerChar);	// value, hash, flags
+	}
+
+	/**
+	 * @return the size of an array with {@code bytes} bytes of elements.
+	 */
+	static long array(long bytes) {
+		return align(ARRAY_HEADER + bytes);
+	}
+
+}
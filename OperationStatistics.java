@@ -0,0 +1,67 @@
+package phonebook;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Point-in-time summary of one PhoneBook operation's counter and latency histogram.  All latencies are in
+ * nanoseconds.
+ * @author Jake McGrath
+ *
+ */
+public class OperationStatistics {
+
+	private final long count;
+	private final double meanNanos;
+	private final long p50Nanos;
+	private final long p99Nanos;
+	private final long p999Nanos;
+	private final long maxNanos;
+
+
+	@ConstructorProperties({"count", "meanNanos", "p50Nanos", "p99Nanos", "p999Nanos", "maxNanos"})
+	public OperationStatistics(long count, double meanNanos, long p50Nanos, long p99Nanos, long p999Nanos,
+			long maxNanos) {
+		this.count = count;
+		this.meanNanos = meanNanos;
+		this.p50Nanos = p50Nanos;
+		this.p99Nanos = p99Nanos;
+		this.p999Nanos = p999Nanos;
+		this.maxNanos = maxNanos;
+	}
+
+	protected static OperationStatistics of(LatencyHistogram histogram) {
+		return new OperationStatistics(histogram.getCount(), histogram.getMean(), histogram.getPercentile(50),
+				histogram.getPercentile(99), histogram.getPercentile(99.9), histogram.getMax());
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public double getMeanNanos() {
+		return meanNanos;
+	}
+
+	public long getP50Nanos() {
+		return p50Nanos;
+	}
+
+	public long getP99Nanos() {
+		return p99Nanos;
+	}
+
+	public long getP999Nanos() {
+		return p999Nanos;
+	}
+
+	public long getMaxNanos() {
+		return maxNanos;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("count=%d, mean=%.0f ns, p50=%d ns, p99=%d ns, p999=%d ns, max=%d ns", count,
+				meanNanos, p50Nanos, p99Nanos, p999Nanos, maxNanos);
+	}
+
+}
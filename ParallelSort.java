@@ -0,0 +1,44 @@
+package phonebook;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * When sorting entries, and building the B+tree of a PhoneBook from them (after a load, a merge, a bulk
+ * import, or a change of locale), is worth splitting across the common fork/join pool.  Below
+ * {@code THRESHOLD} elements, or with a single core, handing the work out costs more than it saves, so it
+ * runs on the calling thread as before.
+ * @author Jake McGrath
+ *
+ */
+final class ParallelSort {
+
+	// sorts of at least this many elements use every core of the common fork/join pool
+	static final int THRESHOLD = 1 << 15;
+
+
+	private ParallelSort() {
+	}
+
+	/**
+	 * @return true if sorting {@code size} elements should be split across the common fork/join pool.
+	 */
+	static boolean isWorthwhile(int size) {
+		return size >= THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1;
+	}
+
+	/**
+	 * Sorts the elements of {@code a} from {@code from} (inclusive) to {@code to} (exclusive), on the
+	 * calling thread or the common fork/join pool.  Either way the sort is stable, so equal elements keep
+	 * their order.
+	 */
+	static <T> void sort(T[] a, int from, int to, Comparator<? super T> comparator, boolean parallel) {
+		if (parallel) {
+			Arrays.parallelSort(a, from, to, comparator);
+		} else {
+			Arrays.sort(a, from, to, comparator);
+		}
+	}
+
+}
@@ -1,5 +1,6 @@
 package phonebook;
 
+import java.io.IOException;
 import java.util.Objects;
 
 /**
@@ -18,6 +19,8 @@ public class Person implements Comparable<Person> {
 	private String fullName;
 	private String phoneNumber;
 	private Address address;
+	private long id;				// assigned by the PhoneBook this Person is added to; 0 if none
+	private PhoneBook owner;		// the PhoneBook this Person is in; told when indexed fields change
 
 
 	public Person(String firstName, String middleName, String lastName, String phoneNumber, Address address) {
@@ -26,7 +29,7 @@ public class Person implements Comparable<Person> {
 		this.lastName = titleCase(lastName);
 		this.setFullName();
 		this.setPhoneNumber(phoneNumber);
-		this.address = address;
+		this.setAddress(address);
 	}
 	
 
@@ -35,7 +38,7 @@ public class Person implements Comparable<Person> {
 		this.lastName = titleCase(lastName);
 		this.setFullName();
 		this.setPhoneNumber(phoneNumber);
-		this.address = address;
+		this.setAddress(address);
 	}
 
 
@@ -43,7 +46,7 @@ public class Person implements Comparable<Person> {
 		this.fullName = fullName;
 		this.setFirstMiddleLast();		// Ensures firstName, middleName, and lastName are initialized
 		this.setPhoneNumber(phoneNumber);
-		this.address = address;
+		this.setAddress(address);
 	}
 	
 	/**
@@ -134,8 +137,13 @@ public class Person implements Comparable<Person> {
 
 
 	public void setFirstName(String firstName) {
-		this.firstName = firstName;
-		this.setFullName();
+		changing(SearchField.FIRST_NAME, SearchField.FULL_NAME);
+		try {
+			this.firstName = firstName;
+			this.setFullName();
+		} finally {
+			changed(SearchField.FIRST_NAME, SearchField.FULL_NAME);
+		}
 	}
 
 
@@ -145,8 +153,13 @@ public class Person implements Comparable<Person> {
 
 
 	public void setMiddleName(String middleName) {
-		this.middleName = middleName;
-		this.setFullName();
+		changing(SearchField.FULL_NAME);
+		try {
+			this.middleName = middleName;
+			this.setFullName();
+		} finally {
+			changed(SearchField.FULL_NAME);
+		}
 	}
 
 
@@ -156,8 +169,13 @@ public class Person implements Comparable<Person> {
 
 
 	public void setLastName(String lastName) {
-		this.lastName = lastName;
-		this.setFullName();
+		changing(SearchField.LAST_NAME, SearchField.FULL_NAME);
+		try {
+			this.lastName = lastName;
+			this.setFullName();
+		} finally {
+			changed(SearchField.LAST_NAME, SearchField.FULL_NAME);
+		}
 	}
 
 
@@ -167,8 +185,13 @@ public class Person implements Comparable<Person> {
 
 
 	public void setFullName(String fullName) {
-		this.fullName = fullName;
-		this.setFirstMiddleLast();
+		changing(SearchField.FIRST_NAME, SearchField.LAST_NAME, SearchField.FULL_NAME);
+		try {
+			this.fullName = fullName;
+			this.setFirstMiddleLast();
+		} finally {
+			changed(SearchField.FIRST_NAME, SearchField.LAST_NAME, SearchField.FULL_NAME);
+		}
 	}
 
 
@@ -178,25 +201,10 @@ public class Person implements Comparable<Person> {
 
 
 	public void setPhoneNumber(String phoneNumber) throws InvalidPhoneNumberException {
-		assert phoneNumber != null;
-		if (phoneNumber.length() != 10 && phoneNumber.length() != 14) {
-			throw new InvalidPhoneNumberException("Please enter a valid phone number");
-		}
-		String result = "(";
-		for (int i = 0; i < phoneNumber.length(); i++) {
-			char temp = phoneNumber.charAt(i);
-			if (result.length() == 3 && Character.isDigit(temp)) {
-				result += temp +")-";
-			} else if (result.length() == 8 && Character.isDigit(temp)) {
-				result += temp + "-";
-			} else if (Character.isDigit(temp)) {
-				result += temp;
-			}
-		}
-		if (result.length() != 14) {
-			throw new InvalidPhoneNumberException("Please enter a valid phone number");
-		}
+		String result = phoneNumberFormatter(phoneNumber);	// validate before touching the indexes
+		changing(SearchField.PHONE_NUMBER);
 		this.phoneNumber = result;
+		changed(SearchField.PHONE_NUMBER);
 	}
 	
 	protected static String phoneNumberFormatter(String phoneNumber) throws InvalidPhoneNumberException {
@@ -227,8 +235,102 @@ public class Person implements Comparable<Person> {
 	}
 
 
+	/**
+	 * Sets this Person's address.  An Address belongs to a single Person, since changes made through its
+	 * setters are reported to the PhoneBook of the last Person it was given to.
+	 */
 	public void setAddress(Address address) {
+		changing(SearchField.CITY, SearchField.STATE, SearchField.ZIP_CODE);
+		if (this.address != null) {
+			this.address.setOwner(null);
+		}
 		this.address = address;
+		if (address != null) {
+			address.setOwner(this);
+		}
+		changed(SearchField.CITY, SearchField.STATE, SearchField.ZIP_CODE);
+	}
+
+	/**
+	 * @return the ID this Person was given when it was added to a PhoneBook, which stays the same until
+	 * it's deleted; 0 if this Person isn't in a PhoneBook.
+	 */
+	public long getId() {
+		return id;
+	}
+
+
+	void setId(long id) {
+		this.id = id;
+	}
+
+
+	void setOwner(PhoneBook owner) {
+		this.owner = owner;
+	}
+
+
+	/**
+	 * @return the PhoneBook this Person is an entry of, or null if none.
+	 */
+	PhoneBook getOwner() {
+		return owner;
+	}
+
+	/**
+	 * Helper function that tells the PhoneBook this Person is in, if any, that the fields passed as a
+	 * parameter are about to change, while this Person can still be found under their old values.  An
+	 * empty list of fields stands for the street address, which only substring searches look at.
+	 */
+	void changing(SearchField... fields) {
+		if (owner != null) {
+			owner.entryChanging(this, fields);
+		}
+	}
+
+	/**
+	 * Helper function that tells the PhoneBook this Person is in, if any, that the fields passed as a
+	 * parameter have changed, so it can file this Person under their new values.  Every call to
+	 * {@code changing(SearchField...)} must be followed by one to this method, even if the change failed.
+	 */
+	void changed(SearchField... fields) {
+		if (owner != null) {
+			owner.entryChanged(this, fields);
+		}
+	}
+
+	/**
+	 * Helper function that swaps the fields that commonly repeat across entries (the first, middle, and last
+	 * names, and the city, state, and zip code) for the pool's instance of the same value.  Nothing that
+	 * can be read changes, so nobody has to be told.
+	 */
+	void intern(StringPool pool) {
+		firstName = pool.intern(firstName);
+		middleName = pool.intern(middleName);
+		lastName = pool.intern(lastName);
+		if (address != null) {
+			address.intern(pool);
+		}
+	}
+
+	/**
+	 * Helper function that returns a copy of this Person, with a copy of their address, that isn't in any
+	 * PhoneBook.  The fields are copied as they are, without being formatted again.
+	 */
+	Person copy() {
+		return new Person(this);
+	}
+
+	private Person(Person other) {
+		this.firstName = other.firstName;
+		this.middleName = other.middleName;
+		this.lastName = other.lastName;
+		this.fullName = other.fullName;
+		this.phoneNumber = other.phoneNumber;
+		this.address = (other.address == null ? null : other.address.copy());
+		if (address != null) {
+			address.setOwner(this);
+		}
 	}
 
 
@@ -239,6 +341,25 @@ public class Person implements Comparable<Person> {
 		return name1.compareToIgnoreCase(name2);
 	}
 
+	/**
+	 * Writes the same text as {@code toString()} without building it as a String first, for listing or
+	 * saving many Persons at once.
+	 * @param out where the text is written, e.g. a {@code BufferedWriter}.
+	 * @throws IOException if {@code out} can't be written.
+	 */
+	public void appendTo(Appendable out) throws IOException {
+		out.append(firstName).append(' ');
+		if (!middleName.isBlank()) {
+			out.append(middleName).append(' ');
+		}
+		out.append(lastName).append(", ")
+				.append(address.getStreetAddress()).append(", ")
+				.append(address.getCity()).append(", ")
+				.append(address.getState()).append(", ")
+				.append(address.getZipCode()).append(", ")
+				.append(phoneNumber);
+	}
+
 	@Override
 	public String toString() {
 		if (middleName.isBlank()) {
@@ -1,108 +1,713 @@
 package phonebook;
 
+import java.io.BufferedWriter;
+import java.io.CharArrayWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Locale;
 import java.util.NoSuchElementException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class PhoneBook {
 	
-	private Person[] entries;
-	private int size;
+	private EntryTree entries;	// always sorted by full name, in the order of its NameCollation
+	private HashMap<Long, Person> byId;	// primary key index: entry ID -> Person
+	private long nextId;
+	private TrigramIndex trigramIndex;	// built on the first searchContaining() call, then kept up to date
+	private EnumMap<SearchField, FieldIndex> fieldIndexes;	// built per field on first use by a search
+	private static final int PRINT_BUFFER_SIZE = 1 << 16;
+	private static final int SNAPSHOT_BATCH = 1 << 10;	// entries formatted per hold of the write lock
+	private static final int ESTIMATE_SAMPLE = 1 << 12;	// entries measured by estimateMemory()
+	private static final int IMPORT_BATCH = 1 << 16;	// entries added per hold of the write lock on import
+	private final StringPool stringPool;	// shared with other PhoneBooks; null if values aren't pooled
+	private final PhoneBookMetrics metrics;
+	private final ReentrantLock writeLock;	// held while the entries change; see openSnapshot()
+	private volatile long mutationCount;	// changes made to the entries so far
+	private volatile long savedMutationCount;	// the mutation count the last snapshot was saved at
+	private final ArrayList<Snapshot> snapshots;	// open snapshots, which read entries as they were
+	private volatile AutoSaver autoSaver;	// told about every change while this PhoneBook is autosaved
+	private final CopyOnWriteArrayList<MutationObserver> observers;	// told what every change was
+	private Person changing;	// while an observed entry is changed through a setter: the entry as it was
+	private volatile Thread onlyWriter;	// the only thread allowed to change the entries; null for any
 	
-	private static Comparator<Person> fullNameComp = new Comparator<>() {
-		@Override
-		public int compare(Person o1, Person o2) {	// "Doe, John" -> "Doe, John E"
-			String p1 = o1.getFullName();
-			String p2 = o2.getFullName();
-			return p1.compareToIgnoreCase(p2);
+	
+	
+	public PhoneBook() {
+		this(null);
+	}
+	
+	/**
+	 * Creates an empty PhoneBook whose entries keep the values that repeat across entries (names, cities,
+	 * states, and zip codes) in a pool, as do the indexes on those fields.  Sharing one pool between many
+	 * PhoneBooks stores each distinct value once for all of them.
+	 * @param stringPool the pool to share, or null to keep every entry's values as they are.
+	 */
+	public PhoneBook(StringPool stringPool) {
+		this.stringPool = stringPool;
+		entries = new EntryTree(NameCollation.DEFAULT);
+		byId = new HashMap<>();
+		nextId = 1;
+		fieldIndexes = new EnumMap<>(SearchField.class);
+		metrics = new PhoneBookMetrics(this);
+		writeLock = new ReentrantLock();
+		snapshots = new ArrayList<>();
+		observers = new CopyOnWriteArrayList<>();
+	}
+	
+	public boolean isEmpty() {
+		return entries.size() == 0;
+	}
+	
+	public int size() {
+		return entries.size();
+	}
+	
+	/**
+	 * @return the number of entries the storage currently allocated can hold.
+	 */
+	int capacity() {
+		return entries.capacity();
+	}
+	
+	/**
+	 * @return the number of changes made to the entries of this PhoneBook so far: one per entry added,
+	 * deleted, or replaced, and one per field changed through a setter.
+	 */
+	public long getMutationCount() {
+		return mutationCount;
+	}
+	
+	/**
+	 * @return true if the entries have changed since the last snapshot of this PhoneBook was saved, or
+	 * since it was created if none has been.
+	 */
+	public boolean isDirty() {
+		return mutationCount != savedMutationCount;
+	}
+	
+	/**
+	 * Marks the entries as saved as they are, e.g. right after they've been loaded from the file they're
+	 * saved in, so that this PhoneBook isn't dirty until they change again.
+	 */
+	public void markClean() {
+		savedMutationCount = mutationCount;
+	}
+	
+	/**
+	 * Orders the entries by full name following the collation rules of a locale, so that accented and
+	 * non-Latin names are listed, saved, and returned by searches where a reader of that language expects
+	 * them.  Full names still match ignoring case, but no longer ignoring accents.  The entries are sorted
+	 * again once, by a sort key computed for each of them.
+	 * @param locale the locale, or null for the default order: by the names' characters, ignoring case.
+	 */
+	public void setLocale(Locale locale) {
+		checkWritable();
+		EntryTree sorted = EntryTree.of(entries.toArray(), entries.size(), NameCollation.of(locale));
+		writeLock.lock();
+		try {
+			entries = sorted;
+		} finally {
+			writeLock.unlock();
 		}
-	};
+	}
 	
-	private static Comparator<Person> firstNameComp = new Comparator<>() {
-		@Override
-		public int compare(Person o1, Person o2) {
-			String p1 = o1.getFirstName();
-			String p2 = o2.getFirstName();
-			return p1.compareToIgnoreCase(p2);
+	/**
+	 * @return the locale whose collation rules the entries are ordered by, or null for the default order.
+	 */
+	public Locale getLocale() {
+		return entries.getCollation().getLocale();
+	}
+	
+	/**
+	 * Starts or stops telling an AutoSaver about every change to the entries.
+	 * @param autoSaver the AutoSaver, or null to stop.
+	 */
+	void setAutoSaver(AutoSaver autoSaver) {
+		this.autoSaver = autoSaver;
+	}
+	
+	/**
+	 * Starts telling an observer what every change to the entries is, on the thread that makes it.
+	 */
+	void addObserver(MutationObserver observer) {
+		observers.add(observer);
+	}
+	
+	void removeObserver(MutationObserver observer) {
+		observers.remove(observer);
+	}
+	
+	/**
+	 * Starts delivering every change to the entries made from now on to {@code listener}, on a thread of
+	 * the subscription's own, with the default buffer capacity and batch size.  See
+	 * {@code ChangeSubscription}.
+	 * @return the subscription, which must be closed to stop it.
+	 */
+	public ChangeSubscription subscribe(ChangeListener listener) {
+		return subscribe(listener, ChangeSubscription.DEFAULT_CAPACITY, ChangeSubscription.DEFAULT_BATCH);
+	}
+	
+	/**
+	 * Starts delivering every change to the entries made from now on to {@code listener}.
+	 * @param capacity the number of changes buffered for the listener before any more are dropped.
+	 * @param maxBatch the most changes the listener is given at once.
+	 * @return the subscription, which must be closed to stop it.
+	 */
+	public ChangeSubscription subscribe(ChangeListener listener, int capacity, int maxBatch) {
+		writeLock.lock();								// so that no change is half delivered
+		try {
+			ChangeSubscription subscription = new ChangeSubscription(this, listener, capacity, maxBatch,
+					mutationCount);
+			addObserver(subscription);
+			subscription.start();
+			return subscription;
+		} finally {
+			writeLock.unlock();
 		}
-	};
+	}
 	
-	private static Comparator<Person> phoneComp = new Comparator<>() {
-		@Override
-		public int compare(Person o1, Person o2) {
-			String p1 = o1.getPhoneNumber();
-			String p2 = o2.getPhoneNumber();
-			return p1.compareTo(p2);
+	void unsubscribe(ChangeSubscription subscription) {
+		writeLock.lock();
+		try {
+			removeObserver(subscription);
+		} finally {
+			writeLock.unlock();
 		}
-	};
+	}
 	
-	private static Comparator<Person> cityComp = new Comparator<>() {
-		@Override
-		public int compare(Person o1, Person o2) {
-			String p1 = o1.getAddress().getCity();
-			String p2 = o2.getAddress().getCity();
-			return p1.compareToIgnoreCase(p2);
+	/**
+	 * Makes this PhoneBook read-only for every thread but one, e.g. for a replica that only the thread
+	 * copying the changes of another PhoneBook may change.  Any other attempt to change the entries,
+	 * including through a Person's setters, throws an {@code IllegalStateException}.
+	 * @param writer the only thread allowed to change the entries, or null to allow any thread again.
+	 */
+	void setOnlyWriter(Thread writer) {
+		this.onlyWriter = writer;
+	}
+	
+	/**
+	 * Helper function that throws if the current thread isn't allowed to change the entries.
+	 */
+	private void checkWritable() {
+		Thread writer = onlyWriter;
+		if (writer != null && writer != Thread.currentThread()) {
+			throw new IllegalStateException("This PhoneBook is a read-only replica");
 		}
-	};
+	}
 	
-	private static Comparator<Person> stateComp = new Comparator<>() {
-		@Override
-		public int compare(Person o1, Person o2) {
-			String p1 = o1.getAddress().getState();
-			String p2 = o2.getAddress().getState();
-			return p1.compareTo(p2);
+	/**
+	 * @return the operation counters and latency histograms of this PhoneBook.
+	 */
+	public PhoneBookMetrics getMetrics() {
+		return metrics;
+	}
+	
+	/**
+	 * Estimates the heap used by this PhoneBook: its entries and their values (apart from those kept in a
+	 * shared StringPool), the sorted storage, its metrics, and every index built so far.  Beyond
+	 * {@code ESTIMATE_SAMPLE} entries, the cost per entry is averaged over that many entries spread evenly
+	 * through the PhoneBook, so apart from the indexes this takes the same time at any size.  It can be
+	 * called from any thread while the PhoneBook's own thread keeps using it.
+	 * @return the estimated number of bytes.
+	 */
+	public long estimateMemory() {
+		writeLock.lock();
+		try {
+			int size = entries.size();
+			int sampled = Math.min(size, ESTIMATE_SAMPLE);
+			long sampleBytes = 0;
+			for (int i = 0; i < sampled; i++) {
+				sampleBytes += estimateMemory(entries.cursor((int) ((long) i * size / sampled)).next());
+			}
+			long result = (sampled == 0 ? 0 : sampleBytes * size / sampled)
+					+ ObjectSizes.array((long) entries.capacity() * 2 * ObjectSizes.REFERENCE)	// leaf slots
+					+ (long) size * (ObjectSizes.HASH_MAP_ENTRY + ObjectSizes.BOXED_LONG)		// byId
+					+ metrics.estimateMemory();
+			for (FieldIndex index: fieldIndexes.values()) {
+				result += index.estimateMemory();
+			}
+			if (trigramIndex != null) {
+				result += trigramIndex.estimateMemory();
+			}
+			return result;
+		} finally {
+			writeLock.unlock();
 		}
-	};
+	}
 	
+	/**
+	 * Helper function that estimates the heap used by one entry: the Person, their address, the values
+	 * that aren't pooled, and the key they're sorted under.
+	 */
+	private long estimateMemory(Person p) {
+		long result = ObjectSizes.PERSON + ObjectSizes.string(p.getFullName())
+				+ unpooled(p.getFirstName()) + unpooled(p.getMiddleName()) + unpooled(p.getLastName())
+				+ unpooled(p.getFullName()) + unpooled(p.getPhoneNumber());
+		Address address = p.getAddress();
+		if (address != null) {
+			result += ObjectSizes.ADDRESS + unpooled(address.getStreetAddress()) + unpooled(address.getCity())
+					+ unpooled(address.getState()) + unpooled(address.getZipCode());
+		}
+		return result;
+	}
 	
+	private long unpooled(String s) {
+		return (stringPool != null && stringPool.isPooled(s) ? 0 : ObjectSizes.string(s));
+	}
 	
-	public PhoneBook() {
-		entries = new Person[2];	// entries = {null, null};	int[] nums = {0, 0}; 1 + 2 + 3 + 4 n(n+1)/2
-		size = 0;
+	/**
+	 * Starts a compound search of this PhoneBook, e.g.
+	 * {@code phoneBook.query().lastName("Doe").city("St Louis").state("MO").execute()}.
+	 * @return a new, empty query against this PhoneBook.
+	 */
+	public PhoneBookQuery query() {
+		return new PhoneBookQuery(this);
 	}
 	
-	public boolean isEmpty() {
-		return size == 0;
+	/**
+	 * Returns the hash index for the field passed as a parameter, building it from the current entries
+	 * the first time it's requested.  From then on it is kept up to date by {@code indexAdd(Person)} and
+	 * {@code indexRemove(Person)}.
+	 */
+	FieldIndex index(SearchField field) {
+		FieldIndex index = fieldIndexes.get(field);
+		if (index == null) {
+			// full names and phone numbers hardly ever repeat, so pooling them would only cost memory
+			index = new FieldIndex(field, (field == SearchField.FULL_NAME || field == SearchField.PHONE_NUMBER
+					? null : stringPool));
+			for (Person p: entries) {
+				index.add(p);
+			}
+			writeLock.lock();				// so that estimateMemory() never sees it half added
+			try {
+				fieldIndexes.put(field, index);
+			} finally {
+				writeLock.unlock();
+			}
+		}
+		return index;
+	}
+	
+	/**
+	 * @return a copy of the entries, sorted by full name.
+	 */
+	Person[] entriesSnapshot() {
+		return entries.toArray();
+	}
+	
+	/**
+	 * Helper function that adds a new entry to every index that has been built so far.
+	 */
+	private void indexAdd(Person p) {
+		byId.put(p.getId(), p);
+		if (trigramIndex != null) {
+			trigramIndex.add(p);
+		}
+		for (FieldIndex index: fieldIndexes.values()) {
+			index.add(p);
+		}
+	}
+	
+	/**
+	 * Helper function that removes an entry from every index that has been built so far.
+	 */
+	private void indexRemove(Person p) {
+		byId.remove(p.getId());
+		if (trigramIndex != null) {
+			trigramIndex.remove(p);
+		}
+		for (FieldIndex index: fieldIndexes.values()) {
+			index.remove(p);
+		}
+	}
+	
+	/**
+	 * Helper function that refuses a Person who is already an entry, in this PhoneBook or another: a Person
+	 * is filed under one ID in one PhoneBook, which it tells when its fields change, so adding the same
+	 * object again would leave one of its entries filed under stale values.  Add a {@code copy()} instead.
+	 * Called with the write lock held, before anything has changed.
+	 * @throws IllegalArgumentException if the Person already has an ID or belongs to a PhoneBook.
+	 */
+	private static void checkNew(Person p) {
+		if (p.getId() != 0 || p.getOwner() != null) {
+			throw new IllegalArgumentException("'" + p.getFullName() + "' is already in a PhoneBook; add a copy");
+		}
+	}
+	
+	/**
+	 * Helper function that gives a new entry the next ID.
+	 */
+	private void assignId(Person p) {
+		own(p, nextId);
+		nextId++;
+	}
+	
+	/**
+	 * Helper function that files a Person under the ID passed as a parameter and makes this PhoneBook its
+	 * owner, so that changes to the Person's fields are reported here, and swaps their common values for
+	 * pooled ones if this PhoneBook has a StringPool.  An ID of 0 releases the Person.
+	 */
+	private void own(Person p, long id) {
+		if (id == 0) {
+			freeze(p);
+		} else if (stringPool != null) {
+			p.intern(stringPool);
+		}
+		p.setId(id);
+		p.setOwner(id == 0 ? null : this);
+	}
+	
+	/**
+	 * Helper function that counts changes to the entries and passes the new count on to the AutoSaver, if
+	 * there is one.  Called with the write lock held.
+	 */
+	private void mutated(long changes) {
+		mutationCount += changes;
+		AutoSaver saver = autoSaver;
+		if (saver != null) {
+			saver.mutated(mutationCount);
+		}
+	}
+	
+	/**
+	 * Helper function that tells every observer that an entry was added.  Called with the write lock held,
+	 * once the change has been counted.
+	 */
+	private void added(Person p) {
+		for (MutationObserver observer: observers) {
+			observer.added(p, mutationCount);
+		}
+	}
+	
+	/**
+	 * Helper function that tells every observer that the entry with the ID passed as a parameter was
+	 * deleted.  Called with the write lock held, once the change has been counted.
+	 */
+	private void deleted(long id, Person p) {
+		for (MutationObserver observer: observers) {
+			observer.deleted(id, p, mutationCount);
+		}
+	}
+	
+	/**
+	 * Helper function that tells every observer that an entry was changed or replaced.  Called with the
+	 * write lock held, once the change has been counted.
+	 */
+	private void updated(Person before, Person after) {
+		for (MutationObserver observer: observers) {
+			observer.updated(before, after, mutationCount);
+		}
 	}
 	
-	private void resize(int capacity) {
-		assert capacity >= size;
-		entries = Arrays.copyOf(entries, capacity);
+	/**
+	 * Helper function that tells every observer that the adds, deletes, and updates it has been told about
+	 * since the last call make up one change.  Called with the write lock held.
+	 */
+	private void committed() {
+		for (MutationObserver observer: observers) {
+			observer.committed(mutationCount);
+		}
+	}
+	
+	/**
+	 * Helper function that keeps a copy of an entry as it is now, before it changes or leaves this
+	 * PhoneBook, for every open snapshot that hasn't got one yet.  The copy keeps the entry's ID, since
+	 * the snapshot reads it in the entry's place.  Called with the write lock held.
+	 */
+	private void freeze(Person p) {
+		Person copy = null;
+		for (Snapshot snapshot: snapshots) {
+			if (!snapshot.frozen.containsKey(p)) {
+				if (copy == null) {
+					copy = p.copy();
+					copy.setId(p.getId());
+				}
+				snapshot.frozen.put(p, copy);
+			}
+		}
+	}
+	
+	/**
+	 * Helper function that deletes an entry under the write lock.
+	 */
+	private void remove(Person p) {
+		checkWritable();
+		writeLock.lock();
+		try {
+			long id = p.getId();
+			unstore(p);
+			mutated(1);
+			deleted(id, p);
+			committed();
+		} finally {
+			writeLock.unlock();
+		}
+	}
+	
+	/**
+	 * Helper function that takes an entry out of the sorted storage and every index.
+	 */
+	private void unstore(Person p) {
+		entries.remove(p);
+		indexRemove(p);
+		own(p, 0);
+	}
+	
+	/**
+	 * Called by a Person in this PhoneBook just before the fields passed as a parameter are changed in place
+	 * (e.g. by {@code Person.setFullName(String)} or {@code Address.setCity(String)}), while the Person is
+	 * still filed under their old values.  The Person is taken out of the indexes on those fields only, and
+	 * out of the sorted storage if its full name is changing.  {@code entryChanged(Person, SearchField...)}
+	 * puts it back.  The write lock is held from this call until that one, so that a snapshot never sees
+	 * the Person half changed.
+	 * @param p the Person about to change.
+	 * @param fields the fields about to change; none for the street address.
+	 */
+	void entryChanging(Person p, SearchField... fields) {
+		checkWritable();
+		writeLock.lock();							// released by entryChanged()
+		freeze(p);
+		if (!observers.isEmpty()) {
+			changing = p.copy();
+		}
+		for (SearchField field: fields) {
+			if (field == SearchField.FULL_NAME) {
+				entries.remove(p);
+			}
+			FieldIndex index = fieldIndexes.get(field);
+			if (index != null) {
+				index.remove(p);
+			}
+		}
+		if (trigramIndex != null && changesText(fields)) {
+			trigramIndex.remove(p);
+		}
+	}
+	
+	/**
+	 * Called by a Person in this PhoneBook once the fields passed as a parameter have changed, to file the
+	 * Person under their new values.  This undoes {@code entryChanging(Person, SearchField...)}.
+	 * @param p the Person that changed.
+	 * @param fields the fields that changed; none for the street address.
+	 */
+	void entryChanged(Person p, SearchField... fields) {
+		for (SearchField field: fields) {
+			if (field == SearchField.FULL_NAME) {
+				entries.add(p);
+			}
+			FieldIndex index = fieldIndexes.get(field);
+			if (index != null) {
+				index.add(p);
+			}
+		}
+		if (trigramIndex != null && changesText(fields)) {
+			trigramIndex.add(p);
+		}
+		if (stringPool != null) {
+			p.intern(stringPool);
+		}
+		mutated(1);
+		if (changing != null) {
+			Person before = changing;
+			changing = null;
+			updated(before, p);
+			committed();
+		}
+		writeLock.unlock();
+	}
+	
+	/**
+	 * Helper function that tells whether changing the fields passed as a parameter changes the text that
+	 * {@code searchContaining(String)} looks at, which is everything but the state and zip code.
+	 */
+	private static boolean changesText(SearchField[] fields) {
+		for (SearchField field: fields) {
+			if (field != SearchField.STATE && field != SearchField.ZIP_CODE) {
+				return true;
+			}
+		}
+		return (fields.length == 0);					// the street address
 	}
 	
 	public void addEntry(Person newEntry) {
 		assert newEntry != null;			// ensure the newEntry isn't null
-		if (size == entries.length) {		// PhoneBook is full, so double its size
-			resize(size * 2);
-		}
-		entries[size] = newEntry;
-		size++;
+		insertEntry(newEntry);
 		System.out.printf("Entry '%s' successfully added to this PhoneBook%n", newEntry.getFullName());
 	}
 	
+	/**
+	 * Adds an entry the same as {@code addEntry(Person)}, but without printing a confirmation.
+	 */
+	protected void insertEntry(Person newEntry) {
+		checkWritable();
+		long start = System.nanoTime();
+		writeLock.lock();
+		try {
+			checkNew(newEntry);
+			assignId(newEntry);
+			entries.add(newEntry);
+			indexAdd(newEntry);
+			mutated(1);
+			added(newEntry);
+			committed();
+		} finally {
+			writeLock.unlock();
+		}
+		metrics.record(PhoneBookMetrics.Operation.ADD, start);
+	}
+	
 	public void deleteEntry(Person unwantedPerson) throws NoSuchElementException {
 		if (isEmpty()) {
 			throw new NoSuchElementException("Cannot delete entries from an empty PhoneBook");
 		}
-		Arrays.sort(entries, 0, size, fullNameComp);
 		try {
-			int index = Arrays.binarySearch(entries, 0, size, unwantedPerson, fullNameComp);
-			deleteEntryHandler(index);
-			System.out.printf("%nEntry '%s' successfully deleted from this PhoneBook%n", unwantedPerson.getFullName());
+			if (removeEntry(unwantedPerson)) {
+				System.out.printf("%nEntry '%s' successfully deleted from this PhoneBook%n", unwantedPerson.getFullName());
+				return;
+			}
 		} catch (Exception e) {
-			System.out.println("No such entry in this PhoneBook");
+			// fall through
 		}
+		System.out.println("No such entry in this PhoneBook");
 	}
 	
-	private void deleteEntryHandler(int index) {
-		entries[index] = entries[size - 1];		// swap Person to be deleted with last non-null Person
-		entries[size - 1] = null;				// removes reference to swapped Person to avoid loitering
-		size--;									// decrement size to account for deleted Person
-		if (size > 0 && size == entries.length / 4) {	// shrinks PhoneBook, if needed
-			resize(entries.length / 2);
+	/**
+	 * Deletes the Person passed as a parameter, or if that Person isn't in this PhoneBook, the first entry
+	 * with the same full name, without printing a confirmation.  The entries stay sorted, so this takes
+	 * O(log n) plus the number of entries sharing the full name.
+	 * @param unwantedPerson the Person to delete.
+	 * @return true if an entry was deleted, or false if there's no entry with that full name.
+	 */
+	protected boolean removeEntry(Person unwantedPerson) {
+		long start = System.nanoTime();
+		try {
+			Person match = (byId.get(unwantedPerson.getId()) == unwantedPerson ? unwantedPerson
+					: entries.first(unwantedPerson));
+			if (match == null) {
+				return false;
+			}
+			remove(match);
+			return true;
+		} finally {
+			metrics.record(PhoneBookMetrics.Operation.DELETE, start);
 		}
 	}
 	
+	/**
+	 * Returns the entry with the ID passed as a parameter.  Every entry is given an ID when it's added to
+	 * this PhoneBook (starting at 1, and never reused while this PhoneBook is open), and keeps it until
+	 * it's deleted, no matter how the entries are sorted or what else is added and deleted.  IDs aren't
+	 * saved along with the entries, so a PhoneBook that is loaded again hands them out anew.
+	 * @param id the ID of the entry, as returned by {@code Person.getId()}.
+	 * @return the entry with that ID, or null if there is none.
+	 */
+	public Person getById(long id) {
+		return byId.get(id);
+	}
+	
+	/**
+	 * Deletes the entry with the ID passed as a parameter, without printing a confirmation.  The entry is
+	 * found in O(1) through the primary key index, then taken out of the sorted storage and every other
+	 * index in O(log n), without searching by name.
+	 * @param id the ID of the entry, as returned by {@code Person.getId()}.
+	 * @return true if the entry was deleted, or false if no entry has that ID.
+	 */
+	public boolean deleteById(long id) {
+		long start = System.nanoTime();
+		try {
+			Person unwantedPerson = byId.get(id);
+			if (unwantedPerson == null) {
+				return false;
+			}
+			remove(unwantedPerson);
+			return true;
+		} finally {
+			metrics.record(PhoneBookMetrics.Operation.DELETE, start);
+		}
+	}
+	
+	/**
+	 * Replaces the entry with the ID passed as a parameter by another Person, which takes over the ID, so
+	 * that anyone holding the ID sees the new details.  This costs the same as {@code deleteById(long)}
+	 * plus one add, and nothing is printed.
+	 * @param id the ID of the entry, as returned by {@code Person.getId()}.
+	 * @param replacement the Person to store under {@code id}.
+	 * @return true if the entry was replaced, or false if no entry has that ID, in which case
+	 * {@code replacement} isn't added either.
+	 * @throws IllegalArgumentException if {@code replacement} is already an entry of a PhoneBook.
+	 */
+	public boolean replaceById(long id, Person replacement) {
+		assert replacement != null;
+		checkWritable();
+		long start = System.nanoTime();
+		try {
+			Person oldPerson = byId.get(id);
+			if (oldPerson == null) {
+				return false;
+			}
+			writeLock.lock();
+			try {
+				checkNew(replacement);
+				unstore(oldPerson);
+				own(replacement, id);
+				entries.add(replacement);
+				indexAdd(replacement);
+				mutated(1);
+				updated(oldPerson, replacement);
+				committed();
+			} finally {
+				writeLock.unlock();
+			}
+			return true;
+		} finally {
+			metrics.record(PhoneBookMetrics.Operation.REPLACE, start);
+		}
+	}
+	
+	/**
+	 * Stores a Person under the ID passed as a parameter, replacing the entry with that ID if there is one,
+	 * for a replica that keeps the IDs of the PhoneBook it copies (see {@code ReplicationFollower}).  IDs
+	 * handed out afterwards by {@code addEntry(Person)} start past the highest one stored this way.
+	 * @param id the ID the Person has in the PhoneBook being copied.
+	 * @param p the Person to store.
+	 * @throws IllegalArgumentException if {@code p} is already an entry of a PhoneBook.
+	 */
+	void putById(long id, Person p) {
+		assert id > 0 && p != null;
+		if (replaceById(id, p)) {
+			return;
+		}
+		checkWritable();
+		long start = System.nanoTime();
+		writeLock.lock();
+		try {
+			checkNew(p);
+			own(p, id);
+			nextId = Math.max(nextId, id + 1);
+			entries.add(p);
+			indexAdd(p);
+			mutated(1);
+			added(p);
+			committed();
+		} finally {
+			writeLock.unlock();
+		}
+		metrics.record(PhoneBookMetrics.Operation.ADD, start);
+	}
+	
 	/**
 	 * Performs an <em>exact</em> search of this PhoneBook for the Person object passed as a parameter.
 	 * @param query a {@code Person} object.
@@ -111,192 +716,673 @@ public class PhoneBook {
 	 */
 	public Person searchByPerson(Person query) {
 		assert query != null;
-		Arrays.sort(entries, 0, size, fullNameComp);
+		long start = System.nanoTime();
+		PhoneBookEvents.Search event = PhoneBookEvents.Search.started();
+		Person result = null;
 		try {
-			int index = Arrays.binarySearch(entries, 0, size, query, fullNameComp);
-			return entries[index];
-		} catch (ArrayIndexOutOfBoundsException e) {
-			return null;
+			result = findByFullName(query);
+			return result;
+		} finally {
+			searched(PhoneBookMetrics.Operation.SEARCH_PERSON, start, event, result == null ? 0 : 1);
 		}
 	}
 	
+	private Person findByFullName(Person query) {
+		return entries.first(query);
+	}
+	
 	public Person searchByFullName(String fullNameQuery) {
 		assert fullNameQuery != null;
-		Person temp = new Person(fullNameQuery, "0123456789", null);
-		return this.searchByPerson(temp);
+		long start = System.nanoTime();
+		PhoneBookEvents.Search event = PhoneBookEvents.Search.started();
+		Person result = null;
+		try {
+			Person temp = new Person(fullNameQuery, "0123456789", null);
+			result = this.findByFullName(temp);
+			return result;
+		} finally {
+			searched(PhoneBookMetrics.Operation.SEARCH_FULL_NAME, start, event, result == null ? 0 : 1);
+		}
 	}
 	
 	public Person searchByPhoneNumber(String phoneNumberQuery) throws InvalidPhoneNumberException {
 		assert phoneNumberQuery != null;
-		phoneNumberQuery = Person.phoneNumberFormatter(phoneNumberQuery);
-		Person temp = new Person("Dole, Bob", phoneNumberQuery, null);
-		Arrays.sort(entries, 0, size, phoneComp);
+		long start = System.nanoTime();
+		PhoneBookEvents.Search event = PhoneBookEvents.Search.started();
+		Person result = null;
 		try {
-			int index = Arrays.binarySearch(entries, 0, size, temp, phoneComp);
-			return entries[index];
-		} catch (ArrayIndexOutOfBoundsException e) {
-			return null;
+			result = findByPhoneNumber(phoneNumberQuery);
+			return result;
+		} finally {
+			searched(PhoneBookMetrics.Operation.SEARCH_PHONE_NUMBER, start, event, result == null ? 0 : 1);
 		}
 	}
 	
+	private Person findByPhoneNumber(String phoneNumberQuery) throws InvalidPhoneNumberException {
+		Person[] matches = lookup(SearchField.PHONE_NUMBER, phoneNumberQuery);
+		return (matches == null ? null : matches[0]);
+	}
+	
 	public Person[] searchByFirstName(String firstNameQuery) {
 		assert firstNameQuery != null;
-		Person temp = new Person(firstNameQuery, "blah", "blah", "0123456789", null);
-		Arrays.sort(entries, 0, size, firstNameComp);
+		long start = System.nanoTime();
+		PhoneBookEvents.Search event = PhoneBookEvents.Search.started();
+		Person[] result = null;
 		try {
-			int index = Arrays.binarySearch(entries, 0, size, temp, firstNameComp);
-			int startIndex = findFirstPersonIndex(index, firstNameQuery);
-			return personMatchCrawler(startIndex, firstNameQuery);
-		} catch (ArrayIndexOutOfBoundsException e) {
-			return null;
+			result = findByFirstName(firstNameQuery);
+			return result;
+		} finally {
+			searched(PhoneBookMetrics.Operation.SEARCH_FIRST_NAME, start, event, count(result));
 		}
 	}
 	
+	private Person[] findByFirstName(String firstNameQuery) {
+		return lookup(SearchField.FIRST_NAME, firstNameQuery);
+	}
+	
 	public Person[] searchByLastName(String lastNameQuery) {
 		assert lastNameQuery != null;
-		Person temp = new Person("Superman", lastNameQuery, "0123456789", null);
-		Arrays.sort(entries, 0, size, fullNameComp);
+		long start = System.nanoTime();
+		PhoneBookEvents.Search event = PhoneBookEvents.Search.started();
+		Person[] result = null;
 		try {
-			int index = Arrays.binarySearch(entries, 0, size, temp, fullNameComp);
-			int startIndex = findFirstPersonIndex(index, lastNameQuery);
-			return personMatchCrawler(startIndex, lastNameQuery);
-		} catch (ArrayIndexOutOfBoundsException e) {
-			return null;
+			result = findByLastName(lastNameQuery);
+			return result;
+		} finally {
+			searched(PhoneBookMetrics.Operation.SEARCH_LAST_NAME, start, event, count(result));
 		}
 	}
 	
+	private Person[] findByLastName(String lastNameQuery) {
+		return lookup(SearchField.LAST_NAME, lastNameQuery);
+	}
+	
 	public Person[] searchByCity(String cityQuery) {
 		assert cityQuery != null;
-		Address a1 = new Address("Street", cityQuery, "WY", "00000");
-		Person temp = new Person("first", "middle", "last", "0123456789", a1);
-		Arrays.sort(entries, 0, size, cityComp);
+		long start = System.nanoTime();
+		PhoneBookEvents.Search event = PhoneBookEvents.Search.started();
+		Person[] result = null;
 		try {
-			int index = Arrays.binarySearch(entries, 0, size, temp, cityComp);
-			int startIndex = findFirstPersonIndex(index, cityQuery);
-			return personMatchCrawler(startIndex, cityQuery);
-		} catch (ArrayIndexOutOfBoundsException e) {
-			return null;
+			result = findByCity(cityQuery);
+			return result;
+		} finally {
+			searched(PhoneBookMetrics.Operation.SEARCH_CITY, start, event, count(result));
 		}
 	}
 	
+	private Person[] findByCity(String cityQuery) {
+		return lookup(SearchField.CITY, cityQuery);
+	}
+	
 	public Person[] searchByState(String stateQuery) {
 		assert stateQuery != null;
-		Address a1 = new Address("street", "city", stateQuery, "00000");
-		Person temp = new Person("last, first", "0123456789", a1);
-		Arrays.sort(entries, 0, size, stateComp);
+		long start = System.nanoTime();
+		PhoneBookEvents.Search event = PhoneBookEvents.Search.started();
+		Person[] result = null;
 		try {
-			int index = Arrays.binarySearch(entries, 0, size, temp, stateComp);
-			int startIndex = findFirstPersonStateIndex(index, stateQuery);
-			return personMatchCrawlerState(startIndex, stateQuery);
-		} catch (ArrayIndexOutOfBoundsException e) {
-			return null;
+			result = findByState(stateQuery);
+			return result;
+		} finally {
+			searched(PhoneBookMetrics.Operation.SEARCH_STATE, start, event, count(result));
 		}
 	}
 	
-	private int findFirstPersonStateIndex(int index, String state) {
-		int result = 0;
-		if (index == -1) {
-			return index;
+	private Person[] findByState(String stateQuery) {
+		try {
+			return lookup(SearchField.STATE, stateQuery);
+		} catch (InvalidStateException e) {
+			return null;
 		}
-		for (int i = index; i >= 0; i--) {
-			String test = entries[i].getAddress().getState();
-			if (!test.contains(state)) {
-				result = i + 1;
-				break;
-			}
+	}
+	
+	/**
+	 * Helper function that looks up the Persons whose {@code field} equals {@code query} (ignoring case)
+	 * in that field's hash index, so no search has to sort the entries by anything but full name.
+	 * @return the matching Persons sorted by full name, or null if there are none.
+	 */
+	private Person[] lookup(SearchField field, String query) {
+		Person[] matches = index(field).lookup(field.normalize(query));
+		if (matches.length == 0) {
+			return null;
 		}
-		return result;
+		entries.getCollation().sort(matches);
+		return matches;
 	}
 	
-	private Person[] personMatchCrawlerState(int startIndex, String state) {
-		Person[] result = new Person[2];
-		int resultSize = 0;
-		for (int i = startIndex; i < size; i++) {
-			String test = entries[i].getAddress().getState();
-			if (test.contains(state)) {
-				result[resultSize] = entries[i];
-				resultSize++;
-			} else if (!test.contains(state)) {
-				break;
+	/**
+	 * Performs a <em>substring</em> search of this PhoneBook, ignoring case.  Unlike the other searches,
+	 * this search isn't limited to a single field: a Person matches if {@code text} appears anywhere in
+	 * their first, middle, or last name, street address, city, or phone number digits.  Rather than
+	 * scanning every entry, the query is answered from a trigram index that is built the first time this
+	 * method is called and then kept up to date as entries are added and deleted.
+	 * @param text part of a name, street, city, or phone number (e.g. "cullert" or "688-12").
+	 * @return the matching Persons sorted by full name.  If no match is found in this PhoneBook, null is
+	 * returned.
+	 */
+	public Person[] searchContaining(String text) {
+		assert text != null;
+		long start = System.nanoTime();
+		PhoneBookEvents.Search event = PhoneBookEvents.Search.started();
+		Person[] result = null;
+		try {
+			if (trigramIndex == null) {
+				TrigramIndex built = TrigramIndex.build(entries);
+				writeLock.lock();
+				try {
+					trigramIndex = built;
+				} finally {
+					writeLock.unlock();
+				}
 			}
-			if (resultSize == result.length) {
-				result = resize(result, resultSize * 2);
+			Person[] matches = trigramIndex.search(text);
+			if (matches.length > 0) {
+				entries.getCollation().sort(matches);
+				result = matches;
 			}
-		}
-		if (resultSize == 0) {
-			System.out.println("No such entries exist in this PhoneBook.");
-			return null;
-		} else {
-			result = resize(result, resultSize);
 			return result;
+		} finally {
+			searched(PhoneBookMetrics.Operation.SEARCH_CONTAINING, start, event, count(result));
 		}
 	}
 	
-	private int findFirstPersonIndex(int index, String query) {
-		int result = 0;
-		if (index == -1) {
-			return index;
+	/**
+	 * Helper function that finishes timing a search: the latency is recorded in this PhoneBook's metrics,
+	 * and the JFR event is committed if a recording has phonebook.Search enabled.
+	 * @param operation the kind of search that completed.
+	 * @param start the {@code System.nanoTime()} at which the search started.
+	 * @param event the event begun when the search started.
+	 * @param resultCount the number of Persons found.
+	 */
+	void searched(PhoneBookMetrics.Operation operation, long start, PhoneBookEvents.Search event,
+			int resultCount) {
+		metrics.record(operation, start);
+		event.end();
+		if (event.shouldCommit()) {
+			event.queryType = operation.name();
+			event.resultCount = resultCount;
+			event.entries = size();
+			event.commit();
 		}
-		for (int i = index; i >= 0; i--) {
-			String test = entries[i].toString().toUpperCase();
-			if (!test.contains(query.toUpperCase())) {
-				result = i + 1;
-				break;
+	}
+	
+	private static int count(Person[] result) {
+		return (result == null ? 0 : result.length);
+	}
+	
+	/**
+	 * Merges a saved PhoneBook file into this PhoneBook without any prompts.  The file is streamed rather
+	 * than loaded, and entries whose full name is already in this PhoneBook are resolved by
+	 * {@code policy}.  Lines of the file that aren't valid entries are skipped and counted as rejected.
+	 * If the file can't be read, this PhoneBook is left unchanged.
+	 * @param file a file in the same format written by saving a PhoneBook.
+	 * @param policy how to resolve entries with the same full name.
+	 * @return counts of the entries added, overwritten, skipped, and rejected.
+	 * @throws IOException if the file can't be read.
+	 */
+	public PhoneBookMerger.Result merge(Path file, PhoneBookMerger.Policy policy) throws IOException {
+		assert file != null && policy != null;
+		checkWritable();
+		long start = System.nanoTime();
+		PhoneBookEvents.Load event = PhoneBookEvents.Load.started();
+		PhoneBookMerger.Result result = null;
+		try {
+			PhoneBookMerger merger = new PhoneBookMerger(policy, PhoneBookMerger.DEFAULT_RUN_SIZE,
+					entries.getCollation());
+			Person[] merged = merger.merge(entries.toArray(), entries.keys(), entries.size(), file);
+			int mergedSize = merger.getMergedSize();
+			result = merger.getResult();
+			writeLock.lock();
+			try {
+				mutated(result.getAdded() + result.getOverwritten());
+				byId = mergedIds(merged, mergedSize);
+				entries = EntryTree.of(merged, merger.getMergedKeys(), mergedSize, entries.getCollation());
+				trigramIndex = null;					// rebuilt on next use
+				fieldIndexes.clear();
+				committed();
+			} finally {
+				writeLock.unlock();
+			}
+			return result;
+		} finally {
+			metrics.record(PhoneBookMetrics.Operation.MERGE, start);
+			if (result != null) {
+				loaded(event, file, EntryFormat.TEXT, result.getAdded() + result.getOverwritten()
+						+ result.getSkipped(), result.getRejected());
 			}
 		}
-		return result;
 	}
 	
-	private Person[] personMatchCrawler(int startIndex, String query) {
-		Person[] result = new Person[2];
-		int resultSize = 0;
-		for (int i = startIndex; i < size; i++) {
-			String test = entries[i].toString().toUpperCase();
-			if (test.contains(query.toUpperCase())) {
-				result[resultSize] = entries[i];
-				resultSize++;
-			} else if (!test.contains(query)) {
-				break;
+	/**
+	 * Helper function that gives the entries of a merge their IDs.  Entries that were already in this
+	 * PhoneBook keep theirs; an entry from the file that overwrote one with the same full name takes over
+	 * its ID, so that holders of the ID see the new details; any other entry from the file gets a new ID.
+	 * Observers are told about each of these as an update, an add, or (for an overwritten entry whose ID
+	 * nobody took over) a delete.
+	 * @return the primary key index of the merged entries.
+	 */
+	private HashMap<Long, Person> mergedIds(Person[] merged, int mergedSize) {
+		HashMap<Long, Person> result = new HashMap<>();
+		for (int i = 0; i < mergedSize; i++) {
+			if (byId.get(merged[i].getId()) == merged[i]) {
+				result.put(merged[i].getId(), merged[i]);
 			}
-			if (resultSize == result.length) {
-				result = resize(result, resultSize * 2);
+		}
+		HashMap<String, ArrayDeque<Long>> overwritten = new HashMap<>();
+		HashMap<Long, Person> released = new HashMap<>();
+		for (Person p: byId.values()) {
+			if (result.get(p.getId()) != p) {
+				overwritten.computeIfAbsent(SearchField.FULL_NAME.key(p), k -> new ArrayDeque<>()).add(p.getId());
+				released.put(p.getId(), p);
+				own(p, 0);
 			}
 		}
-		if (resultSize == 0) {
-			System.out.println("No such entries exist in this PhoneBook.");
-			return null;
-		} else {
-			result = resize(result, resultSize);
-			return result;
+		for (int i = 0; i < mergedSize; i++) {
+			if (result.get(merged[i].getId()) != merged[i]) {		// came from the file
+				ArrayDeque<Long> ids = overwritten.get(SearchField.FULL_NAME.key(merged[i]));
+				if (ids == null || ids.isEmpty()) {
+					assignId(merged[i]);
+					added(merged[i]);
+				} else {
+					own(merged[i], ids.poll());
+					updated(released.remove(merged[i].getId()), merged[i]);
+				}
+				result.put(merged[i].getId(), merged[i]);
+			}
+		}
+		for (Long id: released.keySet()) {
+			deleted(id, released.get(id));
 		}
+		return result;
 	}
 	
-	private static Person[] resize(Person[] arr, int capacity) {
-		assert capacity >= arr.length;
-		return Arrays.copyOf(arr, capacity);
+	/**
+	 * Scans this whole PhoneBook for entries that are probably the same contact: entries that share a
+	 * full name, a phone number, or a similar name and street address.  Unlike the duplicate check done
+	 * when a single contact is added, this groups every entry by all three keys in a single hash pass,
+	 * without any sorting, so it's suitable for cleaning up large merged PhoneBooks.
+	 * @return a report listing every group of likely duplicates.
+	 */
+	public DuplicateReport findDuplicates() {
+		long start = System.nanoTime();
+		try {
+			return DuplicateReport.of(entriesSnapshot());
+		} finally {
+			metrics.record(PhoneBookMetrics.Operation.FIND_DUPLICATES, start);
+		}
 	}
 	
 	public void printAllEntries() {
-		Arrays.sort(entries, 0, size, fullNameComp);
-		for (int i = 0; i < size; i++) {
-			System.out.println(entries[i]);
+		Writer out = new BufferedWriter(new OutputStreamWriter(System.out), PRINT_BUFFER_SIZE);
+		try {
+			printEntries(out, 0, size());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
 		}
 	}
 	
+	/**
+	 * Writes one page of this PhoneBook's entries, sorted by full name, one entry per line in the same
+	 * format as {@code Person.toString()}.  The entries are always kept in full name order, so a page is
+	 * an O(log n) seek to {@code offset} followed by a walk over the page, with no sorting.  Entries are
+	 * written straight to {@code out} without building a String per entry.
+	 * @param out where the entries are written; it is flushed but not closed.  For large pages it
+	 * should be buffered.
+	 * @param offset the number of entries to skip.
+	 * @param pageSize the maximum number of entries to write.
+	 * @return the number of entries written, which is less than {@code pageSize} on the last page.
+	 * @throws IOException if {@code out} can't be written.
+	 */
+	public int printEntries(Writer out, int offset, int pageSize) throws IOException {
+		assert offset >= 0 && pageSize >= 0;
+		int written = 0;
+		for (Iterator<Person> page = entries.cursor(offset); written < pageSize && page.hasNext(); written++) {
+			page.next().appendTo(out);
+			out.write('\n');
+		}
+		out.flush();
+		return written;
+	}
+	
 	
 	@Override
 	public String toString() {
 		StringBuilder result = new StringBuilder();
 		for (Person p: entries) {
-			if (p != null) {
-				result.append(p + "\n");
-			}
+			result.append(p + "\n");
 		}
 		return result.toString();
 	}
 	
 	protected void entryLoader(String newEntry) {
-		String[] temp = newEntry.split(", ");
+		Person p1 = parseEntry(newEntry);
+		loadEntry(p1);
+	}
+	
+	/**
+	 * Adds an entry without printing a confirmation, for use when loading or importing many entries.
+	 */
+	protected void loadEntry(Person p1) {
+		checkWritable();
+		writeLock.lock();
+		try {
+			checkNew(p1);
+			assignId(p1);
+			entries.add(p1);
+			indexAdd(p1);
+			mutated(1);
+			added(p1);
+			committed();
+		} finally {
+			writeLock.unlock();
+		}
+	}
+	
+	/**
+	 * Adds every valid entry from the reader passed as a parameter to this PhoneBook.  Invalid records
+	 * don't stop the import; they are skipped and listed in the reader's report.  The entries are added
+	 * {@code IMPORT_BATCH} at a time, so that a large file never has to fit in memory twice over, and the
+	 * batches already added stay added if the input can't be read to the end.
+	 * @param reader the source of the entries; it is read to the end but not closed.
+	 * @return the reader's report of imported and rejected records.
+	 * @throws IOException if the reader's input can't be read.
+	 */
+	public ImportReport importEntries(EntryReader reader) throws IOException {
+		checkWritable();
+		long start = System.nanoTime();
+		try {
+			Person[] batch = new Person[16];
+			int batchSize = 0;
+			for (Person p = reader.read(); p != null; p = reader.read()) {
+				if (batchSize == batch.length) {
+					if (batchSize == IMPORT_BATCH) {
+						addBatch(batch, batchSize);
+						batchSize = 0;
+					} else {
+						batch = Arrays.copyOf(batch, Math.min(batchSize * 2, IMPORT_BATCH));
+					}
+				}
+				batch[batchSize] = p;
+				batchSize++;
+			}
+			addBatch(batch, batchSize);
+			return reader.getReport();
+		} finally {
+			metrics.record(PhoneBookMetrics.Operation.LOAD, start);
+		}
+	}
+
+	/**
+	 * Helper function that adds the first {@code size} Persons of {@code batch} to the entries, giving
+	 * them their IDs, and tells the observers, all under one hold of the write lock.
+	 */
+	private void addBatch(Person[] batch, int size) {
+		if (size == 0) {
+			return;
+		}
+		writeLock.lock();
+		try {
+			int assigned = 0;
+			try {
+				for (; assigned < size; assigned++) {
+					checkNew(batch[assigned]);				// also refuses the same Person twice in a batch
+					assignId(batch[assigned]);
+				}
+			} catch (IllegalArgumentException e) {
+				for (int i = 0; i < assigned; i++) {		// nothing has been added yet
+					batch[i].setId(0);
+					batch[i].setOwner(null);
+				}
+				nextId -= assigned;
+				throw e;
+			}
+			entries.addAll(batch, size);
+			for (int i = 0; i < size; i++) {
+				indexAdd(batch[i]);
+			}
+			mutated(size);
+			if (!observers.isEmpty()) {
+				for (int i = 0; i < size; i++) {
+					added(batch[i]);
+				}
+				committed();
+			}
+		} finally {
+			writeLock.unlock();
+		}
+	}
+	
+	/**
+	 * Adds every valid entry in {@code file} to this PhoneBook.  If {@code file} is compressed and turns
+	 * out to be damaged, the entries before the damage are still added, and the report says where the
+	 * damage is.
+	 * @param file the file to import.
+	 * @param format the format of {@code file}.
+	 * @return the report of imported and rejected records.
+	 * @throws IOException if the file can't be read.
+	 */
+	public ImportReport importEntries(Path file, EntryFormat format) throws IOException {
+		PhoneBookEvents.Load event = PhoneBookEvents.Load.started();
+		ImportReport report = new ImportReport();
+		try (EntryReader reader = format.newReader(EntryFormat.openFile(file, report), report)) {
+			importEntries(reader);
+		}
+		loaded(event, file, format, report.getImported(), report.getRejected());
+		return report;
+	}
+	
+	/**
+	 * Helper function that commits a JFR load event, if a recording has phonebook.Load enabled.
+	 */
+	private static void loaded(PhoneBookEvents.Load event, Path file, EntryFormat format, long rows,
+			long rejected) {
+		event.end();
+		if (event.shouldCommit()) {
+			event.path = file.toString();
+			event.format = format.name();
+			event.bytes = sizeOf(file);
+			event.rows = rows;
+			event.rejected = rejected;
+			event.commit();
+		}
+	}
+
+	/**
+	 * Helper function that returns the size of a file for a JFR event, or -1 if it can't be read, since an
+	 * event must never fail the load or save it describes.
+	 */
+	private static long sizeOf(Path file) {
+		try {
+			return Files.size(file);
+		} catch (IOException e) {
+			return -1;
+		}
+	}
+	
+	/**
+	 * Writes every entry of this PhoneBook to the writer passed as a parameter, sorted by full name, then
+	 * flushes it.
+	 * @param writer the destination of the entries; it is flushed but not closed.
+	 * @throws IOException if the writer's output can't be written.
+	 */
+	public void exportEntries(EntryWriter writer) throws IOException {
+		long start = System.nanoTime();
+		try {
+			for (Person p: entries) {
+				writer.write(p);
+			}
+			writer.flush();
+		} finally {
+			metrics.record(PhoneBookMetrics.Operation.SAVE, start);
+		}
+	}
+	
+	/**
+	 * Writes every entry of this PhoneBook to {@code file}, replacing its contents.  The entries are
+	 * written to a temporary file that only replaces {@code file} once it's complete and on disk, so a
+	 * failed or interrupted export leaves {@code file} as it was.
+	 * @param file the file to export to.
+	 * @param format the format to write.
+	 * @throws IOException if the file can't be written.
+	 */
+	public void exportEntries(Path file, EntryFormat format) throws IOException {
+		PhoneBookEvents.Save event = PhoneBookEvents.Save.started();
+		EntryFormat.writeFile(file, out -> {
+			try (EntryWriter writer = format.newWriter(out)) {
+				exportEntries(writer);
+			}
+		});
+		event.end();
+		if (event.shouldCommit()) {
+			event.path = file.toString();
+			event.format = format.name();
+			event.bytes = sizeOf(file);
+			event.rows = size();
+			event.commit();
+		}
+	}
+
+	/**
+	 * Writes every entry of this PhoneBook to {@code file} as they were at the moment this was called, the
+	 * same as {@code exportEntries(Path, EntryFormat)}, except that it's meant to run on another thread
+	 * while the thread that owns this PhoneBook keeps changing it.  The entries are read from a
+	 * {@code Snapshot} and formatted a batch at a time under the write lock, but the disk is only written
+	 * once it's released, so changing an entry never waits for more than one batch, and never for the disk.
+	 * @param file the file to save to.
+	 * @param format the format to write.
+	 * @return the mutation count the snapshot was taken at; until it changes, this PhoneBook isn't dirty.
+	 * @throws IOException if the file can't be written, in which case it is left as it was.
+	 */
+	long saveSnapshot(Path file, EntryFormat format) throws IOException {
+		long start = System.nanoTime();
+		PhoneBookEvents.Save event = PhoneBookEvents.Save.started();
+		Snapshot snapshot = openSnapshot();
+		try {
+			EntryFormat.writeFile(file, out -> {
+				CharArrayWriter batch = new CharArrayWriter(SNAPSHOT_BATCH * 128);
+				try (EntryWriter writer = format.newWriter(new BufferedWriter(batch, PRINT_BUFFER_SIZE))) {
+					for (int from = 0; from < snapshot.size(); ) {
+						from = snapshot.read(from, (id, p) -> writer.write(p));
+						writer.flush();					// only copies what was formatted into the batch
+						batch.writeTo(out);
+						batch.reset();
+					}
+				}
+				batch.writeTo(out);						// anything the writer adds when it's closed
+			});
+		} finally {
+			snapshot.close();
+			metrics.record(PhoneBookMetrics.Operation.SAVE, start);
+		}
+		savedMutationCount = snapshot.getMutationCount();
+		event.end();
+		if (event.shouldCommit()) {
+			event.path = file.toString();
+			event.format = format.name();
+			event.bytes = sizeOf(file);
+			event.rows = snapshot.size();
+			event.commit();
+		}
+		return snapshot.getMutationCount();
+	}
+	
+	/**
+	 * Opens a consistent view of the entries as they are now, which can be read from another thread while
+	 * the thread that owns this PhoneBook keeps changing them.  This only copies the array of entries
+	 * under the write lock.  It must be closed once it has been read.
+	 */
+	Snapshot openSnapshot() {
+		writeLock.lock();
+		try {
+			Snapshot result = new Snapshot(entries.toArray(), mutationCount);
+			snapshots.add(result);
+			return result;
+		} finally {
+			writeLock.unlock();
+		}
+	}
+	
+	/**
+	 * A view of the entries, sorted by full name, as they were at the moment it was opened by
+	 * {@code openSnapshot()}.  Every change to the entries holds the write lock, and while a snapshot is
+	 * open, an entry that is about to change or be deleted is copied first, so that the snapshot reads the
+	 * copy in its place.  Any number of snapshots can be open at once; they share the copies.
+	 */
+	final class Snapshot implements Closeable {
+		private final Person[] snapshot;
+		private final long snapshotMutationCount;
+		private final IdentityHashMap<Person, Person> frozen;	// entries as they were, once they've changed
+		
+		private Snapshot(Person[] snapshot, long snapshotMutationCount) {
+			this.snapshot = snapshot;
+			this.snapshotMutationCount = snapshotMutationCount;
+			this.frozen = new IdentityHashMap<>();
+		}
+		
+		/**
+		 * @return the number of entries in the snapshot.
+		 */
+		int size() {
+			return snapshot.length;
+		}
+		
+		/**
+		 * @return the mutation count of the PhoneBook at the moment the snapshot was taken.
+		 */
+		long getMutationCount() {
+			return snapshotMutationCount;
+		}
+		
+		/**
+		 * Passes the next batch of entries to {@code consumer}, under the write lock, so the consumer
+		 * mustn't keep the entries or do anything slow with them, such as I/O.
+		 * @param from the position of the first entry of the batch.
+		 * @param consumer called with the ID and details of each entry as they were in the snapshot.
+		 * @return the position after the batch.
+		 * @throws IOException if the consumer throws one.
+		 */
+		int read(int from, EntryConsumer consumer) throws IOException {
+			int to = Math.min(from + SNAPSHOT_BATCH, snapshot.length);
+			writeLock.lock();
+			try {
+				for (int i = from; i < to; i++) {
+					Person p = frozen.getOrDefault(snapshot[i], snapshot[i]);
+					consumer.accept(p.getId(), p);
+				}
+			} finally {
+				writeLock.unlock();
+			}
+			return to;
+		}
+		
+		/**
+		 * Stops keeping copies of the entries that change for this snapshot.
+		 */
+		@Override
+		public void close() {
+			writeLock.lock();
+			try {
+				snapshots.remove(this);
+			} finally {
+				writeLock.unlock();
+			}
+		}
+	}
+	
+	/**
+	 * Receives the entries of a {@code Snapshot}.
+	 */
+	interface EntryConsumer {
+		void accept(long id, Person p) throws IOException;
+	}
+	
+	/**
+	 * Helper function that converts one line of a saved PhoneBook back into a Person.
+	 * @param entry a line formatted the same as {@code Person.toString()}:<br>
+	 * "FirstName MiddleName(s) LastName, Street Address, City, State, Zip Code, Phone Number".
+	 * @return the Person described by {@code entry}.
+	 */
+	protected static Person parseEntry(String entry) {
+		String[] temp = entry.split(", ");
 		String fullName = Person.parseName(temp[0]);
 		String streetAddress = temp[1];
 		String city = temp[2];
@@ -304,13 +1390,7 @@ public class PhoneBook {
 		String zipCode = temp[4];
 		String phoneNumber = temp[5];
 		Address a1 = new Address(streetAddress, city, state, zipCode);
-		Person p1 = new Person(fullName, phoneNumber, a1);
-		// add new entry
-		if (size == entries.length) {		// PhoneBook is full, so double its size
-			resize(size * 2);
-		}
-		entries[size] = p1;
-		size++;
+		return new Person(fullName, phoneNumber, a1);
 	}
 
 	public static void main(String[] args) {
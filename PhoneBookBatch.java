@@ -0,0 +1,373 @@
+package phonebook;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Headless batch mode for the PhoneBook.  A PhoneBook file is loaded once, and then commands are read one
+ * per line from a script (or standard input) and run against it, all in the same process.  Blank lines and
+ * lines starting with '#' are ignored.  The commands are:
+ * <pre>
+ *     add     FirstName MiddleName(s) LastName, Street Address, City, State, Zip Code, Phone Number
+ *     delete  FullName
+ *     update  FullName | FirstName MiddleName(s) LastName, Street Address, City, State, Zip Code, Phone Number
+ *     search  first|last|full|phone|city|state|contains Value
+ *     save    [File]
+ *     lag
+ *     sync    [Seconds]
+ * </pre>
+ * where a FullName is either "FirstName MiddleName(s) LastName" or "LastName, FirstName MiddleName(s)".
+ * {@code save} without a file writes back to the file that was loaded; a file ending in ".pbt" is written as a
+ * {@code DiskPhoneBook} store instead, and one ending in ".pbz" is compressed.
+ * <p>
+ * With {@code --lead}, every change the commands make is replicated to the followers connected (see
+ * {@code ReplicationLeader}).  With {@code --follow}, the commands run against a follower's read-only
+ * replica instead of a file, so only searches (and saves to a file) succeed; {@code lag} reports how far
+ * behind the leader the replica is, and {@code sync} waits (10 seconds by default) until it has caught up.
+ * <p>
+ * Output is tab-separated, one record per line, so it can be consumed with {@code cut} or {@code awk}:
+ * <pre>
+ *     load     File      imported=N  rejected=N  [damaged=Message]
+ *     ok       LineNo    Command     Count
+ *     entry    LineNo    Entry                        (one per match of a search)
+ *     lag      LineNo    changes=N   ms=N   connected=true|false
+ *     moved    LineNo    File        Damaged File     (before the first save over a damaged PhoneBook)
+ *     error    LineNo    Command     Message
+ *     summary  commands=N  ok=N  errors=N  elapsedMs=N  commandsPerSecond=N
+ * </pre>
+ * A command that fails is reported and skipped; the rest of the script still runs.  A compressed PhoneBook
+ * that's damaged is loaded up to the damage, which the load line describes.  Before anything is saved over
+ * it, it's moved aside to the same name followed by ".damaged", so that saving the entries recovered from
+ * it doesn't destroy the rest.
+ * @author Jake McGrath
+ *
+ */
+public class PhoneBookBatch {
+
+	private PhoneBook phoneBook;			// for a follower, its replica as of the command being run
+	private final ReplicationFollower follower;	// null unless the commands run against a replica
+	private final Path file;
+	private boolean fileDamaged;			// file is a damaged save that hasn't been moved aside yet
+	private final PrintWriter out;
+	private long commands;
+	private long errors;
+
+
+	/**
+	 * @param phoneBook the PhoneBook to run commands against.
+	 * @param file the file {@code save} writes to when it isn't given one.
+	 * @param out where results are written.
+	 */
+	public PhoneBookBatch(PhoneBook phoneBook, Path file, Writer out) {
+		assert phoneBook != null && file != null && out != null;
+		this.phoneBook = phoneBook;
+		this.follower = null;
+		this.file = file;
+		this.out = new PrintWriter(out, false);
+	}
+
+	/**
+	 * @param follower the follower whose replica the commands run against; commands that would change it
+	 * fail, since only the leader's PhoneBook can be changed.
+	 * @param out where results are written.
+	 */
+	public PhoneBookBatch(ReplicationFollower follower, Writer out) {
+		assert follower != null && out != null;
+		this.follower = follower;
+		this.file = null;
+		this.out = new PrintWriter(out, false);
+	}
+
+	/**
+	 * Runs a batch from the command line:
+	 * {@code Main --batch [--book File] [--locale Tag] [--lead Address | --follow Address] [Script]}, with
+	 * the arguments following "--batch" passed as a parameter.  The PhoneBook is loaded from {@code --book} (by default
+	 * the console client's save in the user's home directory: PhoneBook.csv.pbz, or the older PhoneBook.txt.pbz
+	 * or PhoneBook.txt if only that exists) if it exists,
+	 * unless it's a replica of the leader at {@code --follow}, and the commands are read from
+	 * {@code Script}, or from standard input if no script (or "-") is given.  An Address is the path of a
+	 * Unix domain socket, or "host:port".  With {@code --locale}, a language tag such as "es-ES", the
+	 * PhoneBook's entries are ordered (and saved) following that locale's collation rules.
+	 * @return the process exit status: 0 if every command succeeded, 1 if any failed, or 2 if the
+	 * PhoneBook or the script couldn't be read, or the leader couldn't listen.
+	 */
+	public static int run(String[] args) {
+		Path home = Path.of(System.getProperty("user.home"));
+		Path book = home.resolve("PhoneBook.csv" + BlockCompressedOutputStream.EXTENSION);
+		for (String older: new String[] {"PhoneBook.txt" + BlockCompressedOutputStream.EXTENSION, "PhoneBook.txt"}) {
+			if (!Files.exists(book) && Files.exists(home.resolve(older))) {
+				book = home.resolve(older);
+			}
+		}
+		String script = "-";
+		String lead = null;
+		String follow = null;
+		String locale = null;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("--book") && i + 1 < args.length) {
+				book = Path.of(args[++i]);
+			} else if (args[i].equals("--lead") && i + 1 < args.length) {
+				lead = args[++i];
+			} else if (args[i].equals("--follow") && i + 1 < args.length) {
+				follow = args[++i];
+			} else if (args[i].equals("--locale") && i + 1 < args.length) {
+				locale = args[++i];
+			} else {
+				script = args[i];
+			}
+		}
+		PrintWriter stdout = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out,
+				StandardCharsets.UTF_8), 1 << 16));
+		Closeable replication = null;
+		try {
+			PhoneBookBatch batch;
+			if (follow != null) {
+				ReplicationFollower follower = new ReplicationFollower(ReplicationLeader.socketAddress(follow));
+				replication = follower;
+				batch = new PhoneBookBatch(follower, stdout);
+			} else {
+				PhoneBook phoneBook = new PhoneBook();
+				if (locale != null) {
+					phoneBook.setLocale(Locale.forLanguageTag(locale));
+				}
+				boolean damaged = false;
+				if (Files.exists(book)) {
+					ImportReport report = phoneBook.importEntries(book,
+							EntryFormat.forFileName(book.toString()));
+					stdout.printf("load\t%s\timported=%d\trejected=%d%s%n", book, report.getImported(),
+							report.getRejected(), report.isDamaged() ? "\tdamaged=" + report.getDamage() : "");
+					damaged = report.isDamaged();
+				}
+				if (lead != null) {
+					replication = new ReplicationLeader(phoneBook, ReplicationLeader.socketAddress(lead));
+				}
+				batch = new PhoneBookBatch(phoneBook, book, stdout);
+				batch.fileDamaged = damaged;
+			}
+			try (Reader in = (script.equals("-") ? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+					: Files.newBufferedReader(Path.of(script), StandardCharsets.UTF_8))) {
+				batch.run(in);
+			}
+			return (batch.errors == 0 ? 0 : 1);
+		} catch (IOException e) {
+			stdout.printf("error\t0\tbatch\t%s%n", e);
+			return 2;
+		} finally {
+			if (replication != null) {
+				try {
+					replication.close();
+				} catch (IOException e) {
+					// nothing is lost: a leader's PhoneBook is saved separately, and a replica never is
+				}
+			}
+			stdout.flush();
+		}
+	}
+
+	/**
+	 * Runs every command read from {@code in}, then writes the summary line and flushes the output.
+	 * @param in the script; it is read to the end but not closed.
+	 * @throws IOException if the script can't be read.
+	 */
+	public void run(Reader in) throws IOException {
+		BufferedReader reader = (in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in));
+		long start = System.nanoTime();
+		long lineNumber = 0;
+		String line = reader.readLine();
+		while (line != null) {
+			lineNumber++;
+			String command = line.strip();
+			if (!command.isEmpty() && command.charAt(0) != '#') {
+				execute(lineNumber, command);
+			}
+			line = reader.readLine();
+		}
+		long elapsedNanos = Math.max(1, System.nanoTime() - start);
+		out.printf("summary\tcommands=%d\tok=%d\terrors=%d\telapsedMs=%d\tcommandsPerSecond=%d%n", commands,
+				commands - errors, errors, elapsedNanos / 1_000_000, commands * 1_000_000_000L / elapsedNanos);
+		out.flush();
+	}
+
+	public long getCommands() {
+		return commands;
+	}
+
+	public long getErrors() {
+		return errors;
+	}
+
+	/**
+	 * Runs a single command and writes its result.
+	 * @param lineNumber the line of the script the command is on.
+	 * @param command the command, without leading or trailing whitespace.
+	 */
+	private void execute(long lineNumber, String command) {
+		commands++;
+		int space = command.indexOf(' ');
+		String name = (space < 0 ? command : command.substring(0, space)).toLowerCase(Locale.ROOT);
+		String argument = (space < 0 ? "" : command.substring(space + 1).strip());
+		try {
+			if (name.equals("lag") || name.equals("sync")) {
+				replication(lineNumber, name, argument);
+			} else if (follower == null) {
+				execute(lineNumber, name, argument);
+			} else {
+				follower.read(replica -> {			// so that no change is applied half way through
+					phoneBook = replica;
+					try {
+						execute(lineNumber, name, argument);
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+					return null;
+				});
+			}
+		} catch (UncheckedIOException e) {
+			error(lineNumber, name, e.getCause().toString());
+		} catch (IOException | RuntimeException e) {
+			error(lineNumber, name, e instanceof RuntimeException ? EntryFormat.describe((RuntimeException) e)
+					: e.toString());
+		}
+	}
+
+	/**
+	 * Helper function that runs a command against {@code phoneBook} and writes its result.
+	 */
+	private void execute(long lineNumber, String name, String argument) throws IOException {
+		switch (name) {
+			case "add" -> {
+				phoneBook.insertEntry(PhoneBook.parseEntry(argument));
+				ok(lineNumber, name, 1);
+			}
+			case "delete" -> {
+				Person match = find(argument);
+				ok(lineNumber, name, match != null && phoneBook.deleteById(match.getId()) ? 1 : 0);
+			}
+			case "update" -> {
+				int bar = argument.indexOf('|');
+				if (bar < 0) {
+					throw new IllegalArgumentException("Expected 'update FullName | Entry'");
+				}
+				Person replacement = PhoneBook.parseEntry(argument.substring(bar + 1).strip());
+				Person match = find(argument.substring(0, bar).strip());
+				boolean found = (match != null && phoneBook.replaceById(match.getId(), replacement));
+				ok(lineNumber, name, found ? 1 : 0);
+			}
+			case "search" -> search(lineNumber, argument);
+			case "save" -> {
+				if (argument.isEmpty() && file == null) {
+					throw new IllegalArgumentException("Expected 'save File'");
+				}
+				Path target = (argument.isEmpty() ? file : Path.of(argument));
+				if (fileDamaged && target.toAbsolutePath().normalize().equals(file.toAbsolutePath().normalize())) {
+					Path aside = file.resolveSibling(file.getFileName() + ".damaged");
+					Files.move(file, aside, StandardCopyOption.REPLACE_EXISTING);
+					fileDamaged = false;
+					out.printf("moved\t%d\t%s\t%s%n", lineNumber, file, aside);
+				}
+				if (target.toString().endsWith(DiskPhoneBook.EXTENSION)) {
+					DiskPhoneBook.write(phoneBook, target);
+				} else {
+					phoneBook.exportEntries(target, EntryFormat.forFileName(target.toString()));
+				}
+				ok(lineNumber, name, phoneBook.size());
+			}
+			default -> throw new IllegalArgumentException("Unknown command");
+		}
+	}
+
+	/**
+	 * Helper function that runs {@code lag} or {@code sync}, which only a follower can.
+	 */
+	private void replication(long lineNumber, String name, String argument) {
+		if (follower == null) {
+			throw new IllegalStateException("Not following a leader");
+		}
+		if (name.equals("lag")) {
+			out.printf("lag\t%d\tchanges=%d\tms=%d\tconnected=%b%n", lineNumber, follower.getLag(),
+					follower.getLagMillis(), follower.isConnected());
+			return;
+		}
+		long seconds = (argument.isEmpty() ? 10 : Long.parseLong(argument));
+		try {
+			if (!follower.awaitCaughtUp(Duration.ofSeconds(seconds))) {
+				throw new IllegalStateException("Not caught up with the leader after " + seconds + " seconds");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted");
+		}
+		ok(lineNumber, name, follower.read(PhoneBook::size));
+	}
+
+	/**
+	 * @return the entry with the full name passed as a parameter, or null if there is none.
+	 */
+	private Person find(String fullName) {
+		if (fullName.isBlank()) {
+			throw new IllegalArgumentException("Missing full name");
+		}
+		return phoneBook.searchByFullName(fullName(fullName));
+	}
+
+	/**
+	 * Helper function that converts "FirstName MiddleName(s) LastName" into the "LastName, FirstName
+	 * MiddleName(s)" form used for searching; names that already contain a comma are left as they are.
+	 */
+	private static String fullName(String name) {
+		return (name.contains(",") ? name : Person.parseName(name));
+	}
+
+	private void search(long lineNumber, String argument) {
+		int space = argument.indexOf(' ');
+		if (space < 0) {
+			throw new IllegalArgumentException("Expected 'search Field Value'");
+		}
+		String field = argument.substring(0, space).toLowerCase(Locale.ROOT);
+		String value = argument.substring(space + 1).strip();
+		Person[] matches = switch (field) {
+			case "first" -> phoneBook.searchByFirstName(Person.titleCase(value));
+			case "last" -> phoneBook.searchByLastName(Person.titleCase(value));
+			case "city" -> phoneBook.searchByCity(Person.titleCase(value));
+			case "state" -> phoneBook.searchByState(Address.stateFormatter(value));
+			case "contains" -> phoneBook.searchContaining(value);
+			case "full" -> single(phoneBook.searchByFullName(fullName(value)));
+			case "phone" -> single(phoneBook.searchByPhoneNumber(value));
+			default -> throw new IllegalArgumentException("Unknown search field '" + field + "'");
+		};
+		ok(lineNumber, "search", matches == null ? 0 : matches.length);
+		if (matches != null) {
+			for (Person p: matches) {
+				out.printf("entry\t%d\t%s%n", lineNumber, p);
+			}
+		}
+	}
+
+	private static Person[] single(Person match) {
+		return (match == null ? null : new Person[] {match});
+	}
+
+	private void ok(long lineNumber, String command, int count) {
+		out.printf("ok\t%d\t%s\t%d%n", lineNumber, command, count);
+	}
+
+	private void error(long lineNumber, String command, String message) {
+		errors++;
+		out.printf("error\t%d\t%s\t%s%n", lineNumber, command, message);
+	}
+
+}
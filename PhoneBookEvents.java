@@ -0,0 +1,104 @@
+package phonebook;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Custom Java Flight Recorder events emitted by a PhoneBook, so that a stalled load or a burst of slow
+ * searches can be lined up against GC, lock, and I/O events in JMC.  The events are only committed while a
+ * recording has them enabled, e.g.
+ * <pre>
+ *     java -XX:StartFlightRecording=filename=phonebook.jfr -jar phonebook.jar
+ *     jfr print --events "phonebook.*" phonebook.jfr
+ * </pre>
+ * Each event's duration is the time between {@code started()} and {@code commit()}.
+ * @author Jake McGrath
+ *
+ */
+final class PhoneBookEvents {
+
+	private PhoneBookEvents() {
+	}
+
+	@Name("phonebook.Load")
+	@Label("PhoneBook Load")
+	@Category("PhoneBook")
+	@Description("A PhoneBook file read into memory, by loading, importing, or merging")
+	static class Load extends Event {
+		@Label("Path")
+		String path;
+
+		@Label("Format")
+		String format;
+
+		@Label("Bytes")
+		@DataAmount
+		long bytes;						// -1 if the file's size couldn't be read
+
+		@Label("Rows")
+		@Description("Entries read successfully")
+		long rows;
+
+		@Label("Rejected")
+		@Description("Records skipped because they weren't valid entries")
+		long rejected;
+
+		static Load started() {
+			Load event = new Load();
+			event.begin();
+			return event;
+		}
+	}
+
+	@Name("phonebook.Save")
+	@Label("PhoneBook Save")
+	@Category("PhoneBook")
+	@Description("A PhoneBook written to a file")
+	static class Save extends Event {
+		@Label("Path")
+		String path;
+
+		@Label("Format")
+		String format;
+
+		@Label("Bytes")
+		@DataAmount
+		long bytes;						// -1 if the file's size couldn't be read
+
+		@Label("Rows")
+		long rows;
+
+		static Save started() {
+			Save event = new Save();
+			event.begin();
+			return event;
+		}
+	}
+
+	@Name("phonebook.Search")
+	@Label("PhoneBook Search")
+	@Category("PhoneBook")
+	@Description("A single search or compound query of a PhoneBook")
+	static class Search extends Event {
+		@Label("Query Type")
+		String queryType;
+
+		@Label("Result Count")
+		int resultCount;
+
+		@Label("Entries")
+		@Description("Number of entries in the PhoneBook searched")
+		int entries;
+
+		static Search started() {
+			Search event = new Search();
+			event.begin();
+			return event;
+		}
+	}
+
+}
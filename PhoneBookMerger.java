@@ -0,0 +1,457 @@
+package phonebook;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Non-interactive merge of a saved PhoneBook file into an in-memory PhoneBook.  The file is never loaded
+ * as a whole: it is read as a stream of entries sorted by full name (sorting it on the fly with an
+ * external merge sort when it doesn't fit in a single run), and walked side by side with the PhoneBook's
+ * own entries sorted the same way.  After the one-time sort of the PhoneBook, the merge itself is a single
+ * O(n + m) pass, and only {@code runSize} lines of the file are held in memory at any time.
+ * <p>
+ * Both sides are compared by the sort keys of a {@code NameCollation}, the PhoneBook's from its own entries,
+ * and the file's computed once per line as it's read.  Entries with the same full name (ignoring case)
+ * conflict, and are resolved by a {@code Policy}.
+ * @author Jake McGrath
+ *
+ */
+public class PhoneBookMerger {
+
+	/**
+	 * How to resolve an incoming entry whose full name is already in the PhoneBook.
+	 */
+	public enum Policy {
+		/** The PhoneBook's entries are kept, and the incoming entries are skipped. */
+		KEEP,
+		/** The incoming entries replace every PhoneBook entry with the same full name. */
+		OVERWRITE,
+		/** Both are kept, except incoming entries identical (name and phone) to an existing entry. */
+		KEEP_BOTH
+	}
+
+	/**
+	 * Counts of what a merge did with each line of the incoming file.
+	 */
+	public static class Result {
+		private int added;
+		private int overwritten;
+		private int skipped;
+		private int rejected;
+
+		public int getAdded() {
+			return added;
+		}
+
+		public int getOverwritten() {
+			return overwritten;
+		}
+
+		public int getSkipped() {
+			return skipped;
+		}
+
+		public int getRejected() {
+			return rejected;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d added, %d overwritten, %d skipped, %d rejected", added, overwritten,
+					skipped, rejected);
+		}
+	}
+
+	// default number of incoming lines sorted in memory at once
+	protected static final int DEFAULT_RUN_SIZE = 100_000;
+
+	private final Policy policy;
+	private final int runSize;
+	private final NameCollation collation;
+	private final Result result;
+	private int mergedSize;
+	private String[] mergedKeys;
+	private Person[] out;						// the merged entries, while merging
+	private String[] outKeys;
+
+
+	public PhoneBookMerger(Policy policy) {
+		this(policy, DEFAULT_RUN_SIZE);
+	}
+
+	public PhoneBookMerger(Policy policy, int runSize) {
+		this(policy, runSize, NameCollation.DEFAULT);
+	}
+
+	/**
+	 * @param collation the order the PhoneBook's entries are sorted in.
+	 */
+	PhoneBookMerger(Policy policy, int runSize, NameCollation collation) {
+		assert policy != null && runSize > 0 && collation != null;
+		this.policy = policy;
+		this.runSize = runSize;
+		this.collation = collation;
+		this.result = new Result();
+	}
+
+	/**
+	 * Merges the saved PhoneBook at {@code file} into the sorted entries passed as a parameter.
+	 * @param existing the PhoneBook's entries, sorted by full name.
+	 * @param existingKeys the key of each entry in {@code existing}.
+	 * @param existingSize the number of non-null entries in {@code existing}.
+	 * @param file the PhoneBook file to merge in; lines that can't be parsed are counted as rejected.
+	 * @return the merged entries, sorted by full name.  The array may be longer than
+	 * {@code getMergedSize()}, in which case the trailing elements are null.
+	 * @throws IOException if the file can't be read, or temporary run files can't be written.
+	 */
+	protected Person[] merge(Person[] existing, String[] existingKeys, int existingSize, Path file)
+			throws IOException {
+		List<Path> runs = new ArrayList<>();
+		try (BufferedReader reader = EntryFormat.openFile(file)) {
+			EntryStream incoming = sortedStream(reader, runs);
+			try {
+				return merge(existing, existingKeys, existingSize, incoming);
+			} finally {
+				incoming.close();
+			}
+		} finally {
+			for (Path run: runs) {
+				Files.deleteIfExists(run);
+			}
+		}
+	}
+
+	protected Result getResult() {
+		return result;
+	}
+
+	protected int getMergedSize() {
+		return mergedSize;
+	}
+
+	/**
+	 * @return the key of each of the merged entries, in the same order.
+	 */
+	String[] getMergedKeys() {
+		return mergedKeys;
+	}
+
+	/**
+	 * Walks both sorted sequences once.  Whenever both sides have the same key, the whole group of entries
+	 * sharing that key is gathered from each side, split by full name (a locale's collation can give
+	 * different names the same key, e.g. "Straße" and "Strasse"), and each name is resolved according to the
+	 * policy.
+	 */
+	private Person[] merge(Person[] existing, String[] existingKeys, int existingSize, EntryStream incoming)
+			throws IOException {
+		out = new Person[Math.max(2, existingSize)];
+		outKeys = new String[out.length];
+		mergedSize = 0;
+		int e = 0;
+		Keyed next = incoming.next();
+		while (e < existingSize || next != null) {
+			int cmp;
+			if (next == null) {
+				cmp = -1;
+			} else if (e == existingSize) {
+				cmp = 1;
+			} else {
+				cmp = existingKeys[e].compareTo(next.key);
+			}
+			if (cmp < 0) {
+				emit(existingKeys[e], existing[e++]);
+			} else if (cmp > 0) {
+				emit(next.key, next.person);
+				result.added++;
+				next = incoming.next();
+			} else {
+				String key = next.key;
+				List<Person> existingGroup = new ArrayList<>();
+				while (e < existingSize && existingKeys[e].equals(key)) {
+					existingGroup.add(existing[e++]);
+				}
+				List<Person> incomingGroup = new ArrayList<>();
+				while (next != null && next.key.equals(key)) {
+					incomingGroup.add(next.person);
+					next = incoming.next();
+				}
+				while (!existingGroup.isEmpty() || !incomingGroup.isEmpty()) {
+					String name = (existingGroup.isEmpty() ? incomingGroup : existingGroup).get(0).getFullName();
+					resolve(key, takeNamed(existingGroup, name), takeNamed(incomingGroup, name));
+				}
+			}
+		}
+		mergedKeys = outKeys;
+		Person[] merged = out;
+		out = null;
+		outKeys = null;
+		return merged;
+	}
+
+	/**
+	 * Helper function that resolves the entries with one full name, from the PhoneBook and from the file,
+	 * according to the policy.
+	 */
+	private void resolve(String key, List<Person> existingGroup, List<Person> incomingGroup) {
+		if (existingGroup.isEmpty() || incomingGroup.isEmpty()) {		// no conflict after all
+			existingGroup.forEach(p -> emit(key, p));
+			incomingGroup.forEach(p -> emit(key, p));
+			result.added += incomingGroup.size();
+			return;
+		}
+		switch (policy) {
+			case KEEP -> {
+				existingGroup.forEach(p -> emit(key, p));
+				result.skipped += incomingGroup.size();
+			}
+			case OVERWRITE -> {
+				incomingGroup.forEach(p -> emit(key, p));
+				result.overwritten += incomingGroup.size();
+			}
+			case KEEP_BOTH -> {
+				existingGroup.forEach(p -> emit(key, p));
+				for (Person p: incomingGroup) {
+					if (existingGroup.contains(p)) {
+						result.skipped++;
+					} else {
+						emit(key, p);
+						result.added++;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Helper function that removes the Persons whose full name is {@code name} (see
+	 * {@code NameCollation.sameName(String, String)}) from a group, and returns them in the same order.
+	 */
+	private List<Person> takeNamed(List<Person> group, String name) {
+		List<Person> result = new ArrayList<>();
+		for (Iterator<Person> i = group.iterator(); i.hasNext(); ) {
+			Person p = i.next();
+			if (collation.sameName(p.getFullName(), name)) {
+				result.add(p);
+				i.remove();
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Helper function that appends an entry, and its key, to the merged entries.
+	 */
+	private void emit(String key, Person p) {
+		outKeys = append(outKeys, mergedSize, key);
+		out = append(out, mergedSize++, p);
+	}
+
+	private static <T> T[] append(T[] arr, int index, T element) {
+		if (index == arr.length) {
+			arr = Arrays.copyOf(arr, index * 2);
+		}
+		arr[index] = element;
+		return arr;
+	}
+
+	/**
+	 * Reads the incoming file in runs of {@code runSize} parsed entries, sorting each run by full name.  If
+	 * the whole file fits in the first run, it is merged straight from memory; otherwise each run is written
+	 * to a temporary file and the runs are merged back together with a priority queue.
+	 */
+	private EntryStream sortedStream(BufferedReader reader, List<Path> runs) throws IOException {
+		Keyed[] run = new Keyed[Math.min(runSize, 1024)];
+		int runLength = 0;
+		String line = reader.readLine();
+		while (line != null) {
+			Keyed entry = parse(line);
+			if (entry != null) {
+				if (runLength == run.length) {
+					if (runLength == runSize) {
+						runs.add(spill(run, runLength));
+						runLength = 0;
+					} else {
+						run = Arrays.copyOf(run, Math.min(runSize, runLength * 2));
+					}
+				}
+				run[runLength++] = entry;
+			}
+			line = reader.readLine();
+		}
+		ParallelSort.sort(run, 0, runLength, (a, b) -> a.key.compareTo(b.key),
+				ParallelSort.isWorthwhile(runLength));
+		if (runs.isEmpty()) {
+			return new ArrayStream(run, runLength);
+		}
+		if (runLength > 0) {
+			runs.add(spill(run, runLength));
+		}
+		return new RunMergeStream(runs, collation);
+	}
+
+	private Path spill(Keyed[] run, int runLength) throws IOException {
+		ParallelSort.sort(run, 0, runLength, (a, b) -> a.key.compareTo(b.key),
+				ParallelSort.isWorthwhile(runLength));
+		Path path = Files.createTempFile("PhoneBook-merge-", ".run");
+		try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+			for (int i = 0; i < runLength; i++) {
+				writer.write(run[i].line);
+				writer.newLine();
+				run[i] = null;
+			}
+		} catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(path);				// not in runs yet, so merge() won't delete it
+			throw e;
+		}
+		return path;
+	}
+
+	/**
+	 * @return the parsed line, or null (counting it as rejected) if the line isn't a valid entry.
+	 */
+	private Keyed parse(String line) {
+		if (line.isBlank()) {
+			return null;
+		}
+		try {
+			Person p = PhoneBook.parseEntry(line);
+			return new Keyed(collation.key(p), line, p);
+		} catch (RuntimeException e) {
+			result.rejected++;
+			return null;
+		}
+	}
+
+	/**
+	 * An incoming entry along with the sort key of its full name and its original line.
+	 */
+	private static class Keyed {
+		private final String key;
+		private final String line;
+		private final Person person;
+
+		private Keyed(String key, String line, Person person) {
+			this.key = key;
+			this.line = line;
+			this.person = person;
+		}
+	}
+
+	private interface EntryStream {
+		Keyed next() throws IOException;
+
+		default void close() throws IOException {
+		}
+	}
+
+	private static class ArrayStream implements EntryStream {
+		private final Keyed[] run;
+		private final int length;
+		private int position = 0;
+
+		private ArrayStream(Keyed[] run, int length) {
+			this.run = run;
+			this.length = length;
+		}
+
+		@Override
+		public Keyed next() {
+			if (position == length) {
+				return null;
+			}
+			Keyed result = run[position];
+			run[position++] = null;
+			return result;
+		}
+	}
+
+	/**
+	 * k-way merge of sorted run files.  Only the head entry of each run is held in memory.  Equal keys come
+	 * out in the order of their runs, which were written in input order, so the merge is stable.
+	 */
+	private static class RunMergeStream implements EntryStream {
+		private final PriorityQueue<RunReader> heads;
+		private final List<RunReader> readers = new ArrayList<>();
+
+		private RunMergeStream(List<Path> runs, NameCollation collation) throws IOException {
+			heads = new PriorityQueue<>((a, b) -> {
+				int result = a.head.key.compareTo(b.head.key);
+				return (result != 0 ? result : Integer.compare(a.index, b.index));
+			});
+			try {
+				for (Path run: runs) {
+					RunReader reader = new RunReader(Files.newBufferedReader(run, StandardCharsets.UTF_8),
+							collation, readers.size());
+					readers.add(reader);
+					if (reader.advance()) {
+						heads.add(reader);
+					}
+				}
+			} catch (IOException | RuntimeException e) {
+				// the caller never gets the stream, so it can't close the runs already opened
+				for (RunReader reader: readers) {
+					try {
+						reader.in.close();
+					} catch (IOException suppressed) {
+						e.addSuppressed(suppressed);
+					}
+				}
+				throw e;
+			}
+		}
+
+		@Override
+		public Keyed next() throws IOException {
+			RunReader reader = heads.poll();
+			if (reader == null) {
+				return null;
+			}
+			Keyed result = reader.head;
+			if (reader.advance()) {
+				heads.add(reader);
+			}
+			return result;
+		}
+
+		@Override
+		public void close() throws IOException {
+			for (RunReader reader: readers) {
+				reader.in.close();
+			}
+		}
+	}
+
+	private static class RunReader {
+		private final BufferedReader in;
+		private final NameCollation collation;
+		private final int index;			// of the run, breaking ties between equal keys
+		private Keyed head;
+
+		private RunReader(BufferedReader in, NameCollation collation, int index) {
+			this.in = in;
+			this.collation = collation;
+			this.index = index;
+		}
+
+		private boolean advance() throws IOException {
+			String line = in.readLine();
+			if (line == null) {
+				head = null;
+				return false;
+			}
+			Person p = PhoneBook.parseEntry(line);		// already validated when the run was written
+			head = new Keyed(collation.key(p), line, p);
+			return true;
+		}
+	}
+
+}
@@ -0,0 +1,174 @@
+package phonebook;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Operation counters and latency histograms for a single PhoneBook.  Every PhoneBook records into its own
+ * instance as it runs; recording is allocation-free (see {@code LatencyHistogram}), so metrics are always
+ * on.  Calling {@code register(String)} publishes them over JMX, where tools such as JConsole or JMC can
+ * read the current size and capacity along with the count and p50/p99/p999 latency of every operation.
+ * <p>
+ * Each histogram takes about 30 KB, so it's only allocated once its operation is first recorded; a
+ * PhoneBook that is only loaded, searched by name, and saved doesn't pay for the rest.
+ * @author Jake McGrath
+ *
+ */
+public class PhoneBookMetrics implements PhoneBookMetricsMXBean {
+
+	/**
+	 * The operations that are timed.
+	 */
+	public enum Operation {
+		ADD, DELETE, REPLACE, SEARCH_PERSON, SEARCH_FULL_NAME, SEARCH_PHONE_NUMBER, SEARCH_FIRST_NAME,
+		SEARCH_LAST_NAME, SEARCH_CITY, SEARCH_STATE, SEARCH_CONTAINING, QUERY, FIND_DUPLICATES, MERGE, LOAD, SAVE
+	}
+
+	private static final Operation[] OPERATIONS = Operation.values();
+	private static final LatencyHistogram EMPTY = new LatencyHistogram();	// read for unrecorded operations
+
+	private final PhoneBook phoneBook;
+	private final AtomicReferenceArray<LatencyHistogram> histograms;	// null until first recorded
+	private ObjectName objectName;
+
+
+	protected PhoneBookMetrics(PhoneBook phoneBook) {
+		this.phoneBook = phoneBook;
+		this.histograms = new AtomicReferenceArray<>(OPERATIONS.length);
+	}
+
+	/**
+	 * Records one completed operation.  Intended to be used as
+	 * {@code long start = System.nanoTime(); ... metrics.record(Operation.ADD, start);}.
+	 * @param operation the operation that completed.
+	 * @param startNanos the {@code System.nanoTime()} at which the operation started.
+	 */
+	protected void record(Operation operation, long startNanos) {
+		LatencyHistogram histogram = histograms.get(operation.ordinal());
+		if (histogram == null) {
+			histograms.compareAndSet(operation.ordinal(), null, new LatencyHistogram());
+			histogram = histograms.get(operation.ordinal());
+		}
+		histogram.record(System.nanoTime() - startNanos);
+	}
+
+	public OperationStatistics getStatistics(Operation operation) {
+		return OperationStatistics.of(histogram(operation));
+	}
+
+	/**
+	 * Helper function that returns the histogram of an operation, or an empty one if the operation has
+	 * never been recorded.
+	 */
+	private LatencyHistogram histogram(Operation operation) {
+		LatencyHistogram histogram = histograms.get(operation.ordinal());
+		return (histogram == null ? EMPTY : histogram);
+	}
+
+	/**
+	 * @return an estimate of the heap used by these metrics, which is mostly the histograms allocated so
+	 * far.
+	 */
+	public long estimateMemory() {
+		long result = ObjectSizes.array((long) OPERATIONS.length * ObjectSizes.REFERENCE);
+		for (int i = 0; i < histograms.length(); i++) {
+			if (histograms.get(i) != null) {
+				result += LatencyHistogram.ESTIMATED_BYTES;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Publishes these metrics on the platform MBean server as {@code phonebook:type=PhoneBook,name=<name>},
+	 * replacing any PhoneBook already registered under that name.
+	 * @param name the name to register these metrics under, e.g. "default".
+	 */
+	public synchronized void register(String name) {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName newName = ObjectName.getInstance("phonebook:type=PhoneBook,name=" + ObjectName.quote(name));
+			unregister();
+			if (server.isRegistered(newName)) {
+				server.unregisterMBean(newName);
+			}
+			server.registerMBean(this, newName);
+			objectName = newName;
+		} catch (JMException e) {
+			throw new IllegalStateException("Could not register PhoneBook metrics as '" + name + "'", e);
+		}
+	}
+
+	/**
+	 * Removes these metrics from the platform MBean server, if they were registered.
+	 */
+	public synchronized void unregister() {
+		if (objectName == null) {
+			return;
+		}
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+		} catch (JMException e) {
+			// already gone
+		}
+		objectName = null;
+	}
+
+	@Override
+	public int getSize() {
+		return phoneBook.size();
+	}
+
+	@Override
+	public int getCapacity() {
+		return phoneBook.capacity();
+	}
+
+	@Override
+	public Map<String, OperationStatistics> getOperations() {
+		Map<String, OperationStatistics> result = new LinkedHashMap<>();
+		for (Operation operation: OPERATIONS) {
+			result.put(operation.name(), getStatistics(operation));
+		}
+		return result;
+	}
+
+	@Override
+	public long getOperationCount(String operation) {
+		return histogram(Operation.valueOf(operation)).getCount();
+	}
+
+	@Override
+	public long getLatencyPercentile(String operation, double percentile) {
+		return histogram(Operation.valueOf(operation)).getPercentile(percentile);
+	}
+
+	@Override
+	public void reset() {
+		for (int i = 0; i < histograms.length(); i++) {
+			LatencyHistogram histogram = histograms.get(i);
+			if (histogram != null) {
+				histogram.reset();
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder("size=").append(getSize()).append(", capacity=")
+				.append(getCapacity());
+		for (Operation operation: OPERATIONS) {
+			if (histogram(operation).getCount() > 0) {
+				result.append('\n').append(operation).append(": ").append(getStatistics(operation));
+			}
+		}
+		return result.toString();
+	}
+
+}
@@ -0,0 +1,41 @@
+package phonebook;
+
+import java.util.Map;
+
+/**
+ * JMX view of a PhoneBook's {@code PhoneBookMetrics}.  Registered under
+ * {@code phonebook:type=PhoneBook,name=<name>}.
+ * @author Jake McGrath
+ *
+ */
+public interface PhoneBookMetricsMXBean {
+
+	/**
+	 * @return the number of entries in the PhoneBook.
+	 */
+	int getSize();
+
+	/**
+	 * @return the length of the PhoneBook's backing array.
+	 */
+	int getCapacity();
+
+	/**
+	 * @return the statistics of every operation, keyed by operation name (e.g. "ADD", "SEARCH_CITY").
+	 */
+	Map<String, OperationStatistics> getOperations();
+
+	long getOperationCount(String operation);
+
+	/**
+	 * @param operation an operation name, e.g. "SEARCH_PHONE_NUMBER".
+	 * @param percentile between 0 and 100, e.g. 99.9.
+	 * @return the latency percentile of the operation in nanoseconds.
+	 */
+	long getLatencyPercentile(String operation, double percentile);
+
+	/**
+	 * Clears every counter and histogram.
+	 */
+	void reset();
+}
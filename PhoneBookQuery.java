@@ -0,0 +1,171 @@
+package phonebook;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * A compound search of a PhoneBook, built up one field at a time and run with {@code execute()}:
+ * <pre>
+ *     Person[] matches = phoneBook.query().lastName("Doe").city("St Louis").state("MO").execute();
+ * </pre>
+ * Every field that is set must match exactly (ignoring case).  Instead of sorting the whole PhoneBook,
+ * the query is planned against the PhoneBook's field indexes: the predicate expected to match the fewest
+ * Persons is looked up in its index, and the remaining predicates are checked against that (small) set
+ * of candidates only.
+ * @author Jake McGrath
+ *
+ */
+public class PhoneBookQuery {
+
+	private final PhoneBook phoneBook;
+	private final EnumMap<SearchField, String> predicates;	// field -> normalized value
+
+
+	PhoneBookQuery(PhoneBook phoneBook) {
+		this.phoneBook = phoneBook;
+		this.predicates = new EnumMap<>(SearchField.class);
+	}
+
+	public PhoneBookQuery firstName(String firstName) {
+		return where(SearchField.FIRST_NAME, firstName);
+	}
+
+	public PhoneBookQuery lastName(String lastName) {
+		return where(SearchField.LAST_NAME, lastName);
+	}
+
+	/**
+	 * @param fullName either "LastName, FirstName MiddleName(s)" or "FirstName MiddleName(s) LastName".
+	 */
+	public PhoneBookQuery fullName(String fullName) {
+		return where(SearchField.FULL_NAME, fullName);
+	}
+
+	public PhoneBookQuery phoneNumber(String phoneNumber) throws InvalidPhoneNumberException {
+		return where(SearchField.PHONE_NUMBER, phoneNumber);
+	}
+
+	public PhoneBookQuery city(String city) {
+		return where(SearchField.CITY, city);
+	}
+
+	public PhoneBookQuery state(String state) throws InvalidStateException {
+		return where(SearchField.STATE, state);
+	}
+
+	public PhoneBookQuery zipCode(String zipCode) {
+		return where(SearchField.ZIP_CODE, zipCode);
+	}
+
+	/**
+	 * Adds the requirement that {@code field} must equal {@code value}.  Setting the same field twice
+	 * replaces the earlier value.
+	 */
+	public PhoneBookQuery where(SearchField field, String value) {
+		assert field != null && value != null;
+		predicates.put(field, field.normalize(value));
+		return this;
+	}
+
+	/**
+	 * Runs this query against the PhoneBook.
+	 * @return the matching Persons.  If no match is found in the PhoneBook, null is returned, the same as
+	 * the PhoneBook's other searches.
+	 */
+	public Person[] execute() {
+		long start = System.nanoTime();
+		PhoneBookEvents.Search event = PhoneBookEvents.Search.started();
+		Person[] result = null;
+		try {
+			result = run();
+			return result;
+		} finally {
+			phoneBook.searched(PhoneBookMetrics.Operation.QUERY, start, event,
+					result == null ? 0 : result.length);
+		}
+	}
+
+	private Person[] run() {
+		Person[] candidates;
+		SearchField driver = null;
+		if (predicates.isEmpty()) {
+			candidates = phoneBook.entriesSnapshot();
+		} else {
+			driver = plan();
+			candidates = phoneBook.index(driver).lookup(predicates.get(driver));
+		}
+		int resultSize = 0;
+		for (int i = 0; i < candidates.length; i++) {
+			if (matchesAllBut(candidates[i], driver)) {
+				candidates[resultSize] = candidates[i];
+				resultSize++;
+			}
+		}
+		return (resultSize == 0 ? null : Arrays.copyOf(candidates, resultSize));
+	}
+
+	/**
+	 * Picks the predicate to look up first.  The estimate for each predicate is the number of Persons
+	 * stored under its key in that field's index; a predicate on a key that isn't in the index matches
+	 * nothing, so it wins immediately.  Ties go to the field whose index has the higher cardinality.
+	 * @return the field whose index should drive this query.
+	 */
+	private SearchField plan() {
+		SearchField best = null;
+		int bestRows = Integer.MAX_VALUE;
+		int bestCardinality = -1;
+		for (Map.Entry<SearchField, String> predicate: predicates.entrySet()) {
+			FieldIndex index = phoneBook.index(predicate.getKey());
+			int rows = index.count(predicate.getValue());
+			int cardinality = index.cardinality();
+			if (rows < bestRows || (rows == bestRows && cardinality > bestCardinality)) {
+				best = predicate.getKey();
+				bestRows = rows;
+				bestCardinality = cardinality;
+			}
+			if (bestRows == 0) {
+				break;
+			}
+		}
+		return best;
+	}
+
+	private boolean matchesAllBut(Person p, SearchField skip) {
+		for (Map.Entry<SearchField, String> predicate: predicates.entrySet()) {
+			SearchField field = predicate.getKey();
+			if (field != skip && !field.key(p).equals(predicate.getValue())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Describes how this query would be run, along with the statistics of every index involved.
+	 * Intended for tuning and troubleshooting.
+	 */
+	public String explain() {
+		StringBuilder result = new StringBuilder();
+		if (predicates.isEmpty()) {
+			return result.append("Full scan of ").append(phoneBook.size()).append(" entries").toString();
+		}
+		SearchField chosen = plan();
+		for (Map.Entry<SearchField, String> predicate: predicates.entrySet()) {
+			FieldIndex index = phoneBook.index(predicate.getKey());
+			result.append(predicate.getKey() == chosen ? "Index lookup " : "Filter ")
+					.append(predicate.getKey()).append(" = '").append(predicate.getValue()).append("'")
+					.append(" (rows=").append(index.count(predicate.getValue()))
+					.append(", cardinality=").append(index.cardinality())
+					.append(", avgRowsPerKey=").append(String.format("%.2f", index.averageRowsPerKey()))
+					.append(")\n");
+		}
+		return result.toString();
+	}
+
+	@Override
+	public String toString() {
+		return "PhoneBookQuery" + predicates;
+	}
+
+}
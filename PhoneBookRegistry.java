@@ -0,0 +1,412 @@
+package phonebook;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.regex.Pattern;
+
+/**
+ * Hosts many named PhoneBooks in one JVM, e.g. one per customer team, keeping only as many of them in
+ * memory as fit in a memory budget.  Each book is saved in the registry's directory as
+ * {@code <name>.csv.pbz}, and is loaded the first time it's opened (from a {@code <name>.txt.pbz} text
+ * save instead, if the book was last saved before books were saved as CSV):
+ * <pre>
+ *     try (PhoneBookRegistry.Lease lease = registry.open("support")) {
+ *         lease.getPhoneBook().searchByCity("Chicago");
+ *     }
+ * </pre>
+ * A book stays in memory after its lease is closed, so opening it again is free, until the books in
+ * memory are estimated to use more than the budget; then the books that have gone longest without being
+ * opened, and that aren't open now, are saved (if they have changed) and dropped.  A book that can't be
+ * saved stays in memory rather than losing its changes.
+ * <p>
+ * Every book is created with the registry's {@code StringPool}, so the names, cities, states, and zip
+ * codes that repeat across books (and the keys of the indexes on them) are stored once per JVM rather
+ * than once per book.  {@code getMemoryUsage()} reports each book's own estimated memory; the pool is
+ * reported separately by {@code getPoolMemory()}, and both count against the budget.
+ * <p>
+ * The registry is safe to use from any number of threads, and different books can be used at the same
+ * time, but each PhoneBook is still meant to be used by one thread at a time.  Loading and saving a book
+ * only holds up callers that want the same book.
+ * @author Jake McGrath
+ *
+ */
+public class PhoneBookRegistry implements Closeable {
+
+	private static final Pattern NAME = Pattern.compile("[A-Za-z0-9_-][A-Za-z0-9._-]*");
+	private static final String SUFFIX = EntryFormat.CSV.getExtension() + BlockCompressedOutputStream.EXTENSION;
+	// books used to be saved as text, which can't hold a comma inside a field
+	private static final String TEXT_SUFFIX = EntryFormat.TEXT.getExtension() + BlockCompressedOutputStream.EXTENSION;
+
+	private final Path directory;
+	private final long memoryBudget;
+	private final StringPool stringPool;
+	private final LinkedHashMap<String, Book> books;	// in memory, least recently opened first
+	// books being saved after eviction, each resolving to the PhoneBook if it couldn't be saved, or null
+	private final HashMap<String, CompletableFuture<PhoneBook>> evicting;
+	private IOException lastFailure;
+	private boolean closed;
+
+
+	/**
+	 * @param directory where the books are saved; created if it doesn't exist.
+	 * @param memoryBudget the estimated bytes the books in memory and the string pool may use before idle
+	 * books are evicted.
+	 * @throws IOException if the directory can't be created.
+	 */
+	public PhoneBookRegistry(Path directory, long memoryBudget) throws IOException {
+		assert directory != null && memoryBudget >= 0;
+		this.directory = Files.createDirectories(directory);
+		this.memoryBudget = memoryBudget;
+		this.stringPool = new StringPool();
+		this.books = new LinkedHashMap<>(16, 0.75f, true);
+		this.evicting = new HashMap<>();
+	}
+
+	/**
+	 * Opens the book with the name passed as a parameter, loading it if it isn't in memory, or creating
+	 * it if it has never been saved.  The book can't be evicted until the lease is closed.
+	 * @param name the name of the book: letters, digits, '.', '_', and '-', not starting with '.'.
+	 * @return a lease on the book.
+	 * @throws IOException if the book can't be loaded, or its file is damaged.
+	 */
+	public Lease open(String name) throws IOException {
+		Path file = fileOf(name);
+		Book book;
+		CompletableFuture<PhoneBook> saving = null;
+		boolean load = false;
+		synchronized (this) {
+			if (closed) {
+				throw new IllegalStateException("The PhoneBookRegistry is closed");
+			}
+			book = books.get(name);
+			if (book == null) {
+				book = new Book();
+				books.put(name, book);
+				saving = evicting.get(name);
+				load = true;
+			}
+			book.leases++;
+		}
+		if (load) {
+			load(name, book, file, saving);
+		}
+		PhoneBook phoneBook;
+		try {
+			phoneBook = book.loaded.join();
+		} catch (CompletionException e) {		// loaded by another caller, and that failed
+			synchronized (this) {
+				book.leases--;
+			}
+			Throwable cause = e.getCause();
+			throw (cause instanceof IOException ? (IOException) cause : new IOException(cause));
+		}
+		estimate(book, phoneBook);
+		evictIdle();
+		return new Lease(name, book, phoneBook);
+	}
+
+	/**
+	 * Saves the book with the name passed as a parameter, if it has changed, and drops it from memory,
+	 * unless it's open.
+	 * @param name the name of the book.
+	 * @return true if the book was evicted; false if it's open, or wasn't in memory.
+	 * @throws IOException if the book can't be saved, in which case it stays in memory.
+	 */
+	public boolean evict(String name) throws IOException {
+		List<Map.Entry<String, PhoneBook>> victims = new ArrayList<>();
+		synchronized (this) {
+			Book book = books.get(name);
+			if (book == null || !isIdle(book)) {
+				return false;
+			}
+			books.remove(name);
+			victims.add(startEvicting(name, book));
+		}
+		IOException failure = save(victims);
+		if (failure != null) {
+			throw failure;
+		}
+		return true;
+	}
+
+	/**
+	 * @return true if the book with the name passed as a parameter is in memory.
+	 */
+	public synchronized boolean isLoaded(String name) {
+		return books.containsKey(name);
+	}
+
+	/**
+	 * @return the estimated memory of every book in memory, least recently opened first, not counting the
+	 * strings they share through the pool.  Each book is estimated again whenever it's opened or closed
+	 * after it has changed.
+	 */
+	public synchronized Map<String, Long> getMemoryUsage() {
+		Map<String, Long> result = new LinkedHashMap<>();
+		for (Map.Entry<String, Book> entry: books.entrySet()) {
+			result.put(entry.getKey(), entry.getValue().bytes);
+		}
+		return result;
+	}
+
+	/**
+	 * @return the estimated memory of the strings shared by every book.
+	 */
+	public long getPoolMemory() {
+		return stringPool.estimateMemory();
+	}
+
+	/**
+	 * @return the pool of values shared by every book.
+	 */
+	public StringPool getStringPool() {
+		return stringPool;
+	}
+
+	/**
+	 * @return why the last book that couldn't be saved on eviction failed, or null if none has.
+	 */
+	public synchronized IOException getLastFailure() {
+		return lastFailure;
+	}
+
+	/**
+	 * Saves every book in memory that has changed, including open ones, and drops them all.  The registry
+	 * can't be used afterwards.
+	 * @throws IOException if any book can't be saved; the others are still saved.
+	 */
+	@Override
+	public void close() throws IOException {
+		List<Map.Entry<String, PhoneBook>> toSave = new ArrayList<>();
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			for (Map.Entry<String, Book> entry: books.entrySet()) {
+				if (entry.getValue().loaded.isDone() && !entry.getValue().loaded.isCompletedExceptionally()) {
+					toSave.add(Map.entry(entry.getKey(), entry.getValue().loaded.join()));
+				}
+			}
+			books.clear();
+		}
+		IOException failure = null;
+		for (Map.Entry<String, PhoneBook> entry: toSave) {
+			try {
+				if (entry.getValue().isDirty()) {
+					entry.getValue().saveSnapshot(fileOf(entry.getKey()), EntryFormat.CSV);
+				}
+			} catch (IOException e) {
+				if (failure == null) {
+					failure = e;
+				} else {
+					failure.addSuppressed(e);
+				}
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/**
+	 * Helper function that loads a book that isn't in memory, or takes it back from an eviction whose
+	 * save failed, and hands it to everyone waiting for it.
+	 */
+	private void load(String name, Book book, Path file, CompletableFuture<PhoneBook> saving)
+			throws IOException {
+		try {
+			PhoneBook phoneBook = (saving == null ? null : saving.join());
+			if (phoneBook == null) {
+				phoneBook = new PhoneBook(stringPool);
+				Path textFile = file.resolveSibling(name + TEXT_SUFFIX);
+				if (Files.exists(file) || Files.exists(textFile)) {
+					ImportReport report = (Files.exists(file) ? phoneBook.importEntries(file, EntryFormat.CSV)
+							: phoneBook.importEntries(textFile, EntryFormat.TEXT));
+					if (report.isDamaged()) {		// saving what was recovered would lose the rest
+						throw new IOException("PhoneBook '" + name + "' is damaged: " + report.getDamage());
+					}
+				}
+				phoneBook.markClean();
+			}
+			book.loaded.complete(phoneBook);
+		} catch (IOException | RuntimeException e) {
+			synchronized (this) {
+				books.remove(name, book);
+			}
+			book.loaded.completeExceptionally(e);
+			throw e;
+		}
+	}
+
+	/**
+	 * Helper function that re-estimates a book's memory, if it has changed since it was last estimated.
+	 */
+	private void estimate(Book book, PhoneBook phoneBook) {
+		long mutationCount = phoneBook.getMutationCount();
+		if (mutationCount != book.estimatedAt) {
+			long bytes = phoneBook.estimateMemory();
+			synchronized (this) {
+				book.bytes = bytes;
+				book.estimatedAt = mutationCount;
+			}
+		}
+	}
+
+	/**
+	 * Helper function that closes a lease, and evicts books if that leaves too much in memory.
+	 */
+	private void release(Book book, PhoneBook phoneBook) {
+		synchronized (this) {
+			book.leases--;
+		}
+		estimate(book, phoneBook);
+		evictIdle();
+	}
+
+	/**
+	 * Helper function that evicts the least recently opened idle books until the estimated memory is
+	 * within the budget, or no idle book is left.  The books are saved after the registry's lock has been
+	 * released, so that only callers wanting one of them wait for the disk.
+	 */
+	private void evictIdle() {
+		List<Map.Entry<String, PhoneBook>> victims = new ArrayList<>();
+		long used = getPoolMemory();
+		synchronized (this) {
+			for (Book book: books.values()) {
+				used += book.bytes;
+			}
+			Iterator<Map.Entry<String, Book>> it = books.entrySet().iterator();
+			while (used > memoryBudget && it.hasNext()) {
+				Map.Entry<String, Book> entry = it.next();
+				if (isIdle(entry.getValue())) {
+					used -= entry.getValue().bytes;
+					it.remove();
+					victims.add(startEvicting(entry.getKey(), entry.getValue()));
+				}
+			}
+		}
+		save(victims);
+	}
+
+	/**
+	 * Helper function that marks a book that has just been taken out of memory as being evicted, so that
+	 * opening it again waits for it to be saved.  Called with the registry's lock held.
+	 * @return the book, to be saved by {@code save(List)}.
+	 */
+	private Map.Entry<String, PhoneBook> startEvicting(String name, Book book) {
+		evicting.put(name, new CompletableFuture<>());
+		return Map.entry(name, book.loaded.join());
+	}
+
+	/**
+	 * Helper function that saves evicted books that have changed.  A book that can't be saved is put back,
+	 * or handed to whoever opened it again in the meantime.
+	 * @return why the first book that couldn't be saved failed, or null if they were all saved.
+	 */
+	private IOException save(List<Map.Entry<String, PhoneBook>> victims) {
+		IOException failure = null;
+		for (Map.Entry<String, PhoneBook> victim: victims) {
+			String name = victim.getKey();
+			PhoneBook phoneBook = victim.getValue();
+			PhoneBook unsaved = null;
+			try {
+				if (phoneBook.isDirty()) {
+					phoneBook.saveSnapshot(fileOf(name), EntryFormat.CSV);
+				}
+			} catch (IOException e) {
+				unsaved = phoneBook;
+				failure = (failure == null ? e : failure);
+				synchronized (this) {
+					lastFailure = e;
+				}
+			}
+			synchronized (this) {
+				CompletableFuture<PhoneBook> saving = evicting.remove(name);
+				if (unsaved != null && !books.containsKey(name) && !closed) {
+					Book book = new Book();
+					book.loaded.complete(unsaved);
+					books.put(name, book);
+				}
+				saving.complete(unsaved);
+			}
+		}
+		return failure;
+	}
+
+	private static boolean isIdle(Book book) {
+		return (book.leases == 0 && book.loaded.isDone() && !book.loaded.isCompletedExceptionally());
+	}
+
+	/**
+	 * Helper function that returns the file of a book, after checking that its name can't reach outside
+	 * the registry's directory.
+	 */
+	private Path fileOf(String name) {
+		if (name == null || !NAME.matcher(name).matches()) {
+			throw new IllegalArgumentException("Invalid PhoneBook name: " + name);
+		}
+		return directory.resolve(name + SUFFIX);
+	}
+
+	/**
+	 * A book in memory, or being loaded into it.  Guarded by the registry's lock, apart from
+	 * {@code loaded}.
+	 */
+	private static class Book {
+		private final CompletableFuture<PhoneBook> loaded = new CompletableFuture<>();
+		private int leases;
+		private long bytes;						// estimated memory, as of estimatedAt
+		private long estimatedAt = -1;			// the book's mutation count when it was last estimated
+	}
+
+	/**
+	 * An open book, which isn't evicted until this is closed.
+	 */
+	public final class Lease implements Closeable {
+
+		private final String name;
+		private final Book book;
+		private final PhoneBook phoneBook;
+		private boolean closed;
+
+
+		private Lease(String name, Book book, PhoneBook phoneBook) {
+			this.name = name;
+			this.book = book;
+			this.phoneBook = phoneBook;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public PhoneBook getPhoneBook() {
+			return phoneBook;
+		}
+
+		/**
+		 * Lets the book be evicted again.  Evicting books to make room may save them, but a failure to do
+		 * so isn't thrown here; see {@code getLastFailure()}.
+		 */
+		@Override
+		public void close() {
+			if (!closed) {
+				closed = true;
+				release(book, phoneBook);
+			}
+		}
+
+	}
+
+}
@@ -1,12 +1,17 @@
 package phonebook;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
+import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
 import java.util.InputMismatchException;
+import java.util.NoSuchElementException;
 import java.util.Scanner;
 
 /**
@@ -14,141 +19,319 @@ import java.util.Scanner;
  * navigate to add entries to the PhoneBook, delete entries from the PhoneBook, search for entries, and
  * update contacts in the PhoneBook.  This program also allows the user the option to save their current
  * PhoneBook, as well as to load a previously saved PhoneBook.
+ * <p>
+ * Each menu and prompt is a {@code Screen}.  Rather than calling the next menu directly, every screen
+ * returns the screen to show next, and {@code run()} loops until a screen returns null.  The call stack
+ * therefore stays the same depth no matter how long the PhoneBook is left open, and all of the screens
+ * share a single input reader.  Console output is buffered, and only flushed when the user is prompted.
+ * <p>
+ * Changes are saved in the background by an {@code AutoSaver}, every {@code phonebook.autosave.seconds}
+ * seconds (30 by default) or every {@code phonebook.autosave.changes} changes (50 by default), whichever
+ * comes first; setting both system properties to 0 turns autosaving off.  Autosaving is also off when the
+ * user chooses not to open a saved PhoneBook that exists, so as not to replace it, in which case the
+ * PhoneBook is only saved if the user chooses to on exit.
  * @author Jake McGrath
  *
  */
 public class PhoneBookUI {
-	
+
+	/**
+	 * Every menu and prompt of the client.
+	 */
+	private enum Screen {
+		MAIN_MENU,
+		ADD_CONTACT_MENU, ADD_CONTACT_BY_FIELDS, ADD_CONTACT_FULL_DETAILS,
+		DELETE_CONTACT_MENU, DELETE_CONTACT_BY_PHONE_NUMBER, DELETE_CONTACT_BY_NAME_MENU,
+		DELETE_CONTACT_NAME_FIELDS, DELETE_CONTACT_BY_FULL_NAME,
+		UPDATE_CONTACT_MENU, UPDATE_CONTACT_BY_FULL_NAME, UPDATE_CONTACT_BY_PHONE,
+		UPDATE_CONTACT_DETAILS_MENU, UPDATE_CONTACT_NAME, UPDATE_CONTACT_ADDRESS, UPDATE_CONTACT_PHONE,
+		SEARCH_CONTACTS_MENU, SEARCH_BY_FIRST_NAME, SEARCH_BY_LAST_NAME, SEARCH_BY_FULL_NAME,
+		SEARCH_BY_TELEPHONE_NUMBER, SEARCH_BY_CITY, SEARCH_BY_STATE, SEARCH_BY_PARTIAL_DETAILS,
+		PRINT_ALL_CONTACTS, PRINT_DUPLICATE_CONTACTS,
+		EXIT
+	}
+
 	private PhoneBook phoneBook;	// the PhoneBook
-	
+	private AutoSaver autoSaver;	// saves the PhoneBook in the background; null if autosaving is off
+	private Person selected;		// the contact chosen for updating, used by the Update Contact Details screens
+	private int listOffset;			// the first contact on the next page of See All Contacts
+	private final Scanner in;		// the only reader of System.in
+	private static final String METRICS_NAME = "default";	// JMX name of the PhoneBook's metrics
+	private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+	private static final int PAGE_SIZE = 100;		// contacts per page of See All Contacts
+	private static final long AUTOSAVE_SECONDS = Long.getLong("phonebook.autosave.seconds", 30);
+	private static final long AUTOSAVE_CHANGES = Long.getLong("phonebook.autosave.changes", 50);
+
 	// No-arg default constructor for instantiating the PhoneBookClient/program.
 	public PhoneBookUI() {
 		phoneBook = new PhoneBook();
+		phoneBook.getMetrics().register(METRICS_NAME);
+		in = new Scanner(System.in);
 		this.run();
 	}
-	
+
 	/**
 	 * Starts the program, and provides the user with the option to load a previously saved PhoneBook.
 	 * If a previous save exists, and the user chooses to load it, then all of the previously saved
-	 * entries will be added to this PhoneBook.  Otherwise, the user will navigate to the Main Menu
+	 * entries will be added to this PhoneBook.  Afterwards, screens are shown one after another, starting
+	 * from the Main Menu, until the user exits or the input is closed.
 	 */
 	public void run() {
-		Scanner in = new Scanner(System.in);
+		PrintStream console = System.out;
+		System.setOut(new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out),
+				OUTPUT_BUFFER_SIZE), false));
+		try {
+			Screen screen = welcome();
+			while (screen != null) {
+				screen = show(screen);
+			}
+		} catch (NoSuchElementException e) {	// input closed, e.g. at the end of piped input
+			System.out.println("\nThank you for using the PhoneBook.");
+		} finally {
+			stopAutoSave();
+			System.out.flush();
+			System.setOut(console);
+			in.close();
+		}
+	}
+
+	/**
+	 * Shows a single screen.
+	 * @param screen the screen to show.
+	 * @return the screen to show next, or null to exit the program.
+	 */
+	private Screen show(Screen screen) {
+		return switch (screen) {
+			case MAIN_MENU -> this.mainMenu();
+			case ADD_CONTACT_MENU -> this.addContactMenu();
+			case ADD_CONTACT_BY_FIELDS -> this.addContactByFields();
+			case ADD_CONTACT_FULL_DETAILS -> this.addContactFullDetails();
+			case DELETE_CONTACT_MENU -> this.deleteContactMenu();
+			case DELETE_CONTACT_BY_PHONE_NUMBER -> this.deleteContactByPhoneNumber();
+			case DELETE_CONTACT_BY_NAME_MENU -> this.deleteContactByNameMenu();
+			case DELETE_CONTACT_NAME_FIELDS -> this.deleteContactNameFields();
+			case DELETE_CONTACT_BY_FULL_NAME -> this.deleteContactByFullName();
+			case UPDATE_CONTACT_MENU -> this.updateContactMenu();
+			case UPDATE_CONTACT_BY_FULL_NAME -> this.updateContactByFullName();
+			case UPDATE_CONTACT_BY_PHONE -> this.updateContactByPhone();
+			case UPDATE_CONTACT_DETAILS_MENU -> this.updateContactDetailsMenu();
+			case UPDATE_CONTACT_NAME -> this.updateContactName();
+			case UPDATE_CONTACT_ADDRESS -> this.updateContactAddress();
+			case UPDATE_CONTACT_PHONE -> this.updateContactPhone();
+			case SEARCH_CONTACTS_MENU -> this.searchContactsMenu();
+			case SEARCH_BY_FIRST_NAME -> this.searchByFirstName();
+			case SEARCH_BY_LAST_NAME -> this.searchByLastName();
+			case SEARCH_BY_FULL_NAME -> this.searchByFullName();
+			case SEARCH_BY_TELEPHONE_NUMBER -> this.searchByTelephoneNumber();
+			case SEARCH_BY_CITY -> this.searchByCity();
+			case SEARCH_BY_STATE -> this.searchByState();
+			case SEARCH_BY_PARTIAL_DETAILS -> this.searchByPartialDetails();
+			case PRINT_ALL_CONTACTS -> this.printAllContacts();
+			case PRINT_DUPLICATE_CONTACTS -> this.printDuplicateContacts();
+			case EXIT -> this.exit();
+		};
+	}
+
+	/**
+	 * Helper function that flushes any buffered output, so the user can see the prompt, and then reads
+	 * the user's response.
+	 * @return the next line of input.
+	 * @throws NoSuchElementException if the input has been closed.
+	 */
+	private String readLine() {
+		System.out.flush();
+		return in.nextLine();
+	}
+
+	/**
+	 * Helper function that reads a menu option number.
+	 * @return the option number entered by the user.
+	 * @throws InputMismatchException if the user didn't enter a number.
+	 */
+	private int readOption() {
+		String response = readLine().strip();
+		try {
+			return Integer.parseInt(response);
+		} catch (NumberFormatException e) {
+			throw new InputMismatchException(response);
+		}
+	}
+
+	private static boolean isYes(String response) {
+		return response.equalsIgnoreCase("yes") || response.equalsIgnoreCase("y");
+	}
+
+	/**
+	 * Helper function that prints a message between two lines of asterisks.
+	 */
+	private static void printNotice(String message) {
+		System.out.println("\n**********************************************************");
+		System.out.println(message);
+		System.out.println("**********************************************************");
+	}
+
+	private Screen welcome() {
 		System.out.println("**********************************************************");
 		System.out.println("\t\tWelcome to the PhoneBook");
 		System.out.println("**********************************************************");
 		System.out.println("\nWould you like to open a previously previously saved PhoneBook?");
+		boolean opened = false;
 		try {
 			System.out.print("\nEnter 'Yes' to open a saved PhoneBook or 'No' to proceed to the\n"
 					+ "Main Menu: ");
-			String openSave = in.nextLine().strip();
-			if (openSave.equalsIgnoreCase("yes") || openSave.equalsIgnoreCase("y")) {
-				this.loadPhoneBook();
-			} else {
-				this.mainMenu();
+			String openSave = readLine().strip();
+			if (isYes(openSave)) {
+				opened = this.loadPhoneBook();
 			}
 		} catch (InputMismatchException e) {
-			System.out.println("\n**********************************************************");
-            System.out.println("Please enter a valid response following the prompt");
-            System.out.println("**********************************************************");
-            this.mainMenu();
+			printNotice("Please enter a valid response following the prompt");
 		}
-		in.close();
+		this.startAutoSave(opened);
+		return Screen.MAIN_MENU;
 	}
-	
+
 	/**
 	 * Checks if a previously saved PhoneBook exists in the user's default home directory.  If a
 	 * previous save exists, this function will incorporate the entries in the save file into this
 	 * PhoneBook.  If no save exists, then a printed message will notify the user that no previous save
-	 * exists.  Regardless as to whether a previous save exists or not, the user will then be navigated
-	 * to the Main Menu.
+	 * exists.  A CSV save is preferred to a text one from before saves were CSV, and a compressed text save
+	 * to an uncompressed one from before saves were compressed.  If the save is damaged, whatever entries
+	 * could be read are loaded, and the save is moved aside to e.g. "PhoneBook.csv.pbz.damaged" so saving
+	 * this PhoneBook won't replace it.
+	 * @return true if the saved PhoneBook was loaded and may be saved over.
 	 */
-	private void loadPhoneBook() {
-		// Create directory
-		String directory = System.getProperty("user.home");
-		// Create fileName
-		String fileName = "PhoneBook.txt";
-		// Create absolute path to file
-		String absolutePath = directory + File.separator + fileName;
-		File pb = new File(absolutePath);
+	private boolean loadPhoneBook() {
+		File pb = savedPhoneBook();
 		// create temporary PhoneBook
 		PhoneBook temp = new PhoneBook();
 		if (pb.exists()) {
 			try {
-				BufferedReader bufferedReader = new BufferedReader(new FileReader(absolutePath));
-				String entry = bufferedReader.readLine();
-				while (entry != null) {
-					temp.entryLoader(entry);
-					entry = bufferedReader.readLine();
-				}
+				ImportReport report = temp.importEntries(pb.toPath(), EntryFormat.forFileName(pb.getName()));
+				temp.markClean();
+				phoneBook.getMetrics().unregister();
 				phoneBook = temp;
+				phoneBook.getMetrics().register(METRICS_NAME);
 				System.out.println("\n**********************************************************");
-	            System.out.println("\t\tPhoneBook successfully loaded");
-	            System.out.println("**********************************************************");
+				System.out.println("\t\tPhoneBook successfully loaded");
+				if (report.getRejected() > 0 || report.isDamaged()) {
+					System.out.println(report);
+				}
+				System.out.println("**********************************************************");
+				if (report.isDamaged()) {
+					// keep what's left of the damaged save, which saving would replace with only the entries read
+					File damaged = new File(pb.getPath() + ".damaged");
+					try {
+						Files.move(pb.toPath(), damaged.toPath(), StandardCopyOption.REPLACE_EXISTING);
+						printNotice("The damaged save was moved to " + damaged);
+					} catch (IOException e) {
+						printNotice("The damaged save couldn't be moved aside, so it won't be autosaved over");
+						return false;
+					}
+				}
+				return true;
 			} catch (IOException e) {
 				System.out.println("Something went wrong loading PhoneBook...");
 			}
 		}
-		this.mainMenu();
+		return false;
+	}
+
+	/**
+	 * Helper function that returns the file a PhoneBook was last saved to in the user's default home
+	 * directory: "PhoneBook.csv.pbz" if it exists, or else the text save "PhoneBook.txt.pbz" or
+	 * "PhoneBook.txt" written by older versions, which may not exist either.
+	 */
+	private static File savedPhoneBook() {
+		File pb = saveFile();
+		if (!pb.exists()) {
+			pb = new File(System.getProperty("user.home"), "PhoneBook.txt" + BlockCompressedOutputStream.EXTENSION);
+		}
+		if (!pb.exists()) {
+			pb = new File(System.getProperty("user.home"), "PhoneBook.txt");
+		}
+		return pb;
 	}
-	
+
 	/**
-	 * Saves the content of this PhoneBook to the user's default home directory by creating a .txt file
-	 * named "PhoneBook.txt".
+	 * Helper function that returns the file this PhoneBook is saved to: a compressed .csv file named
+	 * "PhoneBook.csv.pbz" in the user's default home directory.  It's CSV rather than the original text
+	 * format because CSV can hold a comma inside a field, e.g. "Apt 2, 1 Main St".
+	 */
+	private static File saveFile() {
+		return new File(System.getProperty("user.home"), "PhoneBook.csv" + BlockCompressedOutputStream.EXTENSION);
+	}
+
+	/**
+	 * Saves the content of this PhoneBook to the user's default home directory by creating a compressed
+	 * .csv file named "PhoneBook.csv.pbz".
 	 */
 	private void savePhoneBook() {
-		// Create directory
-		String directory = System.getProperty("user.home");
-		// Create fileName
-		String fileName = "PhoneBook.txt";
-		// Create absolute path to file
-		String absolutePath = directory + File.separator + fileName;
 		try {
-			BufferedWriter bufferedWriter = new BufferedWriter(new FileWriter(absolutePath));
-			String contents = this.phoneBook.toString();
-			bufferedWriter.write(contents);
-			bufferedWriter.close();
-			System.out.println("\n**********************************************************");
-            System.out.println("\t\tPhoneBook successfully saved");
-            System.out.println("**********************************************************");
+			this.phoneBook.exportEntries(saveFile().toPath(), EntryFormat.CSV);
+			printNotice("\t\tPhoneBook successfully saved");
 		} catch (IOException e) {
 			System.out.println("Something went wrong saving PhoneBook...");
 		}
 	}
-	
+
+	/**
+	 * Starts saving this PhoneBook in the background, unless autosaving has been turned off, or a saved
+	 * PhoneBook exists that wasn't opened, since autosaving would replace it.
+	 * @param opened whether the saved PhoneBook was loaded.
+	 */
+	private void startAutoSave(boolean opened) {
+		if ((AUTOSAVE_SECONDS <= 0 && AUTOSAVE_CHANGES <= 0) || (!opened && savedPhoneBook().exists())) {
+			return;
+		}
+		autoSaver = new AutoSaver(phoneBook, saveFile().toPath(), EntryFormat.CSV,
+				Duration.ofSeconds(Math.max(AUTOSAVE_SECONDS, 0)), Math.max(AUTOSAVE_CHANGES, 0));
+	}
+
+	/**
+	 * Saves any changes that haven't been autosaved yet and stops autosaving, if it was on.
+	 */
+	private void stopAutoSave() {
+		if (autoSaver != null) {
+			try {
+				autoSaver.close();
+			} catch (IOException e) {
+				System.out.println("Something went wrong saving PhoneBook...");
+			}
+			autoSaver = null;
+		}
+	}
+
 	/**
 	 * The Main Menu for the PhoneBookClient/program.
 	 */
-	public void mainMenu() {
-		Scanner in = new Scanner(System.in);
-        System.out.println("\nPhoneBook Main Menu:");
-        System.out.println("Please review the menu options and enter your selection:");
-        System.out.println("Option 1:  Add a contact");
-        System.out.println("Option 2:  Remove a contact");
-        System.out.println("Option 3:  Update a contact");
-        System.out.println("Option 4:  Search contacts");
-        System.out.println("Option 5:  See all contacts");
-        System.out.println("Option 6:  Exit the PhoneBook");
-        System.out.printf("%nPlease enter the option number to continue: ");
-        try {
-            int selection = in.nextInt();
-            switch (selection) {
-                case 1 -> this.addContactMenu();
-                case 2 -> this.deleteContactMenu();
-                case 3 -> this.updateContactMenu();
-                case 4 -> this.searchContactsMenu();
-                case 5 -> this.printAllContacts();
-                default -> this.exit();
-            }
-        } catch (InputMismatchException e) {
-            System.out.println("\n**********************************************************");
-            System.out.println("Please enter a number corresponding to one of the options");
-            System.out.println("**********************************************************");
-            this.mainMenu();
-        }
-        in.close();
+	private Screen mainMenu() {
+		System.out.println("\nPhoneBook Main Menu:");
+		System.out.println("Please review the menu options and enter your selection:");
+		System.out.println("Option 1:  Add a contact");
+		System.out.println("Option 2:  Remove a contact");
+		System.out.println("Option 3:  Update a contact");
+		System.out.println("Option 4:  Search contacts");
+		System.out.println("Option 5:  See all contacts");
+		System.out.println("Option 6:  Find duplicate contacts");
+		System.out.println("Option 7:  Exit the PhoneBook");
+		System.out.printf("%nPlease enter the option number to continue: ");
+		try {
+			int selection = readOption();
+			return switch (selection) {
+				case 1 -> Screen.ADD_CONTACT_MENU;
+				case 2 -> Screen.DELETE_CONTACT_MENU;
+				case 3 -> Screen.UPDATE_CONTACT_MENU;
+				case 4 -> Screen.SEARCH_CONTACTS_MENU;
+				case 5 -> Screen.PRINT_ALL_CONTACTS;
+				case 6 -> Screen.PRINT_DUPLICATE_CONTACTS;
+				default -> Screen.EXIT;
+			};
+		} catch (InputMismatchException e) {
+			printNotice("Please enter a number corresponding to one of the options");
+			return Screen.MAIN_MENU;
+		}
 	}
-	
+
 	/**
 	 * A sub-menu of the Main Menu; this menu allows the user the option to add contacts to this
 	 * PhoneBook by (a) filling out each of the required fields individually to instantiate a Person; or
@@ -156,107 +339,86 @@ public class PhoneBookUI {
 	 * instantiating a Person at one time.  If the user navigated to this sub-menu by accident, an option
 	 * for returning to the Main Menu is also available.
 	 */
-	public void addContactMenu() {
-        Scanner in = new Scanner(System.in);
-        System.out.println("\nAdd a new contact:");
-        System.out.println("Please review the menu options and enter your selection");
-        System.out.println("Option 1:  Add contact by entry fields");
-        System.out.println("Option 2:  Add contact by full contact details");
-        System.out.println("Option 3:  Back to main menu");
-        System.out.print("\nPlease enter the option number to continue: ");
-        try {
-            int selection = in.nextInt();
-            switch (selection) {
-                case 1 -> this.addContactByFields();
-                case 2 -> this.addContactFullDetails();
-                default -> this.mainMenu();
-            }
-        } catch (InputMismatchException e) {
-            System.out.println("\n**********************************************************");
-            System.out.println("Please enter a number corresponding to one of the options");
-            System.out.println("**********************************************************");
-            this.addContactMenu();
-        }
-        in.close();
-    }
-	
+	private Screen addContactMenu() {
+		System.out.println("\nAdd a new contact:");
+		System.out.println("Please review the menu options and enter your selection");
+		System.out.println("Option 1:  Add contact by entry fields");
+		System.out.println("Option 2:  Add contact by full contact details");
+		System.out.println("Option 3:  Back to main menu");
+		System.out.print("\nPlease enter the option number to continue: ");
+		try {
+			int selection = readOption();
+			return switch (selection) {
+				case 1 -> Screen.ADD_CONTACT_BY_FIELDS;
+				case 2 -> Screen.ADD_CONTACT_FULL_DETAILS;
+				default -> Screen.MAIN_MENU;
+			};
+		} catch (InputMismatchException e) {
+			printNotice("Please enter a number corresponding to one of the options");
+			return Screen.ADD_CONTACT_MENU;
+		}
+	}
+
 	/**
 	 * One of two ways the user can add a contact to this PhoneBook.  Requires the user to enter all
 	 * fields individually in order to instantiate a Person before adding them to this PhoneBook.
 	 */
-	public void addContactByFields() {
-		Scanner in = new Scanner(System.in);
+	private Screen addContactByFields() {
 		System.out.println("\nAdd a new contact -> add contact by entry fields");
 		try {
 			// initialize variables for Person and Address instantiation
 			System.out.print("Enter the new contact's first name: ");
-			String firstName = in.nextLine().replace(',', '\u0000').strip();	// remove unwanted commas and whitespace
+			String firstName = readLine().replace(',', '\u0000').strip();	// remove unwanted commas and whitespace
 			System.out.print("\nEnter the new contact's middle name (if none, leave blank): ");
-			String middleName = in.nextLine().replace(',', '\u0000').strip();
+			String middleName = readLine().replace(',', '\u0000').strip();
 			System.out.print("\nEnter the new contact's last name: ");
-			String lastName = in.nextLine().replace(',', '\u0000').strip();
+			String lastName = readLine().replace(',', '\u0000').strip();
 			System.out.print("\nEnter the new contact's phone number\n"
 					+ "(0123456789 or (012)-345-6789): ");
-			String phoneNumber = in.nextLine().replace(',', '\u0000').strip();
+			String phoneNumber = readLine().replace(',', '\u0000').strip();
 			System.out.print("\nEnter the new contact's street address: ");
-			String streetAddress = in.nextLine().replace(',', '\u0000').strip();
+			String streetAddress = readLine().replace(',', '\u0000').strip();
 			System.out.print("\nEnter the new contact's city of residence: ");
-			String city = in.nextLine().replace(',', '\u0000').strip();
+			String city = readLine().replace(',', '\u0000').strip();
 			System.out.print("\nEnter the new contact's state: ");
-			String state = in.nextLine().replace(',', '\u0000').strip();
+			String state = readLine().replace(',', '\u0000').strip();
 			System.out.print("\nEnter the new contact's zip code: ");
-			String zipCode = in.nextLine().replace(',', '\u0000').strip();
+			String zipCode = readLine().replace(',', '\u0000').strip();
 			// instantiate Person and Address objects from variables above
 			Address a1 = new Address(streetAddress, city, state, zipCode);
 			Person p1 = new Person(firstName, middleName, lastName, phoneNumber, a1);
 			System.out.println("\nIs this correct:");
 			System.out.println(p1);
 			System.out.print("\nEnter 'Yes' if correct, or 'No' to start over: ");
-			String isCorrectPerson = in.nextLine();
-			if (isCorrectPerson.equalsIgnoreCase("yes") || isCorrectPerson.equalsIgnoreCase("y")) {
+			String isCorrectPerson = readLine();
+			if (isYes(isCorrectPerson)) {
 				// Search phoneBook to prevent duplicate entries
 				System.out.println("Searching for duplicate entries...");
 				String fullName = lastName + ", " + firstName + (middleName.isBlank() ? "" : " " + middleName);
 				Person[] duplicates = duplicateContactFinder(fullName, phoneNumber);
-				duplicateContactHandler(duplicates, p1);
+				return duplicateContactHandler(duplicates, p1);
 			} else {
-				this.addContactMenu();
+				return Screen.ADD_CONTACT_MENU;
 			}
 		} catch (InputMismatchException e1) {
-			System.out.println("\n**********************************************************");
-			System.out.println("Please enter only letters, parentheses, dashes, or numbers, as required.");
-			System.out.println("**********************************************************");
-			this.addContactMenu();
+			printNotice("Please enter only letters, parentheses, dashes, or numbers, as required.");
 		} catch (IllegalArgumentException e2) {
-			System.out.println("\n**********************************************************");
-			System.out.println("Please enter a value for each entry (exception for middle name).");
-			System.out.println("**********************************************************");
-			this.addContactMenu();
+			printNotice("Please enter a value for each entry (exception for middle name).");
 		} catch (InvalidPhoneNumberException e3) {
-			System.out.println("\n**********************************************************");
-			System.out.println("Please enter a valid phone number, formatted as shown in prompt.");
-			System.out.println("**********************************************************");
-			this.addContactMenu();
+			printNotice("Please enter a valid phone number, formatted as shown in prompt.");
 		} catch (InvalidStateException e4) {
-			System.out.println("\n**********************************************************");
-			System.out.println("Please enter a valid state (full name or two-letter abbrviation).");
-			System.out.println("**********************************************************");
-			this.addContactMenu();
+			printNotice("Please enter a valid state (full name or two-letter abbrviation).");
 		} catch (InvalidZipCodeException e5) {
-			System.out.println("\n**********************************************************");
-			System.out.println("Please enter a valid 5-digit zip code.");
-			System.out.println("**********************************************************");
-			this.addContactMenu();
+			printNotice("Please enter a valid 5-digit zip code.");
 		}
-		in.close();
+		return Screen.ADD_CONTACT_MENU;
 	}
-	
+
 	/**
 	 * The alternative option for entering a new contact into this PhoneBook.  The user must provide all
 	 * of the information required to instantiate a Person object in one entry field.
 	 */
-	public void addContactFullDetails() {
-		Scanner in = new Scanner(System.in);
+	private Screen addContactFullDetails() {
 		System.out.println("\nAdd New Contact -> Add Contact by Full Contact Details");
 		System.out.println("Please enter contact information as follows:");
 		System.out.println("'FirstName MiddleName LastName, Street Address, City, State, Zip Code, "
@@ -265,7 +427,7 @@ public class PhoneBookUI {
 		System.out.println("(to return to the Add Contact menu, leave blank and hit 'Enter')");
 		System.out.print("\nEnter Contact Details: ");
 		try {
-			String newContact = in.nextLine();
+			String newContact = readLine();
 			if (!newContact.isBlank()) {
 				String[] temp = newContact.split(", ");
 				if (temp.length != 6) {						// ensure formatting is correct
@@ -285,44 +447,24 @@ public class PhoneBookUI {
 				Person p1 = new Person(fullName, phoneNumber, a1);
 				// Search for duplicate entries in this PhoneBook
 				Person[] duplicates = duplicateContactFinder(fullName, phoneNumber);
-				duplicateContactHandler(duplicates, p1);
-			} else {
-				this.addContactMenu();
+				return duplicateContactHandler(duplicates, p1);
 			}
 		} catch (InputMismatchException e1) {
-			System.out.println("\n**********************************************************");
-			System.out.println("Please enter only letters, parentheses, dashes, or numbers, as required.");
-			System.out.println("**********************************************************");
-			this.addContactMenu();
+			printNotice("Please enter only letters, parentheses, dashes, or numbers, as required.");
 		} catch (IllegalArgumentException e2) {
-			System.out.println("\n**********************************************************");
-			System.out.println("Please enter a value for each entry (exception for middle name).");
-			System.out.println("**********************************************************");
-			this.addContactMenu();
+			printNotice("Please enter a value for each entry (exception for middle name).");
 		} catch (InvalidPhoneNumberException e3) {
-			System.out.println("\n**********************************************************");
-			System.out.println("Please enter a valid phone number, formatted as shown in prompt.");
-			System.out.println("**********************************************************");
-			this.addContactMenu();
+			printNotice("Please enter a valid phone number, formatted as shown in prompt.");
 		} catch (InvalidStateException e4) {
-			System.out.println("\n**********************************************************");
-			System.out.println("Please enter a valid state (full name or two-letter abbrviation).");
-			System.out.println("**********************************************************");
-			this.addContactMenu();
+			printNotice("Please enter a valid state (full name or two-letter abbrviation).");
 		} catch (InvalidZipCodeException e5) {
-			System.out.println("\n**********************************************************");
-			System.out.println("Please enter a valid 5-digit zip code.");
-			System.out.println("**********************************************************");
-			this.addContactMenu();
+			printNotice("Please enter a valid 5-digit zip code.");
 		} catch (IndexOutOfBoundsException e6) {
-			System.out.println("\n**********************************************************");
-			System.out.println("Please enter only letters, parentheses, dashes, or numbers, as required.");
-			System.out.println("**********************************************************");
-			this.addContactMenu();
+			printNotice("Please enter only letters, parentheses, dashes, or numbers, as required.");
 		}
-		in.close();
+		return Screen.ADD_CONTACT_MENU;
 	}
-	
+
 	/**
 	 * Helper function either of the two add entry options.  This function helps to prevent duplicate
 	 * entries by searching this PhoneBook for a match based on the full name of the prospective new
@@ -334,28 +476,28 @@ public class PhoneBookUI {
 	 */
 	private Person[] duplicateContactFinder(String fullName, String phoneNumber) {
 		Person[] result = new Person[2];
-        try {
-            Person nameMatch = phoneBook.searchByFullName(fullName);
-            result[0] = nameMatch;
-        } catch (ArrayIndexOutOfBoundsException e) {
-            System.out.println("No matching entries by full name");
-        }
-        try {
-            Person numberMatch = phoneBook.searchByPhoneNumber(phoneNumber);
-            result[1] = numberMatch;
-        } catch (ArrayIndexOutOfBoundsException e) {
-            System.out.println("No matching entries by phone number");
-        }
-        if (result[0] == null && result[1] == null) {
-            return null;
-        } else if (result[0] == result[1]) {
-            result[0] = null;
-            return result;
-        } else {
-            return result;
-        }
+		try {
+			Person nameMatch = phoneBook.searchByFullName(fullName);
+			result[0] = nameMatch;
+		} catch (ArrayIndexOutOfBoundsException e) {
+			System.out.println("No matching entries by full name");
+		}
+		try {
+			Person numberMatch = phoneBook.searchByPhoneNumber(phoneNumber);
+			result[1] = numberMatch;
+		} catch (ArrayIndexOutOfBoundsException e) {
+			System.out.println("No matching entries by phone number");
+		}
+		if (result[0] == null && result[1] == null) {
+			return null;
+		} else if (result[0] == result[1]) {
+			result[0] = null;
+			return result;
+		} else {
+			return result;
+		}
 	}
-	
+
 	/**
 	 * This helper function receives the return result from the helper function {@code duplicateContactFinder()},
 	 * then the user has the option to overwrite any current entry that is a match, or add the new contact despite
@@ -365,9 +507,9 @@ public class PhoneBookUI {
 	 * @param duplicates an array of {@code Person} objects that are the result of the helper function
 	 * {@code duplicateContactFinder()}.
 	 * @param newPerson the prospective new contact to be added to this PhoneBook.
+	 * @return the Add Contact menu if the user wants to add another contact, otherwise the Main Menu.
 	 */
-	private void duplicateContactHandler(Person[] duplicates, Person newPerson) {
-		Scanner in = new Scanner(System.in);
+	private Screen duplicateContactHandler(Person[] duplicates, Person newPerson) {
 		if (duplicates != null) {
 			System.out.println("\nIt looks like there might already ba a contact(s) in this PhoneBook that"
 					+ "match your entry: ");
@@ -379,972 +521,731 @@ public class PhoneBookUI {
 			System.out.print("\nWould you like to overwrite an entry?\nEnter 'Yes' to overwrite or 'No'"
 					+ " to discard changes: ");
 			try {
-				String response = in.nextLine();
-				if (response.equalsIgnoreCase("yes") || response.equalsIgnoreCase("y")) {
+				String response = readLine();
+				if (isYes(response)) {
 					System.out.print("\nEnter the option number next to the contact above to overwrite: ");
-					int deleteContact = in.nextInt();
+					int deleteContact = readOption();
 					overwritePerson(newPerson, duplicates[deleteContact]);
 				}
-			} catch (InputMismatchException e) {
-				System.out.println("\n**********************************************************");
-				System.out.println("Please enter a valid response following the prompt.");
-				System.out.println("**********************************************************");
+			} catch (InputMismatchException | ArrayIndexOutOfBoundsException e) {
+				printNotice("Please enter a valid response following the prompt.");
 			}
 		} else {
 			System.out.println("\n**********************************************************");
-            phoneBook.addEntry(newPerson);
-            System.out.println("**********************************************************");
-		}
-		try {
-			System.out.println("\nAdd another contact?  Enter 'Yes' to add a new contact, or 'No' to return to the main menu: ");
-			String doAgain = in.nextLine();
-	        if (doAgain.equalsIgnoreCase("yes") || doAgain.equalsIgnoreCase("y")) {
-	            this.addContactMenu();
-	        } else {
-	            this.mainMenu();
-	        }
-		} catch (InputMismatchException e) {
-			System.out.println("\n**********************************************************");
-            phoneBook.addEntry(newPerson);
-            System.out.println("**********************************************************");
+			phoneBook.addEntry(newPerson);
+			System.out.println("**********************************************************");
 		}
-		in.close();
+		System.out.println("\nAdd another contact?  Enter 'Yes' to add a new contact, or 'No' to return to the main menu: ");
+		String doAgain = readLine();
+		return (isYes(doAgain) ? Screen.ADD_CONTACT_MENU : Screen.MAIN_MENU);
 	}
-	
+
 	/**
 	 * Small helper function for "overwriting" a duplicate contact with a more current/up-to-date contact.
+	 * The new contact takes over the old contact's entry ID.
 	 * @param newPerson the new contact to be added to this PhoneBook.
 	 * @param oldPerson the old/duplicate contact to be removed from this PhoneBook.
 	 */
 	private void overwritePerson(Person newPerson, Person oldPerson) {
-		phoneBook.deleteEntry(oldPerson);
-		phoneBook.addEntry(newPerson);
+		if (phoneBook.replaceById(oldPerson.getId(), newPerson)) {
+			System.out.printf("%nEntry '%s' successfully overwritten by '%s'%n", oldPerson.getFullName(),
+					newPerson.getFullName());
+		} else {
+			System.out.println("No such entry in this PhoneBook");
+		}
 	}
-	
+
 	/**
 	 * A sub-menu of the Main Menu; this menu allows the user to decide if they'd like to delete a current
 	 * entry/contact in this PhoneBook based on either the contact's name or phone number.  If the user
 	 * navigated to this sub-menu on accident, there is an option to return to the Main Menu.
 	 */
-	public void deleteContactMenu() {
-        Scanner in = new Scanner(System.in);
-        System.out.println("\nDelete Contact:");
-        System.out.println("Please review the menu options and enter your selection:");
-        System.out.println("Option 1:  Delete contact by phone number");
-        System.out.println("Option 2:  Delete contact by name");
-        System.out.println("Option 3:  Return to main menu");
-        System.out.print("\nPlease enter the option number to continue: ");
-        try {
-            int selection = in.nextInt();
-            switch (selection) {
-                case 1 -> this.deleteContactByPhoneNumber();
-                case 2 -> this.deleteContactByNameMenu();
-                default -> this.mainMenu();
-            }
-        } catch (InputMismatchException e) {
-            System.out.println("\n**********************************************************");
-            System.out.println("Please enter a number corresponding to one of the options");
-            System.out.println("**********************************************************");
-            this.deleteContactMenu();
-        } 
-        in.close();
-    }
-	
+	private Screen deleteContactMenu() {
+		System.out.println("\nDelete Contact:");
+		System.out.println("Please review the menu options and enter your selection:");
+		System.out.println("Option 1:  Delete contact by phone number");
+		System.out.println("Option 2:  Delete contact by name");
+		System.out.println("Option 3:  Return to main menu");
+		System.out.print("\nPlease enter the option number to continue: ");
+		try {
+			int selection = readOption();
+			return switch (selection) {
+				case 1 -> Screen.DELETE_CONTACT_BY_PHONE_NUMBER;
+				case 2 -> Screen.DELETE_CONTACT_BY_NAME_MENU;
+				default -> Screen.MAIN_MENU;
+			};
+		} catch (InputMismatchException e) {
+			printNotice("Please enter a number corresponding to one of the options");
+			return Screen.DELETE_CONTACT_MENU;
+		}
+	}
+
 	/**
 	 * Searches this PhoneBook for an entry that matches the 10-digit phone number entered by the user.
 	 * If a match is found, the user can delete the contact.  If no match is found, the user is notified,
 	 * and they are returned to the Delete Contact sub-menu.
 	 */
-	private void deleteContactByPhoneNumber() {
-		Scanner in = new Scanner(System.in);
-        System.out.println("\nDelete Contact -> Delete Contact by Phone Number");
-        System.out.print("\nPlease enter the 10-digit phone number of the contact\n" +
-                "you would like to delete (e.g., 0123456789 or (012)-345-6789): ");
-        try {
-        	String phoneNumber = in.nextLine();
-        	phoneNumber = Person.phoneNumberFormatter(phoneNumber);
-        	Person match = phoneBook.searchByPhoneNumber(phoneNumber);
-        	deleteContactHandler(match);
-        } catch (InputMismatchException e) {
-        	System.out.println("\n**********************************************************");
-			System.out.println("Please enter only parentheses, dashes, or numbers, as required.");
-			System.out.println("**********************************************************");
-			this.deleteContactMenu();
-        } catch (InvalidPhoneNumberException e3) {
-			System.out.println("\n**********************************************************");
-			System.out.println("Please enter a valid phone number, formatted as shown in prompt.");
-			System.out.println("**********************************************************");
-			this.deleteContactMenu();
+	private Screen deleteContactByPhoneNumber() {
+		System.out.println("\nDelete Contact -> Delete Contact by Phone Number");
+		System.out.print("\nPlease enter the 10-digit phone number of the contact\n" +
+				"you would like to delete (e.g., 0123456789 or (012)-345-6789): ");
+		try {
+			String phoneNumber = readLine();
+			phoneNumber = Person.phoneNumberFormatter(phoneNumber);
+			Person match = phoneBook.searchByPhoneNumber(phoneNumber);
+			return deleteContactHandler(match);
+		} catch (InputMismatchException e) {
+			printNotice("Please enter only parentheses, dashes, or numbers, as required.");
+		} catch (InvalidPhoneNumberException e3) {
+			printNotice("Please enter a valid phone number, formatted as shown in prompt.");
 		}
-        in.close();
+		return Screen.DELETE_CONTACT_MENU;
 	}
-	
+
 	/**
-	 * A sub-menu of the Delete contact sub-menu.  The user is given the option to search for the 
+	 * A sub-menu of the Delete contact sub-menu.  The user is given the option to search for the
 	 * contact's full name by entering each field individually, or by entering the contact's full name.
 	 * If the user navigated to this sub-menu accidentally, the user can choose to navigate back to the
 	 * Main Menu.
 	 */
-	private void deleteContactByNameMenu() {
-		Scanner in = new Scanner(System.in);
+	private Screen deleteContactByNameMenu() {
 		System.out.println("\nDelete a Contact -> Delete Contact by Name");
-        System.out.println("Please review the menu options and enter your selection:");
-        System.out.println("Option 1:  Enter each name field individually");
-        System.out.println("Option 2:  Enter full name");
-        System.out.println("Option 3:  Return to Main Menu");
-        System.out.print("\nPlease enter the option number to continue: ");
-        try {
-            int selection = in.nextInt();
-            switch (selection) {
-                case 1 -> this.deleteContactNameFields();
-                case 2 -> this.deleteContactByFullName();
-                default -> this.mainMenu();
-            }
-        } catch (InputMismatchException e) {		// incorrect input type
-            System.out.println("\n**********************************************************");
-            System.out.println("Please enter a number corresponding to one of the options");
-            System.out.println("**********************************************************");
-            this.addContactMenu();
-        }
-        in.close();
+		System.out.println("Please review the menu options and enter your selection:");
+		System.out.println("Option 1:  Enter each name field individually");
+		System.out.println("Option 2:  Enter full name");
+		System.out.println("Option 3:  Return to Main Menu");
+		System.out.print("\nPlease enter the option number to continue: ");
+		try {
+			int selection = readOption();
+			return switch (selection) {
+				case 1 -> Screen.DELETE_CONTACT_NAME_FIELDS;
+				case 2 -> Screen.DELETE_CONTACT_BY_FULL_NAME;
+				default -> Screen.MAIN_MENU;
+			};
+		} catch (InputMismatchException e) {		// incorrect input type
+			printNotice("Please enter a number corresponding to one of the options");
+			return Screen.ADD_CONTACT_MENU;
+		}
 	}
-	
+
 	/**
 	 * One of the two options for deleting a current contact by name.  This function requires the user to
 	 * enter each of the name fields of the contact to be deleted from this PhoneBook in order to search
 	 * this PhoneBook for a match.
 	 */
-	private void deleteContactNameFields() {
-		Scanner in = new Scanner(System.in);
+	private Screen deleteContactNameFields() {
 		System.out.println("\nDelete Contact -> Delete Contact by Name -> Enter Fields Individually");
 		System.out.print("\nEnter the Person's first name: ");
 		try {
-			String firstName = in.nextLine().replace(',', '\u0000').strip();
+			String firstName = readLine().replace(',', '\u0000').strip();
 			System.out.print("\nEnter the Person's middle name (leave blank and\n"
 					+ "hit 'Enter' if no middle name): ");
-			String middleName = in.nextLine().replace(',', '\u0000').strip();
+			String middleName = readLine().replace(',', '\u0000').strip();
 			System.out.print("Enter the Person's last name: ");
-			String lastName = in.nextLine().replace(',', '\u0000').strip();
+			String lastName = readLine().replace(',', '\u0000').strip();
 			if (firstName.isBlank() || lastName.isBlank()) {	// incorrect/empty input
 				throw new IllegalArgumentException();
 			} else {
-				String fullName = Person.titleCase(lastName) + ", " + Person.titleCase(lastName) + 
+				String fullName = Person.titleCase(lastName) + ", " + Person.titleCase(lastName) +
 						(middleName.isBlank() ? "" : " " + Person.titleCase(middleName));
 				Person match = phoneBook.searchByFullName(fullName);
-				deleteContactHandler(match);
+				return deleteContactHandler(match);
 			}
 		} catch (InputMismatchException e1) {		// incorrect input type
-			System.out.println("\n**********************************************************");
-			System.out.println("Please enter a valid response following the prompts.");
-			System.out.println("**********************************************************");
-			this.deleteContactMenu();
+			printNotice("Please enter a valid response following the prompts.");
 		} catch (IllegalArgumentException e2) {		// empty input
-			System.out.println("\n**********************************************************");
-			System.out.println("Please enter a valid response following the prompts.");
-			System.out.println("**********************************************************");
-			this.deleteContactMenu();
+			printNotice("Please enter a valid response following the prompts.");
 		}
-		in.close();
+		return Screen.DELETE_CONTACT_MENU;
 	}
-	
+
 	/**
 	 * The alternative name option for deleting a contact from this PhoneBook.  The user must enter the
 	 * contact's full name in order to search this PhoneBook for the contact prior to deletion.
 	 */
-	private void deleteContactByFullName() {
-		Scanner in = new Scanner(System.in);
+	private Screen deleteContactByFullName() {
 		System.out.println("\nDelete Contact -> Delete Contact by Name -> Delete by Full Name");
 		System.out.println("Please enter the full name of the contact you'd like to delete.");
 		System.out.println("Example: 'John Robert Doe'");
 		System.out.print("\nEnter contact's full name: ");
 		try {
-			String fullName = in.nextLine().replace(',', '\u0000').strip();	// remove unwanted commas and whitespace
+			String fullName = readLine().replace(',', '\u0000').strip();	// remove unwanted commas and whitespace
 			if (fullName.isBlank()) {
 				throw new IllegalArgumentException();
 			} else {
 				fullName = Person.parseName(fullName);
 				Person match = phoneBook.searchByFullName(fullName);
-				deleteContactHandler(match);
+				return deleteContactHandler(match);
 			}
 		} catch (InputMismatchException e1) {		// incorrect input type
-			System.out.println("\n**********************************************************");
-			System.out.println("Please enter a valid response following the prompts.");
-			System.out.println("**********************************************************");
-			this.deleteContactMenu();
+			printNotice("Please enter a valid response following the prompts.");
 		} catch (IllegalArgumentException e2) {		// empty input
-			System.out.println("\n**********************************************************");
-			System.out.println("Please enter a valid response following the prompts.");
-			System.out.println("**********************************************************");
-			this.deleteContactMenu();
+			printNotice("Please enter a valid response following the prompts.");
 		}
-		in.close();
+		return Screen.DELETE_CONTACT_MENU;
 	}
-	
+
 	/**
 	 * Helper function for handling entries that are to be deleted from this PhoneBook.  The user must
 	 * enter the word "delete" to ensure they are aware that they are deleting a contact from this
 	 * PhoneBook permanently.
 	 * @param match
+	 * @return the screen chosen by the user once the deletion is confirmed or cancelled.
 	 */
-	private void deleteContactHandler(Person match) {
-		Scanner in = new Scanner(System.in);
+	private Screen deleteContactHandler(Person match) {
 		if (match == null) {
 			System.out.println("\nThere are no matching entries with that name.");
 			System.out.println("Would you like to try again with different contact info?");
 			System.out.println("Enter 'Yes' to try again, or 'No' to return to main menu.");
 			System.out.print("\nTry again? ");
-			try {
-				String tryAgain = in.nextLine();
-				if (tryAgain.equalsIgnoreCase("yes") || tryAgain.equalsIgnoreCase("y")) {
-					this.deleteContactMenu();
-				} else {
-					this.mainMenu();
-				}
-			} catch (InputMismatchException e) {
-				System.out.println("\n**********************************************************");
-				System.out.println("Please enter a valid response following the prompt.");
-				System.out.println("**********************************************************");
-				this.deleteContactMenu();
-			}
-		} else {
-			System.out.println("\nA matching entry was found.");
-			System.out.println("Would you like to delete the entry below?");
-			System.out.println(match);
-			System.out.println("\nTo delete the above entry type 'Delete', otherwise hit 'Enter'");
-			System.out.print("to return to the main menu: ");
-			try {
-				String confirmDelete = in.nextLine();
-				if (confirmDelete.equalsIgnoreCase("delete")) {
-					System.out.println("\n**********************************************************");
-	                phoneBook.deleteEntry(match);
-	                System.out.println("**********************************************************");
-	                deleteAgainOrNotHandler();
-				} else {
-					this.mainMenu();
-				}
-			} catch (InputMismatchException e) {
-				System.out.println("\n**********************************************************");
-				System.out.println("Please enter a valid response following the prompt.");
-				System.out.println("**********************************************************");
-				this.deleteContactMenu();
-			}
+			String tryAgain = readLine();
+			return (isYes(tryAgain) ? Screen.DELETE_CONTACT_MENU : Screen.MAIN_MENU);
 		}
-		in.close();
+		System.out.println("\nA matching entry was found.");
+		System.out.println("Would you like to delete the entry below?");
+		System.out.println(match);
+		System.out.println("\nTo delete the above entry type 'Delete', otherwise hit 'Enter'");
+		System.out.print("to return to the main menu: ");
+		String confirmDelete = readLine();
+		if (confirmDelete.equalsIgnoreCase("delete")) {
+			System.out.println("\n**********************************************************");
+			phoneBook.deleteEntry(match);
+			System.out.println("**********************************************************");
+			return deleteAgainOrNotHandler();
+		}
+		return Screen.MAIN_MENU;
 	}
-	
+
 	/**
 	 * A helper function that asks the user if they would like to delete another entry from this
 	 * PhoneBook.
 	 */
-	private void deleteAgainOrNotHandler() {
-		Scanner in = new Scanner(System.in);
+	private Screen deleteAgainOrNotHandler() {
 		System.out.println("\nWould you like to delete another entry?");
 		System.out.print("\nEnter 'Yes' to return to Delete Contact Menu or 'No'\n"
 				+ "to return to the Main Menu: ");
-		try {
-            String response = in.nextLine();
-            if (response.equalsIgnoreCase("yes") || response.equalsIgnoreCase("y")) {
-                this.deleteContactMenu();
-            } else {
-                this.mainMenu();
-            }
-        } catch (InputMismatchException e) {
-        	System.out.println("\n**********************************************************");
-			System.out.println("Please enter a valid response following the prompt.");
-			System.out.println("**********************************************************");
-			this.mainMenu();
-        }
-		in.close();
+		String response = readLine();
+		return (isYes(response) ? Screen.DELETE_CONTACT_MENU : Screen.MAIN_MENU);
 	}
-	
+
 	/**
 	 * A sub-menu of the Main Menu.  This menu allows the user to choose whether or not they would like
 	 * to update a current contact in this PhoneBook by the contact's name or by their phone number. If
 	 * the user had navigated to this sub-menu by accident, they have the option to return to the Main
 	 * Menu.
 	 */
-	public void updateContactMenu() {
-		Scanner in = new Scanner(System.in);
+	private Screen updateContactMenu() {
 		System.out.println("\nUpdate Contact Menu:");
-        System.out.println("Please review the menu options and enter your selection:");
-        System.out.println("Option 1:  Update contact by full name");
-        System.out.println("Option 2:  Update contact by phone number");
-        System.out.println("Option 3:  Return to main menu");
-        System.out.print("\nPlease enter the option number to continue: ");
-        try {
-            int selection = in.nextInt();
-            switch (selection) {
-                case 1 -> this.updateContactByFullName();
-                case 2 -> this.updateContactByPhone();
-                default -> this.mainMenu();
-            }
-        } catch (InputMismatchException e) {
-            System.out.println("\n**********************************************************");
-            System.out.println("Please enter a number corresponding to one of the options");
-            System.out.println("**********************************************************");
-            this.updateContactMenu();
-        }
+		System.out.println("Please review the menu options and enter your selection:");
+		System.out.println("Option 1:  Update contact by full name");
+		System.out.println("Option 2:  Update contact by phone number");
+		System.out.println("Option 3:  Return to main menu");
+		System.out.print("\nPlease enter the option number to continue: ");
+		try {
+			int selection = readOption();
+			return switch (selection) {
+				case 1 -> Screen.UPDATE_CONTACT_BY_FULL_NAME;
+				case 2 -> Screen.UPDATE_CONTACT_BY_PHONE;
+				default -> Screen.MAIN_MENU;
+			};
+		} catch (InputMismatchException e) {
+			printNotice("Please enter a number corresponding to one of the options");
+			return Screen.UPDATE_CONTACT_MENU;
+		}
 	}
-	
-	private void updateContactByFullName() {
-		Scanner in = new Scanner(System.in);
+
+	private Screen updateContactByFullName() {
 		System.out.println("\nUpdate Contact -> Update Contact by Full Name");
-        System.out.println("Please enter the full name of the contact you'd like to update:");
-        System.out.println("Example:  'John Smith Doe'");
-        System.out.print("\nContact's Full Name: ");
-        try {
-        	String fullName = in.nextLine().replace(',', '\u0000').strip();
-        	if (fullName.isBlank()) {
-        		throw new IllegalArgumentException();
-        	} else {
-        		fullName = Person.parseName(fullName);
-        		Person match = phoneBook.searchByFullName(fullName);
-        		updateContactHandler(match);
-        	}
-        } catch (Exception e) {
-        	System.out.println("\n**********************************************************");
-			System.out.println("Please enter a valid response following the prompt.");
-			System.out.println("**********************************************************");
-			this.updateContactMenu();
-        } 
-        in.close();
+		System.out.println("Please enter the full name of the contact you'd like to update:");
+		System.out.println("Example:  'John Smith Doe'");
+		System.out.print("\nContact's Full Name: ");
+		String fullName = readLine().replace(',', '\u0000').strip();
+		try {
+			if (fullName.isBlank()) {
+				throw new IllegalArgumentException();
+			}
+			fullName = Person.parseName(fullName);
+			Person match = phoneBook.searchByFullName(fullName);
+			return updateContactHandler(match);
+		} catch (NoSuchElementException e) {
+			throw e;
+		} catch (Exception e) {
+			printNotice("Please enter a valid response following the prompt.");
+			return Screen.UPDATE_CONTACT_MENU;
+		}
 	}
-	
-	private void updateContactByPhone() {
-        Scanner in = new Scanner(System.in);
-        System.out.println("\nUpdate Contact -> Update by Phone Number");
-        System.out.print("\nEnter the 10-digit phone number of the contact you'd like to update\n" +
-                "(Example: '9706881234' or '(970)-688-1234'): ");
-        try {
-            String phoneNumber = in.nextLine();
-            phoneNumber = Person.phoneNumberFormatter(phoneNumber);		// ensures number formatted correctly
-            Person match = phoneBook.searchByPhoneNumber(phoneNumber);
-            updateContactHandler(match);
-        } catch (InputMismatchException e) {
-        	System.out.println("\n**********************************************************");
-			System.out.println("Please enter only parentheses, dashes, or numbers, as required.");
-			System.out.println("**********************************************************");
-			this.updateContactByPhone();
-        } catch (InvalidPhoneNumberException e1) {
-        	System.out.println("\n**********************************************************");
-			System.out.println("Please enter a valid phone number, formatted as shown in prompt.");
-			System.out.println("**********************************************************");
-			this.updateContactByPhone();
-        }
-        in.close();
-    }
-	
-	private void updateContactHandler(Person match) {
-		Scanner in = new Scanner(System.in);
+
+	private Screen updateContactByPhone() {
+		System.out.println("\nUpdate Contact -> Update by Phone Number");
+		System.out.print("\nEnter the 10-digit phone number of the contact you'd like to update\n" +
+				"(Example: '9706881234' or '(970)-688-1234'): ");
+		try {
+			String phoneNumber = readLine();
+			phoneNumber = Person.phoneNumberFormatter(phoneNumber);		// ensures number formatted correctly
+			Person match = phoneBook.searchByPhoneNumber(phoneNumber);
+			return updateContactHandler(match);
+		} catch (InputMismatchException e) {
+			printNotice("Please enter only parentheses, dashes, or numbers, as required.");
+		} catch (InvalidPhoneNumberException e1) {
+			printNotice("Please enter a valid phone number, formatted as shown in prompt.");
+		}
+		return Screen.UPDATE_CONTACT_BY_PHONE;
+	}
+
+	private Screen updateContactHandler(Person match) {
 		if (match == null) {
-            System.out.printf("%nThere are no matching entries with that name%n");
-            System.out.println("Would you like to try again with a different name?");
-            System.out.print("\nEnter 'Yes' to try again, or 'No' to return to the main menu: ");
-            try {
-                String response = in.nextLine();
-                if (response.equalsIgnoreCase("yes") || response.equalsIgnoreCase("y")) {
-                    this.updateContactMenu();
-                } else {
-                    this.mainMenu();
-                }
-            } catch (InputMismatchException e) {
-            	System.out.println("\n**********************************************************");
-    			System.out.println("Please enter a valid response following the prompt.");
-    			System.out.println("**********************************************************");
-                this.updateContactMenu();
-            }
-        } else {
-            System.out.println("\nA matching entry was found:");
-            System.out.println(match);
-            System.out.println("\nWould you like to update the contact above?");
-            System.out.print("\nEnter 'Yes' to update or 'No' to return to the main menu: ");
-            try {
-                String response2 = in.nextLine();
-                if (response2.equalsIgnoreCase("yes") || response2.equalsIgnoreCase("y")) {
-                    this.updateContactDetailsMenu(match);
-                } else {
-                    this.mainMenu();
-                }
-            } catch (InputMismatchException ex) {
-            	System.out.println("\n**********************************************************");
-    			System.out.println("Please enter a valid response following the prompt.");
-    			System.out.println("**********************************************************");
-                this.updateContactMenu();
-            }
-        }
-		in.close();
+			System.out.printf("%nThere are no matching entries with that name%n");
+			System.out.println("Would you like to try again with a different name?");
+			System.out.print("\nEnter 'Yes' to try again, or 'No' to return to the main menu: ");
+			String response = readLine();
+			return (isYes(response) ? Screen.UPDATE_CONTACT_MENU : Screen.MAIN_MENU);
+		}
+		System.out.println("\nA matching entry was found:");
+		System.out.println(match);
+		System.out.println("\nWould you like to update the contact above?");
+		System.out.print("\nEnter 'Yes' to update or 'No' to return to the main menu: ");
+		String response2 = readLine();
+		if (isYes(response2)) {
+			selected = match;
+			return Screen.UPDATE_CONTACT_DETAILS_MENU;
+		}
+		return Screen.MAIN_MENU;
 	}
-	
-	private void updateContactDetailsMenu(Person match) {
-		Scanner in = new Scanner(System.in);
-        System.out.println("\nUpdate Contact -> Update Contact Details Menu");
-        System.out.println("Please review the menu options and enter your selection");
-        System.out.println("Option 1:  Update contact name");
-        System.out.println("Option 2:  Update contact address");
-        System.out.println("Option 3:  Update contact phone number");
-        System.out.println("Option 4:  Return to main menu");
-        System.out.print("\nPlease enter the option number to continue: ");
-        try {
-            int selection = in.nextInt();
-            switch (selection) {
-                case 1 -> this.updateContactName(match);
-                case 2 -> this.updateContactAddress(match);
-                case 3 -> this.updateContactPhone(match);
-                default -> this.mainMenu();
-            }
-        } catch (InputMismatchException e) {
-            System.out.println("\n**********************************************************");
-            System.out.println("Please enter a number corresponding to one of the options");
-            System.out.println("**********************************************************");
-            this.updateContactDetailsMenu(match);
-        }
-        in.close();
+
+	private Screen updateContactDetailsMenu() {
+		System.out.println("\nUpdate Contact -> Update Contact Details Menu");
+		System.out.println("Please review the menu options and enter your selection");
+		System.out.println("Option 1:  Update contact name");
+		System.out.println("Option 2:  Update contact address");
+		System.out.println("Option 3:  Update contact phone number");
+		System.out.println("Option 4:  Return to main menu");
+		System.out.print("\nPlease enter the option number to continue: ");
+		try {
+			int selection = readOption();
+			return switch (selection) {
+				case 1 -> Screen.UPDATE_CONTACT_NAME;
+				case 2 -> Screen.UPDATE_CONTACT_ADDRESS;
+				case 3 -> Screen.UPDATE_CONTACT_PHONE;
+				default -> this.doneUpdating();
+			};
+		} catch (InputMismatchException e) {
+			printNotice("Please enter a number corresponding to one of the options");
+			return Screen.UPDATE_CONTACT_DETAILS_MENU;
+		}
 	}
-	
-	private void updateContactName(Person match) {
-		Scanner in = new Scanner(System.in);
+
+	/**
+	 * Helper function that forgets the contact chosen for updating, and returns to the Main Menu.
+	 */
+	private Screen doneUpdating() {
+		selected = null;
+		return Screen.MAIN_MENU;
+	}
+
+	private Screen updateContactName() {
 		System.out.println("\nUpdate Contact -> Update Contact Details Menu -> Update Name");
-        System.out.println("Please follow the prompts below");
-        System.out.print("\nPlease enter the contact's first name: ");
-        try {
-        	String firstName = in.nextLine().replace(',', '\u0000').strip();
-        	System.out.print("\nPlease enter the contact's middle name (or leave blank and\n"
-        			+ "hit 'Enter' if none): ");
-        	String middleName = in.nextLine().replace(',', '\u0000').strip();
-        	System.out.print("\nPlease enter the contact's last name: ");
-        	String lastName = in.nextLine().replace(',', '\u0000').strip();
-        	if (firstName.isBlank() || lastName.isBlank()) {
-        		throw new IllegalArgumentException();
-        	}
-        	String fullName = Person.titleCase(lastName) + ", " + Person.titleCase(firstName) + 
-        			(middleName.isBlank() ? "" : " " + Person.titleCase(middleName));
-        	System.out.println("\nIs the name below correct?");
-        	System.out.println(fullName);
-        	System.out.print("\nEnter 'Yes' if correct or 'No' to try again. ");
-        	String isCorrect = in.nextLine().strip();
-        	if (isCorrect.equalsIgnoreCase("yes") || isCorrect.equalsIgnoreCase("y")) {
-        		System.out.println("\n**********************************************************");
-                match.setFullName(fullName);
-                System.out.println("Name update completed successfully");
-                System.out.println("**********************************************************");
-                this.mainMenu();
-        	} else {
-        		this.updateContactName(match);
-        	}
-        } catch (InputMismatchException e) {
-        	System.out.println("\n**********************************************************");
-			System.out.println("Please enter a valid response following the prompt.");
-			System.out.println("**********************************************************");
-			this.updateContactName(match);
-        } catch (IllegalArgumentException e1) {
-        	System.out.println("\n**********************************************************");
-			System.out.println("Please enter a value for each entry (exception for middle name).");
-			System.out.println("**********************************************************");
-			this.updateContactName(match);
-        }
-        in.close();
+		System.out.println("Please follow the prompts below");
+		System.out.print("\nPlease enter the contact's first name: ");
+		try {
+			String firstName = readLine().replace(',', '\u0000').strip();
+			System.out.print("\nPlease enter the contact's middle name (or leave blank and\n"
+					+ "hit 'Enter' if none): ");
+			String middleName = readLine().replace(',', '\u0000').strip();
+			System.out.print("\nPlease enter the contact's last name: ");
+			String lastName = readLine().replace(',', '\u0000').strip();
+			if (firstName.isBlank() || lastName.isBlank()) {
+				throw new IllegalArgumentException();
+			}
+			String fullName = Person.titleCase(lastName) + ", " + Person.titleCase(firstName) +
+					(middleName.isBlank() ? "" : " " + Person.titleCase(middleName));
+			System.out.println("\nIs the name below correct?");
+			System.out.println(fullName);
+			System.out.print("\nEnter 'Yes' if correct or 'No' to try again. ");
+			String isCorrect = readLine().strip();
+			if (isYes(isCorrect)) {
+				System.out.println("\n**********************************************************");
+				selected.setFullName(fullName);
+				System.out.println("Name update completed successfully");
+				System.out.println("**********************************************************");
+				return this.doneUpdating();
+			}
+		} catch (InputMismatchException e) {
+			printNotice("Please enter a valid response following the prompt.");
+		} catch (IllegalArgumentException e1) {
+			printNotice("Please enter a value for each entry (exception for middle name).");
+		}
+		return Screen.UPDATE_CONTACT_NAME;
 	}
-	
-	private void updateContactAddress(Person match) {
-        Scanner in = new Scanner(System.in);
-        System.out.println("\nUpdate Contact -> Update Contact Details Menu -> Update Address");
-        System.out.println("Please follow the prompts below:");
-        try {
-            System.out.print("\nPlease enter the contact's street address\n" +
-                    "(Example: '123 State Street'): ");
-            String streetAddress = in.nextLine().strip().replace(',', '\u0000');
-            System.out.print("\nPlease enter the contact's city\n" +
-                    "(Example: 'Chicago'): ");
-            String city = in.nextLine().strip().replace(',', '\u0000');
-            System.out.print("\nPlease enter the contact's state, using the two-letter abbreviation\n" +
-                    "(Example: 'IL'): ");
-            String state = in.nextLine().strip().replace(',', '\u0000');
-            System.out.print("\nPlease enter the contact's 5-digit zip code\n" +
-                    "(Example: '90210'): ");
-            String zipCode = in.nextLine().strip().replace(',', '\u0000');
-            Address newAddress = new Address(streetAddress, city, state, zipCode);
-            System.out.println("\nIs the address below correct?");
-            System.out.println(newAddress.getFullAddress());
-            System.out.print("\nEnter 'Yes' if it's correct, or 'No' to try again: ");
-            String response = in.nextLine();
-            if (response.equalsIgnoreCase("yes") || response.equalsIgnoreCase("y")) {
-                System.out.println("\n**********************************************************");
-                match.setAddress(newAddress);
-                System.out.println("Update address successful");
-                System.out.println("**********************************************************");
-                this.mainMenu();
-            } else {
-                this.updateContactAddress(match);
-            }
-        } catch (InputMismatchException e) {
-        	System.out.println("\n**********************************************************");
-			System.out.println("Please enter a valid response following the prompt.");
-			System.out.println("**********************************************************");
-			this.updateContactAddress(match);
-        } catch (InvalidStateException e1) {
-			System.out.println("\n**********************************************************");
-			System.out.println("Please enter a valid state (full name or two-letter abbrviation).");
-			System.out.println("**********************************************************");
-			this.updateContactAddress(match);
+
+	private Screen updateContactAddress() {
+		System.out.println("\nUpdate Contact -> Update Contact Details Menu -> Update Address");
+		System.out.println("Please follow the prompts below:");
+		try {
+			System.out.print("\nPlease enter the contact's street address\n" +
+					"(Example: '123 State Street'): ");
+			String streetAddress = readLine().strip().replace(',', '\u0000');
+			System.out.print("\nPlease enter the contact's city\n" +
+					"(Example: 'Chicago'): ");
+			String city = readLine().strip().replace(',', '\u0000');
+			System.out.print("\nPlease enter the contact's state, using the two-letter abbreviation\n" +
+					"(Example: 'IL'): ");
+			String state = readLine().strip().replace(',', '\u0000');
+			System.out.print("\nPlease enter the contact's 5-digit zip code\n" +
+					"(Example: '90210'): ");
+			String zipCode = readLine().strip().replace(',', '\u0000');
+			Address newAddress = new Address(streetAddress, city, state, zipCode);
+			System.out.println("\nIs the address below correct?");
+			System.out.println(newAddress.getFullAddress());
+			System.out.print("\nEnter 'Yes' if it's correct, or 'No' to try again: ");
+			String response = readLine();
+			if (isYes(response)) {
+				System.out.println("\n**********************************************************");
+				selected.setAddress(newAddress);
+				System.out.println("Update address successful");
+				System.out.println("**********************************************************");
+				return this.doneUpdating();
+			}
+		} catch (InputMismatchException e) {
+			printNotice("Please enter a valid response following the prompt.");
+		} catch (InvalidStateException e1) {
+			printNotice("Please enter a valid state (full name or two-letter abbrviation).");
 		} catch (InvalidZipCodeException e2) {
-			System.out.println("\n**********************************************************");
-			System.out.println("Please enter a valid 5-digit zip code.");
-			System.out.println("**********************************************************");
-			this.updateContactAddress(match);
+			printNotice("Please enter a valid 5-digit zip code.");
 		}
-        in.close();
-    }
-	
-	private void updateContactPhone(Person match) {
-        Scanner in = new Scanner(System.in);
-        System.out.println("\nUpdate Contact -> Update Contact Details Menu -> Update Phone");
-        System.out.println("Please follow the prompts below:");
-        try {
-            System.out.print("\nEnter a new 10-digit phone number\n" +
-                    "(Example: '9706881234' or '(970)-688-1234'): ");
-            String phoneNumber = in.nextLine();
-            phoneNumber = Person.phoneNumberFormatter(phoneNumber);
-            System.out.println("\nIs the phone number below correct?");
-            System.out.println(phoneNumber);
-            System.out.print("\nEnter 'Yes' if it's correct, or 'No' to try again: ");
-            String response = in.nextLine();
-            if (response.equalsIgnoreCase("yes") || response.equalsIgnoreCase("y")) {
-                System.out.println("\n**********************************************************");
-                match.setPhoneNumber(phoneNumber);
-                System.out.println("Update phone number completed successfully");
-                System.out.println("**********************************************************");
-                this.mainMenu();
-            } else {
-                this.updateContactPhone(match);
-            }
-        } catch (InputMismatchException e) {
-        	System.out.println("\n**********************************************************");
-			System.out.println("Please enter only parentheses, dashes, or numbers, as required.");
-			System.out.println("**********************************************************");
-			this.updateContactPhone(match);
-        } catch (InvalidPhoneNumberException e1) {
-        	System.out.println("\n**********************************************************");
-			System.out.println("Please enter a valid phone number, formatted as shown in prompt.");
-			System.out.println("**********************************************************");
-			this.updateContactPhone(match);
-        }
-        in.close();
-    }
-	
-	public void searchContactsMenu() {
-        Scanner in = new Scanner(System.in);
-        System.out.println("\nSearch Contacts Menu:");
-        System.out.println("Please review the menu options and enter your selection:");
-        System.out.println("Option 1:  Search by first name");
-        System.out.println("Option 2:  Search by last name");
-        System.out.println("Option 3:  Search by full name");
-        System.out.println("Option 4:  Search by telephone number");
-        System.out.println("Option 5:  Search by city");
-        System.out.println("Option 6:  Search by state");
-        System.out.println("Option 7:  Return to main menu");
-        System.out.print("\nPlease enter the option number to continue: ");
-        try {
-            int selection = in.nextInt();
-            switch (selection) {
-                case 1 -> this.searchByFirstName();
-                case 2 -> this.searchByLastName();
-                case 3 -> this.searchByFullName();
-                case 4 -> this.searchByTelephoneNumber();
-                case 5 -> this.searchByCity();
-                case 6 -> this.searchByState();
-                default -> this.mainMenu();
-            }
-        } catch (InputMismatchException e) {
-            System.out.println("\n**********************************************************");
-            System.out.println("Please enter a number corresponding to one of the options");
-            System.out.println("**********************************************************");
-            searchContactsMenu();
-        }
-        in.close();
-    }
-	
-	private void searchByFirstName() {
-		Scanner in = new Scanner(System.in);
+		return Screen.UPDATE_CONTACT_ADDRESS;
+	}
+
+	private Screen updateContactPhone() {
+		System.out.println("\nUpdate Contact -> Update Contact Details Menu -> Update Phone");
+		System.out.println("Please follow the prompts below:");
+		try {
+			System.out.print("\nEnter a new 10-digit phone number\n" +
+					"(Example: '9706881234' or '(970)-688-1234'): ");
+			String phoneNumber = readLine();
+			phoneNumber = Person.phoneNumberFormatter(phoneNumber);
+			System.out.println("\nIs the phone number below correct?");
+			System.out.println(phoneNumber);
+			System.out.print("\nEnter 'Yes' if it's correct, or 'No' to try again: ");
+			String response = readLine();
+			if (isYes(response)) {
+				System.out.println("\n**********************************************************");
+				selected.setPhoneNumber(phoneNumber);
+				System.out.println("Update phone number completed successfully");
+				System.out.println("**********************************************************");
+				return this.doneUpdating();
+			}
+		} catch (InputMismatchException e) {
+			printNotice("Please enter only parentheses, dashes, or numbers, as required.");
+		} catch (InvalidPhoneNumberException e1) {
+			printNotice("Please enter a valid phone number, formatted as shown in prompt.");
+		}
+		return Screen.UPDATE_CONTACT_PHONE;
+	}
+
+	private Screen searchContactsMenu() {
+		System.out.println("\nSearch Contacts Menu:");
+		System.out.println("Please review the menu options and enter your selection:");
+		System.out.println("Option 1:  Search by first name");
+		System.out.println("Option 2:  Search by last name");
+		System.out.println("Option 3:  Search by full name");
+		System.out.println("Option 4:  Search by telephone number");
+		System.out.println("Option 5:  Search by city");
+		System.out.println("Option 6:  Search by state");
+		System.out.println("Option 7:  Search by partial details");
+		System.out.println("Option 8:  Return to main menu");
+		System.out.print("\nPlease enter the option number to continue: ");
+		try {
+			int selection = readOption();
+			return switch (selection) {
+				case 1 -> Screen.SEARCH_BY_FIRST_NAME;
+				case 2 -> Screen.SEARCH_BY_LAST_NAME;
+				case 3 -> Screen.SEARCH_BY_FULL_NAME;
+				case 4 -> Screen.SEARCH_BY_TELEPHONE_NUMBER;
+				case 5 -> Screen.SEARCH_BY_CITY;
+				case 6 -> Screen.SEARCH_BY_STATE;
+				case 7 -> Screen.SEARCH_BY_PARTIAL_DETAILS;
+				default -> Screen.MAIN_MENU;
+			};
+		} catch (InputMismatchException e) {
+			printNotice("Please enter a number corresponding to one of the options");
+			return Screen.SEARCH_CONTACTS_MENU;
+		}
+	}
+
+	/**
+	 * Helper function that prints the results of a search that can match several contacts.
+	 */
+	private static void printMatches(Person[] matches, String query) {
+		System.out.println("\n**********************************************************");
+		if (matches != null) {
+			for (Person p: matches) {
+				System.out.println(p);
+			}
+		} else {
+			System.out.printf("It doesn't look like there's a match for '%s' in this PhoneBook...%n", query);
+		}
+		System.out.println("**********************************************************");
+	}
+
+	/**
+	 * Helper function that prints the result of a search that can match at most one contact.
+	 */
+	private static void printMatch(Person match, String query) {
+		System.out.println("\n**********************************************************");
+		if (match != null) {
+			System.out.println("There's a match:");
+			System.out.println(match);
+		} else {
+			System.out.printf("It doesn't look like there's a match for '%s' in this PhoneBook...%n", query);
+		}
+		System.out.println("**********************************************************");
+	}
+
+	/**
+	 * Helper function that asks the user whether to repeat the search they just ran.
+	 * @param searchBy the kind of search, as shown in the prompt (e.g. "first name").
+	 * @param again the screen of the search that was just run.
+	 * @return {@code again} if the user wants to search again, otherwise the Main Menu.
+	 */
+	private Screen searchAgainOrNot(String searchBy, Screen again) {
+		System.out.println("\nWould you like to search for a different contact?");
+		System.out.printf("%nEnter 'Yes' to search by %s again, or 'No' to return%n" +
+				"to the main menu: ", searchBy);
+		String response = readLine();
+		return (isYes(response) ? again : Screen.MAIN_MENU);
+	}
+
+	private Screen searchByFirstName() {
 		System.out.println("\nSearch Contacts Menu -> Search by First Name");
 		System.out.print("\nEnter the contact's first name: ");
 		try {
-			String firstName = in.nextLine().replace(',', '\u0000').strip();
+			String firstName = readLine().replace(',', '\u0000').strip();
 			if (firstName.isBlank()) {
 				throw new IllegalArgumentException();
 			}
 			firstName = Person.titleCase(firstName);
 			Person[] matches = phoneBook.searchByFirstName(firstName);
-			if (matches != null) {
-                System.out.println("\n**********************************************************");
-                for (Person p: matches) {
-                    System.out.println(p);
-                }
-                System.out.println("**********************************************************");
-            } else {
-            	System.out.println("\n**********************************************************");
-                System.out.printf("There were no matches for %s in this PhoneBook.%n", firstName);
-                System.out.println("**********************************************************");
-            }
-            System.out.println("\nWould you like to search for a different contact?");
-            System.out.print("\nEnter 'Yes' to search by first name again, or 'No' to return\n" +
-                    "to the main menu: ");
-            String response = in.nextLine();
-            if (response.equalsIgnoreCase("Yes") || response.equalsIgnoreCase("y")) {
-                this.searchByFirstName();
-            } else {
-                this.mainMenu();
-            }
+			printMatches(matches, firstName);
+			return searchAgainOrNot("first name", Screen.SEARCH_BY_FIRST_NAME);
 		} catch (InputMismatchException e) {	// invalid input
-			System.out.println("\n**********************************************************");
-			System.out.println("Please enter a a valid response following the prompt");
-            System.out.println("**********************************************************");
-            this.searchByFirstName();
+			printNotice("Please enter a a valid response following the prompt");
 		} catch (ArrayIndexOutOfBoundsException e1) {		// out of bounds because Person.titleCase(firstName)
-			System.out.println("\n**********************************************************");
-            System.out.println("Please enter a valid name following the prompt");
-            System.out.println("**********************************************************");
-            this.searchByFirstName();
+			printNotice("Please enter a valid name following the prompt");
 		} catch (IllegalArgumentException e2) {		// empty input
-			System.out.println("\n**********************************************************");
-            System.out.println("Please enter a valid name following the prompt");
-            System.out.println("**********************************************************");
-            this.searchByFirstName();
+			printNotice("Please enter a valid name following the prompt");
 		}
-		in.close();
+		return Screen.SEARCH_BY_FIRST_NAME;
 	}
-	
-	private void searchByLastName() {
-		Scanner in = new Scanner(System.in);
+
+	private Screen searchByLastName() {
 		System.out.println("\nSearch Contacts Menu -> Search by Last Name");
-        System.out.print("\nEnter the contact's last name: ");
-        try {
-        	String lastName = in.nextLine().replace(',', '\u0000').strip();
-        	lastName = Person.titleCase(lastName);
-        	if (lastName.isBlank()) {
-        		throw new IllegalArgumentException();
-        	}
-        	Person[] matches = phoneBook.searchByLastName(lastName);
-        	if (matches != null) {
-                System.out.println("\n**********************************************************");
-                for (Person p: matches) {
-                    System.out.println(p);
-                }
-                System.out.println("**********************************************************");
-            } else {
-            	System.out.println("\n**********************************************************");
-                System.out.printf("There were no matches for %s in this PhoneBook.%n", lastName);
-                System.out.println("**********************************************************");
-            }
-        	System.out.println("\nWould you like to search for a different contact?");
-            System.out.print("\nEnter 'Yes' to search by last name again, or 'No' to return\n" +
-                    "to the main menu: ");
-            String response = in.nextLine();
-            if (response.equalsIgnoreCase("Yes") || response.equalsIgnoreCase("y")) {
-                this.searchByLastName();
-            } else {
-                this.mainMenu();
-            }
-        } catch (InputMismatchException e) {	// invalid input
-			System.out.println("\n**********************************************************");
-			System.out.println("Please enter a a valid response following the prompt");
-            System.out.println("**********************************************************");
-            this.searchByLastName();
+		System.out.print("\nEnter the contact's last name: ");
+		try {
+			String lastName = readLine().replace(',', '\u0000').strip();
+			lastName = Person.titleCase(lastName);
+			if (lastName.isBlank()) {
+				throw new IllegalArgumentException();
+			}
+			Person[] matches = phoneBook.searchByLastName(lastName);
+			printMatches(matches, lastName);
+			return searchAgainOrNot("last name", Screen.SEARCH_BY_LAST_NAME);
+		} catch (InputMismatchException e) {	// invalid input
+			printNotice("Please enter a a valid response following the prompt");
 		} catch (ArrayIndexOutOfBoundsException e1) {		// out of bounds because Person.titleCase(lastName)
-			System.out.println("\n**********************************************************");
-            System.out.println("Please enter a valid name following the prompt");
-            System.out.println("**********************************************************");
-            this.searchByLastName();
+			printNotice("Please enter a valid name following the prompt");
 		} catch (IllegalArgumentException e2) {		// empty input
-			System.out.println("\n**********************************************************");
-            System.out.println("Please enter a valid name following the prompt");
-            System.out.println("**********************************************************");
-            this.searchByLastName();
+			printNotice("Please enter a valid name following the prompt");
 		}
-        in.close();
+		return Screen.SEARCH_BY_LAST_NAME;
 	}
-	
-	private void searchByFullName() {
-        Scanner in = new Scanner(System.in);
-        System.out.println("\nSearch Contacts Menu -> Search by Full Name");
-        System.out.println("Enter the contact's full name; if no middle name, just use first and last name.\n" +
-                "(Example: 'FirstName MiddleName(s) LastName' or 'John Robert Doe')");
-        System.out.print("Enter contact's full name: ");
-        try {
-            String fullName = in.nextLine();
-            fullName = Person.parseName(fullName);
-            if (fullName.isBlank()) {
-            	throw new IllegalArgumentException();
-            }
-            Person match = phoneBook.searchByFullName(fullName);
-            if (match != null) {
-                System.out.println("\n**********************************************************");
-                System.out.println("There's a match:");
-                System.out.println(match);
-                System.out.println("**********************************************************");
-            } else {
-            	System.out.println("\n**********************************************************");
-                System.out.printf("It doesn't look like there's a match for '%s' in this PhoneBook...%n", fullName);
-                System.out.println("**********************************************************");
-            }
-            System.out.println("\nWould you like to search for a different contact?");
-            System.out.print("\nEnter 'Yes' to search by full name again, or 'No' to return\n" +
-                    "to the main menu: ");
-            String response = in.nextLine();
-            if (response.equalsIgnoreCase("Yes") || response.equalsIgnoreCase("y")) {
-                this.searchByLastName();
-            } else {
-                this.mainMenu();
-            }
-        } catch (InputMismatchException e) {	// invalid input
-			System.out.println("\n**********************************************************");
-            System.out.println("Please enter a a valid response following the prompt");
-            System.out.println("**********************************************************");
-            this.searchContactsMenu();
+
+	private Screen searchByFullName() {
+		System.out.println("\nSearch Contacts Menu -> Search by Full Name");
+		System.out.println("Enter the contact's full name; if no middle name, just use first and last name.\n" +
+				"(Example: 'FirstName MiddleName(s) LastName' or 'John Robert Doe')");
+		System.out.print("Enter contact's full name: ");
+		try {
+			String fullName = readLine();
+			fullName = Person.parseName(fullName);
+			if (fullName.isBlank()) {
+				throw new IllegalArgumentException();
+			}
+			Person match = phoneBook.searchByFullName(fullName);
+			printMatch(match, fullName);
+			return searchAgainOrNot("full name", Screen.SEARCH_BY_FULL_NAME);
+		} catch (InputMismatchException e) {	// invalid input
+			printNotice("Please enter a a valid response following the prompt");
 		} catch (ArrayIndexOutOfBoundsException e1) {		// out of bounds because Person.titleCase(fullName)
-			System.out.println("\n**********************************************************");
-            System.out.println("Please enter a valid name following the prompt");
-            System.out.println("**********************************************************");
-            this.searchContactsMenu();
+			printNotice("Please enter a valid name following the prompt");
 		} catch (IllegalArgumentException e2) {		// empty input
-			System.out.println("\n**********************************************************");
-            System.out.println("Please enter a valid name following the prompt");
-            System.out.println("**********************************************************");
-            this.searchContactsMenu();
+			printNotice("Please enter a valid name following the prompt");
 		}
-        in.close();
-    }
-	
-	private void searchByTelephoneNumber() {
-        Scanner in = new Scanner(System.in);
-        System.out.println("\nSearch Contacts Menu -> Search by Telephone Number");
-        System.out.print("\nEnter the contact's 10-digit phone number\n" +
-                "(Example: '0123456789' or '(012)-345-6789)'): ");
-        try {
-            String phoneNumber = in.nextLine();
-            if (phoneNumber.isBlank()) {
-            	throw new IllegalArgumentException();
-            }
-            phoneNumber = Person.phoneNumberFormatter(phoneNumber);
-            Person match = phoneBook.searchByPhoneNumber(phoneNumber);
-            if (match != null) {
-                System.out.println("\n**********************************************************");
-                System.out.println("There's a match:");
-                System.out.println(match);
-                System.out.println("**********************************************************");
-            } else {
-                System.out.println("\n**********************************************************");
-                System.out.printf("It doesn't look like there's a match for '%s' in this PhoneBook...%n", phoneNumber);
-                System.out.println("**********************************************************");
-            }
-            System.out.println("\nWould you like to search for a different contact?");
-            System.out.print("\nEnter 'Yes' to search by phone number again, or 'No' to return\n" +
-                    "to the main menu: ");
-            String response = in.nextLine();
-            if (response.equalsIgnoreCase("Yes") || response.equalsIgnoreCase("y")) {
-                this.searchByTelephoneNumber();
-            } else {
-                this.mainMenu();
-            }
-        } catch (InputMismatchException e) {	// invalid input
-			System.out.println("\n**********************************************************");
-            System.out.println("Please enter a a valid response following the prompt");
-            System.out.println("**********************************************************");
-            this.searchContactsMenu();
+		return Screen.SEARCH_CONTACTS_MENU;
+	}
+
+	private Screen searchByTelephoneNumber() {
+		System.out.println("\nSearch Contacts Menu -> Search by Telephone Number");
+		System.out.print("\nEnter the contact's 10-digit phone number\n" +
+				"(Example: '0123456789' or '(012)-345-6789)'): ");
+		try {
+			String phoneNumber = readLine();
+			if (phoneNumber.isBlank()) {
+				throw new IllegalArgumentException();
+			}
+			phoneNumber = Person.phoneNumberFormatter(phoneNumber);
+			Person match = phoneBook.searchByPhoneNumber(phoneNumber);
+			printMatch(match, phoneNumber);
+			return searchAgainOrNot("phone number", Screen.SEARCH_BY_TELEPHONE_NUMBER);
+		} catch (InputMismatchException e) {	// invalid input
+			printNotice("Please enter a a valid response following the prompt");
 		} catch (InvalidPhoneNumberException e1) {		// incorrect phone number (formatting or digits)
-			System.out.println("\n**********************************************************");
-			System.out.println("Please enter a valid phone number, formatted as shown in prompt.");
-			System.out.println("**********************************************************");
-			this.searchContactsMenu();
+			printNotice("Please enter a valid phone number, formatted as shown in prompt.");
 		} catch (IllegalArgumentException e2) {		// empty input
-			System.out.println("\n**********************************************************");
-            System.out.println("Please enter a a valid response following the prompt");
-            System.out.println("**********************************************************");
-            this.searchContactsMenu();
+			printNotice("Please enter a a valid response following the prompt");
 		}
-        in.close();
-    }
-	
-	private void searchByCity() {
-        Scanner in = new Scanner(System.in);
-        System.out.println("\nSearch Contacts Menu -> Search by City");
-        System.out.print("\nEnter the contact's city\n" +
-                "(Example: 'Saint Louis' or 'St. Louis)'): ");
-        try {
-            String city = in.nextLine().replace(',', '\u0000').strip();
-            city = Person.titleCase(city);
-            if (city.isBlank()) {
-            	throw new IllegalArgumentException();
-            }
-            Person[] match = phoneBook.searchByCity(city);
-            if (match != null) {
-                System.out.println("\n**********************************************************");
-                for (Person p: match) {
-                    System.out.println(p);
-                }
-                System.out.println("**********************************************************");
-            } else {
-                System.out.println("\n**********************************************************");
-                System.out.printf("It doesn't look like there's a match for '%s' in this PhoneBook...%n", city);
-                System.out.println("**********************************************************");
-            }
-            System.out.println("\nWould you like to search for a different contact?");
-            System.out.print("\nEnter 'Yes' to search by city again, or 'No' to return\n" +
-                    "to the main menu: ");
-            String response = in.nextLine();
-            if (response.equalsIgnoreCase("Yes") || response.equalsIgnoreCase("y")) {
-                this.searchByCity();
-            } else {
-                this.mainMenu();
-            }
-        } catch (InputMismatchException e) {	// invalid input
-			System.out.println("\n**********************************************************");
-            System.out.println("Please enter a a valid response following the prompt");
-            System.out.println("**********************************************************");
-            this.searchContactsMenu();
+		return Screen.SEARCH_CONTACTS_MENU;
+	}
+
+	private Screen searchByCity() {
+		System.out.println("\nSearch Contacts Menu -> Search by City");
+		System.out.print("\nEnter the contact's city\n" +
+				"(Example: 'Saint Louis' or 'St. Louis)'): ");
+		try {
+			String city = readLine().replace(',', '\u0000').strip();
+			city = Person.titleCase(city);
+			if (city.isBlank()) {
+				throw new IllegalArgumentException();
+			}
+			Person[] match = phoneBook.searchByCity(city);
+			printMatches(match, city);
+			return searchAgainOrNot("city", Screen.SEARCH_BY_CITY);
+		} catch (InputMismatchException e) {	// invalid input
+			printNotice("Please enter a a valid response following the prompt");
 		} catch (ArrayIndexOutOfBoundsException e1) {		// out of bounds because Person.titleCase(city)
-			System.out.println("\n**********************************************************");
-            System.out.println("Please enter a valid name following the prompt");
-            System.out.println("**********************************************************");
-            this.searchContactsMenu();
+			printNotice("Please enter a valid name following the prompt");
 		} catch (IllegalArgumentException e2) {		// empty input
-			System.out.println("\n**********************************************************");
-            System.out.println("Please enter a valid name following the prompt");
-            System.out.println("**********************************************************");
-            this.searchContactsMenu();
+			printNotice("Please enter a valid name following the prompt");
 		}
-        in.close();
-    }
-	
-	private void searchByState() {
-        Scanner in = new Scanner(System.in);
-        System.out.println("\nSearch Contacts Menu -> Search by State");
-        System.out.print("\nEnter the contact's State of residence\n" +
-                "(Example: 'IL' or 'Illinois'): ");
-        try {
-            String state = in.nextLine().replace(',', '\u0000').strip();
-            if (state.isBlank()) {
-            	throw new IllegalArgumentException();
-            }
-            state = Address.stateFormatter(state);
-            Person[] match = phoneBook.searchByState(state);
-            if (match != null) {
-                System.out.println("\n**********************************************************");
-                for (Person p: match) {
-                    System.out.println(p);
-                }
-                System.out.println("**********************************************************");
-            } else {
-                System.out.println("\n**********************************************************");
-                System.out.printf("It doesn't look like there's a match for '%s' in this PhoneBook...%n", state);
-                System.out.println("**********************************************************");
-            }
-            System.out.println("\nWould you like to search for a different contact?");
-            System.out.print("\nEnter 'Yes' to search by State again, or 'No' to return\n" +
-                    "to the main menu: ");
-            String response = in.nextLine();
-            if (response.equalsIgnoreCase("Yes") || response.equalsIgnoreCase("y")) {
-                this.searchByState();
-            } else {
-                this.mainMenu();
-            }
-        } catch (InputMismatchException e) {	// invalid input
-			System.out.println("\n**********************************************************");
-            System.out.println("Please enter a a valid response following the prompt");
-            System.out.println("**********************************************************");
-            this.searchContactsMenu();
+		return Screen.SEARCH_CONTACTS_MENU;
+	}
+
+	private Screen searchByState() {
+		System.out.println("\nSearch Contacts Menu -> Search by State");
+		System.out.print("\nEnter the contact's State of residence\n" +
+				"(Example: 'IL' or 'Illinois'): ");
+		try {
+			String state = readLine().replace(',', '\u0000').strip();
+			if (state.isBlank()) {
+				throw new IllegalArgumentException();
+			}
+			state = Address.stateFormatter(state);
+			Person[] match = phoneBook.searchByState(state);
+			printMatches(match, state);
+			return searchAgainOrNot("State", Screen.SEARCH_BY_STATE);
+		} catch (InputMismatchException e) {	// invalid input
+			printNotice("Please enter a a valid response following the prompt");
 		} catch (InvalidStateException e1) {
-			System.out.println("\n**********************************************************");
-			System.out.println("Please enter a valid state (full name or two-letter abbrviation).");
-			System.out.println("**********************************************************");
-			this.searchContactsMenu();
+			printNotice("Please enter a valid state (full name or two-letter abbrviation).");
 		} catch (IllegalArgumentException e3) {
-			System.out.println("\n**********************************************************");
-            System.out.println("Please enter a a valid response following the prompt");
-            System.out.println("**********************************************************");
-            this.searchContactsMenu();
+			printNotice("Please enter a a valid response following the prompt");
+		}
+		return Screen.SEARCH_CONTACTS_MENU;
+	}
+
+	private Screen searchByPartialDetails() {
+		System.out.println("\nSearch Contacts Menu -> Search by Partial Details");
+		System.out.print("\nEnter any part of the contact's name, street, city, or phone number\n" +
+				"(Example: 'Cullert' or '688-12'): ");
+		try {
+			String text = readLine().strip();
+			if (text.isBlank()) {
+				throw new IllegalArgumentException();
+			}
+			Person[] match = phoneBook.searchContaining(text);
+			printMatches(match, text);
+			return searchAgainOrNot("partial details", Screen.SEARCH_BY_PARTIAL_DETAILS);
+		} catch (InputMismatchException e) {	// invalid input
+			printNotice("Please enter a a valid response following the prompt");
+		} catch (IllegalArgumentException e2) {		// empty input
+			printNotice("Please enter a a valid response following the prompt");
+		}
+		return Screen.SEARCH_CONTACTS_MENU;
+	}
+
+	/**
+	 * Lists the contacts in this PhoneBook one page at a time, sorted by full name.
+	 */
+	private Screen printAllContacts() {
+		if (phoneBook.isEmpty()) {
+			printNotice("This PhoneBook is currently empty.");
+			return Screen.MAIN_MENU;
 		}
-        in.close();
-    }
-	
-	public void printAllContacts() {
-        if (phoneBook.isEmpty()) {
-            System.out.println("\n**********************************************************");
-            System.out.println("This PhoneBook is currently empty.");
-            System.out.println("**********************************************************");
-        } else {
-            System.out.println("\n**********************************************************");
-            phoneBook.printAllEntries();
-            System.out.println("**********************************************************");
-        }
-        this.mainMenu();
-    }
-	
-	public void exit() {
-		Scanner in = new Scanner(System.in);
 		System.out.println("\n**********************************************************");
-		System.out.println("Before you leave, would you like to save this PhoneBook?");
-		System.out.print("\nEnter 'Yes' to save or 'No' to exit: ");
+		int printed;
 		try {
-			String saveBeforeExit = in.nextLine().strip();
-			in.close();
-			if (saveBeforeExit.equalsIgnoreCase("yes") || saveBeforeExit.equalsIgnoreCase("y")) {
-				this.savePhoneBook();
+			printed = phoneBook.printEntries(new OutputStreamWriter(System.out), listOffset, PAGE_SIZE);
+		} catch (IOException e) {
+			printed = 0;
+		}
+		System.out.println("**********************************************************");
+		int first = listOffset + 1;
+		listOffset += printed;
+		if (printed > 0 && listOffset < phoneBook.size()) {
+			System.out.printf("Showing contacts %d-%d of %d.%n", first, listOffset, phoneBook.size());
+			System.out.print("\nHit 'Enter' to see the next page, or enter 'No' to return to the main menu: ");
+			String response = readLine().strip();
+			if (response.isEmpty() || isYes(response)) {
+				return Screen.PRINT_ALL_CONTACTS;
 			}
-		} catch (InputMismatchException e) {
-			System.out.println("\n**********************************************************");
-            System.out.println("Please enter a a valid response following the prompt");
-            System.out.println("**********************************************************");
+		}
+		listOffset = 0;
+		return Screen.MAIN_MENU;
+	}
+
+	/**
+	 * Lists every group of likely duplicate contacts in this PhoneBook, then returns to the Main Menu.
+	 */
+	private Screen printDuplicateContacts() {
+		DuplicateReport report = phoneBook.findDuplicates();
+		System.out.println("\n**********************************************************");
+		if (report.isEmpty()) {
+			System.out.println("No duplicate contacts were found in this PhoneBook.");
+		} else {
+			System.out.print(report);
+		}
+		System.out.println("**********************************************************");
+		return Screen.MAIN_MENU;
+	}
+
+	/**
+	 * Saves any changes that haven't been autosaved yet, or if autosaving is off, offers to save this
+	 * PhoneBook before the program ends.
+	 * @return null, which ends the program.
+	 */
+	private Screen exit() {
+		if (autoSaver != null) {
+			boolean dirty = phoneBook.isDirty();
+			stopAutoSave();
+			if (dirty && !phoneBook.isDirty()) {
+				printNotice("\t\tPhoneBook successfully saved");
+			}
+			System.out.println("\nThank you for using the PhoneBook.");
+			return null;
+		}
+		System.out.println("\n**********************************************************");
+		System.out.println("Before you leave, would you like to save this PhoneBook?");
+		System.out.print("\nEnter 'Yes' to save or 'No' to exit: ");
+		String saveBeforeExit = readLine().strip();
+		if (isYes(saveBeforeExit)) {
+			this.savePhoneBook();
 		}
 		System.out.println("\nThank you for using the PhoneBook.");
+		return null;
 	}
-	
+
 
 	public static void main(String[] args) {
 		PhoneBookUI test = new PhoneBookUI();
-//		String directory = System.getProperty("user.home");
-//		String fileName = "test.txt";
-//		String absolutePath = directory + File.separator + fileName;
-//		Address a1 = new Address("120 E. Cullerton St", "Chicago", "IL", "60616");
-//		Address a2 = new Address("114 Market St", "St Louis", "MO", "63403");
-//		Address a3 = new Address("324 Main St", "St Charles", "MO", "63303");
-//		Address a4 = new Address("574 Pole Ave", "St Peters", "MO", "63333");
-//		
-//		Person p1 = new Person("McGrath, Jake Kimball", "7089164236", a1);
-//		Person p2 = new Person("Doe, John", "6366435698", a2);
-//		Person p3 = new Person("Doe, John E", "8475390126", a3);
-//		Person p4 = new Person("Doe, John Michael West", "5628592375", a4);
-//		
-//		PhoneBook pb = new PhoneBook();
-//		pb.addEntry(p1);
-//		pb.addEntry(p2);
-//		pb.addEntry(p3);
-//		pb.addEntry(p4);
-//		
-//		try {
-//			BufferedWriter fileWriter = new BufferedWriter(new FileWriter(absolutePath));
-//			String contents = pb.toString();
-//			fileWriter.write(contents);
-//			fileWriter.close();
-//		} catch (IOException e) {
-//			System.out.println(e.getLocalizedMessage());
-//		}
-//		
-//		PhoneBook pb1 = new PhoneBook();
-//		try {
-//			BufferedReader bufferedReader = new BufferedReader(new FileReader(absolutePath));
-//			String entry = bufferedReader.readLine();
-//			while (entry != null) {
-//				pb1.entryLoader(entry);
-//				entry = bufferedReader.readLine();
-//			}
-//		} catch (IOException e) {
-//			System.out.println(e.getLocalizedMessage());
-//		}
-//		
-//		System.out.println("Original PhoneBook: ");
-//		pb.printAllEntries();
-//		System.out.println("\nLoaded PhoneBook: ");
-//		pb1.printAllEntries();
 	}
 
 }
@@ -0,0 +1,357 @@
+package phonebook;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * A read-only copy of a PhoneBook kept up to date by a {@code ReplicationLeader}, typically in another
+ * process on the same host, which spreads searches over as many processes as there are followers and keeps
+ * a copy of the entries if the leader's process dies:
+ * <pre>
+ *     try (ReplicationFollower follower = new ReplicationFollower(UnixDomainSocketAddress.of(path))) {
+ *         Person[] matches = follower.read(replica -> replica.searchByCity("St Louis"));
+ *         ...
+ *     }
+ * </pre>
+ * A thread of its own connects to the leader, loads the snapshot it's sent into a new replica, and then
+ * applies each change as it arrives.  Searches are run through {@code read(Function)}, one at a time between
+ * changes, so they always see the replica as it was after some change on the leader, never half way through
+ * one.  The replica can't be changed by anything but the follower's thread; doing so throws an
+ * {@code IllegalStateException}.
+ * <p>
+ * If the connection is lost, the follower keeps serving the entries it has while it reconnects, backing
+ * off up to {@code MAX_RECONNECT_MILLIS} between attempts, and swaps in a new replica once the leader's new
+ * snapshot has been loaded.  How far behind the leader it is can be read at any time from
+ * {@code getLag()} and {@code getLagMillis()}.
+ * @author Jake McGrath
+ *
+ */
+public class ReplicationFollower implements Closeable {
+
+	private static final long MIN_RECONNECT_MILLIS = 100;
+	private static final long MAX_RECONNECT_MILLIS = 5_000;
+	private static final int RECEIVE_BUFFER_SIZE = 1 << 16;
+	private static final int MAX_FIELD_BYTES = 1 << 20;	// longer is taken for a corrupt stream
+
+	private final SocketAddress leader;
+	private final ReentrantLock lock;			// held while the replica is searched or changed
+	private final Condition applied;			// signalled after every change applied
+	private final Thread thread;
+	private volatile PhoneBook replica;
+	private volatile SocketChannel channel;
+	private volatile boolean connected;
+	private volatile boolean closed;
+	private volatile long mutationCount;		// the leader's mutation count as of the last change applied
+	private volatile long leaderMutationCount;	// the leader's mutation count as of the last record received
+	private volatile long applyingSince;		// when the change last applied was made; 0 once caught up
+	private volatile long lastHeard;			// when the leader last sent anything
+	private volatile boolean synced;			// a snapshot has been loaded
+	private volatile Exception lastFailure;
+
+
+	/**
+	 * Starts following the leader at {@code leader}.  Until the first snapshot has been loaded, the replica
+	 * is empty; see {@code awaitCaughtUp(Duration)}.
+	 * @param leader the address the leader listens on.
+	 */
+	public ReplicationFollower(SocketAddress leader) {
+		assert leader != null;
+		this.leader = leader;
+		this.lock = new ReentrantLock(true);			// fair, so that searches can't starve the changes
+		this.applied = lock.newCondition();
+		this.replica = new PhoneBook();
+		this.lastHeard = System.currentTimeMillis();
+		this.thread = new Thread(this::follow, "phonebook-replication-follower");
+		replica.setOnlyWriter(thread);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Runs a search against the replica, while no change is being applied to it.
+	 * @param search the search, which may use any of the replica's search methods but mustn't change it,
+	 * or keep it to use after returning.
+	 * @return what {@code search} returns.
+	 */
+	public <T> T read(Function<PhoneBook, T> search) {
+		lock.lock();
+		try {
+			return search.apply(replica);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return true if the follower is connected to the leader.
+	 */
+	public boolean isConnected() {
+		return connected;
+	}
+
+	/**
+	 * @return the leader's mutation count as of the last change applied to the replica, so that a client
+	 * that changed the leader can wait until its change can be read here (see
+	 * {@code awaitMutationCount(long, Duration)}).
+	 */
+	public long getMutationCount() {
+		return mutationCount;
+	}
+
+	/**
+	 * @return the number of changes the leader had made, as of the last it was heard from, that haven't
+	 * been applied to the replica yet.
+	 */
+	public long getLag() {
+		return Math.max(0, leaderMutationCount - mutationCount);
+	}
+
+	/**
+	 * @return how far behind the leader the replica is, in milliseconds: 0 while it's caught up, how long
+	 * ago the change being applied was made while it's catching up, and how long ago the leader was last
+	 * heard from while it's disconnected.
+	 */
+	public long getLagMillis() {
+		long now = System.currentTimeMillis();
+		if (!connected) {
+			return now - lastHeard;
+		}
+		long since = applyingSince;
+		return (since == 0 ? 0 : Math.max(0, now - since));
+	}
+
+	/**
+	 * @return why the last connection to the leader failed or was lost, or null if there hasn't been a
+	 * failure.  Besides an {@code IOException}, this can be a RuntimeException for a record that couldn't
+	 * be applied, after which the follower reconnects and starts again from a new snapshot.
+	 */
+	public Exception getLastFailure() {
+		return lastFailure;
+	}
+
+	/**
+	 * Waits until every change the leader had made by the time it reported {@code mutationCount} (e.g.
+	 * from {@code PhoneBook.getMutationCount()} right after making a change) has been applied here.
+	 * @return true if it has, or false if {@code timeout} ran out first.
+	 * @throws InterruptedException if the thread is interrupted while waiting.
+	 */
+	public boolean awaitMutationCount(long mutationCount, Duration timeout) throws InterruptedException {
+		long nanos = timeout.toNanos();
+		lock.lock();
+		try {
+			while (!synced || this.mutationCount < mutationCount) {
+				if (nanos <= 0) {
+					return false;
+				}
+				nanos = applied.awaitNanos(nanos);
+			}
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Waits until a snapshot has been loaded and every change the leader had made, as of the last it was
+	 * heard from, has been applied.
+	 * @return true if it has, or false if {@code timeout} ran out first.
+	 * @throws InterruptedException if the thread is interrupted while waiting.
+	 */
+	public boolean awaitCaughtUp(Duration timeout) throws InterruptedException {
+		long deadline = System.nanoTime() + timeout.toNanos();
+		lock.lock();
+		try {
+			while (!synced || !connected || mutationCount < leaderMutationCount) {
+				long nanos = deadline - System.nanoTime();
+				if (nanos <= 0) {
+					return false;
+				}
+				applied.awaitNanos(Math.min(nanos,
+						TimeUnit.MILLISECONDS.toNanos(ReplicationLeader.HEARTBEAT_MILLIS)));
+			}
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Stops following the leader.  The replica can still be read, but won't change again.
+	 */
+	@Override
+	public void close() throws IOException {
+		closed = true;
+		thread.interrupt();
+		SocketChannel current = channel;
+		if (current != null) {
+			current.close();
+		}
+		try {
+			thread.join(TimeUnit.SECONDS.toMillis(10));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Helper function that connects to the leader and applies what it sends, reconnecting whenever the
+	 * connection is lost, until this follower is closed.  Runs on the follower's own thread.
+	 */
+	private void follow() {
+		long backoff = MIN_RECONNECT_MILLIS;
+		while (!closed) {
+			try (SocketChannel opened = SocketChannel.open(leader)) {
+				channel = opened;
+				if (closed) {
+					break;
+				}
+				DataInputStream in = new DataInputStream(new BufferedInputStream(
+						Channels.newInputStream(opened), RECEIVE_BUFFER_SIZE));
+				if (in.readInt() != ReplicationLeader.MAGIC) {
+					throw new IOException("Not a PhoneBook replication leader: " + leader);
+				}
+				connected = true;
+				backoff = MIN_RECONNECT_MILLIS;
+				receive(in);
+			} catch (IOException | RuntimeException e) {	// a record we can't apply is as bad as a lost one
+				if (!closed) {
+					lastFailure = e;
+				}
+			} finally {
+				connected = false;
+				channel = null;
+			}
+			try {
+				Thread.sleep(backoff);
+			} catch (InterruptedException e) {
+				break;									// closed
+			}
+			backoff = Math.min(backoff * 2, MAX_RECONNECT_MILLIS);
+		}
+	}
+
+	/**
+	 * Helper function that loads the snapshot the leader sends first into a new replica, swaps it in, and
+	 * then applies every change that follows, until the connection is lost.
+	 */
+	private void receive(DataInputStream in) throws IOException {
+		if (in.readByte() != ReplicationLeader.SNAPSHOT) {
+			throw new IOException("Expected a snapshot from " + leader);
+		}
+		long snapshotMutationCount = in.readLong();
+		in.readLong();									// when it was taken
+		leaderMutationCount = snapshotMutationCount;	// the leader may have been restarted since
+		heard(snapshotMutationCount);
+		int size = in.readInt();
+		PhoneBook loaded = new PhoneBook();			// the old replica is searched until this one is done
+		loaded.setOnlyWriter(thread);
+		for (int i = 0; i < size; i++) {
+			long id = in.readLong();
+			loaded.putById(id, readEntry(in));
+		}
+		lock.lock();
+		try {
+			replica = loaded;
+			mutationCount = snapshotMutationCount;
+			synced = true;
+			applied.signalAll();
+		} finally {
+			lock.unlock();
+		}
+		ArrayList<Change> change = new ArrayList<>();	// the records of a change, until it's committed
+		while (!closed) {
+			byte type = in.readByte();
+			long recordMutationCount = in.readLong();
+			long madeAt = in.readLong();
+			heard(recordMutationCount);
+			switch (type) {
+				case ReplicationLeader.ADD, ReplicationLeader.UPDATE -> change.add(new Change(in.readLong(),
+						readEntry(in)));
+				case ReplicationLeader.DELETE -> change.add(new Change(in.readLong(), null));
+				case ReplicationLeader.COMMIT -> {
+					applyingSince = madeAt;
+					apply(change, recordMutationCount);
+					change.clear();
+				}
+				case ReplicationLeader.HEARTBEAT -> {
+					if (mutationCount >= recordMutationCount) {
+						applyingSince = 0;
+					}
+					lock.lock();
+					try {
+						applied.signalAll();			// anyone waiting to catch up can check again
+					} finally {
+						lock.unlock();
+					}
+				}
+				default -> throw new IOException("Unknown replication record type " + type);
+			}
+		}
+	}
+
+	/**
+	 * Helper function that applies every record of a change to the replica at once, so that no search
+	 * sees it half applied.
+	 */
+	private void apply(ArrayList<Change> change, long changeMutationCount) {
+		lock.lock();
+		try {
+			for (Change c: change) {
+				if (c.p() == null) {
+					replica.deleteById(c.id());
+				} else {
+					replica.putById(c.id(), c.p());
+				}
+			}
+			mutationCount = changeMutationCount;
+			applied.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Helper function that records that the leader was heard from, and the mutation count it sent.
+	 */
+	private void heard(long leaderMutationCount) {
+		this.leaderMutationCount = Math.max(this.leaderMutationCount, leaderMutationCount);
+		this.lastHeard = System.currentTimeMillis();
+	}
+
+	/**
+	 * Helper function that reads the fields of an entry, each preceded by its length in bytes, and builds
+	 * the entry the same as an imported record.
+	 */
+	private static Person readEntry(DataInputStream in) throws IOException {
+		String[] fields = new String[EntryFormat.FIELDS.length];
+		for (int i = 0; i < fields.length; i++) {
+			int length = in.readInt();
+			if (length < 0 || length > MAX_FIELD_BYTES) {
+				throw new IOException("Bad field length " + length + " from the leader");
+			}
+			byte[] bytes = new byte[length];
+			in.readFully(bytes);
+			fields[i] = new String(bytes, StandardCharsets.UTF_8);
+		}
+		return EntryFormat.toPerson(fields);
+	}
+
+	/**
+	 * An add or update of the entry with an ID, or a delete if there's no Person.
+	 */
+	private record Change(long id, Person p) {
+	}
+
+}
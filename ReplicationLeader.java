@@ -0,0 +1,381 @@
+package phonebook;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.BindException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Streams every change to a PhoneBook to any number of {@code ReplicationFollower}s, each of which keeps a
+ * read-only copy of it, e.g. in other processes on the same host:
+ * <pre>
+ *     try (ReplicationLeader leader = new ReplicationLeader(phoneBook, UnixDomainSocketAddress.of(path))) {
+ *         ...
+ *     }
+ * </pre>
+ * A follower that connects is sent a consistent snapshot of the entries (see {@code PhoneBook.Snapshot}),
+ * followed by every change made since, in order, from a journal of adds, deletes, and updates.  The
+ * PhoneBook's own thread only ever appends to the journal: each change is formatted under the PhoneBook's
+ * write lock, field by field, and every follower has a thread of its own that sends
+ * the journal from there, so a slow or stuck follower never holds up a change.  The journal is only kept
+ * while there are followers, and only as far back as the slowest of them; one that falls more than
+ * {@code JOURNAL_LIMIT} bytes behind is disconnected, and sent a new snapshot once it reconnects.
+ * <p>
+ * The stream starts with {@code MAGIC} and the snapshot: a {@code SNAPSHOT} header, then the ID and fields of
+ * each entry, every field its length in bytes followed by its UTF-8 bytes, so a comma or newline in a
+ * street or city is sent as it is.  Each record after that is a type, the leader's mutation count once the change was made, the
+ * time it was made, and for {@code ADD}, {@code UPDATE}, and {@code DELETE}, the ID of the entry and, except
+ * for a delete, its fields.  A {@code COMMIT} ends the records of each change, so that a follower can apply
+ * a whole merge at once, the same as the leader did.  A {@code HEARTBEAT} carries the current mutation
+ * count, and is sent after every batch of records or every {@code HEARTBEAT_MILLIS} while nothing changes,
+ * so that followers can tell how far behind they are.  IDs are the leader's own, so an ID means the same
+ * entry on every follower.
+ * @author Jake McGrath
+ *
+ */
+public class ReplicationLeader implements Closeable, MutationObserver {
+
+	static final int MAGIC = 0x50425232;		// "PBR2", since entries are sent as fields rather than text
+	static final byte SNAPSHOT = 1;
+	static final byte ADD = 2;
+	static final byte UPDATE = 3;
+	static final byte DELETE = 4;
+	static final byte COMMIT = 5;
+	static final byte HEARTBEAT = 6;
+	static final long HEARTBEAT_MILLIS = 100;
+	private static final long JOURNAL_LIMIT = 64L << 20;	// bytes a follower may fall behind by
+	private static final int SEND_BUFFER_SIZE = 1 << 16;
+
+	private final PhoneBook phoneBook;
+	private final ServerSocketChannel server;
+	private final SocketAddress address;
+	private final Thread acceptor;
+	private final CopyOnWriteArrayList<Session> sessions;
+	private final ByteArrayOutputStream recordBytes;	// only used by the PhoneBook's thread, under its lock
+	private final DataOutputStream record;
+	private Record tail;						// the last record appended; guarded by this
+	private volatile boolean closed;
+
+
+	/**
+	 * Starts accepting followers at {@code address}.  A Unix domain socket left behind by a leader that
+	 * didn't close is replaced, but one that another leader is still listening on isn't.
+	 * @param phoneBook the PhoneBook to replicate.
+	 * @param address a {@code UnixDomainSocketAddress}, or an {@code InetSocketAddress} (port 0 picks a
+	 * free port; see {@code getAddress()}).
+	 * @throws IOException if the address can't be listened on.
+	 */
+	public ReplicationLeader(PhoneBook phoneBook, SocketAddress address) throws IOException {
+		assert phoneBook != null && address != null;
+		this.phoneBook = phoneBook;
+		this.sessions = new CopyOnWriteArrayList<>();
+		this.recordBytes = new ByteArrayOutputStream(256);
+		this.record = new DataOutputStream(recordBytes);
+		this.tail = new Record(0, new byte[0], 0);
+		if (address instanceof UnixDomainSocketAddress) {
+			removeStaleSocket(((UnixDomainSocketAddress) address).getPath());
+			server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+		} else {
+			server = ServerSocketChannel.open();
+		}
+		try {
+			server.bind(address);
+			this.address = server.getLocalAddress();
+		} catch (IOException e) {
+			server.close();
+			throw e;
+		}
+		phoneBook.addObserver(this);
+		acceptor = new Thread(this::accept, "phonebook-replication-leader");
+		acceptor.setDaemon(true);
+		acceptor.start();
+	}
+
+	/**
+	 * Helper function that converts an address given on the command line into a socket address: "host:port"
+	 * for TCP, or anything else for the path of a Unix domain socket.
+	 */
+	static SocketAddress socketAddress(String address) {
+		int colon = address.lastIndexOf(':');
+		if (colon > 0 && address.indexOf('/') < 0) {
+			try {
+				return new InetSocketAddress(address.substring(0, colon),
+						Integer.parseInt(address.substring(colon + 1)));
+			} catch (NumberFormatException e) {
+				// not a port, so it's a path
+			}
+		}
+		return UnixDomainSocketAddress.of(address);
+	}
+
+	/**
+	 * @return the address followers connect to.
+	 */
+	public SocketAddress getAddress() {
+		return address;
+	}
+
+	/**
+	 * @return the number of followers connected.
+	 */
+	public int getFollowerCount() {
+		return sessions.size();
+	}
+
+	/**
+	 * Stops replicating: disconnects every follower and stops listening.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		phoneBook.removeObserver(this);
+		try {
+			server.close();
+		} finally {
+			for (Session session: sessions) {
+				session.disconnect();
+			}
+			synchronized (this) {
+				notifyAll();
+			}
+			if (address instanceof UnixDomainSocketAddress) {
+				Files.deleteIfExists(((UnixDomainSocketAddress) address).getPath());
+			}
+		}
+	}
+
+	@Override
+	public void added(Person p, long mutationCount) {
+		append(ADD, p.getId(), p, mutationCount);
+	}
+
+	@Override
+	public void deleted(long id, Person p, long mutationCount) {
+		append(DELETE, id, null, mutationCount);
+	}
+
+	@Override
+	public void updated(Person before, Person after, long mutationCount) {
+		append(UPDATE, after.getId(), after, mutationCount);
+	}
+
+	@Override
+	public void committed(long mutationCount) {
+		append(COMMIT, 0, null, mutationCount);
+	}
+
+	/**
+	 * Helper function that formats a change and appends it to the journal, on the PhoneBook's thread with
+	 * its write lock held.  Nothing is kept while no follower is connected: one that connects later gets
+	 * a snapshot taken under the same lock, which already includes the change.
+	 */
+	private void append(byte type, long id, Person p, long mutationCount) {
+		if (sessions.isEmpty()) {
+			return;
+		}
+		recordBytes.reset();
+		try {
+			record.writeByte(type);
+			record.writeLong(mutationCount);
+			record.writeLong(System.currentTimeMillis());
+			if (type != COMMIT) {
+				record.writeLong(id);
+			}
+			if (p != null) {
+				writeEntry(record, p);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);			// can't happen writing to memory
+		}
+		Record next;
+		synchronized (this) {
+			next = new Record(mutationCount, recordBytes.toByteArray(), tail.end + recordBytes.size());
+			tail.next = next;
+			tail = next;
+			notifyAll();
+		}
+		for (Session session: sessions) {
+			if (next.end - session.sent.end > JOURNAL_LIMIT) {
+				session.disconnect();					// it'll get a new snapshot when it reconnects
+			}
+		}
+	}
+
+	/**
+	 * Helper function that writes the fields of an entry in {@code EntryFormat.FIELDS} order, each preceded
+	 * by its length in bytes.
+	 */
+	private static void writeEntry(DataOutputStream out, Person p) throws IOException {
+		for (String field: EntryFormat.toFields(p)) {
+			byte[] bytes = (field == null ? "" : field).getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	/**
+	 * Helper function that accepts followers until this leader is closed, on its own thread.
+	 */
+	private void accept() {
+		while (!closed) {
+			try {
+				SocketChannel channel = server.accept();
+				Session session = new Session(channel);
+				Thread thread = new Thread(session, "phonebook-replication-follower");
+				thread.setDaemon(true);
+				thread.start();
+			} catch (IOException e) {
+				// closed, or a follower gave up connecting; either way there's nothing to send it
+			}
+		}
+	}
+
+	/**
+	 * Helper function that deletes a Unix domain socket nobody is listening on any more, so that it can be
+	 * bound again.
+	 */
+	private static void removeStaleSocket(Path path) throws IOException {
+		if (!Files.exists(path) || Files.isRegularFile(path) || Files.isDirectory(path)) {
+			return;
+		}
+		try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(path))) {
+			assert channel.isConnected();			// somebody answered, so it isn't stale
+		} catch (IOException e) {
+			Files.delete(path);
+			return;
+		}
+		throw new BindException("Another leader is listening on " + path);
+	}
+
+	/**
+	 * A change in the journal, already formatted as it's sent.  The journal is a list linked from the
+	 * oldest record a follower hasn't sent yet, so records are garbage collected once every follower has
+	 * sent them.
+	 */
+	private static final class Record {
+		final long mutationCount;
+		final byte[] bytes;
+		final long end;							// bytes appended to the journal up to this record
+		volatile Record next;
+
+		Record(long mutationCount, byte[] bytes, long end) {
+			this.mutationCount = mutationCount;
+			this.bytes = bytes;
+			this.end = end;
+		}
+	}
+
+	/**
+	 * Sends the snapshot and then the journal to one follower, on a thread of its own.
+	 */
+	private final class Session implements Runnable {
+		private final SocketChannel channel;
+		private volatile Record sent;			// the last record of the journal sent to the follower
+
+		Session(SocketChannel channel) {
+			this.channel = channel;
+		}
+
+		@Override
+		public void run() {
+			try {
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+						Channels.newOutputStream(channel), SEND_BUFFER_SIZE));
+				out.writeInt(MAGIC);
+				synchronized (ReplicationLeader.this) {
+					sent = tail;
+					sessions.add(this);					// changes from here on are kept for this follower
+				}
+				long snapshotMutationCount = sendSnapshot(out);
+				while (!closed && channel.isOpen()) {
+					Record next = awaitNext();
+					for (; next != null; next = next.next) {
+						if (next.mutationCount > snapshotMutationCount) {
+							out.write(next.bytes);
+						}
+						sent = next;
+					}
+					out.writeByte(HEARTBEAT);
+					out.writeLong(phoneBook.getMutationCount());
+					out.writeLong(System.currentTimeMillis());
+					out.flush();
+				}
+			} catch (IOException e) {
+				// the follower went away, or was disconnected for falling behind
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				sessions.remove(this);
+				disconnect();
+			}
+		}
+
+		/**
+		 * Helper function that sends the entries as they are now, a batch at a time, then returns the
+		 * mutation count they were taken at.  Changes up to that count are already in the snapshot, so
+		 * the records for them that follow in the journal are skipped.
+		 */
+		private long sendSnapshot(DataOutputStream out) throws IOException {
+			try (PhoneBook.Snapshot snapshot = phoneBook.openSnapshot()) {
+				out.writeByte(SNAPSHOT);
+				out.writeLong(snapshot.getMutationCount());
+				out.writeLong(System.currentTimeMillis());
+				out.writeInt(snapshot.size());
+				ByteArrayOutputStream batchBytes = new ByteArrayOutputStream(SEND_BUFFER_SIZE);
+				DataOutputStream batch = new DataOutputStream(batchBytes);
+				for (int from = 0; from < snapshot.size(); ) {
+					from = snapshot.read(from, (id, p) -> {
+						batch.writeLong(id);
+						writeEntry(batch, p);
+					});
+					batchBytes.writeTo(out);			// outside the PhoneBook's lock
+					batchBytes.reset();
+				}
+				return snapshot.getMutationCount();
+			}
+		}
+
+		/**
+		 * Helper function that waits until there's a record that hasn't been sent, or for at most a
+		 * heartbeat.
+		 * @return the first record that hasn't been sent, or null if there's none yet.
+		 */
+		private Record awaitNext() throws InterruptedException {
+			synchronized (ReplicationLeader.this) {
+				if (sent.next == null && !closed) {
+					ReplicationLeader.this.wait(HEARTBEAT_MILLIS);
+				}
+				return sent.next;
+			}
+		}
+
+		/**
+		 * Helper function that closes the connection, which also stops a send that's under way.
+		 */
+		void disconnect() {
+			try {
+				channel.close();
+			} catch (IOException e) {
+				// it's closed anyway
+			}
+		}
+	}
+
+}
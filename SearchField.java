@@ -0,0 +1,93 @@
+package phonebook;
+
+import java.util.Locale;
+
+/**
+ * The fields of a Person that the PhoneBook can look entries up by.  Each field knows how to pull its
+ * value out of a Person, and how to normalize both that value and a user's query the same way, so that
+ * an index keyed by {@code key(Person)} can be probed with {@code normalize(query)}.
+ * @author Jake McGrath
+ *
+ */
+public enum SearchField {
+
+	FIRST_NAME {
+		@Override
+		String key(Person p) {
+			return lower(p.getFirstName());
+		}
+	},
+	LAST_NAME {
+		@Override
+		String key(Person p) {
+			return lower(p.getLastName());
+		}
+	},
+	FULL_NAME {
+		@Override
+		String key(Person p) {
+			return lower(p.getFullName());
+		}
+
+		@Override
+		String normalize(String query) {
+			query = query.strip();
+			if (!query.contains(",")) {			// "John Robert Doe" -> "Doe, John Robert"
+				query = Person.parseName(query);
+			}
+			return lower(query);
+		}
+	},
+	PHONE_NUMBER {
+		@Override
+		String key(Person p) {
+			return p.getPhoneNumber();
+		}
+
+		@Override
+		String normalize(String query) {
+			return Person.phoneNumberFormatter(query.strip());
+		}
+	},
+	CITY {
+		@Override
+		String key(Person p) {
+			return (p.getAddress() == null ? "" : lower(p.getAddress().getCity()));
+		}
+	},
+	STATE {
+		@Override
+		String key(Person p) {
+			return (p.getAddress() == null ? "" : p.getAddress().getState());
+		}
+
+		@Override
+		String normalize(String query) {
+			return Address.stateFormatter(query.strip());
+		}
+	},
+	ZIP_CODE {
+		@Override
+		String key(Person p) {
+			return (p.getAddress() == null ? "" : p.getAddress().getZipCode());
+		}
+	};
+
+	/**
+	 * Returns the normalized value of this field for the Person passed as a parameter.
+	 */
+	abstract String key(Person p);
+
+	/**
+	 * Normalizes a query value so it can be compared with the result of {@code key(Person)}.
+	 * @throws InvalidPhoneNumberException if this is PHONE_NUMBER and the query isn't a valid number.
+	 * @throws InvalidStateException if this is STATE and the query isn't a valid state.
+	 */
+	String normalize(String query) {
+		return lower(query.strip());
+	}
+
+	private static String lower(String s) {
+		return (s == null ? "" : s.toLowerCase(Locale.ROOT));
+	}
+}
@@ -0,0 +1,83 @@
+package phonebook;
+
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+
+/**
+ * Canonical instances of the strings that repeat across entries, such as first and last names, cities,
+ * states, and zip codes, so that every entry with the same value shares one String instead of keeping its
+ * own copy.  One pool can be shared by any number of PhoneBooks (see {@code PhoneBookRegistry}), which is
+ * where most of the saving is: a city or a common name is stored once per JVM, not once per entry of
+ * every PhoneBook.
+ * <p>
+ * The pool only holds its strings weakly, so a value that no entry uses anymore (e.g. once the PhoneBook
+ * that used it has been evicted) is garbage collected as usual.  It's safe to use from any thread.
+ * @author Jake McGrath
+ *
+ */
+public class StringPool {
+
+	// a map entry (itself a weak reference to the key), the weak reference to the value, and table slots
+	private static final long ENTRY = ObjectSizes.align(ObjectSizes.HEADER + 7 * ObjectSizes.REFERENCE + 4)
+			+ ObjectSizes.align(ObjectSizes.HEADER + 4 * ObjectSizes.REFERENCE) + 2 * ObjectSizes.REFERENCE;
+
+	private final WeakHashMap<String, WeakReference<String>> strings;
+	private long bytes;							// estimated memory of the pool, as of count strings
+	private int count;
+
+
+	public StringPool() {
+		strings = new WeakHashMap<>();
+	}
+
+	/**
+	 * @param s a string, or null.
+	 * @return the pooled string equal to {@code s}, which becomes the pooled one if there was none.
+	 */
+	public synchronized String intern(String s) {
+		if (s == null) {
+			return null;
+		}
+		WeakReference<String> pooled = strings.get(s);
+		String result = (pooled == null ? null : pooled.get());
+		if (result == null) {
+			strings.put(s, new WeakReference<>(s));
+			bytes += ObjectSizes.string(s) + ENTRY;
+			count++;
+			result = s;
+		}
+		return result;
+	}
+
+	/**
+	 * @return true if {@code s} is the pooled instance of its value, rather than merely equal to it.
+	 */
+	public synchronized boolean isPooled(String s) {
+		WeakReference<String> pooled = (s == null ? null : strings.get(s));
+		return (pooled != null && pooled.get() == s);
+	}
+
+	/**
+	 * @return the number of distinct strings in this pool.
+	 */
+	public synchronized int size() {
+		return strings.size();
+	}
+
+	/**
+	 * @return an estimate of the heap used by this pool: its strings and its own bookkeeping.  The
+	 * estimate is kept up to date as strings are added, and only walks the pool again once some of them
+	 * have been garbage collected.
+	 */
+	public synchronized long estimateMemory() {
+		if (strings.size() != count) {
+			bytes = 0;
+			for (String s: strings.keySet()) {
+				bytes += ObjectSizes.string(s) + ENTRY;
+			}
+			count = strings.size();
+		}
+		return bytes;
+	}
+
+}
@@ -0,0 +1,223 @@
+package phonebook;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Generates realistic, reproducible PhoneBooks for benchmarking and load testing.  First names, last
+ * names, and cities are drawn from Zipf distributions, so a few values are very common and most are
+ * rare, the same as in a real PhoneBook; each city belongs to a state, so states are skewed too.
+ * <p>
+ * Every row is generated from its own random stream seeded by the generator's seed and the row number,
+ * which means row {@code n} is always the same Person for a given seed, no matter how many rows are
+ * generated or in what order.  Phone numbers are unique for up to 8 billion rows, and every Person passes
+ * the same validation as a contact entered by hand.  Writing a file only ever holds one row in memory.
+ * @author Jake McGrath
+ *
+ */
+public class SyntheticPhoneBookGenerator {
+
+	protected static final long MAX_ROWS = 100_000_000L;
+
+	private static final String[] FIRST_NAMES = {"James", "Mary", "Robert", "Patricia", "John", "Jennifer",
+			"Michael", "Linda", "David", "Elizabeth", "William", "Barbara", "Richard", "Susan", "Joseph",
+			"Jessica", "Thomas", "Sarah", "Christopher", "Karen", "Charles", "Lisa", "Daniel", "Nancy",
+			"Matthew", "Betty", "Anthony", "Sandra", "Mark", "Margaret", "Donald", "Ashley", "Steven",
+			"Kimberly", "Andrew", "Emily", "Paul", "Donna", "Joshua", "Michelle", "Kenneth", "Carol", "Kevin",
+			"Amanda", "Brian", "Melissa", "Timothy", "Deborah", "Ronald", "Stephanie", "George", "Dorothy",
+			"Jason", "Rebecca", "Edward", "Sharon", "Jeffrey", "Laura", "Ryan", "Cynthia", "Jacob", "Amy",
+			"Gary", "Kathleen", "Nicholas", "Angela", "Eric", "Shirley", "Jonathan", "Brenda", "Stephen",
+			"Emma", "Larry", "Anna", "Justin", "Pamela", "Scott", "Nicole", "Brandon", "Samantha", "Benjamin",
+			"Katherine", "Samuel", "Christine", "Gregory", "Helen", "Alexander", "Debra", "Patrick", "Rachel",
+			"Frank", "Carolyn", "Raymond", "Janet", "Jack", "Maria", "Dennis", "Olivia", "Jerry", "Heather"};
+	private static final String[] MIDDLE_NAMES = {"Lee", "Ann", "Marie", "James", "Lynn", "Michael", "Rose",
+			"Jean", "Joseph", "Elizabeth", "Ray", "Louise", "Allen", "Grace", "Edward", "Jane", "Wayne", "Mae",
+			"Paul", "Kay"};
+	private static final String[] LAST_NAMES = {"Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia",
+			"Miller", "Davis", "Rodriguez", "Martinez", "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson",
+			"Thomas", "Taylor", "Moore", "Jackson", "Martin", "Lee", "Perez", "Thompson", "White", "Harris",
+			"Sanchez", "Clark", "Ramirez", "Lewis", "Robinson", "Walker", "Young", "Allen", "King", "Wright",
+			"Scott", "Torres", "Nguyen", "Hill", "Flores", "Green", "Adams", "Nelson", "Baker", "Hall",
+			"Rivera", "Campbell", "Mitchell", "Carter", "Roberts", "Gomez", "Phillips", "Evans", "Turner",
+			"Diaz", "Parker", "Cruz", "Edwards", "Collins", "Reyes", "Stewart", "Morris", "Morales", "Murphy",
+			"Cook", "Rogers", "Gutierrez", "Ortiz", "Morgan", "Cooper", "Peterson", "Bailey", "Reed", "Kelly",
+			"Howard", "Ramos", "Kim", "Cox", "Ward", "Richardson", "Watson", "Brooks", "Chavez", "Wood",
+			"James", "Bennett", "Gray", "Mendoza", "Ruiz", "Hughes", "Price", "Alvarez", "Castillo", "Sanders",
+			"Patel", "Myers", "Long", "Ross", "Foster", "Jimenez", "Powell", "Jenkins", "Perry", "Russell",
+			"Sullivan", "Bell", "Coleman", "Butler", "Henderson", "Barnes", "Gonzales", "Fisher", "Vasquez",
+			"Simmons", "Romero", "Jordan", "Patterson", "Alexander", "Hamilton", "Graham", "Reynolds",
+			"Griffin", "Wallace", "Moreno", "West", "Cole", "Hayes", "Bryant", "Herrera", "Gibson", "Ellis",
+			"Tran", "Medina", "Aguilar", "Stevens", "Murray", "Ford", "Castro", "Marshall", "Owens", "Harrison",
+			"Fernandez", "McDonald", "Woods", "Washington", "Kennedy", "Wells", "Vargas", "Henry", "Chen",
+			"Freeman", "Webb", "Tucker", "Guzman", "Burns", "Crawford", "Olson", "Simpson", "Porter", "Hunter",
+			"Gordon", "Mendez", "Silva", "Shaw", "Snyder", "Mason", "Dixon", "Munoz", "Hunt", "Hicks", "Holmes",
+			"Palmer", "Wagner", "Black", "Robertson", "Boyd", "Rose", "Stone", "Salazar", "Fox", "Warren",
+			"Mills", "Meyer", "Rice", "Schmidt", "Garza", "Daniels", "Ferguson", "Nichols", "Stephens", "Soto",
+			"Weaver", "Ryan", "Gardner", "Payne", "Grant", "Dunn", "Kelley", "Spencer", "Hawkins", "McGrath"};
+	// city, state, and the first three digits of the city's zip codes
+	private static final String[][] CITIES = {
+			{"New York", "NY", "100"}, {"Los Angeles", "CA", "900"}, {"Chicago", "IL", "606"},
+			{"Houston", "TX", "770"}, {"Phoenix", "AZ", "850"}, {"Philadelphia", "PA", "191"},
+			{"San Antonio", "TX", "782"}, {"San Diego", "CA", "921"}, {"Dallas", "TX", "752"},
+			{"Jacksonville", "FL", "322"}, {"Austin", "TX", "787"}, {"Fort Worth", "TX", "761"},
+			{"San Jose", "CA", "951"}, {"Columbus", "OH", "432"}, {"Charlotte", "NC", "282"},
+			{"Indianapolis", "IN", "462"}, {"San Francisco", "CA", "941"}, {"Seattle", "WA", "981"},
+			{"Denver", "CO", "802"}, {"Oklahoma City", "OK", "731"}, {"Nashville", "TN", "372"},
+			{"Washington", "DC", "200"}, {"El Paso", "TX", "799"}, {"Las Vegas", "NV", "891"},
+			{"Boston", "MA", "021"}, {"Detroit", "MI", "482"}, {"Portland", "OR", "972"},
+			{"Louisville", "KY", "402"}, {"Memphis", "TN", "381"}, {"Baltimore", "MD", "212"},
+			{"Milwaukee", "WI", "532"}, {"Albuquerque", "NM", "871"}, {"Tucson", "AZ", "857"},
+			{"Fresno", "CA", "937"}, {"Sacramento", "CA", "958"}, {"Mesa", "AZ", "852"},
+			{"Kansas City", "MO", "641"}, {"Atlanta", "GA", "303"}, {"Omaha", "NE", "681"},
+			{"Colorado Springs", "CO", "809"}, {"Raleigh", "NC", "276"}, {"Miami", "FL", "331"},
+			{"Minneapolis", "MN", "554"}, {"Tulsa", "OK", "741"}, {"Cleveland", "OH", "441"},
+			{"Wichita", "KS", "672"}, {"New Orleans", "LA", "701"}, {"St Louis", "MO", "631"},
+			{"Pittsburgh", "PA", "152"}, {"Cincinnati", "OH", "452"}, {"St Charles", "MO", "633"},
+			{"St Peters", "MO", "633"}, {"Springfield", "IL", "627"}, {"Madison", "WI", "537"},
+			{"Boise", "ID", "837"}, {"Des Moines", "IA", "503"}, {"Salt Lake City", "UT", "841"},
+			{"Anchorage", "AK", "995"}, {"Honolulu", "HI", "968"}, {"Burlington", "VT", "054"},
+			{"Cheyenne", "WY", "820"}, {"Billings", "MT", "591"}, {"Fargo", "ND", "581"},
+			{"Sioux Falls", "SD", "571"}, {"Portland", "ME", "041"}, {"Manchester", "NH", "031"},
+			{"Providence", "RI", "029"}, {"Hartford", "CT", "061"}, {"Wilmington", "DE", "198"},
+			{"Newark", "NJ", "071"}, {"Charleston", "WV", "253"}, {"Little Rock", "AR", "722"},
+			{"Jackson", "MS", "392"}, {"Birmingham", "AL", "352"}, {"Columbia", "SC", "292"}};
+	private static final String[] STREET_NAMES = {"Main", "Oak", "Pine", "Maple", "Cedar", "Elm", "Washington",
+			"Lake", "Hill", "Park", "Market", "Walnut", "Church", "Spring", "Center", "Cullerton", "State",
+			"Highland", "Jefferson", "Lincoln", "Madison", "Franklin", "Ridge", "River", "Sunset", "Chestnut",
+			"Willow", "Jackson", "Meadow", "Forest"};
+	private static final String[] STREET_SUFFIXES = {"St", "Ave", "Blvd", "Rd", "Ln", "Dr", "Ct", "Way"};
+
+	private static final long PHONE_SPACE = 8_000_000_000L;		// 10-digit numbers from 2000000000
+	private static final long PHONE_MULTIPLIER = 2_654_435_761L;	// coprime with PHONE_SPACE
+
+	private static final Zipf FIRST_NAME_DIST = new Zipf(FIRST_NAMES.length, 1.0);
+	private static final Zipf LAST_NAME_DIST = new Zipf(LAST_NAMES.length, 1.1);
+	private static final Zipf CITY_DIST = new Zipf(CITIES.length, 1.2);
+
+	private final long seed;
+
+
+	public SyntheticPhoneBookGenerator(long seed) {
+		this.seed = seed;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * @param row the row number, starting at 0.
+	 * @return the Person in row {@code row} for this generator's seed.
+	 */
+	public Person person(long row) {
+		assert row >= 0;
+		SplittableRandom random = new SplittableRandom(mix(seed, row));
+		String firstName = FIRST_NAMES[FIRST_NAME_DIST.sample(random)];
+		String lastName = LAST_NAMES[LAST_NAME_DIST.sample(random)];
+		String[] city = CITIES[CITY_DIST.sample(random)];
+		String street = (1 + random.nextInt(9999)) + " " + STREET_NAMES[random.nextInt(STREET_NAMES.length)]
+				+ " " + STREET_SUFFIXES[random.nextInt(STREET_SUFFIXES.length)];
+		String zipCode = city[2] + (random.nextInt(90) + 10);
+		String phoneNumber = Long.toString(2_000_000_000L + Math.floorMod(row * PHONE_MULTIPLIER + seed,
+				PHONE_SPACE));
+		Address a1 = new Address(street, city[0], city[1], zipCode);
+		if (random.nextInt(10) < 4) {		// 40% of contacts have no middle name
+			return new Person(firstName, lastName, phoneNumber, a1);
+		}
+		return new Person(firstName, MIDDLE_NAMES[random.nextInt(MIDDLE_NAMES.length)], lastName, phoneNumber,
+				a1);
+	}
+
+	/**
+	 * Builds a PhoneBook containing rows 0 through {@code rows - 1} directly in memory.
+	 */
+	public PhoneBook generate(int rows) {
+		PhoneBook result = new PhoneBook();
+		for (int i = 0; i < rows; i++) {
+			result.loadEntry(person(i));
+		}
+		return result;
+	}
+
+	/**
+	 * Streams rows 0 through {@code rows - 1} to the writer passed as a parameter, then flushes it.
+	 * @throws IOException if the writer's output can't be written.
+	 */
+	public void write(EntryWriter writer, long rows) throws IOException {
+		if (rows < 0 || rows > MAX_ROWS) {
+			throw new IllegalArgumentException("rows must be between 0 and " + MAX_ROWS);
+		}
+		for (long i = 0; i < rows; i++) {
+			writer.write(person(i));
+		}
+		writer.flush();
+	}
+
+	/**
+	 * Streams rows 0 through {@code rows - 1} to {@code file} in the format passed as a parameter.
+	 * @throws IOException if the file can't be written.
+	 */
+	public void write(Path file, EntryFormat format, long rows) throws IOException {
+		EntryFormat.writeFile(file, out -> {
+			try (EntryWriter writer = format.newWriter(out)) {
+				write(writer, rows);
+			}
+		});
+	}
+
+	/**
+	 * SplitMix64 finalizer over the seed and row number, so neighbouring rows get unrelated streams.
+	 */
+	private static long mix(long seed, long row) {
+		long z = seed + (row + 1) * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Zipf distribution over the ranks 0 to n - 1, sampled by binary search of its cumulative distribution.
+	 */
+	private static class Zipf {
+		private final double[] cumulative;
+
+		private Zipf(int n, double exponent) {
+			cumulative = new double[n];
+			double total = 0;
+			for (int rank = 0; rank < n; rank++) {
+				total += 1.0 / Math.pow(rank + 1, exponent);
+				cumulative[rank] = total;
+			}
+			for (int rank = 0; rank < n; rank++) {
+				cumulative[rank] /= total;
+			}
+		}
+
+		private int sample(SplittableRandom random) {
+			int index = Arrays.binarySearch(cumulative, random.nextDouble());
+			return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+		}
+	}
+
+	/**
+	 * Writes a synthetic PhoneBook file.  The format is chosen from the file's extension (.txt, .csv, or
+	 * .jsonl), and the file is compressed if that's followed by .pbz.<br>
+	 * Usage: {@code SyntheticPhoneBookGenerator <rows> <file> [seed]}
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.out.println("Usage: SyntheticPhoneBookGenerator <rows> <file> [seed]");
+			return;
+		}
+		long rows = Long.parseLong(args[0]);
+		Path file = Paths.get(args[1]);
+		long seed = (args.length > 2 ? Long.parseLong(args[2]) : 42L);
+		long start = System.nanoTime();
+		new SyntheticPhoneBookGenerator(seed).write(file, EntryFormat.forFileName(file.toString()), rows);
+		System.out.printf("Wrote %d rows to %s in %d ms%n", rows, file, (System.nanoTime() - start) / 1_000_000);
+	}
+
+}
@@ -0,0 +1,56 @@
+package phonebook;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads the original PhoneBook.txt format, one entry per line, as written by {@code Person.toString()}.
+ * @author Jake McGrath
+ *
+ */
+class TextEntryReader implements EntryReader {
+
+	private final BufferedReader in;
+	private final ImportReport report;
+	private long line;
+
+
+	public TextEntryReader(Reader in, ImportReport report) {
+		this.in = (in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in, 1 << 16));
+		this.report = report;
+		this.line = 0;
+	}
+
+	@Override
+	public Person read() throws IOException {
+		String entry = in.readLine();
+		while (entry != null) {
+			line++;
+			if (!entry.isBlank()) {
+				try {
+					Person p = PhoneBook.parseEntry(entry);
+					report.imported();
+					return p;
+				} catch (ArrayIndexOutOfBoundsException e) {
+					report.rejected(line, "Expected 6 comma-separated fields", entry);
+				} catch (RuntimeException e) {
+					report.rejected(line, EntryFormat.describe(e), entry);
+				}
+			}
+			entry = in.readLine();
+		}
+		return null;
+	}
+
+	@Override
+	public ImportReport getReport() {
+		return report;
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+}
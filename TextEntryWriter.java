@@ -0,0 +1,45 @@
+package phonebook;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes the original PhoneBook.txt format, one {@code Person.toString()} per line.  The format has no
+ * escaping, so an entry with ", " or a line break in a field is refused rather than written as a line that
+ * can't be read back; CSV or JSON Lines can hold it.
+ * @author Jake McGrath
+ *
+ */
+class TextEntryWriter implements EntryWriter {
+
+	private final Writer out;
+
+
+	public TextEntryWriter(Writer out) {
+		this.out = (out instanceof BufferedWriter ? out : new BufferedWriter(out, 1 << 16));
+	}
+
+	@Override
+	public void write(Person person) throws IOException {
+		for (String field: EntryFormat.toFields(person)) {
+			if (field != null && (field.contains(", ") || field.indexOf('\n') >= 0 || field.indexOf('\r') >= 0)) {
+				throw new IOException("'" + person.getFullName() + "' can't be saved as text: \"" + field
+						+ "\" contains a comma or line break; save as .csv or .jsonl instead");
+			}
+		}
+		person.appendTo(out);
+		out.write('\n');
+	}
+
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+
+}
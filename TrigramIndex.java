@@ -0,0 +1,322 @@
+package phonebook;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+
+/**
+ * Inverted index of character trigrams used by {@code PhoneBook.searchContaining(String)}.  Every Person
+ * added to the index is given an internal document number, and each three-character sequence found in the
+ * Person's first, middle, and last names, street address, city, and phone number digits maps to a posting
+ * list: a sorted {@code int[]} of the document numbers containing it.  A substring query is answered by
+ * intersecting the posting lists of the query's trigrams (smallest list first) and then confirming each
+ * surviving candidate against the actual field values, so no scan of the whole PhoneBook is required.
+ * @author Jake McGrath
+ *
+ */
+class TrigramIndex {
+
+	private Person[] docs;						// document number -> Person (null once removed)
+	private int docCount;						// number of document numbers handed out so far
+	private int liveCount;						// number of documents that haven't been removed
+	private HashMap<Long, PostingList> postings;
+	private IdentityHashMap<Person, Integer> docNumbers;
+
+
+	public TrigramIndex() {
+		docs = new Person[2];
+		docCount = 0;
+		liveCount = 0;
+		postings = new HashMap<>();
+		docNumbers = new IdentityHashMap<>();
+	}
+
+	/**
+	 * Builds a new index containing every Person of {@code entries}.
+	 * @param entries the entries of a PhoneBook.
+	 * @return the populated index.
+	 */
+	public static TrigramIndex build(Iterable<Person> entries) {
+		TrigramIndex index = new TrigramIndex();
+		for (Person p: entries) {
+			index.add(p);
+		}
+		return index;
+	}
+
+	public int size() {
+		return liveCount;
+	}
+
+	/**
+	 * Adds a Person to this index.  Document numbers only ever increase, so appending the new number to
+	 * each posting list keeps every list sorted without any extra work.
+	 * @param person the Person to be indexed.
+	 */
+	public void add(Person person) {
+		assert person != null;
+		if (docNumbers.containsKey(person)) {
+			return;
+		}
+		if (docCount == docs.length) {
+			docs = Arrays.copyOf(docs, docCount * 2);
+		}
+		int doc = docCount;
+		docs[doc] = person;
+		docCount++;
+		liveCount++;
+		docNumbers.put(person, doc);
+		String[] fields = fields(person);
+		for (String field: fields) {
+			for (int i = 0; i + 3 <= field.length(); i++) {
+				long key = trigram(field, i);
+				PostingList list = postings.get(key);
+				if (list == null) {
+					list = new PostingList();
+					postings.put(key, list);
+				}
+				list.append(doc);
+			}
+		}
+	}
+
+	/**
+	 * Removes a Person from this index.  The Person's document number is only marked as removed; its
+	 * stale postings are skipped during searches and cleared out once more than half of all document
+	 * numbers have been removed.
+	 * @param person the Person to be removed.
+	 */
+	public void remove(Person person) {
+		Integer doc = docNumbers.remove(person);
+		if (doc == null) {
+			return;
+		}
+		docs[doc] = null;
+		liveCount--;
+		if (docCount > 64 && liveCount < docCount / 2) {
+			compact();
+		}
+	}
+
+	/**
+	 * Re-indexes a Person whose searchable fields may have changed.
+	 * @param person the Person to be re-indexed.
+	 */
+	public void update(Person person) {
+		remove(person);
+		add(person);
+	}
+
+	/**
+	 * Finds every Person where at least one indexed field contains {@code text}, ignoring case.  If the
+	 * query only consists of digits and phone number punctuation, the punctuation is dropped so that
+	 * "(970)-688" and "970688" both match the number (970)-688-1234.
+	 * @param text the partial text to search for.
+	 * @return the matching Persons in document order; an empty array if there are no matches.
+	 */
+	public Person[] search(String text) {
+		String query = normalizeQuery(text);
+		if (query.isEmpty()) {
+			return new Person[0];
+		}
+		if (query.length() < 3) {				// no trigrams to look up, so check every document
+			return verify(null, 0, query);
+		}
+		long[] keys = queryTrigrams(query);
+		PostingList[] lists = new PostingList[keys.length];
+		for (int i = 0; i < keys.length; i++) {
+			lists[i] = postings.get(keys[i]);
+			if (lists[i] == null) {				// a trigram that appears nowhere rules out every document
+				return new Person[0];
+			}
+		}
+		Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+		int[] candidates = Arrays.copyOf(lists[0].ids, lists[0].size);
+		int candidateCount = candidates.length;
+		for (int i = 1; i < lists.length && candidateCount > 0; i++) {
+			candidateCount = intersect(candidates, candidateCount, lists[i]);
+		}
+		return verify(candidates, candidateCount, query);
+	}
+
+	/**
+	 * Confirms that each candidate document really contains the query; trigram matches alone can't tell
+	 * "abcd" apart from "abc bcd".
+	 * @param candidates the candidate document numbers, or null to check every live document.
+	 * @param count the number of candidates.
+	 * @param query the normalized query.
+	 * @return the Persons that contain the query.
+	 */
+	private Person[] verify(int[] candidates, int count, String query) {
+		int total = (candidates == null ? docCount : count);
+		Person[] result = new Person[2];
+		int resultSize = 0;
+		for (int i = 0; i < total; i++) {
+			Person p = docs[candidates == null ? i : candidates[i]];
+			if (p == null || !contains(p, query)) {
+				continue;
+			}
+			if (resultSize == result.length) {
+				result = Arrays.copyOf(result, resultSize * 2);
+			}
+			result[resultSize] = p;
+			resultSize++;
+		}
+		return Arrays.copyOf(result, resultSize);
+	}
+
+	/**
+	 * Intersects the first {@code count} candidates with a posting list in place.  Both are sorted, so
+	 * each candidate is located by galloping forward through the posting list instead of stepping through
+	 * it one element at a time, which keeps intersecting a short list with a long one cheap.
+	 * @return the number of candidates that remain.
+	 */
+	private static int intersect(int[] candidates, int count, PostingList list) {
+		int[] ids = list.ids;
+		int kept = 0;
+		int low = 0;
+		for (int i = 0; i < count && low < list.size; i++) {
+			int target = candidates[i];
+			int step = 1;
+			int high = low;
+			while (high < list.size && ids[high] < target) {
+				low = high + 1;
+				high += step;
+				step *= 2;
+			}
+			int pos = Arrays.binarySearch(ids, low, Math.min(high + 1, list.size), target);
+			if (pos >= 0) {
+				candidates[kept] = target;
+				kept++;
+				low = pos + 1;
+			} else {
+				low = -pos - 1;
+			}
+		}
+		return kept;
+	}
+
+	/**
+	 * @return an estimate of the heap used by this index, not counting the Persons it indexes.
+	 */
+	public long estimateMemory() {
+		long result = ObjectSizes.array((long) docs.length * ObjectSizes.REFERENCE)
+				+ (long) docNumbers.size() * (4 * ObjectSizes.REFERENCE + ObjectSizes.BOXED_INT);
+		for (PostingList list: postings.values()) {
+			result += ObjectSizes.HASH_MAP_ENTRY + ObjectSizes.BOXED_LONG + ObjectSizes.ARRAY_LIST
+					+ ObjectSizes.array((long) list.ids.length * 4);
+		}
+		return result;
+	}
+
+	private void compact() {
+		TrigramIndex fresh = new TrigramIndex();
+		for (int i = 0; i < docCount; i++) {
+			if (docs[i] != null) {
+				fresh.add(docs[i]);
+			}
+		}
+		docs = fresh.docs;
+		docCount = fresh.docCount;
+		liveCount = fresh.liveCount;
+		postings = fresh.postings;
+		docNumbers = fresh.docNumbers;
+	}
+
+	private static boolean contains(Person p, String query) {
+		for (String field: fields(p)) {
+			if (field.contains(query)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Helper function that returns the normalized, searchable fields of a Person.
+	 */
+	private static String[] fields(Person p) {
+		Address a = p.getAddress();
+		return new String[] {
+				normalize(p.getFirstName()),
+				normalize(p.getMiddleName()),
+				normalize(p.getLastName()),
+				digits(p.getPhoneNumber()),
+				(a == null ? "" : normalize(a.getStreetAddress())),
+				(a == null ? "" : normalize(a.getCity()))
+		};
+	}
+
+	private static String normalize(String s) {
+		return (s == null ? "" : s.toLowerCase(Locale.ROOT));
+	}
+
+	private static String digits(String s) {
+		if (s == null) {
+			return "";
+		}
+		StringBuilder result = new StringBuilder(10);
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (Character.isDigit(c)) {
+				result.append(c);
+			}
+		}
+		return result.toString();
+	}
+
+	protected static String normalizeQuery(String text) {
+		String query = normalize(text).strip();
+		boolean phoneLike = false;
+		for (int i = 0; i < query.length(); i++) {
+			char c = query.charAt(i);
+			if (Character.isDigit(c)) {
+				phoneLike = true;
+			} else if (c != '(' && c != ')' && c != '-' && c != ' ') {
+				return query;
+			}
+		}
+		return (phoneLike ? digits(query) : query);
+	}
+
+	private static long[] queryTrigrams(String query) {
+		long[] keys = new long[query.length() - 2];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = trigram(query, i);
+		}
+		Arrays.sort(keys);
+		int distinct = 0;
+		for (int i = 0; i < keys.length; i++) {
+			if (i == 0 || keys[i] != keys[i - 1]) {
+				keys[distinct] = keys[i];
+				distinct++;
+			}
+		}
+		return Arrays.copyOf(keys, distinct);
+	}
+
+	private static long trigram(String s, int start) {
+		return ((long) s.charAt(start) << 32) | ((long) s.charAt(start + 1) << 16) | s.charAt(start + 2);
+	}
+
+	/**
+	 * A growable, sorted list of document numbers.
+	 */
+	private static class PostingList {
+		private int[] ids = new int[2];
+		private int size = 0;
+
+		private void append(int doc) {
+			if (size > 0 && ids[size - 1] == doc) {	// trigram repeated within the same Person
+				return;
+			}
+			if (size == ids.length) {
+				ids = Arrays.copyOf(ids, size * 2);
+			}
+			ids[size] = doc;
+			size++;
+		}
+	}
+
+}
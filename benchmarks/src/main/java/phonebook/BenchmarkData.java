@@ -0,0 +1,62 @@
+package phonebook;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic fixtures for the benchmarks, taken from a {@code SyntheticPhoneBookGenerator} with a
+ * fixed seed.  Person number {@code i} is always the same Person, and phone numbers are unique.
+ * @author Jake McGrath
+ *
+ */
+final class BenchmarkData {
+
+	private static final SyntheticPhoneBookGenerator GENERATOR = new SyntheticPhoneBookGenerator(42L);
+
+	private BenchmarkData() {
+	}
+
+	protected static Person person(int i) {
+		return GENERATOR.person(i);
+	}
+
+	protected static String line(int i) {
+		return person(i).toString();
+	}
+
+	protected static PhoneBook book(int size) {
+		return GENERATOR.generate(size);
+	}
+
+	/**
+	 * @return {@code count} Person numbers in [0, bound), drawn with a fixed seed.
+	 */
+	protected static int[] sample(int count, int bound) {
+		SplittableRandom random = new SplittableRandom(42);
+		int[] result = new int[count];
+		for (int i = 0; i < count; i++) {
+			result[i] = random.nextInt(bound);
+		}
+		return result;
+	}
+
+	/**
+	 * @return {@code count} different numbers in [0, bound), drawn without replacement with a fixed seed:
+	 * the first {@code count} of a shuffle of [0, bound), found without building all of it.
+	 */
+	protected static int[] sampleDistinct(int count, int bound) {
+		if (count > bound) {
+			throw new IllegalArgumentException("Can't draw " + count + " different numbers below " + bound);
+		}
+		SplittableRandom random = new SplittableRandom(42);
+		Map<Integer, Integer> moved = new HashMap<>();		// positions of the shuffle that aren't their own
+		int[] result = new int[count];
+		for (int i = 0; i < count; i++) {
+			int j = i + random.nextInt(bound - i);
+			result[i] = moved.getOrDefault(j, j);
+			moved.put(j, moved.getOrDefault(i, i));
+		}
+		return result;
+	}
+}
@@ -0,0 +1,97 @@
+package phonebook;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Saving and loading a PhoneBook of {@code size} entries as plain text ("none") or compressed at a given
+ * Deflate level.  Each save and load is timed once per iteration.  The file sizes and compression ratio
+ * are printed at the end of each trial, so throughput in bytes per second can be worked out from the
+ * timings.
+ * @author Jake McGrath
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx16g"})
+public class CompressionBenchmarks {
+
+	@Param({"10000", "100000", "1000000"})
+	public int size;
+
+	@Param({"none", "1", "6", "9"})
+	public String compression;
+
+	private PhoneBook book;
+	private Path saved;
+	private Path loaded;
+
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		book = BenchmarkData.book(size);
+		String suffix = (compression.equals("none") ? ".txt" : ".txt" + BlockCompressedOutputStream.EXTENSION);
+		saved = Files.createTempFile("PhoneBook-save-", suffix);
+		loaded = Files.createTempFile("PhoneBook-load-", suffix);
+		save(loaded);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		long plain = book.toString().getBytes(StandardCharsets.UTF_8).length;
+		long stored = Files.size(loaded);
+		System.out.printf("%n%d entries, compression %s: %d bytes of text stored in %d (ratio %.2f)%n", size,
+				compression, plain, stored, (double) plain / stored);
+		Files.deleteIfExists(saved);
+		Files.deleteIfExists(loaded);
+	}
+
+	@Benchmark
+	public void save() throws IOException {
+		save(saved);
+	}
+
+	@Benchmark
+	public PhoneBook load() throws IOException {
+		PhoneBook result = new PhoneBook();
+		result.importEntries(loaded, EntryFormat.TEXT);
+		return result;
+	}
+
+	private void save(Path file) throws IOException {
+		if (compression.equals("none")) {
+			book.exportEntries(file, EntryFormat.TEXT);
+			return;
+		}
+		OutputStream out = new BlockCompressedOutputStream(Files.newOutputStream(file),
+				Integer.parseInt(compression));
+		try (EntryWriter writer = EntryFormat.TEXT.newWriter(new BufferedWriter(new OutputStreamWriter(out,
+				StandardCharsets.UTF_8), 1 << 16))) {
+			book.exportEntries(writer);
+		}
+	}
+
+}
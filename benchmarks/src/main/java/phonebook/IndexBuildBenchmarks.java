@@ -0,0 +1,77 @@
+package phonebook;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Building the B+tree of a PhoneBook from {@code size} unsorted entries, as after a load, a merge, a bulk
+ * import, or a change of locale, on the calling thread ("serial") or on every core of the common fork/join
+ * pool ("parallel"), whatever {@code ParallelSort.THRESHOLD} would choose.  {@code buildTree} computes
+ * every entry's key, sorts, and fills the leaves; {@code buildTreeFromKeys} starts from keys already
+ * computed, as a merge does, so only sorts and fills.  The "fr-FR" order uses collation keys, which cost
+ * far more to compute than the default's lower-cased names.
+ * <p>
+ * The largest sizes need a big heap (about 35 GB at 50,000,000 entries, mostly the Persons themselves);
+ * pick sizes with {@code -p size=...} on smaller machines.
+ * @author Jake McGrath
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx48g"})
+public class IndexBuildBenchmarks {
+
+	@Param({"10000", "100000", "1000000", "10000000", "50000000"})
+	public int size;
+
+	@Param({"default", "fr-FR"})
+	public String order;
+
+	@Param({"serial", "parallel"})
+	public String mode;
+
+	private Person[] entries;
+	private String[] keys;
+	private NameCollation collation;
+	private boolean parallel;
+
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		entries = new Person[size];
+		Arrays.parallelSetAll(entries, BenchmarkData::person);
+		collation = (order.equals("default") ? NameCollation.DEFAULT
+				: NameCollation.of(Locale.forLanguageTag(order)));
+		keys = new String[size];
+		Arrays.parallelSetAll(keys, i -> collation.key(entries[i]));
+		parallel = mode.equals("parallel");
+	}
+
+	@Benchmark
+	public EntryTree buildTree() {
+		return EntryTree.of(entries, null, size, collation, parallel);
+	}
+
+	@Benchmark
+	public EntryTree buildTreeFromKeys() {
+		return EntryTree.of(entries, keys, size, collation, parallel);
+	}
+
+}
@@ -0,0 +1,64 @@
+package phonebook;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per-field validation and parsing done for every entry that is added or loaded.  These don't depend on
+ * the size of a PhoneBook, so they aren't parameterized by it.
+ * @author Jake McGrath
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParsingBenchmarks {
+
+	private static final String[] PHONE_NUMBERS = {"7089164236", "(636)-643-5698", "8475390126",
+			"(562)-859-2375"};
+	private static final String[] NAMES = {"John Doe", "John E Doe", "John Michael West Doe",
+			"Jake Kimball McGrath"};
+	private static final String[] STATES = {"IL", "mo", "Illinois", "new hampshire"};
+
+	private Person person;
+	private Address address;
+	private int cursor;
+
+
+	@Setup
+	public void setUp() {
+		address = new Address("120 E. Cullerton St.", "Chicago", "IL", "60616");
+		person = new Person("McGrath, Jake Kimball", "7089164236", address);
+	}
+
+	@Benchmark
+	public String setPhoneNumber() {
+		person.setPhoneNumber(PHONE_NUMBERS[cursor++ & 3]);
+		return person.getPhoneNumber();
+	}
+
+	@Benchmark
+	public String parseName() {
+		return Person.parseName(NAMES[cursor++ & 3]);
+	}
+
+	@Benchmark
+	public String setState() {
+		address.setState(STATES[cursor++ & 3]);
+		return address.getState();
+	}
+
+}
@@ -0,0 +1,131 @@
+package phonebook;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Read-only PhoneBook operations against a book of {@code size} entries.  Each invocation looks up a
+ * different Person from a fixed sample, so results aren't skewed by always hitting the same entry.
+ * Operations that print (e.g. {@code printAllEntries()}) write to a discarded stream.
+ * @author Jake McGrath
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx16g"})
+public class PhoneBookBenchmarks {
+
+	private static final int SAMPLE = 1024;		// must be a power of two
+
+	@Param({"1000", "10000", "100000", "1000000", "10000000"})
+	public int size;
+
+	private PhoneBook book;
+	private Person[] probes;
+	private String[] substrings;
+	private int cursor;
+	private PrintStream originalOut;
+
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		originalOut = System.out;
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+		book = BenchmarkData.book(size);
+		int[] sample = BenchmarkData.sample(SAMPLE, size);
+		probes = new Person[SAMPLE];
+		substrings = new String[SAMPLE];
+		for (int i = 0; i < SAMPLE; i++) {
+			probes[i] = BenchmarkData.person(sample[i]);
+			String street = probes[i].getAddress().getStreetAddress();
+			substrings[i] = street.substring(0, Math.min(street.length(), 6));
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		System.setOut(originalOut);
+	}
+
+	private Person nextProbe() {
+		return probes[cursor++ & (SAMPLE - 1)];
+	}
+
+	@Benchmark
+	public Person searchByPerson() {
+		return book.searchByPerson(nextProbe());
+	}
+
+	@Benchmark
+	public Person searchByFullName() {
+		return book.searchByFullName(nextProbe().getFullName());
+	}
+
+	@Benchmark
+	public Person searchByPhoneNumber() {
+		return book.searchByPhoneNumber(nextProbe().getPhoneNumber());
+	}
+
+	@Benchmark
+	public Person[] searchByFirstName() {
+		return book.searchByFirstName(nextProbe().getFirstName());
+	}
+
+	@Benchmark
+	public Person[] searchByLastName() {
+		return book.searchByLastName(nextProbe().getLastName());
+	}
+
+	@Benchmark
+	public Person[] searchByCity() {
+		return book.searchByCity(nextProbe().getAddress().getCity());
+	}
+
+	@Benchmark
+	public Person[] searchByState() {
+		return book.searchByState(nextProbe().getAddress().getState());
+	}
+
+	@Benchmark
+	public Person[] searchContaining() {
+		return book.searchContaining(substrings[cursor++ & (SAMPLE - 1)]);
+	}
+
+	@Benchmark
+	public Person[] query() {
+		Person p = nextProbe();
+		return book.query().lastName(p.getLastName()).city(p.getAddress().getCity())
+				.state(p.getAddress().getState()).execute();
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public void printAllEntries() {
+		book.printAllEntries();
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public String toStringAll() {
+		return book.toString();
+	}
+
+}
@@ -0,0 +1,122 @@
+package phonebook;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Operations that change the size of a PhoneBook.  Each measurement iteration starts from a freshly
+ * built book of {@code size} entries and runs a batch of {@code BATCH} operations against it, so the
+ * book stays close to its nominal size and the (unmeasured) rebuild isn't part of the result.
+ * Confirmation messages printed by {@code addEntry}/{@code deleteEntry} go to a discarded stream.
+ * With {@code subscribed}, a {@code ChangeSubscription} whose listener ignores the changes is open on the
+ * book, which measures what delivering every change costs the thread that makes it.
+ * @author Jake McGrath
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, batchSize = PhoneBookMutationBenchmarks.BATCH)
+@Measurement(iterations = 5, batchSize = PhoneBookMutationBenchmarks.BATCH)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx16g"})
+public class PhoneBookMutationBenchmarks {
+
+	protected static final int BATCH = 1000;
+
+	@Param({"1000", "10000", "100000", "1000000", "10000000"})
+	public int size;
+
+	@Param({"false", "true"})
+	public boolean subscribed;
+
+	private PhoneBook book;
+	private ChangeSubscription subscription;
+	private Person[] additions;
+	private String[] lines;
+	private Person[] deletions;
+	private int cursor;
+	private PrintStream originalOut;
+
+
+	@Setup(Level.Trial)
+	public void setUpTrial() {
+		originalOut = System.out;
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+		additions = new Person[BATCH];
+		lines = new String[BATCH];
+		for (int i = 0; i < BATCH; i++) {
+			additions[i] = BenchmarkData.person(size + i);
+			lines[i] = additions[i].toString();
+		}
+	}
+
+	@Setup(Level.Iteration)
+	public void setUpIteration() {
+		book = BenchmarkData.book(size);
+		cursor = 0;
+		// the entries themselves, each picked once, so every delete removes a different entry by ID rather
+		// than whichever entry comes first under a common name, and none finds its entry already gone
+		Person[] entries = book.entriesSnapshot();
+		int[] sample = BenchmarkData.sampleDistinct(Math.min(BATCH, entries.length), entries.length);
+		deletions = new Person[sample.length];
+		for (int i = 0; i < sample.length; i++) {
+			deletions[i] = entries[sample[i]];
+		}
+		if (subscribed) {
+			subscription = book.subscribe(new ChangeListener() {
+				@Override
+				public void onChanges(List<ChangeEvent> changes) {
+				}
+
+				@Override
+				public void onOverflow(long lost) {
+				}
+			});
+		}
+	}
+
+	@TearDown(Level.Iteration)
+	public void tearDownIteration() {
+		if (subscription != null) {
+			subscription.close();
+			subscription = null;
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		System.setOut(originalOut);
+	}
+
+	@Benchmark
+	public void addEntry() {
+		book.addEntry(additions[cursor++ % BATCH]);
+	}
+
+	@Benchmark
+	public void deleteEntry() {
+		book.deleteEntry(deletions[cursor++ % deletions.length]);
+	}
+
+	@Benchmark
+	public void entryLoader() {
+		book.entryLoader(lines[cursor++ % BATCH]);
+	}
+
+}
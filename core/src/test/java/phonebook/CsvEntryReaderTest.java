@@ -0,0 +1,104 @@
+package phonebook;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class CsvEntryReaderTest {
+
+	private static final String HEADER = "firstName,middleName,lastName,streetAddress,city,state,zipCode,phoneNumber\r\n";
+
+	private final ImportReport report = new ImportReport();
+
+	private List<Person> readAll(String csv) throws IOException {
+		List<Person> result = new ArrayList<>();
+		try (CsvEntryReader reader = new CsvEntryReader(new StringReader(csv), report)) {
+			for (Person p = reader.read(); p != null; p = reader.read()) {
+				result.add(p);
+			}
+		}
+		return result;
+	}
+
+	@Test
+	void headerRowIsSkipped() throws IOException {
+		List<Person> people = readAll(HEADER + "Jane,,Doe,1 Main St,Chicago,IL,60616,3125550100\r\n");
+		assertEquals(1, people.size());
+		assertEquals("Doe, Jane", people.get(0).getFullName());
+		assertEquals(0, report.getRejected());
+	}
+
+	@Test
+	void quotedFieldsKeepCommasLineBreaksAndQuotes() throws IOException {
+		List<Person> people = readAll(HEADER
+				+ "Jane,,Doe,\"Apt 2, 1 Main St\",Chicago,IL,60616,3125550100\r\n"
+				+ "John,,Roe,\"Suite 4\r\n2 Oak Ave\",Chicago,IL,60616,3125550101\n"
+				+ "Ann,,Poe,\"3 \"\"Elm\"\" Ct\",Chicago,IL,60616,3125550102");
+		assertEquals(3, people.size());
+		assertEquals("Apt 2, 1 Main St", people.get(0).getAddress().getStreetAddress());
+		assertEquals("Suite 4\r\n2 Oak Ave", people.get(1).getAddress().getStreetAddress());
+		assertEquals("3 \"Elm\" Ct", people.get(2).getAddress().getStreetAddress());
+		assertEquals(0, report.getRejected());
+	}
+
+	@Test
+	void writtenRecordsReadBack() throws IOException {
+		Person p = new Person("Doe, Jane", "3125550100",
+				new Address("Apt 2, \"Rear\"\r\n1 Main St", "Chicago", "IL", "60616"));
+		StringWriter out = new StringWriter();
+		try (CsvEntryWriter writer = new CsvEntryWriter(out)) {
+			writer.write(p);
+		}
+		List<Person> people = readAll(out.toString());
+		assertEquals(1, people.size());
+		assertEquals(p.getAddress().getStreetAddress(), people.get(0).getAddress().getStreetAddress());
+	}
+
+	@Test
+	void unterminatedQuoteIsRejected() throws IOException {
+		List<Person> people = readAll(HEADER
+				+ "Jane,,Doe,1 Main St,Chicago,IL,60616,3125550100\r\n"
+				+ "John,,Roe,\"2 Oak Ave,Chicago,IL,60616,3125550101\r\n");
+		assertEquals(1, people.size());
+		assertEquals(1, report.getRejected());
+		assertTrue(report.getDetails()[0].startsWith("Line 3: Unterminated quoted field"), report.getDetails()[0]);
+	}
+
+	@Test
+	void strayQuotesAndWrongFieldCountsAreRejected() throws IOException {
+		List<Person> people = readAll(HEADER
+				+ "Jane,,Doe,1 \"Main\" St,Chicago,IL,60616,3125550100\r\n"
+				+ "John,,Roe,\"2 Oak Ave\"x,Chicago,IL,60616,3125550101\r\n"
+				+ "Ann,,Poe,3 Elm Ct,Chicago,IL,60616\r\n"
+				+ "Bob,,Loe,4 Ash Rd,Chicago,IL,60616,3125550103\r\n");
+		assertEquals(1, people.size());
+		assertEquals("Loe, Bob", people.get(0).getFullName());
+		assertEquals(3, report.getRejected());
+		assertTrue(report.getDetails()[2].startsWith("Line 4: Expected 8 fields but found 7"), report.getDetails()[2]);
+	}
+
+	@Test
+	void overlongFieldIsRejected() throws IOException {
+		String street = "1".repeat(CsvEntryReader.MAX_FIELD_LENGTH + 1);
+		List<Person> people = readAll("Jane,,Doe,\"" + street + "\",Chicago,IL,60616,3125550100\r\n"
+				+ "John,,Roe,2 Oak Ave,Chicago,IL,60616,3125550101\r\n");
+		assertEquals(1, people.size());
+		assertEquals(1, report.getRejected());
+		assertTrue(report.getDetails()[0].contains("Field longer than"), report.getDetails()[0]);
+	}
+
+	@Test
+	void missingRequiredFieldIsRejected() throws IOException {
+		assertTrue(readAll("Jane,,,1 Main St,Chicago,IL,60616,3125550100\r\n").isEmpty());
+		assertEquals(1, report.getRejected());
+		assertTrue(report.getDetails()[0].contains("Missing lastName"), report.getDetails()[0]);
+	}
+
+}
@@ -0,0 +1,62 @@
+package phonebook;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DiskPhoneBookTest {
+
+	@TempDir
+	Path directory;
+
+	private static PhoneBook phoneBook() {
+		PhoneBook phoneBook = new PhoneBook();
+		phoneBook.insertEntry(new Person("Doe, Jane", "3125550100", new Address("1 Main St", "Chicago", "IL", "60616")));
+		phoneBook.insertEntry(new Person("Roe, John", "3125550101", new Address("2 Oak Ave", "Chicago", "IL", "60616")));
+		return phoneBook;
+	}
+
+	@Test
+	void storeCutShortFailsInsteadOfReadingZeros() throws IOException {
+		Path file = directory.resolve("PhoneBook" + DiskPhoneBook.EXTENSION);
+		DiskPhoneBook.write(phoneBook(), file);
+		try (DiskPhoneBook store = DiskPhoneBook.open(file)) {
+			assertEquals("Roe, John", store.searchByPhoneNumber("3125550101").getFullName());
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			channel.truncate(channel.size() - 100);		// into the last page, a tree root
+		}
+		try (DiskPhoneBook store = DiskPhoneBook.open(file)) {
+			assertThrows(EOFException.class, () -> store.searchByPhoneNumber("3125550101"));
+		}
+	}
+
+	@Test
+	void shortFileIsNotAStore() throws IOException {
+		Path file = directory.resolve("PhoneBook" + DiskPhoneBook.EXTENSION);
+		Files.writeString(file, "Jane Doe, 1 Main St, Chicago, IL, 60616, (312)-555-0100\n");
+		IOException e = assertThrows(IOException.class, () -> DiskPhoneBook.open(file));
+		assertTrue(e.getMessage().startsWith("Not a PhoneBook store"), e.getMessage());
+	}
+
+	@Test
+	void closedMappedPhoneBookCantBeSearched() throws IOException {
+		Path file = directory.resolve("PhoneBook.txt");
+		phoneBook().exportEntries(file, EntryFormat.TEXT);
+		MappedPhoneBook mapped = MappedPhoneBook.open(file, true);
+		assertEquals("Doe, Jane", mapped.searchByFullName("Jane Doe").getFullName());
+		mapped.close();
+		assertThrows(IllegalStateException.class, () -> mapped.searchByFullName("Jane Doe"));
+	}
+
+}
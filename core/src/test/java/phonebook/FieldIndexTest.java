@@ -0,0 +1,64 @@
+package phonebook;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class FieldIndexTest {
+
+	@Test
+	void addAndRemoveKeepEveryBucketExact() {
+		Random random = new Random(42);
+		String[] states = {"IL", "MO", "TX"};
+		FieldIndex index = new FieldIndex(SearchField.STATE);
+		List<Person> indexed = new ArrayList<>();
+		for (int step = 0; step < 20_000; step++) {
+			if (indexed.isEmpty() || random.nextInt(100) < 60) {
+				Person p = new Person("Doe, Jane", "3125550100", new Address(step + " Main St", "Chicago",
+						states[random.nextInt(states.length)], "60616"));
+				index.add(p);
+				indexed.add(p);
+			} else {
+				Person p = indexed.remove(random.nextInt(indexed.size()));
+				index.remove(p);
+				index.remove(p);								// a second remove finds nothing
+			}
+			if (step % 500 == 0) {
+				assertMatches(index, indexed, states);
+			}
+		}
+		assertMatches(index, indexed, states);
+		for (Person p: indexed) {
+			index.remove(p);
+		}
+		assertEquals(0, index.rows());
+		assertEquals(0, index.cardinality());
+	}
+
+	private static void assertMatches(FieldIndex index, List<Person> indexed, String[] states) {
+		assertEquals(indexed.size(), index.rows());
+		for (String state: states) {
+			List<Person> expected = new ArrayList<>();
+			for (Person p: indexed) {
+				if (p.getAddress().getState().equals(state)) {
+					expected.add(p);
+				}
+			}
+			Set<Person> actual = Collections.newSetFromMap(new IdentityHashMap<>());
+			actual.addAll(Arrays.asList(index.lookup(SearchField.STATE.normalize(state))));
+			assertEquals(expected.size(), index.count(SearchField.STATE.normalize(state)));
+			assertEquals(expected.size(), actual.size());
+			assertTrue(actual.containsAll(expected));
+		}
+	}
+
+}
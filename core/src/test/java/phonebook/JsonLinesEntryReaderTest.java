@@ -0,0 +1,103 @@
+package phonebook;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class JsonLinesEntryReaderTest {
+
+	private static final String JANE = "{\"firstName\":\"Jane\",\"lastName\":\"Doe\",\"streetAddress\":\"1 Main St\","
+			+ "\"city\":\"Chicago\",\"state\":\"IL\",\"zipCode\":\"60616\",\"phoneNumber\":\"3125550100\"}";
+
+	private final ImportReport report = new ImportReport();
+
+	private List<Person> readAll(String jsonLines) throws IOException {
+		List<Person> result = new ArrayList<>();
+		try (JsonLinesEntryReader reader = new JsonLinesEntryReader(new StringReader(jsonLines), report)) {
+			for (Person p = reader.read(); p != null; p = reader.read()) {
+				result.add(p);
+			}
+		}
+		return result;
+	}
+
+	private static String withStreet(String jsonStreet) {
+		return JANE.replace("\"1 Main St\"", jsonStreet);
+	}
+
+	@Test
+	void escapesAreDecoded() throws IOException {
+		List<Person> people = readAll(withStreet("\"Apt 2, \\\"Rear\\\"\\r\\n1 Main St \\u00e9\\/\\\\\"") + "\n");
+		assertEquals(1, people.size());
+		assertEquals("Apt 2, \"Rear\"\r\n1 Main St é/\\", people.get(0).getAddress().getStreetAddress());
+		assertEquals(0, report.getRejected());
+	}
+
+	@Test
+	void everyLineEndingAndBlankLinesAreAccepted() throws IOException {
+		assertEquals(3, readAll(JANE + "\r\n\r\n" + JANE + "\r" + JANE).size());
+		assertEquals(0, report.getRejected());
+	}
+
+	@Test
+	void writtenRecordsReadBack() throws IOException {
+		Person p = new Person("Doe, Jane", "3125550100",
+				new Address("Apt 2, \"Rear\"\r\n1 Main St\t\u0001", "Chicago", "IL", "60616"));
+		StringWriter out = new StringWriter();
+		try (JsonLinesEntryWriter writer = new JsonLinesEntryWriter(out)) {
+			writer.write(p);
+		}
+		List<Person> people = readAll(out.toString());
+		assertEquals(1, people.size());
+		assertEquals(p.getAddress().getStreetAddress(), people.get(0).getAddress().getStreetAddress());
+	}
+
+	@Test
+	void badEscapesAreRejected() throws IOException {
+		List<Person> people = readAll(withStreet("\"1 Main\\x St\"") + "\n"
+				+ withStreet("\"1 Main \\u00zz St\"") + "\n"
+				+ "{\"firstName\":\"Jane\\u00\n"
+				+ JANE + "\n");
+		assertEquals(1, people.size());
+		assertEquals(3, report.getRejected());
+		String[] details = report.getDetails();
+		assertTrue(details[0].startsWith("Line 1: Malformed JSON") && details[0].contains("invalid escape"), details[0]);
+		assertTrue(details[1].startsWith("Line 2: Malformed JSON") && details[1].contains("invalid unicode escape"),
+				details[1]);
+		assertTrue(details[2].startsWith("Line 3: Malformed JSON") && details[2].contains("truncated unicode escape"),
+				details[2]);
+	}
+
+	@Test
+	void unterminatedStringsAndTrailingTextAreRejected() throws IOException {
+		List<Person> people = readAll(withStreet("\"1 Main St") + "\n" + JANE + " x\n" + JANE + "\n");
+		assertEquals(1, people.size());
+		assertEquals(2, report.getRejected());
+		assertTrue(report.getDetails()[1].contains("unexpected trailing characters"), report.getDetails()[1]);
+	}
+
+	@Test
+	void overlongLineIsRejected() throws IOException {
+		String street = "\"" + "1".repeat(JsonLinesEntryReader.MAX_LINE_LENGTH) + "\"";
+		List<Person> people = readAll(withStreet(street) + "\n" + JANE + "\n");
+		assertEquals(1, people.size());
+		assertEquals(1, report.getRejected());
+		assertTrue(report.getDetails()[0].startsWith("Line 1: Line longer than " + JsonLinesEntryReader.MAX_LINE_LENGTH),
+				report.getDetails()[0]);
+	}
+
+	@Test
+	void missingRequiredMemberIsRejected() throws IOException {
+		assertTrue(readAll(JANE.replace("\"lastName\":\"Doe\",", "")).isEmpty());
+		assertEquals(1, report.getRejected());
+		assertTrue(report.getDetails()[0].contains("Missing lastName"), report.getDetails()[0]);
+	}
+
+}
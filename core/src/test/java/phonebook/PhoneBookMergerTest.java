@@ -0,0 +1,38 @@
+package phonebook;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PhoneBookMergerTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void equalNamesKeepTheirInputOrderAcrossRuns() throws IOException {
+		List<String> lines = new ArrayList<>();
+		List<String> phones = new ArrayList<>();
+		for (int i = 0; i < 40; i++) {
+			String phone = String.format("(312)-555-%04d", 100 + (i * 37) % 40);
+			phones.add(phone);
+			lines.add("Jane Doe, 1 Main St, Chicago, IL, 60616, " + phone);
+		}
+		Path file = directory.resolve("PhoneBook.txt");
+		Files.write(file, lines);
+		PhoneBookMerger merger = new PhoneBookMerger(PhoneBookMerger.Policy.KEEP_BOTH, 3);
+		Person[] merged = merger.merge(new Person[0], new String[0], 0, file);
+		assertEquals(phones.size(), merger.getMergedSize());
+		for (int i = 0; i < phones.size(); i++) {
+			assertEquals(phones.get(i), merged[i].getPhoneNumber(), "entry " + i);
+		}
+	}
+
+}
@@ -0,0 +1,68 @@
+package phonebook;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class PhoneBookOwnershipTest {
+
+	private static Person person() {
+		return new Person("Doe, Jane", "3125550100", new Address("1 Main St", "Chicago", "IL", "60616"));
+	}
+
+	@Test
+	void samePersonTwiceIsRefused() {
+		PhoneBook phoneBook = new PhoneBook();
+		Person p = person();
+		phoneBook.insertEntry(p);
+		long id = p.getId();
+		assertThrows(IllegalArgumentException.class, () -> phoneBook.insertEntry(p));
+		assertEquals(1, phoneBook.size());
+		assertEquals(id, p.getId());
+		phoneBook.insertEntry(p.copy());
+		assertEquals(2, phoneBook.size());
+		assertTrue(phoneBook.deleteById(id));
+		assertNull(phoneBook.getById(id));
+	}
+
+	@Test
+	void personInAnotherBookIsRefused() {
+		PhoneBook first = new PhoneBook();
+		PhoneBook second = new PhoneBook();
+		Person p = person();
+		first.insertEntry(p);
+		assertThrows(IllegalArgumentException.class, () -> second.insertEntry(p));
+		assertThrows(IllegalArgumentException.class, () -> second.putById(7, p));
+		assertEquals(0, second.size());
+		p.setFullName("Roe, Jane");
+		assertSame(p, first.searchByFullName("Roe, Jane"));
+		assertNull(first.searchByFullName("Doe, Jane"));
+	}
+
+	@Test
+	void replacingWithAnEntryIsRefused() {
+		PhoneBook phoneBook = new PhoneBook();
+		Person p = person();
+		Person other = new Person("Roe, John", "3125550101", new Address("2 Oak Ave", "Chicago", "IL", "60616"));
+		phoneBook.insertEntry(p);
+		phoneBook.insertEntry(other);
+		assertThrows(IllegalArgumentException.class, () -> phoneBook.replaceById(p.getId(), other));
+		assertSame(p, phoneBook.getById(p.getId()));
+		assertSame(other, phoneBook.getById(other.getId()));
+	}
+
+	@Test
+	void deletedPersonCanBeAddedAgain() {
+		PhoneBook phoneBook = new PhoneBook();
+		Person p = person();
+		phoneBook.insertEntry(p);
+		assertTrue(phoneBook.deleteById(p.getId()));
+		phoneBook.insertEntry(p);
+		assertSame(p, phoneBook.getById(p.getId()));
+	}
+
+}
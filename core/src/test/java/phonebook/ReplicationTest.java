@@ -0,0 +1,87 @@
+package phonebook;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.DataOutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ReplicationTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void entriesWithCommasReachTheFollowerIntact() throws Exception {
+		PhoneBook phoneBook = new PhoneBook();
+		phoneBook.insertEntry(new Person("Doe, Jane", "3125550100",
+				new Address("Apt 2, 1 Main St", "Chicago", "IL", "60616")));
+		try (ReplicationLeader leader = new ReplicationLeader(phoneBook,
+				UnixDomainSocketAddress.of(dir.resolve("leader.sock")));
+				ReplicationFollower follower = new ReplicationFollower(leader.getAddress())) {
+			assertTrue(follower.awaitCaughtUp(Duration.ofSeconds(10)));
+			phoneBook.insertEntry(new Person("Roe, John", "3125550101",
+					new Address("Unit 5, 20 Oak Ave", "St Louis", "MO", "63101")));
+			assertTrue(follower.awaitMutationCount(phoneBook.getMutationCount(), Duration.ofSeconds(10)));
+
+			Person jane = follower.read(replica -> replica.searchByFullName("Doe, Jane"));
+			assertNotNull(jane);
+			assertEquals("Apt 2, 1 Main St", jane.getAddress().getStreetAddress());
+			assertEquals("60616", jane.getAddress().getZipCode());
+			assertEquals("(312)-555-0100", jane.getPhoneNumber());
+			Person john = follower.read(replica -> replica.searchByFullName("Roe, John"));
+			assertNotNull(john);
+			assertEquals("Unit 5, 20 Oak Ave", john.getAddress().getStreetAddress());
+			assertEquals("St Louis", john.getAddress().getCity());
+			assertEquals(2, (int) follower.read(PhoneBook::size));
+			assertTrue(follower.isConnected());
+			assertNull(follower.getLastFailure());
+		}
+	}
+
+	@Test
+	void followerResyncsAfterARecordItCantApply() throws Exception {
+		UnixDomainSocketAddress address = UnixDomainSocketAddress.of(dir.resolve("bad.sock"));
+		try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+			server.bind(address);
+			try (ReplicationFollower follower = new ReplicationFollower(address)) {
+				for (int attempt = 0; attempt < 2; attempt++) {		// it must come back for a new snapshot
+					try (SocketChannel channel = server.accept()) {
+						DataOutputStream out = new DataOutputStream(Channels.newOutputStream(channel));
+						out.writeInt(ReplicationLeader.MAGIC);
+						out.writeByte(ReplicationLeader.SNAPSHOT);
+						out.writeLong(1);
+						out.writeLong(System.currentTimeMillis());
+						out.writeInt(1);
+						out.writeLong(1);
+						for (String field: new String[] {"", "", "Doe", "1 Main St", "Chicago", "IL", "60616",
+								"3125550100"}) {						// no first name
+							byte[] bytes = field.getBytes(StandardCharsets.UTF_8);
+							out.writeInt(bytes.length);
+							out.write(bytes);
+						}
+						out.flush();
+						while (follower.getLastFailure() == null) {
+							Thread.sleep(10);
+						}
+					}
+				}
+				assertInstanceOf(IllegalArgumentException.class, follower.getLastFailure());
+			}
+		}
+	}
+
+}
@@ -0,0 +1,75 @@
+package phonebook;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SaveFormatTest {
+
+	@TempDir
+	Path directory;
+
+	private static Person person(String street) {
+		return new Person("Doe, Jane", "3125550100", new Address(street, "Chicago", "IL", "60616"));
+	}
+
+	@Test
+	void registryKeepsACommaInAField() throws IOException {
+		try (PhoneBookRegistry registry = new PhoneBookRegistry(directory, Long.MAX_VALUE)) {
+			try (PhoneBookRegistry.Lease lease = registry.open("team")) {
+				lease.getPhoneBook().insertEntry(person("Apt 2, 1 Main St"));
+			}
+			assertTrue(registry.evict("team"));
+			try (PhoneBookRegistry.Lease lease = registry.open("team")) {
+				Person p = lease.getPhoneBook().searchByFullName("Doe, Jane");
+				assertNotNull(p);
+				assertEquals("Apt 2, 1 Main St", p.getAddress().getStreetAddress());
+			}
+		}
+		assertTrue(Files.exists(directory.resolve("team.csv.pbz")));
+	}
+
+	@Test
+	void registryLoadsAnOlderTextSave() throws IOException {
+		PhoneBook old = new PhoneBook();
+		old.insertEntry(person("1 Main St"));
+		old.exportEntries(directory.resolve("team.txt.pbz"), EntryFormat.TEXT);
+		try (PhoneBookRegistry registry = new PhoneBookRegistry(directory, Long.MAX_VALUE)) {
+			try (PhoneBookRegistry.Lease lease = registry.open("team")) {
+				assertEquals(1, lease.getPhoneBook().size());
+				lease.getPhoneBook().insertEntry(new Person("Roe, John", "3125550101",
+						new Address("2 Oak Ave", "Chicago", "IL", "60616")));
+			}
+		}
+		try (PhoneBookRegistry registry = new PhoneBookRegistry(directory, Long.MAX_VALUE);
+				PhoneBookRegistry.Lease lease = registry.open("team")) {
+			assertEquals(2, lease.getPhoneBook().size());
+		}
+	}
+
+	@Test
+	void textExportRefusesAFieldItCantHold() throws IOException {
+		Path file = directory.resolve("PhoneBook.txt");
+		PhoneBook phoneBook = new PhoneBook();
+		phoneBook.insertEntry(person("1 Main St"));
+		phoneBook.exportEntries(file, EntryFormat.TEXT);
+		byte[] saved = Files.readAllBytes(file);
+		phoneBook.insertEntry(new Person("Roe, John", "3125550101",
+				new Address("Apt 2, 1 Main St", "Chicago", "IL", "60616")));
+		assertThrows(IOException.class, () -> phoneBook.exportEntries(file, EntryFormat.TEXT));
+		assertArrayEquals(saved, Files.readAllBytes(file));
+		try (var files = Files.list(directory)) {
+			assertEquals(1, files.count());		// the temporary file was removed
+		}
+	}
+
+}